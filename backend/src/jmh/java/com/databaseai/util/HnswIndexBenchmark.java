@@ -0,0 +1,90 @@
+package com.databaseai.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HNSW search latency per efSearch, against the exact scan
+ *
+ * Same data as HnswIndexTest (which asserts the recall): 3000 random
+ * 64-dimension vectors, queried with noisy copies of stored vectors.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args=HnswIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HnswIndexBenchmark {
+
+    private static final int DIMENSION = 64;
+    private static final int VECTORS = 3000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+
+    @Param({"16", "32", "64", "128"})
+    private int efSearch;
+
+    private HnswIndex index;
+    private float[][] queries;
+    private int next;
+    private final long[] ids = new long[K];
+    private final float[] scores = new float[K];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        index = new HnswIndex(DIMENSION, 16, 200);
+        for (int i = 0; i < VECTORS; i++) {
+            index.add(i, randomUnitVector(random));
+        }
+
+        queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = index.getVector(random.nextInt(VECTORS)).clone();
+            for (int i = 0; i < DIMENSION; i++) {
+                query[i] += (float) (random.nextGaussian() * 0.05);
+            }
+            VectorMath.normalize(query);
+            queries[q] = query;
+        }
+    }
+
+    @Benchmark
+    public int search() {
+        return index.search(nextQuery(), K, efSearch, ids, scores);
+    }
+
+    @Benchmark
+    public int exactSearch() {
+        return index.exactSearch(nextQuery(), K, ids, scores);
+    }
+
+    private float[] nextQuery() {
+        next = (next + 1) % QUERIES;
+        return queries[next];
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        VectorMath.normalize(vector);
+        return vector;
+    }
+}
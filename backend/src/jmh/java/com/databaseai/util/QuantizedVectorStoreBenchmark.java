@@ -0,0 +1,86 @@
+package com.databaseai.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quantized candidate search against the exact float scan
+ *
+ * Same data as QuantizedVectorStoreTest (which asserts the recall and memory):
+ * 2000 random 256-dimension vectors, 40 candidates per query (k 10, oversample 4).
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args=QuantizedVectorStoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuantizedVectorStoreBenchmark {
+
+    private static final int DIMENSION = 256;
+    private static final int VECTORS = 2000;
+    private static final int CANDIDATES = 40;
+
+    private float[] vectors;
+    private float[] query;
+    private QuantizedVectorStore int8;
+    private QuantizedVectorStore binary;
+    private final long[] ids = new long[CANDIDATES];
+    private final float[] scores = new float[CANDIDATES];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        vectors = new float[VECTORS * DIMENSION];
+        int8 = new QuantizedVectorStore(DIMENSION, false, 4);
+        binary = new QuantizedVectorStore(DIMENSION, true, 4);
+        for (int i = 0; i < VECTORS; i++) {
+            float[] vector = randomUnitVector(random);
+            System.arraycopy(vector, 0, vectors, i * DIMENSION, DIMENSION);
+            int8.add(i, vector);
+            binary.add(i, vector);
+        }
+        query = randomUnitVector(random);
+    }
+
+    @Benchmark
+    public int int8Candidates() {
+        return int8.candidates(query, CANDIDATES, ids, scores);
+    }
+
+    @Benchmark
+    public int binaryInt8Candidates() {
+        return binary.candidates(query, CANDIDATES, ids, scores);
+    }
+
+    @Benchmark
+    public int exactFloatScan() {
+        TopKHeap heap = new TopKHeap(CANDIDATES);
+        for (int i = 0; i < VECTORS; i++) {
+            heap.offer(i, VectorMath.dot(vectors, i * DIMENSION, query));
+        }
+        return heap.size();
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        VectorMath.normalize(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,92 @@
+package com.databaseai.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dot-product kernels: time per dot product of a 1536-dimension embedding
+ *
+ * - boxedCosine: List<Double> cosine (how similarity used to be computed)
+ * - scalarDot: float[] loop
+ * - activeKernelDot: VectorMath.dot (the SIMD kernel when run with -Psimd, else scalar)
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args=VectorMathBenchmark
+ * SIMD: mvn -Pbenchmark,simd test-compile exec:exec -Djmh.args=VectorMathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorMathBenchmark {
+
+    private static final int DIMENSION = 1536;
+
+    private float[] vector;
+    private float[] query;
+    private List<Double> boxedVector;
+    private List<Double> boxedQuery;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        vector = randomUnitVector(random);
+        query = randomUnitVector(random);
+        boxedVector = toBoxed(vector);
+        boxedQuery = toBoxed(query);
+    }
+
+    @Benchmark
+    public double boxedCosine() {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < boxedQuery.size(); i++) {
+            dot += boxedQuery.get(i) * boxedVector.get(i);
+            normA += boxedQuery.get(i) * boxedQuery.get(i);
+            normB += boxedVector.get(i) * boxedVector.get(i);
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    @Benchmark
+    public float scalarDot() {
+        return VectorMath.scalarDot(vector, 0, query, 0, DIMENSION);
+    }
+
+    @Benchmark
+    public float activeKernelDot() {
+        return VectorMath.dot(vector, 0, query, 0, DIMENSION);
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        VectorMath.normalize(vector);
+        return vector;
+    }
+
+    private static List<Double> toBoxed(float[] vector) {
+        List<Double> boxed = new ArrayList<>(vector.length);
+        for (float value : vector) {
+            boxed.add((double) value);
+        }
+        return boxed;
+    }
+}
@@ -0,0 +1,66 @@
+package com.databaseai.config;
+
+import com.databaseai.util.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Async Web Configuration
+ * 
+ * Streaming endpoints (StreamingResponseBody) write the response on a
+ * separate thread after the controller method returns.
+ * 
+ * By default Spring uses an unbounded SimpleAsyncTaskExecutor and the
+ * servlet container's async timeout (30 seconds on Tomcat), which would cut
+ * off long streamed results. This configures:
+ * - A bounded thread pool for streaming responses
+ * - A timeout longer than the maximum query timeout (300 seconds)
+ * - Virtual threads for streaming when enabled and running on Java 21+
+ *
+ * At startup it logs whether virtual threads are actually in use
+ * (spring.threads.virtual.enabled=true on a Java 17 runtime falls back to
+ * platform threads everywhere).
+ */
+@Configuration
+public class AsyncWebConfig implements WebMvcConfigurer {
+
+    @Value("${query-execution.stream.async-timeout-ms:600000}")
+    private long asyncTimeoutMs;
+
+    @Value("${query-execution.stream.max-concurrent:16}")
+    private int maxConcurrentStreams;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logThreadMode() {
+        if (!virtualThreads) {
+            return;
+        }
+        if (VirtualThreads.isSupported()) {
+            System.out.println("INFO: Virtual threads enabled (Java " + Runtime.version().feature() + ")");
+        } else {
+            System.err.println("WARNING: spring.threads.virtual.enabled=true, but Java " + Runtime.version().feature()
+                    + " has no virtual threads (Java 21+ needed) - using platform threads");
+        }
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(VirtualThreads.threadFactory("stream-", virtualThreads));
+        executor.setCorePoolSize(maxConcurrentStreams);
+        executor.setMaxPoolSize(maxConcurrentStreams);
+        executor.setQueueCapacity(maxConcurrentStreams * 4);
+        executor.initialize();
+
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+}
@@ -1,5 +1,6 @@
 package com.databaseai.controller;
 
+import com.databaseai.service.EmbeddingCache;
 import com.databaseai.service.EmbeddingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +22,9 @@ public class EmbeddingController {
     @Autowired
     private EmbeddingService embeddingService;
 
+    @Autowired
+    private EmbeddingCache embeddingCache;
+
     /**
      * POST /api/embeddings/generate
      * 
@@ -116,5 +120,17 @@ public class EmbeddingController {
                 : "OpenAI API key is not configured");
         return ResponseEntity.ok(response);
     }
-}
 
+    /**
+     * GET /api/embeddings/cache-stats
+     * 
+     * Embedding cache hit/miss counters (in-memory and database tiers)
+     * and micro-batching statistics (batches sent, average batch size)
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>(embeddingCache.getStats());
+        response.put("batching", embeddingService.getBatchingStats());
+        return ResponseEntity.ok(response);
+    }
+}
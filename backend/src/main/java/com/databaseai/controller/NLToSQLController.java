@@ -3,13 +3,17 @@ package com.databaseai.controller;
 import com.databaseai.dto.NLToSQLRequest;
 import com.databaseai.dto.NLToSQLResponse;
 import com.databaseai.service.NLToSQLService;
+import com.databaseai.service.SemanticQueryCache;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -43,6 +47,9 @@ public class NLToSQLController {
     @Autowired
     private NLToSQLService nlToSQLService;
 
+    @Autowired
+    private SemanticQueryCache semanticQueryCache;
+
     /**
      * Convert natural language to SQL using RAG
      * 
@@ -64,26 +71,82 @@ public class NLToSQLController {
                     request.getDatabaseInfoId(),
                     request.getNaturalLanguageQuery(),
                     request.getTopK() != null ? request.getTopK() : 5,
-                    requestId
+                    requestId,
+                    Boolean.TRUE.equals(request.getStreamTokens())
             );
 
             response.setRequestId(requestId);
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            // Create error response
-            NLToSQLResponse errorResponse = new NLToSQLResponse();
-            errorResponse.setSqlQuery("");
-            errorResponse.setNaturalLanguageQuery(request.getNaturalLanguageQuery());
-            errorResponse.setDatabaseInfoId(request.getDatabaseInfoId());
-            errorResponse.setValid(false);
-            errorResponse.setValidationErrors(List.of("Error: " + e.getMessage()));
-            errorResponse.setRequestId(requestId);
-
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse(request, requestId, e));
         }
     }
 
+    /**
+     * Convert natural language to SQL using RAG, without blocking
+     * 
+     * POST /api/nl-to-sql/convert-reactive (context path /api is added automatically)
+     * 
+     * Same request and response as /convert, but the servlet thread is released
+     * while OpenAI computes the embedding and the SQL (the response is written
+     * when the Mono completes). The database lookup and the schema retrieval
+     * run concurrently.
+     * 
+     * @param request NLToSQLRequest with database ID and query
+     * @return Mono with the NLToSQLResponse
+     */
+    @PostMapping("/convert-reactive")
+    public Mono<ResponseEntity<NLToSQLResponse>> convertToSQLReactive(
+            @Valid @RequestBody NLToSQLRequest request
+    ) {
+        String requestId = (request.getClientRequestId() != null && !request.getClientRequestId().isBlank())
+                ? request.getClientRequestId()
+                : UUID.randomUUID().toString();
+
+        return nlToSQLService.convertToSQLReactive(
+                        request.getDatabaseInfoId(),
+                        request.getNaturalLanguageQuery(),
+                        request.getTopK() != null ? request.getTopK() : 5,
+                        requestId,
+                        Boolean.TRUE.equals(request.getStreamTokens())
+                )
+                .map(response -> {
+                    response.setRequestId(requestId);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(errorResponse(request, requestId, e))));
+    }
+
+    /**
+     * Error response: empty SQL, marked invalid, with the error message
+     */
+    private NLToSQLResponse errorResponse(NLToSQLRequest request, String requestId, Throwable e) {
+        NLToSQLResponse errorResponse = new NLToSQLResponse();
+        errorResponse.setSqlQuery("");
+        errorResponse.setNaturalLanguageQuery(request.getNaturalLanguageQuery());
+        errorResponse.setDatabaseInfoId(request.getDatabaseInfoId());
+        errorResponse.setValid(false);
+        errorResponse.setValidationErrors(List.of("Error: " + e.getMessage()));
+        errorResponse.setRequestId(requestId);
+        return errorResponse;
+    }
+
+    /**
+     * Semantic cache statistics (hits, misses, cached conversions)
+     * and request coalescing statistics (duplicates that waited on a running conversion)
+     * 
+     * GET /api/nl-to-sql/cache-stats (context path /api is added automatically)
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        Map<String, Object> response = new HashMap<>(semanticQueryCache.getStats());
+        response.put("coalescing", nlToSQLService.getCoalescingStats());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Health check endpoint
      * 
@@ -2,12 +2,22 @@ package com.databaseai.controller;
 
 import com.databaseai.dto.QueryExecutionRequest;
 import com.databaseai.dto.QueryExecutionResponse;
+import com.databaseai.dto.QueryJobResponse;
+import com.databaseai.service.ArrowResultWriter;
+import com.databaseai.service.ConcurrencyLimiterRegistry;
+import com.databaseai.service.OpenAiRateLimiter;
 import com.databaseai.service.QueryExecutionService;
+import com.databaseai.service.QueryJobService;
+import com.databaseai.service.SQLValidator;
+import com.databaseai.service.TargetConnectionPoolRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,7 +30,11 @@ import java.util.UUID;
  * 
  * This controller handles:
  * - Executing generated SQL queries
+ * - Streaming large results (NDJSON)
+ * - Apache Arrow results (Accept: application/vnd.apache.arrow.stream)
+ * - Asynchronous query jobs (submit, poll, cancel)
  * - Testing database connections
+ * - Connection pool statistics
  * - Query status and health checks
  * 
  * Security:
@@ -33,7 +47,8 @@ import java.util.UUID;
  * {
  *   "databaseInfoId": 1,
  *   "sqlQuery": "SELECT * FROM customers LIMIT 5",
- *   "timeoutSeconds": 30
+ *   "timeoutSeconds": 30,
+ *   "resultFormat": "rows"        // or "columnar"
  * }
  */
 @RestController
@@ -44,6 +59,21 @@ public class QueryExecutionController {
     @Autowired
     private QueryExecutionService queryExecutionService;
 
+    @Autowired
+    private QueryJobService queryJobService;
+
+    @Autowired
+    private TargetConnectionPoolRegistry connectionPoolRegistry;
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+
+    @Autowired
+    private OpenAiRateLimiter openAiRateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Execute SQL query
      * 
@@ -72,7 +102,8 @@ public class QueryExecutionController {
                     request.getDatabaseInfoId(),
                     request.getSqlQuery(),
                     request.getTimeoutSeconds(),
-                    requestId
+                    requestId,
+                    request.getResultFormat()
             );
 
             response.setRequestId(requestId);
@@ -99,6 +130,167 @@ public class QueryExecutionController {
         }
     }
 
+    /**
+     * Execute SQL query, results as Apache Arrow IPC stream
+     * 
+     * POST /api/query-execution/execute
+     * Accept: application/vnd.apache.arrow.stream
+     * 
+     * Same endpoint and request body as the JSON mode above; Spring picks this
+     * method when the client asks for Arrow in the Accept header. Record
+     * batches are written straight from the JDBC ResultSet, so analysts can
+     * load results into pandas/Polars without parsing JSON:
+     * 
+     *   pyarrow.ipc.open_stream(response.content).read_pandas()
+     * 
+     * Validation errors are returned as JSON with status 400/404 before
+     * streaming starts.
+     */
+    @PostMapping(value = "/execute", produces = ArrowResultWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> executeQueryArrow(
+            @Valid @RequestBody QueryExecutionRequest request
+    ) {
+        String requestId = (request.getClientRequestId() != null && !request.getClientRequestId().isBlank())
+                ? request.getClientRequestId()
+                : UUID.randomUUID().toString();
+
+        SQLValidator.ValidationResult preflight = queryExecutionService.preflight(
+                request.getDatabaseInfoId(),
+                request.getSqlQuery()
+        );
+        if (!preflight.isValid()) {
+            String errorMessage = String.join(", ", preflight.getErrors());
+            HttpStatus status = errorMessage.startsWith("Database not found")
+                    ? HttpStatus.NOT_FOUND
+                    : HttpStatus.BAD_REQUEST;
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("errorMessage", errorMessage);
+            error.put("requestId", requestId);
+
+            StreamingResponseBody errorBody = outputStream -> objectMapper.writeValue(outputStream, error);
+            return ResponseEntity.status(status)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(errorBody);
+        }
+
+        StreamingResponseBody body = outputStream -> queryExecutionService.streamQueryAsArrow(
+                request.getDatabaseInfoId(),
+                request.getSqlQuery(),
+                request.getTimeoutSeconds(),
+                requestId,
+                outputStream
+        );
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ArrowResultWriter.MEDIA_TYPE))
+                .header("X-Request-Id", requestId)
+                .body(body);
+    }
+
+    /**
+     * Execute SQL query and stream results
+     * 
+     * POST /api/query-execution/execute/stream
+     * 
+     * Same request body as /execute, but rows are written to the response as
+     * NDJSON while they are read from the database (nothing is buffered), so
+     * large results start arriving immediately and don't fill the heap.
+     * 
+     * Response (one JSON value per line):
+     * {"type":"columns","requestId":"...","columns":["id","name"]}
+     * [1,"John"]
+     * {"type":"complete","rowCount":1,"executionTimeMs":45}
+     * 
+     * Errors are reported as a final {"type":"error","message":"..."} line.
+     */
+    @PostMapping(value = "/execute/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> executeQueryStream(
+            @Valid @RequestBody QueryExecutionRequest request
+    ) {
+        String requestId = (request.getClientRequestId() != null && !request.getClientRequestId().isBlank())
+                ? request.getClientRequestId()
+                : UUID.randomUUID().toString();
+
+        StreamingResponseBody body = outputStream -> queryExecutionService.streamQuery(
+                request.getDatabaseInfoId(),
+                request.getSqlQuery(),
+                request.getTimeoutSeconds(),
+                requestId,
+                outputStream
+        );
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header("X-Request-Id", requestId)
+                .body(body);
+    }
+
+    /**
+     * Submit query as an asynchronous job
+     * 
+     * POST /api/query-execution/jobs
+     * 
+     * Same request body as /execute. Returns 202 Accepted with the job ID right
+     * away; the query runs in the background and progress is published over
+     * WebSocket with the job ID as requestId.
+     * 
+     * Response:
+     * {"jobId": "4f1c...", "status": "QUEUED"}
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@Valid @RequestBody QueryExecutionRequest request) {
+        try {
+            String jobId = queryJobService.submit(
+                    request.getDatabaseInfoId(),
+                    request.getSqlQuery(),
+                    request.getTimeoutSeconds(),
+                    request.getClientRequestId()
+            );
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new QueryJobResponse(jobId, QueryJobService.STATUS_QUEUED));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Get job status and results
+     * 
+     * GET /api/query-execution/jobs/{jobId}?page=0&size=100
+     * 
+     * Rows are returned one page at a time once the job has SUCCEEDED.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<QueryJobResponse> getJob(
+            @PathVariable String jobId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        return queryJobService.getJob(jobId, page, size)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancel a job
+     * 
+     * DELETE /api/query-execution/jobs/{jobId}
+     * 
+     * Calls Statement.cancel() on the running query (or removes it from the queue).
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<QueryJobResponse> cancelJob(@PathVariable String jobId) {
+        return queryJobService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Test database connection
      * 
@@ -131,6 +323,38 @@ public class QueryExecutionController {
         }
     }
 
+    /**
+     * Connection pool statistics
+     * 
+     * GET /api/query-execution/pools
+     * 
+     * Returns active/idle/total/waiting connections for every open
+     * per-database connection pool.
+     */
+    @GetMapping("/pools")
+    public ResponseEntity<Map<String, Object>> poolStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("pools", connectionPoolRegistry.getPoolStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Concurrency limiter statistics
+     * 
+     * GET /api/query-execution/concurrency
+     * 
+     * Returns in-flight / available permits for the OpenAI limiters and
+     * every per-database query limiter, plus the OpenAI rate limiter buckets
+     * (requests/tokens per minute, queued and rejected calls).
+     */
+    @GetMapping("/concurrency")
+    public ResponseEntity<Map<String, Object>> concurrencyStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("limiters", concurrencyLimiterRegistry.getStats());
+        response.put("rateLimits", openAiRateLimiter.getStats());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Health check endpoint
      * 
@@ -1,7 +1,12 @@
 package com.databaseai.controller;
 
+import com.databaseai.dto.SchemaIntrospectionJobResponse;
 import com.databaseai.model.SchemaEmbedding;
 import com.databaseai.service.SchemaEmbeddingService;
+import com.databaseai.service.SchemaGraphService;
+import com.databaseai.service.SchemaIntrospectionService;
+import com.databaseai.service.SchemaLexicalIndex;
+import com.databaseai.service.SchemaVectorIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +21,7 @@ import java.util.Map;
  * 
  * Handles:
  * - Indexing schemas (generating and storing embeddings)
+ * - Indexing a whole database from its metadata (introspection jobs)
  * - Searching similar schemas
  * - Managing schema embeddings
  */
@@ -26,6 +32,18 @@ public class SchemaEmbeddingController {
     @Autowired
     private SchemaEmbeddingService schemaEmbeddingService;
 
+    @Autowired
+    private SchemaVectorIndex schemaVectorIndex;
+
+    @Autowired
+    private SchemaLexicalIndex schemaLexicalIndex;
+
+    @Autowired
+    private SchemaGraphService schemaGraphService;
+
+    @Autowired
+    private SchemaIntrospectionService schemaIntrospectionService;
+
     /**
      * POST /api/schema-embeddings/index
      * 
@@ -111,6 +129,93 @@ public class SchemaEmbeddingController {
         return ResponseEntity.ok(schemas);
     }
 
+    /**
+     * GET /api/schema-embeddings/index-stats
+     * 
+     * Loaded in-memory vector indexes (vectors, dimension, memory per database)
+     * and BM25 lexical indexes (schemas, terms per database), plus the
+     * cached foreign-key graphs used for RAG context expansion
+     */
+    @GetMapping("/index-stats")
+    public ResponseEntity<Map<String, Object>> getIndexStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("indexes", schemaVectorIndex.getStats());
+        response.put("lexicalIndexes", schemaLexicalIndex.getStats());
+        response.put("schemaGraphs", schemaGraphService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /api/schema-embeddings/introspect
+     * 
+     * Index all tables of a database from its JDBC metadata (background job).
+     * Incremental: only new tables and tables whose definition changed (content
+     * hash) are embedded again, dropped tables are deleted. Running it again
+     * after a failure or cancel continues where it stopped. Progress is
+     * published over WebSocket (/topic/schema-indexing) with the job ID as requestId.
+     * 
+     * Request body (everything but databaseInfoId optional):
+     * {
+     *   "databaseInfoId": 1,
+     *   "schemaPattern": "public",
+     *   "tablePattern": "order%",
+     *   "includeViews": false,
+     *   "clientRequestId": "..."
+     * }
+     * 
+     * Response (202 Accepted):
+     * {"jobId": "9b2e...", "status": "QUEUED"}
+     * 
+     * 409 Conflict if a job for the same database is already queued or running.
+     */
+    @PostMapping("/introspect")
+    public ResponseEntity<?> introspect(@RequestBody Map<String, Object> request) {
+        if (request.get("databaseInfoId") == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "databaseInfoId is required"));
+        }
+        try {
+            String jobId = schemaIntrospectionService.submit(
+                    Long.valueOf(request.get("databaseInfoId").toString()),
+                    request.get("schemaPattern") != null ? request.get("schemaPattern").toString() : null,
+                    request.get("tablePattern") != null ? request.get("tablePattern").toString() : null,
+                    request.get("includeViews") != null && Boolean.parseBoolean(request.get("includeViews").toString()),
+                    request.get("clientRequestId") != null ? request.get("clientRequestId").toString() : null
+            );
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new SchemaIntrospectionJobResponse(jobId, SchemaIntrospectionService.STATUS_QUEUED));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/schema-embeddings/introspect/{jobId}
+     * 
+     * Introspection job status and progress counters
+     */
+    @GetMapping("/introspect/{jobId}")
+    public ResponseEntity<SchemaIntrospectionJobResponse> getIntrospectionJob(@PathVariable String jobId) {
+        return schemaIntrospectionService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * DELETE /api/schema-embeddings/introspect/{jobId}
+     * 
+     * Cancel an introspection job (batches already indexed are kept)
+     */
+    @DeleteMapping("/introspect/{jobId}")
+    public ResponseEntity<SchemaIntrospectionJobResponse> cancelIntrospectionJob(@PathVariable String jobId) {
+        return schemaIntrospectionService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * DELETE /api/schema-embeddings/{id}
      * 
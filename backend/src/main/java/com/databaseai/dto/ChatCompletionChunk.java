@@ -0,0 +1,95 @@
+package com.databaseai.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Chat Completion Chunk DTO
+ * 
+ * One server-sent event from the OpenAI Chat API when "stream": true.
+ * Each chunk carries the next piece of the answer (usually one token) in
+ * choices[0].delta.content; the stream ends with "data: [DONE]".
+ * 
+ * Example:
+ * data: {"choices":[{"index":0,"delta":{"content":"SELECT"},"finish_reason":null}]}
+ * 
+ * Fields we don't use (id, created, index, logprobs, ...) are ignored.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ChatCompletionChunk {
+
+    private List<Choice> choices;
+    private String model;
+
+    // Getters and Setters
+    public List<Choice> getChoices() {
+        return choices;
+    }
+
+    public void setChoices(List<Choice> choices) {
+        this.choices = choices;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    /**
+     * Inner class: Streamed choice
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Choice {
+        private Delta delta;
+
+        @JsonProperty("finish_reason")
+        private String finishReason;
+
+        // Getters and Setters
+        public Delta getDelta() {
+            return delta;
+        }
+
+        public void setDelta(Delta delta) {
+            this.delta = delta;
+        }
+
+        public String getFinishReason() {
+            return finishReason;
+        }
+
+        public void setFinishReason(String finishReason) {
+            this.finishReason = finishReason;
+        }
+    }
+
+    /**
+     * Inner class: New content since the previous chunk
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Delta {
+        private String role;
+        private String content;
+
+        // Getters and Setters
+        public String getRole() {
+            return role;
+        }
+
+        public void setRole(String role) {
+            this.role = role;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public void setContent(String content) {
+            this.content = content;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.databaseai.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
@@ -33,6 +34,13 @@ public class ChatRequest {
     @JsonProperty("max_tokens")
     private Integer maxTokens = 500;
 
+    /**
+     * Stream the answer as server-sent events (one chunk per token)
+     * Omitted from the request when not set
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stream;
+
     // Constructors
     public ChatRequest() {
     }
@@ -74,6 +82,14 @@ public class ChatRequest {
         this.maxTokens = maxTokens;
     }
 
+    public Boolean getStream() {
+        return stream;
+    }
+
+    public void setStream(Boolean stream) {
+        this.stream = stream;
+    }
+
     /**
      * Inner class: Message in conversation
      */
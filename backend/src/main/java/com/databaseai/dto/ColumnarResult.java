@@ -0,0 +1,193 @@
+package com.databaseai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Columnar Query Result DTO
+ * 
+ * Alternative to the row-based "rows" list in QueryExecutionResponse.
+ * Column names and types are sent once, then each column's values are sent
+ * as one primitive array, which is much smaller (and cheaper to build) for
+ * wide numeric results than a list of maps.
+ * 
+ * Encodings:
+ * - LONG: integer columns → "longValues": [1, 2, 3]
+ * - DOUBLE: floating point columns → "doubleValues": [1.5, 2.0]
+ * - DECIMAL: NUMERIC / DECIMAL columns, exact decimal strings (a double
+ *   can't hold every decimal) → "scale": 2, "dictionary": ["19.99", "5.00"], "codes": [0, 1, 0]
+ * - BOOLEAN: boolean columns → "booleanValues": [true, false]
+ * - DICTIONARY: everything else → "dictionary": ["US", "DE"], "codes": [0, 1, 0]
+ * 
+ * Null cells are listed by row index in "nullRows" (the value at that index
+ * in the primitive array is 0 / false / -1 and should be ignored).
+ * 
+ * Example:
+ * {
+ *   "rowCount": 3,
+ *   "columns": [
+ *     {"name": "id", "sqlType": "int8", "encoding": "LONG", "longValues": [1, 2, 3]},
+ *     {"name": "country", "sqlType": "varchar", "encoding": "DICTIONARY",
+ *      "dictionary": ["US", "DE"], "codes": [0, 1, 0]}
+ *   ]
+ * }
+ */
+public class ColumnarResult {
+
+    public static final String ENCODING_LONG = "LONG";
+    public static final String ENCODING_DOUBLE = "DOUBLE";
+    public static final String ENCODING_DECIMAL = "DECIMAL";
+    public static final String ENCODING_BOOLEAN = "BOOLEAN";
+    public static final String ENCODING_DICTIONARY = "DICTIONARY";
+
+    /**
+     * Number of rows (length of every value array)
+     */
+    private int rowCount;
+
+    /**
+     * One entry per result column, in result order
+     */
+    private List<Column> columns;
+
+    // Constructors
+    public ColumnarResult() {
+    }
+
+    public ColumnarResult(int rowCount, List<Column> columns) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    // Getters and Setters
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<Column> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Inner class: one column of values
+     * 
+     * Only the array matching "encoding" is set.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Column {
+        private String name;
+        private String sqlType;
+        private String encoding;
+
+        /**
+         * Digits after the decimal point (DECIMAL columns)
+         */
+        private Integer scale;
+
+        private long[] longValues;
+        private double[] doubleValues;
+        private boolean[] booleanValues;
+        private List<String> dictionary;
+        private int[] codes;
+        private int[] nullRows;
+
+        public Column() {
+        }
+
+        public Column(String name, String sqlType, String encoding) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.encoding = encoding;
+        }
+
+        // Getters and Setters
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getSqlType() {
+            return sqlType;
+        }
+
+        public void setSqlType(String sqlType) {
+            this.sqlType = sqlType;
+        }
+
+        public String getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(String encoding) {
+            this.encoding = encoding;
+        }
+
+        public Integer getScale() {
+            return scale;
+        }
+
+        public void setScale(Integer scale) {
+            this.scale = scale;
+        }
+
+        public long[] getLongValues() {
+            return longValues;
+        }
+
+        public void setLongValues(long[] longValues) {
+            this.longValues = longValues;
+        }
+
+        public double[] getDoubleValues() {
+            return doubleValues;
+        }
+
+        public void setDoubleValues(double[] doubleValues) {
+            this.doubleValues = doubleValues;
+        }
+
+        public boolean[] getBooleanValues() {
+            return booleanValues;
+        }
+
+        public void setBooleanValues(boolean[] booleanValues) {
+            this.booleanValues = booleanValues;
+        }
+
+        public List<String> getDictionary() {
+            return dictionary;
+        }
+
+        public void setDictionary(List<String> dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        public int[] getCodes() {
+            return codes;
+        }
+
+        public void setCodes(int[] codes) {
+            this.codes = codes;
+        }
+
+        public int[] getNullRows() {
+            return nullRows;
+        }
+
+        public void setNullRows(int[] nullRows) {
+            this.nullRows = nullRows;
+        }
+    }
+}
@@ -11,12 +11,14 @@ import java.util.List;
  * (No business logic, just data structure)
  */
 public class EmbeddingRequest {
+
+    public static final String DEFAULT_MODEL = "text-embedding-ada-002";
     
     /**
      * Model to use for embeddings
      * OpenAI's text-embedding-ada-002 is recommended (cheap, good quality)
      */
-    private String model = "text-embedding-ada-002";
+    private String model = DEFAULT_MODEL;
     
     /**
      * List of texts to convert to embeddings
@@ -1,5 +1,7 @@
 package com.databaseai.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -28,8 +30,10 @@ public class NLToSQLRequest {
     private String naturalLanguageQuery;
 
     /**
-     * Number of relevant schemas to retrieve (default: 5)
+     * Number of relevant schemas to retrieve (default: 5, 1-50)
      */
+    @Min(value = 1, message = "topK must be at least 1")
+    @Max(value = 50, message = "topK must be at most 50")
     private Integer topK = 5;
 
     /**
@@ -37,6 +41,12 @@ public class NLToSQLRequest {
      */
     private String clientRequestId;
 
+    /**
+     * Stream GPT tokens over WebSocket while the SQL is generated
+     * (stage LLM_TOKEN on /topic/nl-to-sql). The response is the same either way.
+     */
+    private Boolean streamTokens;
+
     // Constructors
     public NLToSQLRequest() {
     }
@@ -79,5 +89,13 @@ public class NLToSQLRequest {
     public void setClientRequestId(String clientRequestId) {
         this.clientRequestId = clientRequestId;
     }
+
+    public Boolean getStreamTokens() {
+        return streamTokens;
+    }
+
+    public void setStreamTokens(Boolean streamTokens) {
+        this.streamTokens = streamTokens;
+    }
 }
 
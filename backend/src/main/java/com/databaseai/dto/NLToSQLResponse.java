@@ -10,6 +10,7 @@ import java.util.List;
  * - Relevant schema context used
  * - Explanation of the query
  * - Validation status
+ * - Token counts of the prompt
  */
 public class NLToSQLResponse {
 
@@ -53,6 +54,42 @@ public class NLToSQLResponse {
      */
     private String requestId;
 
+    /**
+     * Whether the SQL came from the semantic cache (an equivalent earlier question)
+     * instead of a new GPT call
+     */
+    private boolean cacheHit;
+
+    /**
+     * Cosine similarity to the cached question (only set on a cache hit)
+     */
+    private Double cacheSimilarity;
+
+    /**
+     * Tokens sent to GPT (system + user prompt); not set on a cache hit
+     */
+    private Integer promptTokens;
+
+    /**
+     * Part of promptTokens taken by the schema context
+     */
+    private Integer schemaContextTokens;
+
+    /**
+     * Tokens of the generated SQL
+     */
+    private Integer completionTokens;
+
+    /**
+     * Schemas whose description was trimmed to fit the token budget
+     */
+    private Integer schemasTrimmed;
+
+    /**
+     * Retrieved schemas left out of the prompt (token budget)
+     */
+    private Integer schemasOmitted;
+
     // Constructors
     public NLToSQLResponse() {
     }
@@ -129,6 +166,62 @@ public class NLToSQLResponse {
         this.requestId = requestId;
     }
 
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    public Double getCacheSimilarity() {
+        return cacheSimilarity;
+    }
+
+    public void setCacheSimilarity(Double cacheSimilarity) {
+        this.cacheSimilarity = cacheSimilarity;
+    }
+
+    public Integer getPromptTokens() {
+        return promptTokens;
+    }
+
+    public void setPromptTokens(Integer promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+
+    public Integer getSchemaContextTokens() {
+        return schemaContextTokens;
+    }
+
+    public void setSchemaContextTokens(Integer schemaContextTokens) {
+        this.schemaContextTokens = schemaContextTokens;
+    }
+
+    public Integer getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public void setCompletionTokens(Integer completionTokens) {
+        this.completionTokens = completionTokens;
+    }
+
+    public Integer getSchemasTrimmed() {
+        return schemasTrimmed;
+    }
+
+    public void setSchemasTrimmed(Integer schemasTrimmed) {
+        this.schemasTrimmed = schemasTrimmed;
+    }
+
+    public Integer getSchemasOmitted() {
+        return schemasOmitted;
+    }
+
+    public void setSchemasOmitted(Integer schemasOmitted) {
+        this.schemasOmitted = schemasOmitted;
+    }
+
     /**
      * Inner class for schema context information
      */
@@ -12,7 +12,8 @@ import jakarta.validation.constraints.NotNull;
  * {
  *   "databaseInfoId": 1,
  *   "sqlQuery": "SELECT * FROM customers LIMIT 5",
- *   "timeoutSeconds": 30
+ *   "timeoutSeconds": 30,
+ *   "resultFormat": "rows"
  * }
  */
 public class QueryExecutionRequest {
@@ -40,6 +41,12 @@ public class QueryExecutionRequest {
      */
     private String clientRequestId;
 
+    /**
+     * Result layout: "rows" (default, list of maps) or "columnar"
+     * (one primitive array per column, see ColumnarResult)
+     */
+    private String resultFormat = QueryExecutionResponse.FORMAT_ROWS;
+
     // Constructors
     public QueryExecutionRequest() {
     }
@@ -93,5 +100,13 @@ public class QueryExecutionRequest {
     public void setClientRequestId(String clientRequestId) {
         this.clientRequestId = clientRequestId;
     }
+
+    public String getResultFormat() {
+        return resultFormat;
+    }
+
+    public void setResultFormat(String resultFormat) {
+        this.resultFormat = resultFormat;
+    }
 }
 
@@ -24,6 +24,9 @@ import java.util.Map;
  */
 public class QueryExecutionResponse {
 
+    public static final String FORMAT_ROWS = "rows";
+    public static final String FORMAT_COLUMNAR = "columnar";
+
     /**
      * Whether the query executed successfully
      */
@@ -35,6 +38,12 @@ public class QueryExecutionResponse {
      */
     private List<Map<String, Object>> rows;
 
+    /**
+     * Query results in columnar form (only set when resultFormat = "columnar";
+     * "rows" is null in that case)
+     */
+    private ColumnarResult columnar;
+
     /**
      * Column names from the result set
      */
@@ -105,6 +114,17 @@ public class QueryExecutionResponse {
         }
     }
 
+    public ColumnarResult getColumnar() {
+        return columnar;
+    }
+
+    public void setColumnar(ColumnarResult columnar) {
+        this.columnar = columnar;
+        if (columnar != null) {
+            this.rowCount = columnar.getRowCount();
+        }
+    }
+
     public List<String> getColumns() {
         return columns;
     }
@@ -0,0 +1,206 @@
+package com.databaseai.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response DTO for asynchronous query jobs
+ *
+ * Returned by:
+ * - POST /api/query-execution/jobs (status only, right after submission)
+ * - GET /api/query-execution/jobs/{jobId}?page=0&size=100 (status + one page of rows)
+ *
+ * Example:
+ * {
+ *   "jobId": "4f1c...",
+ *   "status": "SUCCEEDED",
+ *   "columns": ["id", "name"],
+ *   "rows": [{"id": 1, "name": "John"}],
+ *   "rowCount": 1520,
+ *   "page": 0,
+ *   "pageSize": 100,
+ *   "totalPages": 16,
+ *   "executionTimeMs": 5321
+ * }
+ */
+public class QueryJobResponse {
+
+    /**
+     * Job ID (also the requestId used for WebSocket updates)
+     */
+    private String jobId;
+
+    /**
+     * QUEUED, RUNNING, SUCCEEDED, FAILED or CANCELLED
+     */
+    private String status;
+
+    private Long databaseInfoId;
+
+    private String sqlQuery;
+
+    private LocalDateTime submittedAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * Error message (if the job failed)
+     */
+    private String errorMessage;
+
+    /**
+     * Column names (once the job has succeeded)
+     */
+    private List<String> columns;
+
+    /**
+     * One page of result rows (once the job has succeeded)
+     */
+    private List<Map<String, Object>> rows;
+
+    /**
+     * Total number of result rows
+     */
+    private Integer rowCount;
+
+    private Integer page;
+
+    private Integer pageSize;
+
+    private Integer totalPages;
+
+    private Long executionTimeMs;
+
+    // Constructors
+    public QueryJobResponse() {
+    }
+
+    public QueryJobResponse(String jobId, String status) {
+        this.jobId = jobId;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getDatabaseInfoId() {
+        return databaseInfoId;
+    }
+
+    public void setDatabaseInfoId(Long databaseInfoId) {
+        this.databaseInfoId = databaseInfoId;
+    }
+
+    public String getSqlQuery() {
+        return sqlQuery;
+    }
+
+    public void setSqlQuery(String sqlQuery) {
+        this.sqlQuery = sqlQuery;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<Map<String, Object>> rows) {
+        this.rows = rows;
+    }
+
+    public Integer getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(Integer rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public Integer getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(Integer totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public Long getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+
+    public void setExecutionTimeMs(Long executionTimeMs) {
+        this.executionTimeMs = executionTimeMs;
+    }
+}
@@ -0,0 +1,204 @@
+package com.databaseai.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for schema introspection (bulk indexing) jobs
+ *
+ * Returned by:
+ * - POST /api/schema-embeddings/introspect (status only, right after submission)
+ * - GET /api/schema-embeddings/introspect/{jobId}
+ *
+ * Example:
+ * {
+ *   "jobId": "9b2e...",
+ *   "status": "RUNNING",
+ *   "databaseInfoId": 1,
+ *   "tablesFound": 1200,
+ *   "tablesSkipped": 0,
+ *   "tablesIndexed": 3,
+ *   "tablesUnchanged": 1190,
+ *   "tablesDeleted": 1,
+ *   "tablesFailed": 0,
+ *   "batchesCompleted": 7
+ * }
+ */
+public class SchemaIntrospectionJobResponse {
+
+    /**
+     * Job ID (also the requestId used for WebSocket updates)
+     */
+    private String jobId;
+
+    /**
+     * QUEUED, RUNNING, SUCCEEDED, FAILED or CANCELLED
+     */
+    private String status;
+
+    private Long databaseInfoId;
+
+    /**
+     * Tables and views read from the database metadata
+     */
+    private Integer tablesFound;
+
+    /**
+     * Tables indexed by hand (POST /index), left alone
+     */
+    private Integer tablesSkipped;
+
+    /**
+     * New or changed tables (embedded)
+     */
+    private Integer tablesIndexed;
+
+    /**
+     * Tables whose content hash didn't change (not embedded again)
+     */
+    private Integer tablesUnchanged;
+
+    /**
+     * Indexed tables that no longer exist in the database
+     */
+    private Integer tablesDeleted;
+
+    /**
+     * Tables in batches that failed (indexed by the next run)
+     */
+    private Integer tablesFailed;
+
+    private Integer batchesCompleted;
+
+    private LocalDateTime submittedAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * Error message (job failed, or the last failed batch)
+     */
+    private String errorMessage;
+
+    // Constructors
+    public SchemaIntrospectionJobResponse() {
+    }
+
+    public SchemaIntrospectionJobResponse(String jobId, String status) {
+        this.jobId = jobId;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getDatabaseInfoId() {
+        return databaseInfoId;
+    }
+
+    public void setDatabaseInfoId(Long databaseInfoId) {
+        this.databaseInfoId = databaseInfoId;
+    }
+
+    public Integer getTablesFound() {
+        return tablesFound;
+    }
+
+    public void setTablesFound(Integer tablesFound) {
+        this.tablesFound = tablesFound;
+    }
+
+    public Integer getTablesSkipped() {
+        return tablesSkipped;
+    }
+
+    public void setTablesSkipped(Integer tablesSkipped) {
+        this.tablesSkipped = tablesSkipped;
+    }
+
+    public Integer getTablesIndexed() {
+        return tablesIndexed;
+    }
+
+    public void setTablesIndexed(Integer tablesIndexed) {
+        this.tablesIndexed = tablesIndexed;
+    }
+
+    public Integer getTablesUnchanged() {
+        return tablesUnchanged;
+    }
+
+    public void setTablesUnchanged(Integer tablesUnchanged) {
+        this.tablesUnchanged = tablesUnchanged;
+    }
+
+    public Integer getTablesDeleted() {
+        return tablesDeleted;
+    }
+
+    public void setTablesDeleted(Integer tablesDeleted) {
+        this.tablesDeleted = tablesDeleted;
+    }
+
+    public Integer getTablesFailed() {
+        return tablesFailed;
+    }
+
+    public void setTablesFailed(Integer tablesFailed) {
+        this.tablesFailed = tablesFailed;
+    }
+
+    public Integer getBatchesCompleted() {
+        return batchesCompleted;
+    }
+
+    public void setBatchesCompleted(Integer batchesCompleted) {
+        this.batchesCompleted = batchesCompleted;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
@@ -0,0 +1,87 @@
+package com.databaseai.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * EmbeddingCacheEntry Entity
+ * 
+ * Persistent tier of the embedding cache (see EmbeddingCache).
+ * 
+ * One row per (model, text) pair that has already been embedded by OpenAI,
+ * so repeated questions and schema re-indexing don't pay for the same
+ * embedding twice - even after a restart.
+ * 
+ * Key format: "<model>:<sha-256 hex of normalized text>"
+ * (the text itself isn't stored)
+ */
+@Entity
+@Table(name = "embedding_cache")
+public class EmbeddingCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 200)
+    private String cacheKey;
+
+    /**
+     * Embedding model (e.g., "text-embedding-ada-002")
+     */
+    @Column(nullable = false, length = 100)
+    private String model;
+
+    /**
+     * Embedding vector, little-endian float32 (same format as SchemaEmbedding)
+     */
+    @Column(name = "embedding_bin", length = 65536, nullable = false)
+    private byte[] embeddingBin;
+
+    /**
+     * When the embedding was generated (entries older than the TTL are ignored and purged)
+     */
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public EmbeddingCacheEntry() {
+    }
+
+    public EmbeddingCacheEntry(String cacheKey, String model, byte[] embeddingBin) {
+        this.cacheKey = cacheKey;
+        this.model = model;
+        this.embeddingBin = embeddingBin;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public byte[] getEmbeddingBin() {
+        return embeddingBin;
+    }
+
+    public void setEmbeddingBin(byte[] embeddingBin) {
+        this.embeddingBin = embeddingBin;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
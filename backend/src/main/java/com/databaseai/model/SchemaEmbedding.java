@@ -1,8 +1,13 @@
 package com.databaseai.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -20,9 +25,16 @@ import java.util.List;
  * - Embedding: [0.123, -0.456, 0.789, ...] (1536 numbers)
  */
 @Entity
-@Table(name = "schema_embeddings")
+@Table(name = "schema_embeddings", uniqueConstraints = @UniqueConstraint(
+        name = SchemaEmbedding.UNIQUE_SCHEMA_NAME, columnNames = {"database_info_id", "schema_name"}))
 public class SchemaEmbedding {
 
+    /**
+     * One row per table and database (also created by SchemaEmbeddingStorageMigration
+     * for tables that existed before the constraint)
+     */
+    public static final String UNIQUE_SCHEMA_NAME = "uk_schema_embeddings_database_schema_name";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -47,14 +59,28 @@ public class SchemaEmbedding {
     private String schemaDescription;
 
     /**
-     * Embedding vector (stored as array)
-     * For pgvector: Would use vector(1536) type
-     * For now: Stored as TEXT (comma-separated) or using native array
+     * Embedding vector, stored as binary
+     * 
+     * Format: little-endian float32, 4 bytes per dimension
+     * (1536 dimensions = 6 KB, vs ~30 KB as a JSON text array)
      * 
+     * PostgreSQL: bytea, H2: varbinary
      * Dimension: 1536 (OpenAI ada-002 embedding size)
      */
-    @Column(columnDefinition = "TEXT", nullable = false)
-    private String embedding; // Stored as JSON array string: "[0.1, 0.2, ...]"
+    @JsonIgnore
+    @Column(name = "embedding_bin", length = 65536)
+    private byte[] embeddingBin;
+
+    /**
+     * Legacy embedding column: JSON array string "[0.1, 0.2, ...]"
+     * 
+     * No longer written. Existing rows are converted to embedding_bin at startup
+     * by SchemaEmbeddingStorageMigration (which then clears this column).
+     * Only read as a fallback for rows that haven't been converted yet.
+     */
+    @JsonIgnore
+    @Column(name = "embedding", columnDefinition = "TEXT")
+    private String legacyEmbedding;
 
     /**
      * Additional metadata (table name, column info, etc.)
@@ -77,46 +103,98 @@ public class SchemaEmbedding {
         this.databaseInfoId = databaseInfoId;
         this.schemaName = schemaName;
         this.schemaDescription = schemaDescription;
-        this.embedding = convertEmbeddingToString(embedding);
+        setEmbeddingFromList(embedding);
         this.createdAt = LocalDateTime.now();
     }
 
-    // Helper methods to convert between List<Double> and String
+    // Helper methods to convert between the binary format and float[] / List<Double>
+
+    /**
+     * Embedding as float[] (decoded straight from the binary column, no per-element objects)
+     */
+    @JsonIgnore
+    public float[] getEmbeddingAsFloats() {
+        if (embeddingBin != null) {
+            return decodeEmbedding(embeddingBin);
+        }
+        return parseLegacyEmbedding(legacyEmbedding);
+    }
+
+    public void setEmbeddingFromFloats(float[] embedding) {
+        this.embeddingBin = encodeEmbedding(embedding);
+        this.legacyEmbedding = null;
+    }
+
+    @JsonIgnore
     public List<Double> getEmbeddingAsList() {
-        return convertStringToEmbedding(this.embedding);
+        float[] floats = getEmbeddingAsFloats();
+        List<Double> embedding = new ArrayList<>(floats.length);
+        for (float value : floats) {
+            embedding.add((double) value);
+        }
+        return embedding;
     }
 
     public void setEmbeddingFromList(List<Double> embedding) {
-        this.embedding = convertEmbeddingToString(embedding);
+        float[] floats = new float[embedding == null ? 0 : embedding.size()];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = embedding.get(i).floatValue();
+        }
+        setEmbeddingFromFloats(floats);
     }
 
-    private String convertEmbeddingToString(List<Double> embedding) {
-        if (embedding == null || embedding.isEmpty()) {
-            return "[]";
-        }
-        // Convert to JSON array format
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < embedding.size(); i++) {
-            if (i > 0) sb.append(",");
-            sb.append(embedding.get(i));
+    /**
+     * Number of dimensions (included in JSON responses instead of the raw vector)
+     */
+    public int getEmbeddingDimension() {
+        if (embeddingBin != null) {
+            return embeddingBin.length / Float.BYTES;
         }
-        sb.append("]");
-        return sb.toString();
+        return getEmbeddingAsFloats().length;
+    }
+
+    /**
+     * float[] → little-endian float32 bytes
+     */
+    public static byte[] encodeEmbedding(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(embedding);
+        return buffer.array();
     }
 
-    private List<Double> convertStringToEmbedding(String embeddingStr) {
-        if (embeddingStr == null || embeddingStr.trim().equals("[]")) {
-            return List.of();
+    /**
+     * Little-endian float32 bytes → float[]
+     */
+    public static float[] decodeEmbedding(byte[] bytes) {
+        float[] embedding = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    /**
+     * Parse the legacy JSON array string: "[0.1,0.2,0.3]" → float[]
+     */
+    public static float[] parseLegacyEmbedding(String embeddingStr) {
+        if (embeddingStr == null) {
+            return new float[0];
+        }
+        String clean = embeddingStr.trim();
+        if (clean.startsWith("[")) {
+            clean = clean.substring(1);
+        }
+        if (clean.endsWith("]")) {
+            clean = clean.substring(0, clean.length() - 1);
         }
-        // Parse JSON array: "[0.1,0.2,0.3]" -> List<Double>
-        String clean = embeddingStr.trim().replaceAll("^\\[|\\]$", "");
-        if (clean.isEmpty()) {
-            return List.of();
+        if (clean.isBlank()) {
+            return new float[0];
         }
-        return java.util.Arrays.stream(clean.split(","))
-                .map(String::trim)
-                .map(Double::parseDouble)
-                .toList();
+
+        String[] parts = clean.split(",");
+        float[] embedding = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            embedding[i] = Float.parseFloat(parts[i].trim());
+        }
+        return embedding;
     }
 
     // Getters and Setters
@@ -152,12 +230,20 @@ public class SchemaEmbedding {
         this.schemaDescription = schemaDescription;
     }
 
-    public String getEmbedding() {
-        return embedding;
+    public byte[] getEmbeddingBin() {
+        return embeddingBin;
+    }
+
+    public void setEmbeddingBin(byte[] embeddingBin) {
+        this.embeddingBin = embeddingBin;
+    }
+
+    public String getLegacyEmbedding() {
+        return legacyEmbedding;
     }
 
-    public void setEmbedding(String embedding) {
-        this.embedding = embedding;
+    public void setLegacyEmbedding(String legacyEmbedding) {
+        this.legacyEmbedding = legacyEmbedding;
     }
 
     public String getMetadata() {
@@ -0,0 +1,30 @@
+package com.databaseai.repository;
+
+import com.databaseai.model.EmbeddingCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * EmbeddingCacheRepository - Data Access Layer
+ * 
+ * Persistent tier of the embedding cache, keyed by "<model>:<sha-256>".
+ */
+@Repository
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String> {
+
+    /**
+     * Delete entries generated before the cutoff (expired by TTL)
+     * 
+     * @return Number of deleted entries
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EmbeddingCacheEntry e WHERE e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
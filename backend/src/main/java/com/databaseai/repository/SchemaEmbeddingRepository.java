@@ -32,14 +32,45 @@ public interface SchemaEmbeddingRepository extends JpaRepository<SchemaEmbedding
     List<SchemaEmbedding> findByDatabaseInfoIdAndSchemaName(Long databaseInfoId, String schemaName);
 
     /**
-     * Custom query: Find similar schemas using cosine similarity
-     * 
-     * Note: This is a simplified version. With pgvector, we'd use:
-     * ORDER BY embedding <=> :queryEmbedding::vector
-     * 
-     * For now, we'll fetch all and calculate similarity in Java (not optimal for large datasets)
+     * Find all embeddings for a database (used to load the in-memory vector index)
      */
     @Query(value = "SELECT * FROM schema_embeddings WHERE database_info_id = :databaseInfoId", nativeQuery = true)
     List<SchemaEmbedding> findAllByDatabaseInfoId(@Param("databaseInfoId") Long databaseInfoId);
-}
 
+    /**
+     * ID, schema name and description of all schemas of a database, without
+     * the embeddings (used to load the in-memory lexical index)
+     */
+    @Query("SELECT s.id, s.schemaName, s.schemaDescription FROM SchemaEmbedding s WHERE s.databaseInfoId = :databaseInfoId")
+    List<Object[]> findTextByDatabaseInfoId(@Param("databaseInfoId") Long databaseInfoId);
+
+    /**
+     * ID, schema name and metadata of all schemas of a database, without the
+     * embeddings (used by incremental re-indexing to find changed tables)
+     */
+    @Query("SELECT s.id, s.schemaName, s.metadata FROM SchemaEmbedding s WHERE s.databaseInfoId = :databaseInfoId")
+    List<Object[]> findMetadataByDatabaseInfoId(@Param("databaseInfoId") Long databaseInfoId);
+
+    /**
+     * IDs of all databases that have schema embeddings
+     * (used to preload the in-memory vector index)
+     */
+    @Query("SELECT DISTINCT s.databaseInfoId FROM SchemaEmbedding s WHERE s.databaseInfoId IS NOT NULL")
+    List<Long> findDistinctDatabaseInfoIds();
+
+    /**
+     * Find the most similar schemas with pgvector (PostgreSQL only)
+     * 
+     * Cosine distance (<=>) and LIMIT run inside Postgres, using the HNSW index
+     * created by PgVectorSupport. Only call when PgVectorSupport.isAvailable().
+     * 
+     * @param queryVector pgvector literal, e.g. "[0.1,0.2,...]"
+     */
+    @Query(value = "SELECT * FROM schema_embeddings "
+            + "WHERE database_info_id = :databaseInfoId AND embedding_vec IS NOT NULL "
+            + "ORDER BY embedding_vec <=> CAST(:queryVector AS vector) "
+            + "LIMIT :topK", nativeQuery = true)
+    List<SchemaEmbedding> findNearestByCosineDistance(@Param("databaseInfoId") Long databaseInfoId,
+                                                      @Param("queryVector") String queryVector,
+                                                      @Param("topK") int topK);
+}
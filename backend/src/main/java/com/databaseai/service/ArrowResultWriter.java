@@ -0,0 +1,314 @@
+package com.databaseai.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMicroTZVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Arrow Result Writer
+ *
+ * Writes a JDBC ResultSet as an Apache Arrow IPC stream
+ * (media type application/vnd.apache.arrow.stream).
+ *
+ * Why Arrow?
+ * - pandas / Polars / DuckDB read Arrow record batches directly (zero-copy),
+ *   no JSON parsing of "rows"
+ * - Values are stored in typed columnar buffers (int64, float64, ...)
+ *
+ * Rows are read in record batches of a bounded size
+ * (query-execution.arrow.batch-size), so memory stays bounded even for
+ * very large results.
+ *
+ * Type mapping:
+ * - Integer types → Int64
+ * - Float types → Float64
+ * - NUMERIC / DECIMAL with a declared precision (up to 38) → Decimal128(precision, scale);
+ *   unconstrained NUMERIC → Utf8 plain decimal string (exact either way)
+ * - Boolean → Bool
+ * - Date → Date32 (days)
+ * - TIMESTAMP → Timestamp(microseconds, no time zone), the wall-clock value as stored
+ * - TIMESTAMP WITH TIME ZONE → Timestamp(microseconds, UTC)
+ *   (recognized by type name too: pgjdbc reports timestamptz as Types.TIMESTAMP)
+ * - Everything else → Utf8 string
+ */
+@Component
+public class ArrowResultWriter {
+
+    public static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    /**
+     * Largest precision a 128-bit Arrow decimal holds
+     */
+    private static final int MAX_DECIMAL_PRECISION = 38;
+
+    @Value("${query-execution.arrow.batch-size:4096}")
+    private int batchSize;
+
+    @Value("${query-execution.arrow.max-memory-bytes:268435456}")
+    private long maxMemoryBytes;
+
+    private final BufferAllocator rootAllocator = new RootAllocator();
+
+    /**
+     * Write all remaining rows of the ResultSet to the output stream
+     *
+     * @param valueConverter Converts non-primitive values to a JSON-friendly form (used for Utf8 columns)
+     * @return Number of rows written
+     */
+    public long write(ResultSet resultSet, OutputStream outputStream, Function<Object, Object> valueConverter)
+            throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        List<Field> fields = new ArrayList<>(columnCount);
+        int[] jdbcTypes = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            jdbcTypes[i] = columnType(metaData, i + 1);
+            fields.add(new Field(metaData.getColumnName(i + 1),
+                    FieldType.nullable(toArrowType(metaData, i + 1)), null));
+        }
+
+        long rowCount = 0;
+
+        // One child allocator per query, capped so a single query can't take all direct memory
+        try (BufferAllocator allocator = rootAllocator.newChildAllocator("arrow-query", 0, maxMemoryBytes);
+             VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields), allocator);
+             ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(outputStream))) {
+
+            writer.start();
+
+            boolean hasMore = true;
+            while (hasMore) {
+                root.allocateNew();
+
+                int batchRows = 0;
+                while (batchRows < batchSize && (hasMore = resultSet.next())) {
+                    for (int i = 0; i < columnCount; i++) {
+                        setValue(root.getVector(i), jdbcTypes[i], resultSet, i + 1, batchRows, valueConverter);
+                    }
+                    batchRows++;
+                }
+
+                if (batchRows > 0 || rowCount == 0) {
+                    root.setRowCount(batchRows);
+                    writer.writeBatch();
+                    rowCount += batchRows;
+                }
+            }
+
+            writer.end();
+        }
+
+        return rowCount;
+    }
+
+    /**
+     * JDBC type of a column, with time-zone-aware timestamps as TIMESTAMP_WITH_TIMEZONE
+     *
+     * pgjdbc reports timestamptz columns as Types.TIMESTAMP; reading those as
+     * LocalDateTime fails, so they are recognized by their type name.
+     */
+    static int columnType(ResultSetMetaData metaData, int column) throws SQLException {
+        int jdbcType = metaData.getColumnType(column);
+        if (jdbcType == Types.TIMESTAMP) {
+            String typeName = metaData.getColumnTypeName(column);
+            if (typeName != null && (typeName.equalsIgnoreCase("timestamptz")
+                    || typeName.equalsIgnoreCase("timestamp with time zone"))) {
+                return Types.TIMESTAMP_WITH_TIMEZONE;
+            }
+        }
+        return jdbcType;
+    }
+
+    private ArrowType toArrowType(ResultSetMetaData metaData, int column) throws SQLException {
+        switch (columnType(metaData, column)) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return new ArrowType.Int(64, true);
+
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+
+            case Types.NUMERIC:
+            case Types.DECIMAL: {
+                // Unconstrained NUMERIC reports precision 0 (or more than 128 bits hold)
+                int precision = metaData.getPrecision(column);
+                int scale = metaData.getScale(column);
+                if (precision < 1 || precision > MAX_DECIMAL_PRECISION || scale < 0 || scale > precision) {
+                    return ArrowType.Utf8.INSTANCE;
+                }
+                return new ArrowType.Decimal(precision, scale, 128);
+            }
+
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return ArrowType.Bool.INSTANCE;
+
+            case Types.DATE:
+                return new ArrowType.Date(DateUnit.DAY);
+
+            case Types.TIMESTAMP:
+                return new ArrowType.Timestamp(TimeUnit.MICROSECOND, null);
+
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return new ArrowType.Timestamp(TimeUnit.MICROSECOND, "UTC");
+
+            default:
+                return ArrowType.Utf8.INSTANCE;
+        }
+    }
+
+    private void setValue(FieldVector vector, int jdbcType, ResultSet resultSet, int column, int row,
+                          Function<Object, Object> valueConverter) throws SQLException {
+        switch (jdbcType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT: {
+                long value = resultSet.getLong(column);
+                if (resultSet.wasNull()) {
+                    ((BigIntVector) vector).setNull(row);
+                } else {
+                    ((BigIntVector) vector).setSafe(row, value);
+                }
+                return;
+            }
+
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL: {
+                double value = resultSet.getDouble(column);
+                if (resultSet.wasNull()) {
+                    ((Float8Vector) vector).setNull(row);
+                } else {
+                    ((Float8Vector) vector).setSafe(row, value);
+                }
+                return;
+            }
+
+            case Types.NUMERIC:
+            case Types.DECIMAL: {
+                BigDecimal value = resultSet.getBigDecimal(column);
+                if (vector instanceof DecimalVector) {
+                    DecimalVector decimalVector = (DecimalVector) vector;
+                    if (value == null) {
+                        decimalVector.setNull(row);
+                    } else {
+                        // Values of a DECIMAL(p, s) column never have more than s digits after the point
+                        decimalVector.setSafe(row, value.setScale(decimalVector.getScale(), RoundingMode.UNNECESSARY));
+                    }
+                } else if (value == null) {
+                    ((VarCharVector) vector).setNull(row);
+                } else {
+                    ((VarCharVector) vector).setSafe(row, value.toPlainString().getBytes(StandardCharsets.UTF_8));
+                }
+                return;
+            }
+
+            case Types.BOOLEAN:
+            case Types.BIT: {
+                boolean value = resultSet.getBoolean(column);
+                if (resultSet.wasNull()) {
+                    ((BitVector) vector).setNull(row);
+                } else {
+                    ((BitVector) vector).setSafe(row, value ? 1 : 0);
+                }
+                return;
+            }
+
+            case Types.DATE: {
+                Date value = resultSet.getDate(column);
+                if (value == null) {
+                    ((DateDayVector) vector).setNull(row);
+                } else {
+                    ((DateDayVector) vector).setSafe(row, (int) value.toLocalDate().toEpochDay());
+                }
+                return;
+            }
+
+            case Types.TIMESTAMP: {
+                // Read as LocalDateTime: getTimestamp would shift it by the JVM's default time zone
+                LocalDateTime value = resultSet.getObject(column, LocalDateTime.class);
+                if (value == null) {
+                    ((TimeStampMicroVector) vector).setNull(row);
+                } else {
+                    ((TimeStampMicroVector) vector).setSafe(row,
+                            value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000);
+                }
+                return;
+            }
+
+            case Types.TIMESTAMP_WITH_TIMEZONE: {
+                OffsetDateTime value = resultSet.getObject(column, OffsetDateTime.class);
+                if (value == null) {
+                    ((TimeStampMicroTZVector) vector).setNull(row);
+                } else {
+                    Instant instant = value.toInstant();
+                    ((TimeStampMicroTZVector) vector).setSafe(row,
+                            instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000);
+                }
+                return;
+            }
+
+            default: {
+                Object value = resultSet.getObject(column);
+                if (value == null) {
+                    ((VarCharVector) vector).setNull(row);
+                } else {
+                    String text = value instanceof String
+                            ? (String) value
+                            : String.valueOf(valueConverter.apply(value));
+                    ((VarCharVector) vector).setSafe(row, text.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rootAllocator.close();
+    }
+}
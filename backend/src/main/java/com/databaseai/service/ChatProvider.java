@@ -0,0 +1,41 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.ChatRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Chat Provider (SPI)
+ * 
+ * Generates text (SQL) from chat messages. LLMService delegates to the
+ * provider selected with ai.chat-provider:
+ * - "openai": OpenAI /chat/completions API (OpenAiChatProvider)
+ * - "local": rule-based SQL generator driven by the schema context in the
+ *   prompt, no network (LocalChatProvider)
+ */
+public interface ChatProvider {
+
+    /**
+     * Provider name used in ai.chat-provider (e.g. "openai", "local")
+     */
+    String getName();
+
+    /**
+     * Whether the provider can be used (e.g. API key present)
+     */
+    boolean isConfigured();
+
+    /**
+     * Generate the complete answer
+     * 
+     * @param messages System and user messages
+     */
+    Mono<String> complete(List<ChatRequest.Message> messages);
+
+    /**
+     * Generate the answer piece by piece (tokens); joined, the same text as complete()
+     */
+    Flux<String> stream(List<ChatRequest.Message> messages);
+}
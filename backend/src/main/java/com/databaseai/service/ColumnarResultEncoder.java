@@ -0,0 +1,305 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.ColumnarResult;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Columnar Result Encoder
+ *
+ * Reads a ResultSet into a ColumnarResult (one primitive array per column).
+ *
+ * Compared to building a List<Map<String, Object>>:
+ * - Column metadata is read once, not once per row
+ * - Numeric cells are read with typed getters (getLong/getDouble/getBoolean)
+ *   straight into primitive arrays - no boxing, no per-row maps
+ * - NUMERIC / DECIMAL cells are kept exact: getBigDecimal, dictionary-encoded
+ *   as plain decimal strings, with the column's scale (getDouble would turn
+ *   12345678901234567.89 into 12345678901234568)
+ * - Repeated strings are dictionary-encoded (each distinct value stored once)
+ */
+public class ColumnarResultEncoder {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private ColumnarResultEncoder() {
+    }
+
+    /**
+     * Read all remaining rows of the ResultSet into columnar form
+     *
+     * @param resultSet Result set positioned before the first row
+     * @param valueConverter Converts non-numeric values (dates, timestamps, ...) to JSON-friendly values
+     */
+    public static ColumnarResult encode(ResultSet resultSet, Function<Object, Object> valueConverter) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        ColumnAccumulator[] accumulators = new ColumnAccumulator[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            accumulators[i] = createAccumulator(metaData, i + 1, valueConverter);
+        }
+
+        int rowCount = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                accumulators[i].read(resultSet, i + 1, rowCount);
+            }
+            rowCount++;
+        }
+
+        List<ColumnarResult.Column> columns = new ArrayList<>(columnCount);
+        for (ColumnAccumulator accumulator : accumulators) {
+            columns.add(accumulator.finish(rowCount));
+        }
+
+        return new ColumnarResult(rowCount, columns);
+    }
+
+    /**
+     * Pick the encoding for a column based on its JDBC type
+     */
+    private static ColumnAccumulator createAccumulator(ResultSetMetaData metaData, int column,
+                                                       Function<Object, Object> valueConverter) throws SQLException {
+        String name = metaData.getColumnName(column);
+        String sqlType = metaData.getColumnTypeName(column);
+
+        switch (metaData.getColumnType(column)) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return new LongAccumulator(name, sqlType);
+
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return new DoubleAccumulator(name, sqlType);
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return new DecimalAccumulator(name, sqlType, metaData.getScale(column));
+
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return new BooleanAccumulator(name, sqlType);
+
+            default:
+                return new DictionaryAccumulator(name, sqlType, valueConverter);
+        }
+    }
+
+    /**
+     * Collects one column's values while rows are read
+     */
+    private abstract static class ColumnAccumulator {
+        protected final String name;
+        protected final String sqlType;
+        private int[] nullRows = new int[0];
+        private int nullCount = 0;
+
+        ColumnAccumulator(String name, String sqlType) {
+            this.name = name;
+            this.sqlType = sqlType;
+        }
+
+        abstract void read(ResultSet resultSet, int column, int row) throws SQLException;
+
+        abstract ColumnarResult.Column finish(int rowCount);
+
+        protected void markNull(int row) {
+            if (nullCount == nullRows.length) {
+                nullRows = Arrays.copyOf(nullRows, Math.max(INITIAL_CAPACITY, nullCount * 2));
+            }
+            nullRows[nullCount++] = row;
+        }
+
+        protected ColumnarResult.Column newColumn(String encoding) {
+            ColumnarResult.Column column = new ColumnarResult.Column(name, sqlType, encoding);
+            if (nullCount > 0) {
+                column.setNullRows(Arrays.copyOf(nullRows, nullCount));
+            }
+            return column;
+        }
+    }
+
+    private static class LongAccumulator extends ColumnAccumulator {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongAccumulator(String name, String sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            values[row] = resultSet.getLong(column);
+            if (resultSet.wasNull()) {
+                markNull(row);
+            }
+        }
+
+        @Override
+        ColumnarResult.Column finish(int rowCount) {
+            ColumnarResult.Column column = newColumn(ColumnarResult.ENCODING_LONG);
+            column.setLongValues(Arrays.copyOf(values, rowCount));
+            return column;
+        }
+    }
+
+    private static class DoubleAccumulator extends ColumnAccumulator {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleAccumulator(String name, String sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            values[row] = resultSet.getDouble(column);
+            if (resultSet.wasNull()) {
+                markNull(row);
+            }
+        }
+
+        @Override
+        ColumnarResult.Column finish(int rowCount) {
+            ColumnarResult.Column column = newColumn(ColumnarResult.ENCODING_DOUBLE);
+            column.setDoubleValues(Arrays.copyOf(values, rowCount));
+            return column;
+        }
+    }
+
+    private static class BooleanAccumulator extends ColumnAccumulator {
+        private boolean[] values = new boolean[INITIAL_CAPACITY];
+
+        BooleanAccumulator(String name, String sqlType) {
+            super(name, sqlType);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            values[row] = resultSet.getBoolean(column);
+            if (resultSet.wasNull()) {
+                markNull(row);
+            }
+        }
+
+        @Override
+        ColumnarResult.Column finish(int rowCount) {
+            ColumnarResult.Column column = newColumn(ColumnarResult.ENCODING_BOOLEAN);
+            column.setBooleanValues(Arrays.copyOf(values, rowCount));
+            return column;
+        }
+    }
+
+    /**
+     * Stores each distinct value once; rows hold an int code into the dictionary
+     */
+    private static class DictionaryAccumulator extends ColumnAccumulator {
+        private final Function<Object, Object> valueConverter;
+        private final Map<String, Integer> codeByValue = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] codes = new int[INITIAL_CAPACITY];
+
+        DictionaryAccumulator(String name, String sqlType, Function<Object, Object> valueConverter) {
+            super(name, sqlType);
+            this.valueConverter = valueConverter;
+        }
+
+        /**
+         * The cell as text, or null for SQL NULL
+         */
+        protected String readText(ResultSet resultSet, int column) throws SQLException {
+            Object value = resultSet.getObject(column);
+            if (value == null) {
+                return null;
+            }
+            return value instanceof String
+                    ? (String) value
+                    : String.valueOf(valueConverter.apply(value));
+        }
+
+        protected String encoding() {
+            return ColumnarResult.ENCODING_DICTIONARY;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, row * 2);
+            }
+
+            String text = readText(resultSet, column);
+            if (text == null) {
+                codes[row] = -1;
+                markNull(row);
+                return;
+            }
+
+            Integer code = codeByValue.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(text);
+                codeByValue.put(text, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        ColumnarResult.Column finish(int rowCount) {
+            ColumnarResult.Column column = newColumn(encoding());
+            column.setDictionary(dictionary);
+            column.setCodes(Arrays.copyOf(codes, rowCount));
+            return column;
+        }
+    }
+
+    /**
+     * Exact decimals: BigDecimal.toPlainString() in a dictionary, plus the column's scale
+     */
+    private static class DecimalAccumulator extends DictionaryAccumulator {
+        private final int scale;
+
+        DecimalAccumulator(String name, String sqlType, int scale) {
+            super(name, sqlType, null);
+            this.scale = scale;
+        }
+
+        @Override
+        protected String readText(ResultSet resultSet, int column) throws SQLException {
+            BigDecimal value = resultSet.getBigDecimal(column);
+            return value == null ? null : value.toPlainString();
+        }
+
+        @Override
+        protected String encoding() {
+            return ColumnarResult.ENCODING_DECIMAL;
+        }
+
+        @Override
+        ColumnarResult.Column finish(int rowCount) {
+            ColumnarResult.Column column = super.finish(rowCount);
+            column.setScale(scale);
+            return column;
+        }
+    }
+}
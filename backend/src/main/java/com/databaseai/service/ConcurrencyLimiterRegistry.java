@@ -0,0 +1,69 @@
+package com.databaseai.service;
+
+import com.databaseai.util.ConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrency Limiter Registry
+ * 
+ * One limiter (bulkhead) per external dependency:
+ * - openai-embeddings: calls to OpenAI /embeddings
+ * - openai-chat: calls to OpenAI /chat/completions
+ * - target-db-{id}: queries against one registered user database
+ * 
+ * This keeps extra request concurrency (e.g. virtual threads) from
+ * overwhelming OpenAI rate limits or the user's database.
+ */
+@Service
+public class ConcurrencyLimiterRegistry {
+
+    public static final String OPENAI_EMBEDDINGS = "openai-embeddings";
+    public static final String OPENAI_CHAT = "openai-chat";
+
+    @Value("${concurrency.openai.embeddings.max-concurrent:16}")
+    private int openAiEmbeddingsMaxConcurrent;
+
+    @Value("${concurrency.openai.chat.max-concurrent:16}")
+    private int openAiChatMaxConcurrent;
+
+    /**
+     * Per target database; a bit above the connection pool size so a few
+     * callers can queue inside the pool, the rest wait here
+     */
+    @Value("${concurrency.target-db.max-concurrent:10}")
+    private int targetDbMaxConcurrent;
+
+    @Value("${concurrency.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiter openAiEmbeddings() {
+        return limiters.computeIfAbsent(OPENAI_EMBEDDINGS,
+                name -> new ConcurrencyLimiter(name, openAiEmbeddingsMaxConcurrent, acquireTimeoutMs));
+    }
+
+    public ConcurrencyLimiter openAiChat() {
+        return limiters.computeIfAbsent(OPENAI_CHAT,
+                name -> new ConcurrencyLimiter(name, openAiChatMaxConcurrent, acquireTimeoutMs));
+    }
+
+    public ConcurrencyLimiter targetDatabase(Long databaseInfoId) {
+        return limiters.computeIfAbsent("target-db-" + databaseInfoId,
+                name -> new ConcurrencyLimiter(name, targetDbMaxConcurrent, acquireTimeoutMs));
+    }
+
+    /**
+     * Statistics for every limiter created so far
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        limiters.values().forEach(limiter -> stats.put(limiter.getName(), limiter.getStats()));
+        return stats;
+    }
+}
@@ -5,6 +5,7 @@ import com.databaseai.repository.DatabaseInfoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,21 @@ public class DatabaseInfoService {
     @Autowired
     private DatabaseInfoRepository databaseInfoRepository;
 
+    @Autowired
+    private TargetConnectionPoolRegistry connectionPoolRegistry;
+
+    @Autowired
+    private SchemaVectorIndex schemaVectorIndex;
+
+    @Autowired
+    private SchemaLexicalIndex schemaLexicalIndex;
+
+    @Autowired
+    private SemanticQueryCache semanticQueryCache;
+
+    @Autowired
+    private SchemaGraphService schemaGraphService;
+
     /**
      * Get all registered databases
      */
@@ -73,6 +89,7 @@ public class DatabaseInfoService {
         
         if (existing.isPresent()) {
             DatabaseInfo dbToUpdate = existing.get();
+            List<Object> previousConnectionSettings = connectionSettings(dbToUpdate);
             dbToUpdate.setName(databaseInfo.getName());
             dbToUpdate.setDatabaseType(databaseInfo.getDatabaseType());
             dbToUpdate.setHost(databaseInfo.getHost());
@@ -88,6 +105,13 @@ public class DatabaseInfoService {
             }
             
             DatabaseInfo saved = databaseInfoRepository.save(dbToUpdate);
+
+            // Close the old connection pool only if the connection changed (closing it
+            // aborts queries and exports in flight) - the next query builds one with the new settings
+            if (!previousConnectionSettings.equals(connectionSettings(saved))) {
+                connectionPoolRegistry.evict(id);
+                schemaGraphService.evict(id);
+            }
             
             // Verify password was saved correctly
             if (saved.getPassword() != null && !saved.getPassword().isEmpty()) {
@@ -102,12 +126,30 @@ public class DatabaseInfoService {
         return Optional.empty();
     }
 
+    /**
+     * Everything a connection to the database depends on (not the display name)
+     */
+    private static List<Object> connectionSettings(DatabaseInfo databaseInfo) {
+        return Arrays.asList(
+                databaseInfo.getDatabaseType(),
+                databaseInfo.getHost(),
+                databaseInfo.getPort(),
+                databaseInfo.getDatabaseName(),
+                databaseInfo.getUsername(),
+                databaseInfo.getPassword());
+    }
+
     /**
      * Delete database registration
      */
     public boolean deleteDatabase(Long id) {
         if (databaseInfoRepository.existsById(id)) {
             databaseInfoRepository.deleteById(id);
+            connectionPoolRegistry.evict(id);
+            schemaVectorIndex.evict(id);
+            schemaLexicalIndex.evict(id);
+            schemaGraphService.evict(id);
+            semanticQueryCache.invalidate(id);
             return true;
         }
         return false;
@@ -0,0 +1,252 @@
+package com.databaseai.service;
+
+import com.databaseai.model.EmbeddingCacheEntry;
+import com.databaseai.model.SchemaEmbedding;
+import com.databaseai.repository.EmbeddingCacheRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedding Cache
+ *
+ * Two-tier cache for OpenAI embeddings, so the same text is only sent to
+ * OpenAI once (saves latency and API cost for repeated questions and for
+ * re-indexing unchanged schemas).
+ *
+ * Tiers:
+ * 1. In memory (Caffeine): bounded by entry count, W-TinyLFU eviction
+ *    (keeps frequently asked questions even when many one-off texts pass through)
+ * 2. Database (embedding_cache table): survives restarts, shared by all instances
+ *
+ * Key: model + SHA-256 of the normalized text
+ * - Normalization: trim + collapse whitespace ("show  users\n" = "show users")
+ * - Case is kept: embeddings are case-sensitive, so lowercasing would return
+ *   a slightly different vector than OpenAI would
+ *
+ * Entries expire after embedding-cache.ttl-hours in both tiers (so a model
+ * update on OpenAI's side is picked up eventually). Expired database rows are
+ * purged at startup.
+ */
+@Component
+public class EmbeddingCache {
+
+    @Autowired
+    private EmbeddingCacheRepository embeddingCacheRepository;
+
+    @Value("${embedding-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${embedding-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${embedding-cache.ttl-hours:720}")
+    private long ttlHours;
+
+    @Value("${embedding-cache.persistent.enabled:true}")
+    private boolean persistentEnabled;
+
+    private Cache<String, float[]> memoryCache;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        memoryCache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Delete expired rows from the persistent tier
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void purgeExpired() {
+        if (!enabled || !persistentEnabled) {
+            return;
+        }
+        try {
+            int deleted = embeddingCacheRepository.deleteOlderThan(LocalDateTime.now().minusHours(ttlHours));
+            if (deleted > 0) {
+                System.out.println("INFO: Purged " + deleted + " expired embedding cache entries");
+            }
+        } catch (Exception e) {
+            System.err.println("WARN: Failed to purge expired embedding cache entries: " + e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look up a cached embedding
+     *
+     * @return The embedding, or empty on a miss (or when the cache is disabled)
+     */
+    public Optional<List<Double>> get(String model, String text) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        String key = cacheKey(model, text);
+
+        float[] cached = memoryCache.getIfPresent(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return Optional.of(toList(cached));
+        }
+
+        if (persistentEnabled) {
+            float[] stored = loadPersistent(key);
+            if (stored != null) {
+                persistentHits.incrementAndGet();
+                memoryCache.put(key, stored);
+                return Optional.of(toList(stored));
+            }
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Store an embedding returned by OpenAI in both tiers
+     *
+     * A failure to write the persistent tier is logged and ignored
+     * (the embedding is still returned to the caller).
+     */
+    public void put(String model, String text, List<Double> embedding) {
+        if (!enabled || embedding == null || embedding.isEmpty()) {
+            return;
+        }
+
+        String key = cacheKey(model, text);
+        float[] vector = toFloats(embedding);
+        memoryCache.put(key, vector);
+        puts.incrementAndGet();
+
+        if (persistentEnabled) {
+            try {
+                embeddingCacheRepository.save(
+                        new EmbeddingCacheEntry(key, model, SchemaEmbedding.encodeEmbedding(vector)));
+            } catch (Exception e) {
+                System.err.println("WARN: Failed to persist embedding cache entry: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hit/miss counters and in-memory cache size
+     */
+    public Map<String, Object> getStats() {
+        long memory = memoryHits.get();
+        long persistent = persistentHits.get();
+        long miss = misses.get();
+        long lookups = memory + persistent + miss;
+        CacheStats caffeineStats = memoryCache.stats();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("persistentEnabled", persistentEnabled);
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlHours", ttlHours);
+        stats.put("memoryEntries", memoryCache.estimatedSize());
+        stats.put("memoryEvictions", caffeineStats.evictionCount());
+        stats.put("memoryHits", memory);
+        stats.put("persistentHits", persistent);
+        stats.put("misses", miss);
+        stats.put("puts", puts.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) (memory + persistent) / lookups);
+        if (persistentEnabled) {
+            try {
+                stats.put("persistentEntries", embeddingCacheRepository.count());
+            } catch (Exception e) {
+                stats.put("persistentEntries", null);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Read an entry from the database tier (expired entries count as a miss and are deleted)
+     */
+    private float[] loadPersistent(String key) {
+        try {
+            Optional<EmbeddingCacheEntry> entry = embeddingCacheRepository.findById(key);
+            if (entry.isEmpty()) {
+                return null;
+            }
+
+            LocalDateTime createdAt = entry.get().getCreatedAt();
+            if (createdAt != null && createdAt.isBefore(LocalDateTime.now().minusHours(ttlHours))) {
+                embeddingCacheRepository.deleteById(key);
+                return null;
+            }
+            return SchemaEmbedding.decodeEmbedding(entry.get().getEmbeddingBin());
+        } catch (Exception e) {
+            System.err.println("WARN: Failed to read embedding cache entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cache key: "<model>:<sha-256 hex of normalized text>"
+     */
+    static String cacheKey(String model, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(normalize(text).getBytes(StandardCharsets.UTF_8));
+            return model + ":" + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Trim and collapse runs of whitespace into a single space
+     */
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+
+    private static float[] toFloats(List<Double> embedding) {
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    private static List<Double> toList(float[] vector) {
+        List<Double> embedding = new ArrayList<>(vector.length);
+        for (float value : vector) {
+            embedding.add((double) value);
+        }
+        return embedding;
+    }
+}
@@ -0,0 +1,40 @@
+package com.databaseai.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Embedding Provider (SPI)
+ * 
+ * Turns texts into embedding vectors. EmbeddingService adds caching and
+ * micro-batching on top and delegates the actual computation to the
+ * provider selected with ai.embedding-provider:
+ * - "openai": OpenAI /embeddings API (OpenAiEmbeddingProvider)
+ * - "local": deterministic hashing-trick embedder, no network (LocalEmbeddingProvider)
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * Provider name used in ai.embedding-provider (e.g. "openai", "local")
+     */
+    String getName();
+
+    /**
+     * Model identifier (part of the embedding cache key, so vectors of
+     * different providers/models never mix)
+     */
+    String getModel();
+
+    /**
+     * Whether the provider can be used (e.g. API key present)
+     */
+    boolean isConfigured();
+
+    /**
+     * Embed a batch of texts
+     * 
+     * @return One embedding per text, in input order
+     */
+    Mono<List<List<Double>>> embed(List<String> texts);
+}
@@ -1,21 +1,30 @@
 package com.databaseai.service;
 
-import com.databaseai.config.OpenAIConfig;
-import com.databaseai.dto.EmbeddingRequest;
-import com.databaseai.dto.EmbeddingResponse;
+import com.databaseai.util.MicroBatcher;
+import com.databaseai.util.VirtualThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Embedding Service
  * 
- * Generates embeddings (vector representations) from text using OpenAI API.
+ * Generates embeddings (vector representations) from text using the
+ * configured EmbeddingProvider (ai.embedding-provider: openai or local).
  * 
  * What are Embeddings?
  * - Embeddings convert text into a list of numbers (vector)
@@ -31,114 +40,270 @@ import java.util.stream.Collectors;
 @Service
 public class EmbeddingService {
 
+    /**
+     * OpenAI accepts at most 2048 inputs per embeddings request
+     */
+    static final int MAX_INPUTS_PER_REQUEST = 2048;
+
+    /**
+     * ... and at most 300k input tokens per request (summed over all inputs)
+     */
+    static final int MAX_TOKENS_PER_REQUEST = 300_000;
+
+    /**
+     * ... and at most 8191 tokens per input
+     */
+    static final int MAX_TOKENS_PER_INPUT = 8191;
+
+    @Autowired
+    private List<EmbeddingProvider> providers;
+
+    @Value("${ai.embedding-provider:openai}")
+    private String providerName;
+
+    /**
+     * Provider that computes embeddings (selected by ai.embedding-provider)
+     */
+    private EmbeddingProvider provider;
+
     @Autowired
-    private WebClient openAiWebClient;
+    private EmbeddingCache embeddingCache;
 
     @Autowired
-    private OpenAIConfig openAIConfig;
+    private PromptTokenizer tokenizer;
+
+    @Value("${embedding-batch.enabled:true}")
+    private boolean batchingEnabled;
+
+    @Value("${embedding-batch.max-size:64}")
+    private int batchMaxSize;
+
+    @Value("${embedding-batch.max-wait-ms:10}")
+    private long batchMaxWaitMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    /**
+     * Combines concurrent generateEmbedding() calls into one OpenAI request
+     */
+    private MicroBatcher<String, List<Double>> embeddingBatcher;
+
+    @PostConstruct
+    public void initBatcher() {
+        provider = providers.stream()
+                .filter(candidate -> candidate.getName().equalsIgnoreCase(providerName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown ai.embedding-provider: " + providerName));
+        System.out.println("INFO: Embedding provider: " + provider.getName() + " (" + provider.getModel() + ")");
+
+        if (batchingEnabled) {
+            // Same request limits as generateEmbeddings(); a batch rejected because of one
+            // input (400) is retried text by text, so only that caller gets the error
+            embeddingBatcher = new MicroBatcher<>("embeddings", Math.min(batchMaxSize, MAX_INPUTS_PER_REQUEST),
+                    batchMaxWaitMs, tokenizer::count, MAX_TOKENS_PER_REQUEST, this::embedBatch,
+                    EmbeddingService::isInputError,
+                    VirtualThreads.threadFactory("embedding-batch-", virtualThreadsEnabled));
+        }
+    }
+
+    @PreDestroy
+    public void shutdownBatcher() {
+        if (embeddingBatcher != null) {
+            embeddingBatcher.shutdown();
+        }
+    }
+
+    /**
+     * Model of the active embedding provider (vectors of different models are not comparable)
+     */
+    public String getModel() {
+        return provider.getModel();
+    }
 
     /**
      * Generate embedding for a single text
      * 
+     * Served from EmbeddingCache when the same text was embedded before;
+     * only cache misses call OpenAI.
+     * 
+     * Cache misses from concurrent callers are micro-batched: they wait up to
+     * embedding-batch.max-wait-ms (or until embedding-batch.max-size texts are
+     * waiting) and are sent to OpenAI as one request.
+     * 
      * @param text Text to convert to embedding
      * @return List of numbers (embedding vector) - typically 1536 numbers
      */
     public List<Double> generateEmbedding(String text) {
-        return generateEmbeddingWithRetry(text, 3);
+        Optional<List<Double>> cached = embeddingCache.get(provider.getModel(), text);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        List<Double> embedding;
+        if (embeddingBatcher != null) {
+            try {
+                embedding = embeddingBatcher.submit(text).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException("Failed to generate embedding: " + e.getCause().getMessage(), e.getCause());
+            }
+        } else {
+            embedding = requestEmbeddings(List.of(text)).block().get(0);
+        }
+
+        embeddingCache.put(provider.getModel(), text, embedding);
+        return embedding;
     }
 
     /**
-     * Generate embedding with retry logic (handles rate limits)
+     * Generate embedding for a single text, without blocking
+     * 
+     * Same behaviour as generateEmbedding() (cache, micro-batching, retries),
+     * but no thread waits while OpenAI computes the embedding. Cache reads and
+     * writes (which may hit the database) run on the bounded elastic scheduler.
+     * 
+     * @param text Text to convert to embedding
+     * @return Mono with the embedding vector
      */
-    private List<Double> generateEmbeddingWithRetry(String text, int maxRetries) {
-        EmbeddingRequest request = new EmbeddingRequest(List.of(text));
-        
-        for (int attempt = 0; attempt < maxRetries; attempt++) {
-            try {
-                EmbeddingResponse response = openAiWebClient
-                        .post()
-                        .uri("/embeddings")
-                        .bodyValue(request)
-                        .retrieve()
-                        .bodyToMono(EmbeddingResponse.class)
-                        .block();
-
-                if (response != null && 
-                    response.getData() != null && 
-                    !response.getData().isEmpty()) {
-                    return response.getData().get(0).getEmbedding();
-                }
-                
-                throw new RuntimeException("Failed to generate embedding: Empty response");
-                
-            } catch (WebClientResponseException e) {
-                if (e.getStatusCode().value() == 401) {
-                    throw new RuntimeException("OpenAI API key is invalid or not configured", e);
-                }
-                
-                // Handle rate limit (429) - retry with exponential backoff
-                if (e.getStatusCode().value() == 429) {
-                    if (attempt < maxRetries - 1) {
-                        // Wait before retry: 2^attempt seconds (2s, 4s, 8s)
-                        int waitSeconds = (int) Math.pow(2, attempt + 1);
-                        try {
-                            Thread.sleep(waitSeconds * 1000L);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            throw new RuntimeException("Interrupted while waiting for rate limit", ie);
-                        }
-                        continue; // Retry
-                    } else {
-                        throw new RuntimeException("Rate limit exceeded. Please wait a minute and try again.", e);
+    public Mono<List<Double>> generateEmbeddingReactive(String text) {
+        return Mono.fromCallable(() -> embeddingCache.get(provider.getModel(), text))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> cached.map(Mono::just).orElseGet(() -> requestAndCache(text)));
+    }
+
+    private Mono<List<Double>> requestAndCache(String text) {
+        Mono<List<Double>> request = embeddingBatcher != null
+                ? Mono.fromFuture(() -> embeddingBatcher.submit(text))
+                : requestEmbeddings(List.of(text)).map(embeddings -> embeddings.get(0));
+
+        return request.flatMap(embedding -> Mono
+                .fromRunnable(() -> embeddingCache.put(provider.getModel(), text, embedding))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(embedding));
+    }
+
+    /**
+     * Micro-batcher callback: one OpenAI request for all waiting texts
+     * 
+     * Identical texts in the same batch are only sent once.
+     */
+    private CompletableFuture<List<List<Double>>> embedBatch(List<String> texts) {
+        List<String> distinctTexts = new ArrayList<>(new LinkedHashSet<>(texts));
+
+        return requestEmbeddings(distinctTexts)
+                .map(distinctEmbeddings -> {
+                    Map<String, List<Double>> byText = new HashMap<>();
+                    for (int i = 0; i < distinctTexts.size(); i++) {
+                        byText.put(distinctTexts.get(i), distinctEmbeddings.get(i));
                     }
-                }
-                
-                throw new RuntimeException("Failed to generate embedding: " + e.getMessage(), e);
+
+                    List<List<Double>> embeddings = new ArrayList<>(texts.size());
+                    for (String text : texts) {
+                        embeddings.add(byText.get(text));
+                    }
+                    return embeddings;
+                })
+                .toFuture();
+    }
+
+    /**
+     * Whether a failed request was rejected because of its input (4xx other
+     * than auth and rate limit), not because of the service or the account
+     */
+    static boolean isInputError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientResponseException) {
+                int status = ((WebClientResponseException) cause).getStatusCode().value();
+                return status >= 400 && status < 500 && status != 401 && status != 403 && status != 429;
             }
         }
-        
-        throw new RuntimeException("Failed to generate embedding after " + maxRetries + " attempts");
+        return false;
+    }
+
+    /**
+     * Embed a batch of texts with the configured provider (no caching)
+     * 
+     * @return One embedding per text, in input order
+     */
+    private Mono<List<List<Double>>> requestEmbeddings(List<String> texts) {
+        return provider.embed(texts);
+    }
+
+    /**
+     * Micro-batching statistics (null when batching is disabled)
+     */
+    public Map<String, Object> getBatchingStats() {
+        return embeddingBatcher == null ? null : embeddingBatcher.getStats();
     }
 
     /**
      * Generate embeddings for multiple texts at once
      * 
+     * Cached texts are answered from EmbeddingCache; only the misses are sent
+     * to OpenAI, then merged back in the original order. Misses are split into
+     * requests of at most MAX_INPUTS_PER_REQUEST texts and MAX_TOKENS_PER_REQUEST
+     * tokens (texts longer than MAX_TOKENS_PER_INPUT are rejected by OpenAI;
+     * callers truncate them, see SchemaIntrospectionService).
+     * 
      * @param texts List of texts to convert
      * @return List of embeddings (one per text)
      */
     public List<List<Double>> generateEmbeddings(List<String> texts) {
-        EmbeddingRequest request = new EmbeddingRequest(texts);
-        
-        try {
-            EmbeddingResponse response = openAiWebClient
-                    .post()
-                    .uri("/embeddings")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(EmbeddingResponse.class)
-                    .block();
-
-            if (response != null && response.getData() != null) {
-                return response.getData().stream()
-                        .map(EmbeddingResponse.EmbeddingData::getEmbedding)
-                        .collect(Collectors.toList());
+        List<List<Double>> embeddings = new ArrayList<>(texts.size());
+        List<Integer> missPositions = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+
+        for (int i = 0; i < texts.size(); i++) {
+            Optional<List<Double>> cached = embeddingCache.get(provider.getModel(), texts.get(i));
+            embeddings.add(cached.orElse(null));
+            if (cached.isEmpty()) {
+                missPositions.add(i);
+                missTexts.add(texts.get(i));
             }
-            
-            throw new RuntimeException("Failed to generate embeddings: Empty response");
-            
-        } catch (WebClientResponseException e) {
-            if (e.getStatusCode().value() == 401) {
-                throw new RuntimeException("OpenAI API key is invalid or not configured", e);
+        }
+
+        if (missTexts.isEmpty()) {
+            return embeddings;
+        }
+
+        int start = 0;
+        while (start < missTexts.size()) {
+            int end = requestEnd(missTexts, start);
+            List<List<Double>> generated = requestEmbeddings(missTexts.subList(start, end)).block();
+            for (int i = 0; i < generated.size(); i++) {
+                embeddings.set(missPositions.get(start + i), generated.get(i));
+                embeddingCache.put(provider.getModel(), missTexts.get(start + i), generated.get(i));
+            }
+            start = end;
+        }
+        return embeddings;
+    }
+
+    /**
+     * End (exclusive) of the request starting at texts[start]: as many texts as
+     * fit in the input and token limits, at least one
+     */
+    private int requestEnd(List<String> texts, int start) {
+        int end = start;
+        long tokens = 0;
+        while (end < texts.size() && end - start < MAX_INPUTS_PER_REQUEST) {
+            tokens += tokenizer.count(texts.get(end));
+            if (tokens > MAX_TOKENS_PER_REQUEST && end > start) {
+                break;
             }
-            throw new RuntimeException("Failed to generate embeddings: " + e.getMessage(), e);
+            end++;
         }
+        return end;
     }
 
     /**
      * Check if API key is configured
      */
     public boolean isApiKeyConfigured() {
-        return openAIConfig.isApiKeyConfigured();
+        return provider.isConfigured();
     }
 }
 
@@ -1,12 +1,12 @@
 package com.databaseai.service;
 
-import com.databaseai.config.OpenAIConfig;
 import com.databaseai.dto.ChatRequest;
-import com.databaseai.dto.ChatResponse;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,7 +14,8 @@ import java.util.List;
 /**
  * LLM Service (Large Language Model Service)
  * 
- * Calls OpenAI GPT API for text generation.
+ * Generates text with the configured ChatProvider (ai.chat-provider:
+ * openai = OpenAI GPT API, local = offline rule-based SQL generator).
  * 
  * What is GPT?
  * - GPT = Generative Pre-trained Transformer
@@ -30,10 +31,24 @@ import java.util.List;
 public class LLMService {
 
     @Autowired
-    private WebClient openAiWebClient;
+    private List<ChatProvider> providers;
 
-    @Autowired
-    private OpenAIConfig openAIConfig;
+    @Value("${ai.chat-provider:openai}")
+    private String providerName;
+
+    /**
+     * Provider that generates text (selected by ai.chat-provider)
+     */
+    private ChatProvider provider;
+
+    @PostConstruct
+    public void selectProvider() {
+        provider = providers.stream()
+                .filter(candidate -> candidate.getName().equalsIgnoreCase(providerName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown ai.chat-provider: " + providerName));
+        System.out.println("INFO: Chat provider: " + provider.getName());
+    }
 
     /**
      * Generate text response using GPT
@@ -53,74 +68,49 @@ public class LLMService {
      * @return GPT's response
      */
     public String generateText(String userPrompt, String systemPrompt) {
+        return provider.complete(buildMessages(userPrompt, systemPrompt)).block();
+    }
+
+    /**
+     * Generate text with system prompt, without blocking
+     * 
+     * No thread waits while GPT generates the answer; the result is emitted
+     * when OpenAI responds.
+     * 
+     * @param userPrompt User's question
+     * @param systemPrompt System instruction (optional)
+     * @return Mono with GPT's response
+     */
+    public Mono<String> generateTextReactive(String userPrompt, String systemPrompt) {
+        return provider.complete(buildMessages(userPrompt, systemPrompt));
+    }
+
+    private List<ChatRequest.Message> buildMessages(String userPrompt, String systemPrompt) {
         List<ChatRequest.Message> messages = new ArrayList<>();
-        
+
         // Add system message if provided
         if (systemPrompt != null && !systemPrompt.isEmpty()) {
             messages.add(new ChatRequest.Message("system", systemPrompt));
         }
-        
+
         // Add user message
         messages.add(new ChatRequest.Message("user", userPrompt));
-        
-        return generateTextWithRetry(messages, 3);
+        return messages;
     }
 
     /**
-     * Generate text with retry logic (handles rate limits)
+     * Generate text token by token (chat completions with "stream": true)
+     * 
+     * Emits each piece of the answer as soon as OpenAI sends it, so callers can
+     * show progress at time-to-first-token instead of waiting for the whole
+     * answer. Concatenating all elements gives the same text as generateText().
+     * 
+     * @param userPrompt User's question
+     * @param systemPrompt System instruction (optional)
+     * @return Flux of text deltas (tokens)
      */
-    private String generateTextWithRetry(List<ChatRequest.Message> messages, int maxRetries) {
-        ChatRequest request = new ChatRequest();
-        request.setModel("gpt-3.5-turbo"); // Using cheaper model for now
-        request.setMessages(messages);
-        request.setTemperature(0.7); // Balanced creativity
-        request.setMaxTokens(500);
-        
-        for (int attempt = 0; attempt < maxRetries; attempt++) {
-            try {
-                ChatResponse response = openAiWebClient
-                        .post()
-                        .uri("/chat/completions")
-                        .bodyValue(request)
-                        .retrieve()
-                        .bodyToMono(ChatResponse.class)
-                        .block();
-
-                if (response != null && 
-                    response.getChoices() != null && 
-                    !response.getChoices().isEmpty()) {
-                    return response.getChoices().get(0).getMessage().getContent();
-                }
-                
-                throw new RuntimeException("Failed to generate text: Empty response");
-                
-            } catch (WebClientResponseException e) {
-                if (e.getStatusCode().value() == 401) {
-                    throw new RuntimeException("OpenAI API key is invalid or not configured", e);
-                }
-                
-                // Handle rate limit (429) - retry with exponential backoff
-                if (e.getStatusCode().value() == 429) {
-                    if (attempt < maxRetries - 1) {
-                        // Wait before retry: 2^attempt seconds (2s, 4s, 8s)
-                        int waitSeconds = (int) Math.pow(2, attempt + 1);
-                        try {
-                            Thread.sleep(waitSeconds * 1000L);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            throw new RuntimeException("Interrupted while waiting for rate limit", ie);
-                        }
-                        continue; // Retry
-                    } else {
-                        throw new RuntimeException("Rate limit exceeded. Please wait a minute and try again.", e);
-                    }
-                }
-                
-                throw new RuntimeException("Failed to generate text: " + e.getMessage(), e);
-            }
-        }
-        
-        throw new RuntimeException("Failed to generate text after " + maxRetries + " attempts");
+    public Flux<String> streamText(String userPrompt, String systemPrompt) {
+        return provider.stream(buildMessages(userPrompt, systemPrompt));
     }
 
     /**
@@ -142,7 +132,7 @@ public class LLMService {
      * Check if API key is configured
      */
     public boolean isApiKeyConfigured() {
-        return openAIConfig.isApiKeyConfigured();
+        return provider.isConfigured();
     }
 }
 
@@ -0,0 +1,248 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.ChatRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local Chat Provider (offline, deterministic)
+ *
+ * Rule-based SQL generator for the NL → SQL pipeline, without an LLM.
+ * It reads the prompt built by NLToSQLService:
+ *
+ *   1. Schema: customers
+ *      Description: customers table with id, name, email, revenue columns
+ *   ...
+ *   Question: top 5 customers by revenue
+ *
+ * and answers with a query from a few templates:
+ * - Table: the retrieved schema whose name (or columns) shares the most
+ *   words with the question; ties go to the best RAG match
+ * - "how many" / "count" / "number of" → SELECT COUNT(*)
+ * - "total" / "sum" / "average" + a mentioned column → SUM / AVG
+ * - "top" / "highest" / "most" / "latest" → ORDER BY ... DESC,
+ *   "lowest" / "least" / "oldest" → ORDER BY ... ASC (on the mentioned
+ *   column, or a date column for latest/oldest)
+ * - "top 5" / "first 10" / "limit 3" → LIMIT n
+ * - No schema context → SELECT 1
+ *
+ * Table names are used as listed, schema-qualified ones included ("sales.orders").
+ * Columns come from the schema description ("with id (bigint), name, ... columns").
+ * The SQL is only as good as these rules; the point is a network-free,
+ * repeatable pipeline for benchmarks, load tests and CI.
+ *
+ * Selected with ai.chat-provider=local.
+ */
+@Component
+public class LocalChatProvider implements ChatProvider {
+
+    private static final Pattern SCHEMA_LINE = Pattern.compile("^\\s*\\d+\\.\\s*Schema:\\s*(.+)$", Pattern.MULTILINE);
+    private static final Pattern DESCRIPTION_LINE = Pattern.compile("^\\s*Description:\\s*(.*)$", Pattern.MULTILINE);
+    private static final Pattern QUESTION_LINE = Pattern.compile("^Question:\\s*(.+)$", Pattern.MULTILINE);
+    private static final Pattern COLUMN_LIST = Pattern.compile("\\bwith\\s+(.+?)(?:\\s+columns?\\b|$)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    /** Table name, optionally schema-qualified ("sales.orders") */
+    private static final Pattern QUALIFIED_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*)*");
+    private static final Pattern LIMIT = Pattern.compile("\\b(?:top|first|last|limit)\\s+(\\d+)\\b");
+    private static final Pattern TOKEN = Pattern.compile("\\s*\\S+");
+
+    private static final Set<String> DESCENDING = Set.of("top", "highest", "most", "largest", "biggest", "best",
+            "latest", "newest", "recent", "last");
+    private static final Set<String> ASCENDING = Set.of("lowest", "least", "smallest", "fewest", "worst",
+            "oldest", "earliest", "first");
+    private static final Set<String> CHRONOLOGICAL = Set.of("latest", "newest", "recent", "oldest", "earliest");
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    @Override
+    public Mono<String> complete(List<ChatRequest.Message> messages) {
+        return Mono.fromCallable(() -> generateSQL(lastUserMessage(messages)));
+    }
+
+    /**
+     * The generated SQL, split into word tokens (each with its leading whitespace)
+     */
+    @Override
+    public Flux<String> stream(List<ChatRequest.Message> messages) {
+        return complete(messages).flatMapMany(sql -> {
+            List<String> tokens = new ArrayList<>();
+            Matcher matcher = TOKEN.matcher(sql);
+            while (matcher.find()) {
+                tokens.add(matcher.group());
+            }
+            return Flux.fromIterable(tokens);
+        });
+    }
+
+    private static String lastUserMessage(List<ChatRequest.Message> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if ("user".equals(messages.get(i).getRole())) {
+                return messages.get(i).getContent();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Build a SELECT for the question in the prompt, using its schema context
+     */
+    String generateSQL(String prompt) {
+        Matcher questionMatcher = QUESTION_LINE.matcher(prompt);
+        String question = questionMatcher.find() ? questionMatcher.group(1).trim() : prompt.trim();
+        List<String> questionWords = LocalEmbeddingProvider.words(question);
+        Set<String> questionStems = stems(questionWords);
+
+        List<Table> tables = parseTables(prompt);
+        if (tables.isEmpty()) {
+            return "SELECT 1";
+        }
+        Table table = bestTable(tables, questionStems);
+        List<String> mentionedColumns = table.columns.stream()
+                .filter(column -> !column.equalsIgnoreCase("id") && questionStems.containsAll(stems(LocalEmbeddingProvider.words(column))))
+                .toList();
+        String column = mentionedColumns.isEmpty() ? null : mentionedColumns.get(0);
+
+        String lowerQuestion = question.toLowerCase(Locale.ROOT);
+        Matcher limitMatcher = LIMIT.matcher(lowerQuestion);
+        Integer limit = limitMatcher.find() ? Integer.valueOf(limitMatcher.group(1)) : null;
+
+        if (lowerQuestion.contains("how many") || lowerQuestion.contains("number of") || questionWords.contains("count")) {
+            return "SELECT COUNT(*) FROM " + table.name;
+        }
+        if (column != null && (questionWords.contains("total") || questionWords.contains("sum"))) {
+            return "SELECT SUM(" + column + ") FROM " + table.name;
+        }
+        if (column != null && (questionWords.contains("average") || questionWords.contains("avg"))) {
+            return "SELECT AVG(" + column + ") FROM " + table.name;
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table.name);
+        String direction = null;
+        for (String word : questionWords) {
+            if (DESCENDING.contains(word)) {
+                direction = "DESC";
+            } else if (ASCENDING.contains(word)) {
+                direction = "ASC";
+            } else {
+                continue;
+            }
+            String orderColumn = CHRONOLOGICAL.contains(word) ? dateColumn(table) : column;
+            if (orderColumn == null) {
+                orderColumn = column;
+            }
+            if (orderColumn != null) {
+                sql.append(" ORDER BY ").append(orderColumn).append(' ').append(direction);
+            }
+            break;
+        }
+        if (limit != null) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Schemas listed in the prompt, in RAG order
+     */
+    private static List<Table> parseTables(String prompt) {
+        List<Table> tables = new ArrayList<>();
+        Matcher schemaMatcher = SCHEMA_LINE.matcher(prompt);
+        while (schemaMatcher.find()) {
+            Matcher nameMatcher = QUALIFIED_NAME.matcher(schemaMatcher.group(1));
+            if (!nameMatcher.find()) {
+                continue;
+            }
+            Table table = new Table(nameMatcher.group());
+
+            Matcher descriptionMatcher = DESCRIPTION_LINE.matcher(prompt);
+            if (descriptionMatcher.find(schemaMatcher.end())) {
+                Matcher columnList = COLUMN_LIST.matcher(descriptionMatcher.group(1));
+                if (columnList.find()) {
+                    for (String item : columnList.group(1).split(",|\\band\\b")) {
+                        Matcher columnMatcher = IDENTIFIER.matcher(item.replaceAll("\\(.*?\\)", " "));
+                        if (columnMatcher.find()) {
+                            table.columns.add(columnMatcher.group());
+                        }
+                    }
+                }
+            }
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    private static Table bestTable(List<Table> tables, Set<String> questionStems) {
+        Table best = tables.get(0);
+        double bestScore = -1;
+        for (Table table : tables) {
+            double score = overlap(stems(LocalEmbeddingProvider.words(table.name)), questionStems);
+            for (String column : table.columns) {
+                score += 0.5 * overlap(stems(LocalEmbeddingProvider.words(column)), questionStems);
+            }
+            if (score > bestScore) {
+                best = table;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static String dateColumn(Table table) {
+        for (String column : table.columns) {
+            String lower = column.toLowerCase(Locale.ROOT);
+            if (lower.endsWith("_at") || lower.contains("date") || lower.contains("time")) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static int overlap(Set<String> words, Set<String> questionStems) {
+        int count = 0;
+        for (String word : words) {
+            if (questionStems.contains(word)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Words with a plural "s" removed ("customers" matches table "customer")
+     */
+    private static Set<String> stems(List<String> words) {
+        Set<String> stems = new HashSet<>();
+        for (String word : words) {
+            stems.add(word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")
+                    ? word.substring(0, word.length() - 1)
+                    : word);
+        }
+        return stems;
+    }
+
+    private static class Table {
+        private final String name;
+        private final List<String> columns = new ArrayList<>();
+
+        private Table(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.databaseai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Local Embedding Provider (offline, deterministic)
+ *
+ * Embeds text with the hashing trick instead of calling an API:
+ * - The text is lower-cased and split into word tokens ("customer_id" →
+ *   "customer", "id"); adjacent word pairs are added as extra features
+ * - Each feature is hashed to one of ai.local.embedding-dimension buckets;
+ *   a second hash bit decides whether it adds +1 or -1 (so collisions
+ *   cancel out on average instead of piling up)
+ * - The vector is L2-normalized
+ *
+ * Texts that share words get similar vectors, which is enough for schema
+ * retrieval on table/column names, the semantic cache and benchmarks.
+ * The same text always gives the same vector, with no network and in
+ * microseconds. Quality is far below a real embedding model: synonyms
+ * ("clients" vs "customers") are not related.
+ *
+ * Selected with ai.embedding-provider=local. The default dimension matches
+ * OpenAI's (1536), so the pgvector column and vector index work unchanged.
+ */
+@Component
+public class LocalEmbeddingProvider implements EmbeddingProvider {
+
+    @Value("${ai.local.embedding-dimension:1536}")
+    private int dimension;
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    /**
+     * Model name used in embedding cache keys (vectors of different dimensions never mix)
+     */
+    @Override
+    public String getModel() {
+        return "local-hash-" + dimension;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    @Override
+    public Mono<List<List<Double>>> embed(List<String> texts) {
+        return Mono.fromCallable(() -> {
+            List<List<Double>> embeddings = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                embeddings.add(embed(text));
+            }
+            return embeddings;
+        });
+    }
+
+    /**
+     * Hashing-trick embedding of one text
+     */
+    public List<Double> embed(String text) {
+        double[] vector = new double[dimension];
+        List<String> words = words(text);
+
+        for (int i = 0; i < words.size(); i++) {
+            addFeature(vector, words.get(i));
+            if (i > 0) {
+                addFeature(vector, words.get(i - 1) + " " + words.get(i));
+            }
+        }
+
+        double norm = 0;
+        for (double value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+
+        List<Double> embedding = new ArrayList<>(dimension);
+        for (double value : vector) {
+            embedding.add(norm == 0 ? 0.0 : value / norm);
+        }
+        return embedding;
+    }
+
+    private void addFeature(double[] vector, String feature) {
+        long hash = fnv1a64(feature);
+        int bucket = (int) Long.remainderUnsigned(hash, dimension);
+        vector[bucket] += (hash >>> 63) == 0 ? 1.0 : -1.0;
+    }
+
+    /**
+     * Lower-case word tokens (letters and digits; "_" and punctuation split words)
+     */
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    /**
+     * 64-bit FNV-1a hash (better spread over buckets than String.hashCode)
+     */
+    private static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -3,13 +3,29 @@ package com.databaseai.service;
 import com.databaseai.dto.NLToSQLResponse;
 import com.databaseai.model.DatabaseInfo;
 import com.databaseai.repository.DatabaseInfoRepository;
+import com.databaseai.util.VectorMath;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -20,7 +36,8 @@ import java.util.stream.Collectors;
  * Process:
  * 1. Receive natural language query: "Show me top 5 customers"
  * 2. Retrieve relevant schema context using RAG
- * 3. Build enhanced prompt with schema context
+ * 3. Build enhanced prompt with schema context, packed into a token budget
+ *    (PromptPacker: most relevant schemas first, wide tables trimmed to relevant columns)
  * 4. Call GPT to generate SQL
  * 5. Validate generated SQL
  * 6. Return SQL with explanation
@@ -48,6 +65,32 @@ public class NLToSQLService {
     @Autowired
     private RealTimeUpdateService realTimeUpdateService;
 
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private SemanticQueryCache semanticQueryCache;
+
+    @Autowired
+    private PromptPacker promptPacker;
+
+    @Value("${nl-to-sql.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    /**
+     * How long a coalesced duplicate waits for the running conversion before
+     * it runs its own (e.g. the first caller is stuck on a slow OpenAI call)
+     */
+    @Value("${nl-to-sql.coalescing.wait-timeout-ms:120000}")
+    private long coalescingWaitTimeoutMs;
+
+    /**
+     * Conversions currently running, by coalescing key (see coalescingKey)
+     */
+    private final Map<String, InFlightConversion> inFlightConversions = new ConcurrentHashMap<>();
+
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
     /**
      * Convert natural language query to SQL using RAG
      * 
@@ -62,31 +105,95 @@ public class NLToSQLService {
 
     /**
      * Convert natural language query to SQL using RAG (with request correlation ID)
+     * 
+     * Identical requests (same database, topK and question, ignoring case and
+     * whitespace) that arrive while one is already running don't start their
+     * own conversion: they wait for the running one and get a copy of its
+     * result. Each still receives every WebSocket update under its own requestId.
      */
     public NLToSQLResponse convertToSQL(Long databaseInfoId, String naturalLanguageQuery, int topK, String requestId) {
+        return convertToSQL(databaseInfoId, naturalLanguageQuery, topK, requestId, false);
+    }
+
+    /**
+     * Convert natural language query to SQL, optionally streaming GPT tokens
+     * 
+     * @param streamTokens Publish each generated token as an LLM_TOKEN WebSocket
+     *                     update while GPT writes the SQL (the result is the same)
+     */
+    public NLToSQLResponse convertToSQL(Long databaseInfoId, String naturalLanguageQuery, int topK, String requestId,
+                                        boolean streamTokens) {
         String effectiveRequestId = (requestId != null && !requestId.isBlank())
                 ? requestId
                 : UUID.randomUUID().toString();
-
-        Map<String, Object> meta = new HashMap<>();
-        meta.put("databaseInfoId", databaseInfoId);
-        meta.put("query", naturalLanguageQuery);
-        meta.put("topK", topK);
         realTimeUpdateService.publishNlToSqlProgress(
                 effectiveRequestId,
                 "REQUEST_RECEIVED",
                 "Received NL to SQL conversion request",
-                meta
+                requestMeta(databaseInfoId, naturalLanguageQuery, topK)
         );
 
+        if (!coalescingEnabled) {
+            return runConversion(new ConversionProgress(effectiveRequestId, streamTokens), databaseInfoId, naturalLanguageQuery, topK);
+        }
+
+        String key = coalescingKey(databaseInfoId, naturalLanguageQuery, topK, streamTokens);
+        InFlightConversion flight = new InFlightConversion(effectiveRequestId, streamTokens);
+        InFlightConversion existing = inFlightConversions.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            if (!joinInFlight(existing, effectiveRequestId)) {
+                // It just finished → run on our own (the semantic cache usually answers)
+                return runConversion(new ConversionProgress(effectiveRequestId, streamTokens), databaseInfoId, naturalLanguageQuery, topK);
+            }
+            // Identical conversion already running → wait (bounded) for its result
+            try {
+                return copyForCaller(existing.result.get(coalescingWaitTimeoutMs, TimeUnit.MILLISECONDS),
+                        effectiveRequestId, naturalLanguageQuery);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new RuntimeException(e.getCause());
+            } catch (TimeoutException e) {
+                System.err.println("WARNING: Coalesced conversion still running after " + coalescingWaitTimeoutMs
+                        + " ms, converting request " + effectiveRequestId + " on its own");
+                return runConversion(new ConversionProgress(effectiveRequestId, streamTokens), databaseInfoId, naturalLanguageQuery, topK);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for an identical conversion", e);
+            }
+        }
+
+        try {
+            NLToSQLResponse response = runConversion(flight.progress, databaseInfoId, naturalLanguageQuery, topK);
+            flight.result.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Errors too (e.g. OutOfMemoryError), or the waiting duplicates would hang
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightConversions.remove(key, flight);
+        }
+    }
+
+    /**
+     * Steps 1-7 of a conversion (progress events go to the caller and any coalesced duplicates)
+     */
+    private NLToSQLResponse runConversion(ConversionProgress progress, Long databaseInfoId,
+                                          String naturalLanguageQuery, int topK) {
+        Map<String, Object> meta = requestMeta(databaseInfoId, naturalLanguageQuery, topK);
+
         // Step 1: Verify database exists
         DatabaseInfo databaseInfo = null;
         try {
             databaseInfo = databaseInfoRepository.findById(databaseInfoId)
                     .orElseThrow(() -> new RuntimeException("Database not found with ID: " + databaseInfoId));
         } catch (RuntimeException e) {
-            realTimeUpdateService.publishNlToSqlError(
-                    effectiveRequestId,
+            progress.publishError(
                     "DATABASE_LOOKUP_FAILED",
                     e.getMessage(),
                     meta
@@ -96,24 +203,28 @@ public class NLToSQLService {
 
         Map<String, Object> retrievalMeta = new HashMap<>();
         retrievalMeta.put("databaseInfoId", databaseInfoId);
-        realTimeUpdateService.publishNlToSqlProgress(
-                effectiveRequestId,
+        progress.publishProgress(
                 "RETRIEVING_SCHEMA",
                 "Retrieving relevant schema context",
                 retrievalMeta
         );
 
-        // Step 2: Retrieve relevant schemas using RAG (Retrieval step)
-        List<RAGService.SchemaContext> relevantSchemas;
+        // Step 2: Embed the question, check the semantic cache, then
+        // retrieve relevant schemas using RAG (Retrieval step)
+        float[] questionVector;
+        SemanticQueryCache.Match cached = null;
+        List<RAGService.SchemaContext> relevantSchemas = null;
+        long cacheGeneration = semanticQueryCache.generation(databaseInfoId);
         try {
-            relevantSchemas = ragService.retrieveRelevantSchemas(
-                    databaseInfoId, naturalLanguageQuery, topK
-            );
+            questionVector = VectorMath.toNormalizedFloats(embeddingService.generateEmbedding(naturalLanguageQuery));
+            cached = semanticQueryCache.find(databaseInfoId, naturalLanguageQuery, questionVector).orElse(null);
+            if (cached == null) {
+                relevantSchemas = ragService.retrieveRelevantSchemas(databaseInfoId, naturalLanguageQuery, questionVector, topK);
+            }
         } catch (Exception e) {
             Map<String, Object> retrievalErrorMeta = new HashMap<>();
             retrievalErrorMeta.put("databaseInfoId", databaseInfoId);
-            realTimeUpdateService.publishNlToSqlError(
-                    effectiveRequestId,
+            progress.publishError(
                     "RETRIEVAL_FAILED",
                     "Schema retrieval failed: " + e.getMessage(),
                     retrievalErrorMeta
@@ -121,22 +232,22 @@ public class NLToSQLService {
             throw new RuntimeException(e);
         }
 
-        Map<String, Object> promptMeta = new HashMap<>();
-        promptMeta.put("schemaCount", relevantSchemas.size());
-        realTimeUpdateService.publishNlToSqlProgress(
-                effectiveRequestId,
+        if (cached != null) {
+            return completeFromCache(progress, databaseInfoId, naturalLanguageQuery, cached);
+        }
+
+        // Step 3: Build enhanced prompt with schema context (packed into the token budget)
+        PromptPacker.PackedSchemas packed = promptPacker.pack(naturalLanguageQuery, relevantSchemas);
+        progress.publishProgress(
                 "PROMPT_BUILDING",
                 "Building prompt with schema context",
-                promptMeta
+                promptMeta(relevantSchemas, packed)
         );
-
-        // Step 3: Build enhanced prompt with schema context
         String systemPrompt = buildSystemPrompt(databaseInfo);
-        String userPrompt = buildUserPrompt(naturalLanguageQuery, relevantSchemas);
+        String userPrompt = buildUserPrompt(naturalLanguageQuery, packed.getSchemas());
 
         // Step 4: Generate SQL using GPT (Generation step)
-        realTimeUpdateService.publishNlToSqlProgress(
-                effectiveRequestId,
+        progress.publishProgress(
                 "LLM_CALL",
                 "Generating SQL with GPT",
                 null
@@ -144,10 +255,11 @@ public class NLToSQLService {
 
         String generatedSQL;
         try {
-            generatedSQL = llmService.generateText(userPrompt, systemPrompt);
+            generatedSQL = progress.isStreamTokens()
+                    ? streamSQL(progress, userPrompt, systemPrompt).block()
+                    : llmService.generateText(userPrompt, systemPrompt);
         } catch (Exception e) {
-            realTimeUpdateService.publishNlToSqlError(
-                    effectiveRequestId,
+            progress.publishError(
                     "GENERATION_FAILED",
                     "LLM generation failed: " + e.getMessage(),
                     null
@@ -155,6 +267,266 @@ public class NLToSQLService {
             throw new RuntimeException(e);
         }
 
+        return withTokenCounts(completeAndCache(progress, databaseInfoId, naturalLanguageQuery,
+                questionVector, cacheGeneration, packed.getSchemas(), generatedSQL), packed, systemPrompt, userPrompt);
+    }
+
+    /**
+     * Convert natural language query to SQL without blocking on OpenAI
+     * 
+     * Same steps and progress events as convertToSQL(), but:
+     * - The DatabaseInfo lookup (→ system prompt) and the question embedding
+     *   run concurrently
+     * - No thread is held while waiting for the embedding or the chat completion;
+     *   database work runs on the bounded elastic scheduler
+     * 
+     * @return Mono with the NLToSQLResponse (errors are emitted, not thrown)
+     */
+    public Mono<NLToSQLResponse> convertToSQLReactive(Long databaseInfoId, String naturalLanguageQuery, int topK, String requestId) {
+        return convertToSQLReactive(databaseInfoId, naturalLanguageQuery, topK, requestId, false);
+    }
+
+    /**
+     * Convert natural language query to SQL without blocking, optionally streaming GPT tokens
+     * 
+     * @param streamTokens Publish each generated token as an LLM_TOKEN WebSocket update
+     */
+    public Mono<NLToSQLResponse> convertToSQLReactive(Long databaseInfoId, String naturalLanguageQuery, int topK,
+                                                      String requestId, boolean streamTokens) {
+        String effectiveRequestId = (requestId != null && !requestId.isBlank())
+                ? requestId
+                : UUID.randomUUID().toString();
+        realTimeUpdateService.publishNlToSqlProgress(
+                effectiveRequestId,
+                "REQUEST_RECEIVED",
+                "Received NL to SQL conversion request",
+                requestMeta(databaseInfoId, naturalLanguageQuery, topK)
+        );
+
+        if (!coalescingEnabled) {
+            return runConversionReactive(new ConversionProgress(effectiveRequestId, streamTokens), databaseInfoId, naturalLanguageQuery, topK);
+        }
+
+        String key = coalescingKey(databaseInfoId, naturalLanguageQuery, topK, streamTokens);
+        InFlightConversion flight = new InFlightConversion(effectiveRequestId, streamTokens);
+        InFlightConversion existing = inFlightConversions.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            if (!joinInFlight(existing, effectiveRequestId)) {
+                // It just finished → run on our own (the semantic cache usually answers)
+                return runConversionReactive(new ConversionProgress(effectiveRequestId, streamTokens), databaseInfoId, naturalLanguageQuery, topK);
+            }
+            // Identical conversion already running → wait (bounded) for its result
+            return Mono.fromFuture(existing.result, true)
+                    .map(response -> copyForCaller(response, effectiveRequestId, naturalLanguageQuery))
+                    .timeout(Duration.ofMillis(coalescingWaitTimeoutMs), Mono.defer(() -> {
+                        System.err.println("WARNING: Coalesced conversion still running after " + coalescingWaitTimeoutMs
+                                + " ms, converting request " + effectiveRequestId + " on its own");
+                        return runConversionReactive(new ConversionProgress(effectiveRequestId, streamTokens),
+                                databaseInfoId, naturalLanguageQuery, topK);
+                    }));
+        }
+
+        // Run independently of this caller's subscription, so a disconnecting
+        // client doesn't cancel the conversion for the duplicates waiting on it
+        runConversionReactive(flight.progress, databaseInfoId, naturalLanguageQuery, topK)
+                .doFinally(signal -> inFlightConversions.remove(key, flight))
+                .subscribe(flight.result::complete, flight.result::completeExceptionally);
+        return Mono.fromFuture(flight.result, true);
+    }
+
+    /**
+     * Reactive steps 1-7 of a conversion (progress events go to the caller and any coalesced duplicates)
+     */
+    private Mono<NLToSQLResponse> runConversionReactive(ConversionProgress progress, Long databaseInfoId,
+                                                        String naturalLanguageQuery, int topK) {
+        Map<String, Object> meta = requestMeta(databaseInfoId, naturalLanguageQuery, topK);
+
+        // Step 1: Verify database exists and build the system prompt
+        Mono<String> systemPrompt = Mono
+                .fromCallable(() -> databaseInfoRepository.findById(databaseInfoId)
+                        .orElseThrow(() -> new RuntimeException("Database not found with ID: " + databaseInfoId)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(e -> progress.publishError(
+                        "DATABASE_LOOKUP_FAILED",
+                        e.getMessage(),
+                        meta
+                ))
+                .map(this::buildSystemPrompt);
+
+        // Step 2 (concurrently): Embed the question
+        Map<String, Object> retrievalMeta = new HashMap<>();
+        retrievalMeta.put("databaseInfoId", databaseInfoId);
+        Mono<float[]> questionVector = Mono
+                .defer(() -> {
+                    progress.publishProgress(
+                            "RETRIEVING_SCHEMA",
+                            "Retrieving relevant schema context",
+                            retrievalMeta
+                    );
+                    return embeddingService.generateEmbeddingReactive(naturalLanguageQuery);
+                })
+                .map(VectorMath::toNormalizedFloats)
+                .onErrorMap(e -> retrievalFailed(progress, retrievalMeta, e));
+
+        return Mono.zip(systemPrompt, questionVector)
+                .flatMap(prepared -> {
+                    float[] vector = prepared.getT2();
+                    long cacheGeneration = semanticQueryCache.generation(databaseInfoId);
+
+                    // Equivalent question answered before → no retrieval, no GPT call
+                    Optional<SemanticQueryCache.Match> cached =
+                            semanticQueryCache.find(databaseInfoId, naturalLanguageQuery, vector);
+                    if (cached.isPresent()) {
+                        return Mono.just(completeFromCache(
+                                progress, databaseInfoId, naturalLanguageQuery, cached.get()));
+                    }
+
+                    return Mono.fromCallable(() -> ragService.retrieveRelevantSchemas(databaseInfoId, naturalLanguageQuery, vector, topK))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .onErrorMap(e -> retrievalFailed(progress, retrievalMeta, e))
+                            .flatMap(schemas -> generateReactive(progress, databaseInfoId,
+                                    naturalLanguageQuery, prepared.getT1(), vector, cacheGeneration, schemas));
+                });
+    }
+
+    /**
+     * Reactive steps 3-7: build the prompt, call GPT, validate and cache
+     */
+    private Mono<NLToSQLResponse> generateReactive(ConversionProgress progress, Long databaseInfoId,
+                                                   String naturalLanguageQuery, String systemPrompt,
+                                                   float[] questionVector, long cacheGeneration,
+                                                   List<RAGService.SchemaContext> schemas) {
+        // Step 3: Build enhanced prompt with schema context (packed into the token budget)
+        PromptPacker.PackedSchemas packed = promptPacker.pack(naturalLanguageQuery, schemas);
+        progress.publishProgress(
+                "PROMPT_BUILDING",
+                "Building prompt with schema context",
+                promptMeta(schemas, packed)
+        );
+        String userPrompt = buildUserPrompt(naturalLanguageQuery, packed.getSchemas());
+
+        // Step 4: Generate SQL using GPT (Generation step)
+        progress.publishProgress(
+                "LLM_CALL",
+                "Generating SQL with GPT",
+                null
+        );
+
+        Mono<String> generation = progress.isStreamTokens()
+                ? streamSQL(progress, userPrompt, systemPrompt)
+                : llmService.generateTextReactive(userPrompt, systemPrompt);
+
+        return generation
+                .onErrorMap(e -> {
+                    progress.publishError(
+                            "GENERATION_FAILED",
+                            "LLM generation failed: " + e.getMessage(),
+                            null
+                    );
+                    return new RuntimeException(e);
+                })
+                .map(generatedSQL -> withTokenCounts(completeAndCache(progress, databaseInfoId,
+                        naturalLanguageQuery, questionVector, cacheGeneration, packed.getSchemas(), generatedSQL),
+                        packed, systemPrompt, userPrompt));
+    }
+
+    private Map<String, Object> promptMeta(List<RAGService.SchemaContext> retrieved, PromptPacker.PackedSchemas packed) {
+        Map<String, Object> promptMeta = new HashMap<>();
+        promptMeta.put("schemaCount", packed.getSchemas().size());
+        promptMeta.put("retrievedSchemaCount", retrieved.size());
+        promptMeta.put("schemasTrimmed", packed.getTrimmedCount());
+        promptMeta.put("schemasOmitted", packed.getOmittedCount());
+        promptMeta.put("schemaContextTokens", packed.getTokens());
+        return promptMeta;
+    }
+
+    /**
+     * Add the token counts of the prompt that produced this response
+     */
+    private NLToSQLResponse withTokenCounts(NLToSQLResponse response, PromptPacker.PackedSchemas packed,
+                                            String systemPrompt, String userPrompt) {
+        PromptTokenizer tokenizer = promptPacker.getTokenizer();
+        response.setPromptTokens(tokenizer.count(systemPrompt) + tokenizer.count(userPrompt));
+        response.setSchemaContextTokens(packed.getTokens());
+        response.setCompletionTokens(tokenizer.count(response.getSqlQuery()));
+        response.setSchemasTrimmed(packed.getTrimmedCount());
+        response.setSchemasOmitted(packed.getOmittedCount());
+        return response;
+    }
+
+    /**
+     * Generate SQL token by token, publishing each token as an LLM_TOKEN update
+     * 
+     * @return Mono with the complete generated text (all tokens joined)
+     */
+    private Mono<String> streamSQL(ConversionProgress progress, String userPrompt, String systemPrompt) {
+        AtomicInteger tokenIndex = new AtomicInteger();
+        return llmService.streamText(userPrompt, systemPrompt)
+                .doOnNext(token -> {
+                    Map<String, Object> tokenMeta = new HashMap<>();
+                    tokenMeta.put("token", token);
+                    tokenMeta.put("index", tokenIndex.getAndIncrement());
+                    progress.publishProgress(
+                            "LLM_TOKEN",
+                            "Generated SQL token",
+                            tokenMeta
+                    );
+                })
+                .collect(Collectors.joining());
+    }
+
+    private RuntimeException retrievalFailed(ConversionProgress progress, Map<String, Object> retrievalMeta, Throwable e) {
+        progress.publishError(
+                "RETRIEVAL_FAILED",
+                "Schema retrieval failed: " + e.getMessage(),
+                retrievalMeta
+        );
+        return new RuntimeException(e);
+    }
+
+    /**
+     * Complete a freshly generated conversion and remember it in the semantic cache (if valid)
+     */
+    private NLToSQLResponse completeAndCache(ConversionProgress progress, Long databaseInfoId, String naturalLanguageQuery,
+                                             float[] questionVector, long cacheGeneration,
+                                             List<RAGService.SchemaContext> relevantSchemas, String generatedSQL) {
+        NLToSQLResponse response = completeConversion(
+                progress, databaseInfoId, naturalLanguageQuery, relevantSchemas, generatedSQL);
+        if (response.isValid()) {
+            semanticQueryCache.put(databaseInfoId, naturalLanguageQuery, questionVector,
+                    response.getSqlQuery(), relevantSchemas, cacheGeneration);
+        }
+        return response;
+    }
+
+    /**
+     * Answer from the semantic cache: the SQL of an equivalent earlier question
+     * (re-validated, explained for the new question)
+     */
+    private NLToSQLResponse completeFromCache(ConversionProgress progress, Long databaseInfoId, String naturalLanguageQuery,
+                                              SemanticQueryCache.Match cached) {
+        Map<String, Object> cacheMeta = new HashMap<>();
+        cacheMeta.put("similarity", cached.getSimilarity());
+        cacheMeta.put("cachedQuestion", cached.getCachedQuestion());
+        progress.publishProgress(
+                "CACHE_HIT",
+                "Reusing SQL from an equivalent earlier question",
+                cacheMeta
+        );
+
+        NLToSQLResponse response = completeConversion(
+                progress, databaseInfoId, naturalLanguageQuery, cached.getSchemas(), cached.getSql());
+        response.setCacheHit(true);
+        response.setCacheSimilarity((double) cached.getSimilarity());
+        return response;
+    }
+
+    /**
+     * Steps 5-7: validate the generated SQL, explain it and build the response
+     */
+    private NLToSQLResponse completeConversion(ConversionProgress progress, Long databaseInfoId, String naturalLanguageQuery,
+                                               List<RAGService.SchemaContext> relevantSchemas, String generatedSQL) {
         // Step 5: Clean and validate SQL
         String cleanedSQL = cleanSQL(generatedSQL);
         SQLValidator.ValidationResult validation = sqlValidator.validate(cleanedSQL);
@@ -163,8 +535,7 @@ public class NLToSQLService {
         Map<String, Object> validationMeta = new HashMap<>();
         validationMeta.put("isValid", validation.isValid());
         validationMeta.put("errorCount", errorCount);
-        realTimeUpdateService.publishNlToSqlProgress(
-                effectiveRequestId,
+        progress.publishProgress(
                 "VALIDATION",
                 "Validating generated SQL",
                 validationMeta
@@ -179,13 +550,12 @@ public class NLToSQLService {
         response.setExplanation(explanation);
         response.setValid(validation.isValid());
         response.setValidationErrors(validation.getErrors());
-        response.setRequestId(effectiveRequestId);
+        response.setRequestId(progress.getRequestId());
 
         Map<String, Object> successMeta = new HashMap<>();
         successMeta.put("isValid", validation.isValid());
         successMeta.put("schemaCount", relevantSchemas.size());
-        realTimeUpdateService.publishNlToSqlSuccess(
-                effectiveRequestId,
+        progress.publishSuccess(
                 "COMPLETED",
                 "NL to SQL conversion completed",
                 successMeta
@@ -194,6 +564,78 @@ public class NLToSQLService {
         return response;
     }
 
+    /**
+     * Coalescing statistics (conversions in flight, duplicates that waited on one)
+     */
+    public Map<String, Object> getCoalescingStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", coalescingEnabled);
+        stats.put("inFlight", inFlightConversions.size());
+        stats.put("coalescedRequests", coalescedRequests.get());
+        return stats;
+    }
+
+    private Map<String, Object> requestMeta(Long databaseInfoId, String naturalLanguageQuery, int topK) {
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("databaseInfoId", databaseInfoId);
+        meta.put("query", naturalLanguageQuery);
+        meta.put("topK", topK);
+        return meta;
+    }
+
+    /**
+     * Identical requests: same database, same topK, same streaming mode,
+     * same question ignoring case and extra whitespace
+     */
+    private String coalescingKey(Long databaseInfoId, String naturalLanguageQuery, int topK, boolean streamTokens) {
+        String normalized = naturalLanguageQuery == null
+                ? ""
+                : naturalLanguageQuery.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return databaseInfoId + ":" + topK + ":" + streamTokens + ":" + normalized;
+    }
+
+    /**
+     * Attach a duplicate request to a running conversion
+     * 
+     * @return false if the conversion already finished (too late to receive its events)
+     */
+    private boolean joinInFlight(InFlightConversion flight, String requestId) {
+        if (!flight.progress.addCoalesced(requestId)) {
+            return false;
+        }
+        coalescedRequests.incrementAndGet();
+
+        Map<String, Object> coalescedMeta = new HashMap<>();
+        coalescedMeta.put("coalescedWith", flight.progress.getRequestId());
+        realTimeUpdateService.publishNlToSqlProgress(
+                requestId,
+                "COALESCED",
+                "Identical conversion already in progress, waiting for its result",
+                coalescedMeta
+        );
+        return true;
+    }
+
+    /**
+     * Each coalesced caller gets its own response object (own requestId and question text)
+     */
+    private NLToSQLResponse copyForCaller(NLToSQLResponse shared, String requestId, String naturalLanguageQuery) {
+        NLToSQLResponse response = new NLToSQLResponse(shared.getSqlQuery(), naturalLanguageQuery, shared.getDatabaseInfoId());
+        response.setRelevantSchemas(shared.getRelevantSchemas());
+        response.setExplanation(shared.getExplanation());
+        response.setValid(shared.isValid());
+        response.setValidationErrors(shared.getValidationErrors());
+        response.setCacheHit(shared.isCacheHit());
+        response.setCacheSimilarity(shared.getCacheSimilarity());
+        response.setPromptTokens(shared.getPromptTokens());
+        response.setSchemaContextTokens(shared.getSchemaContextTokens());
+        response.setCompletionTokens(shared.getCompletionTokens());
+        response.setSchemasTrimmed(shared.getSchemasTrimmed());
+        response.setSchemasOmitted(shared.getSchemasOmitted());
+        response.setRequestId(requestId);
+        return response;
+    }
+
     /**
      * Build system prompt for GPT
      * 
@@ -289,5 +731,85 @@ public class NLToSQLService {
                 .map(s -> new NLToSQLResponse.SchemaContext(s.getSchemaName(), s.getDescription()))
                 .collect(Collectors.toList());
     }
-}
 
+    /**
+     * Sends the progress events of one conversion to its caller and to every
+     * duplicate request coalesced into it (each with its own requestId)
+     */
+    private class ConversionProgress {
+        private final String requestId;
+        private final boolean streamTokens;
+        private final List<String> coalescedRequestIds = new CopyOnWriteArrayList<>();
+        private boolean finished;
+
+        private ConversionProgress(String requestId, boolean streamTokens) {
+            this.requestId = requestId;
+            this.streamTokens = streamTokens;
+        }
+
+        String getRequestId() {
+            return requestId;
+        }
+
+        /**
+         * Whether GPT tokens are published as LLM_TOKEN updates
+         */
+        boolean isStreamTokens() {
+            return streamTokens;
+        }
+
+        /**
+         * @return false once the final (success/error) event was sent
+         */
+        synchronized boolean addCoalesced(String coalescedRequestId) {
+            if (finished) {
+                return false;
+            }
+            coalescedRequestIds.add(coalescedRequestId);
+            return true;
+        }
+
+        void publishProgress(String stage, String message, Map<String, Object> data) {
+            for (String recipient : recipients()) {
+                realTimeUpdateService.publishNlToSqlProgress(recipient, stage, message, data);
+            }
+        }
+
+        void publishSuccess(String stage, String message, Map<String, Object> data) {
+            finish();
+            for (String recipient : recipients()) {
+                realTimeUpdateService.publishNlToSqlSuccess(recipient, stage, message, data);
+            }
+        }
+
+        void publishError(String stage, String message, Map<String, Object> data) {
+            finish();
+            for (String recipient : recipients()) {
+                realTimeUpdateService.publishNlToSqlError(recipient, stage, message, data);
+            }
+        }
+
+        private synchronized void finish() {
+            finished = true;
+        }
+
+        private List<String> recipients() {
+            List<String> recipients = new ArrayList<>(coalescedRequestIds.size() + 1);
+            recipients.add(requestId);
+            recipients.addAll(coalescedRequestIds);
+            return recipients;
+        }
+    }
+
+    /**
+     * A running conversion that identical requests can wait on
+     */
+    private class InFlightConversion {
+        private final ConversionProgress progress;
+        private final CompletableFuture<NLToSQLResponse> result = new CompletableFuture<>();
+
+        private InFlightConversion(String requestId, boolean streamTokens) {
+            this.progress = new ConversionProgress(requestId, streamTokens);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.databaseai.service;
+
+import com.databaseai.config.OpenAIConfig;
+import com.databaseai.dto.ChatCompletionChunk;
+import com.databaseai.dto.ChatRequest;
+import com.databaseai.dto.ChatResponse;
+import com.databaseai.util.ConcurrencyLimiter;
+import com.databaseai.util.TokenBucketRateLimiter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * OpenAI Chat Provider
+ *
+ * Text generation with the OpenAI chat completions API (gpt-3.5-turbo).
+ * Selected with ai.chat-provider=openai (the default).
+ */
+@Component
+public class OpenAiChatProvider implements ChatProvider {
+
+    /**
+     * Attempts per OpenAI request (the first try + retries after rate limits)
+     */
+    private static final int MAX_RETRIES = 3;
+
+    /**
+     * Last server-sent event of a streamed chat completion
+     */
+    private static final String STREAM_DONE = "[DONE]";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SERVER_SENT_EVENTS =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Autowired
+    private WebClient openAiWebClient;
+
+    @Autowired
+    private OpenAIConfig openAIConfig;
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+
+    @Autowired
+    private OpenAiRateLimiter openAiRateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public String getName() {
+        return "openai";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return openAIConfig.isApiKeyConfigured();
+    }
+
+    /**
+     * Generate text with retry logic (handles rate limits)
+     *
+     * - Holds a chat concurrency permit while the request is in flight
+     *   (acquired on the bounded elastic scheduler, since it may wait)
+     * - Waits for room in the chat rate limiter (RPM/TPM) first, without
+     *   holding the permit
+     * - Rate limit (429): retried after Retry-After / jittered backoff
+     *   (see OpenAiRateLimiter); the permit is released during the wait
+     */
+    @Override
+    public Mono<String> complete(List<ChatRequest.Message> messages) {
+        ChatRequest request = buildChatRequest(messages);
+
+        TokenBucketRateLimiter rateLimiter = openAiRateLimiter.chat();
+
+        return openAiRateLimiter.acquire(rateLimiter, estimateTokens(request))
+                .then(Mono.using(
+                                () -> concurrencyLimiterRegistry.openAiChat().acquire(),
+                                permit -> openAiWebClient
+                                        .post()
+                                        .uri("/chat/completions")
+                                        .bodyValue(request)
+                                        .retrieve()
+                                        .toEntity(ChatResponse.class),
+                                ConcurrencyLimiter.Permit::close)
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(entity -> openAiRateLimiter.observe(rateLimiter, entity.getHeaders()))
+                .mapNotNull(ResponseEntity::getBody)
+                .retryWhen(openAiRateLimiter.retrySpec(rateLimiter, MAX_RETRIES))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Failed to generate text: Empty response")))
+                .map(response -> {
+                    if (response.getChoices() == null || response.getChoices().isEmpty()) {
+                        throw new RuntimeException("Failed to generate text: Empty response");
+                    }
+                    return response.getChoices().get(0).getMessage().getContent();
+                })
+                .onErrorMap(WebClientResponseException.class, OpenAiChatProvider::toServiceException);
+    }
+
+    /**
+     * Generate text token by token (chat completions with "stream": true)
+     *
+     * - Waits for room in the chat rate limiter, then holds a chat
+     *   concurrency permit until the stream ends
+     * - Rate limit (429) is reported before the first token, so the request is
+     *   retried like complete() without duplicating tokens
+     */
+    @Override
+    public Flux<String> stream(List<ChatRequest.Message> messages) {
+        ChatRequest request = buildChatRequest(messages);
+        request.setStream(true);
+
+        TokenBucketRateLimiter rateLimiter = openAiRateLimiter.chat();
+
+        return openAiRateLimiter.acquire(rateLimiter, estimateTokens(request))
+                .thenMany(Flux.using(
+                                () -> concurrencyLimiterRegistry.openAiChat().acquire(),
+                                permit -> openAiWebClient
+                                        .post()
+                                        .uri("/chat/completions")
+                                        .accept(MediaType.TEXT_EVENT_STREAM)
+                                        .bodyValue(request)
+                                        .retrieve()
+                                        .toEntityFlux(SERVER_SENT_EVENTS)
+                                        .doOnNext(entity -> openAiRateLimiter.observe(rateLimiter, entity.getHeaders()))
+                                        .flatMapMany(ResponseEntity::getBody),
+                                ConcurrencyLimiter.Permit::close)
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .map(event -> event.data() == null ? "" : event.data().trim())
+                .filter(data -> !data.isEmpty())
+                .takeWhile(data -> !STREAM_DONE.equals(data))
+                .concatMap(data -> Mono.justOrEmpty(deltaContent(data)))
+                .retryWhen(openAiRateLimiter.retrySpec(rateLimiter, MAX_RETRIES))
+                .onErrorMap(WebClientResponseException.class, OpenAiChatProvider::toServiceException);
+    }
+
+    /**
+     * Text of one streamed chunk (null for chunks without content, e.g. the role or finish chunk)
+     */
+    private String deltaContent(String data) {
+        try {
+            ChatCompletionChunk chunk = objectMapper.readValue(data, ChatCompletionChunk.class);
+            if (chunk.getChoices() == null || chunk.getChoices().isEmpty()
+                    || chunk.getChoices().get(0).getDelta() == null) {
+                return null;
+            }
+            String content = chunk.getChoices().get(0).getDelta().getContent();
+            return content == null || content.isEmpty() ? null : content;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to parse streamed response: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private ChatRequest buildChatRequest(List<ChatRequest.Message> messages) {
+        ChatRequest request = new ChatRequest();
+        request.setModel("gpt-3.5-turbo"); // Using cheaper model for now
+        request.setMessages(messages);
+        request.setTemperature(0.7); // Balanced creativity
+        request.setMaxTokens(500);
+        return request;
+    }
+
+    /**
+     * Tokens the call counts against the TPM limit: prompt + max completion tokens
+     */
+    private static long estimateTokens(ChatRequest request) {
+        long tokens = request.getMaxTokens() == null ? 0 : request.getMaxTokens();
+        for (ChatRequest.Message message : request.getMessages()) {
+            tokens += OpenAiRateLimiter.estimateTokens(message.getContent()) + 4;
+        }
+        return tokens;
+    }
+
+    private static RuntimeException toServiceException(WebClientResponseException e) {
+        if (e.getStatusCode().value() == 401) {
+            return new RuntimeException("OpenAI API key is invalid or not configured", e);
+        }
+        if (e.getStatusCode().value() == 429) {
+            return new RuntimeException("Rate limit exceeded. Please wait a minute and try again.", e);
+        }
+        return new RuntimeException("Failed to generate text: " + e.getMessage(), e);
+    }
+}
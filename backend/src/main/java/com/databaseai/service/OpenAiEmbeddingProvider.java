@@ -0,0 +1,125 @@
+package com.databaseai.service;
+
+import com.databaseai.config.OpenAIConfig;
+import com.databaseai.dto.EmbeddingRequest;
+import com.databaseai.dto.EmbeddingResponse;
+import com.databaseai.util.ConcurrencyLimiter;
+import com.databaseai.util.TokenBucketRateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * OpenAI Embedding Provider
+ * 
+ * Embeddings from the OpenAI /embeddings API (text-embedding-ada-002, 1536 dimensions).
+ * Selected with ai.embedding-provider=openai (the default).
+ */
+@Component
+public class OpenAiEmbeddingProvider implements EmbeddingProvider {
+
+    /**
+     * Attempts per OpenAI request (the first try + retries after rate limits)
+     */
+    private static final int MAX_RETRIES = 3;
+
+    @Autowired
+    private WebClient openAiWebClient;
+
+    @Autowired
+    private OpenAIConfig openAIConfig;
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+
+    @Autowired
+    private OpenAiRateLimiter openAiRateLimiter;
+
+    @Override
+    public String getName() {
+        return "openai";
+    }
+
+    @Override
+    public String getModel() {
+        return EmbeddingRequest.DEFAULT_MODEL;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return openAIConfig.isApiKeyConfigured();
+    }
+
+    /**
+     * Call OpenAI for a batch of texts, without blocking
+     * 
+     * - Holds an embeddings concurrency permit while the request is in flight
+     *   (acquired on the bounded elastic scheduler, since it may wait)
+     * - Waits for room in the embeddings rate limiter (RPM/TPM) first,
+     *   without holding the permit
+     * - Rate limit (429): retried after Retry-After / jittered backoff
+     *   (see OpenAiRateLimiter); the permit is released during the wait
+     * 
+     * @return One embedding per text, in input order
+     */
+    @Override
+    public Mono<List<List<Double>>> embed(List<String> texts) {
+        EmbeddingRequest request = new EmbeddingRequest(texts);
+
+        TokenBucketRateLimiter rateLimiter = openAiRateLimiter.embeddings();
+        long estimatedTokens = texts.stream().mapToLong(OpenAiRateLimiter::estimateTokens).sum();
+
+        return openAiRateLimiter.acquire(rateLimiter, estimatedTokens)
+                .then(Mono.using(
+                                () -> concurrencyLimiterRegistry.openAiEmbeddings().acquire(),
+                                permit -> openAiWebClient
+                                        .post()
+                                        .uri("/embeddings")
+                                        .bodyValue(request)
+                                        .retrieve()
+                                        .toEntity(EmbeddingResponse.class),
+                                ConcurrencyLimiter.Permit::close)
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(entity -> openAiRateLimiter.observe(rateLimiter, entity.getHeaders()))
+                .mapNotNull(ResponseEntity::getBody)
+                .retryWhen(openAiRateLimiter.retrySpec(rateLimiter, MAX_RETRIES))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Failed to generate embedding: Empty response")))
+                .map(response -> {
+                    if (response.getData() == null || response.getData().size() != texts.size()) {
+                        throw new RuntimeException("Failed to generate embedding: Empty response");
+                    }
+                    return inInputOrder(response.getData());
+                })
+                .onErrorMap(WebClientResponseException.class, OpenAiEmbeddingProvider::toServiceException);
+    }
+
+    private static RuntimeException toServiceException(WebClientResponseException e) {
+        if (e.getStatusCode().value() == 401) {
+            return new RuntimeException("OpenAI API key is invalid or not configured", e);
+        }
+        if (e.getStatusCode().value() == 429) {
+            return new RuntimeException("Rate limit exceeded. Please wait a minute and try again.", e);
+        }
+        return new RuntimeException("Failed to generate embedding: " + e.getMessage(), e);
+    }
+
+    /**
+     * Order embeddings by their "index" field (position of the text in the request)
+     */
+    private static List<List<Double>> inInputOrder(List<EmbeddingResponse.EmbeddingData> data) {
+        List<EmbeddingResponse.EmbeddingData> sorted = new ArrayList<>(data);
+        sorted.sort(Comparator.comparingInt(item -> item.getIndex() == null ? 0 : item.getIndex()));
+        return sorted.stream()
+                .map(EmbeddingResponse.EmbeddingData::getEmbedding)
+                .collect(Collectors.toList());
+    }
+}
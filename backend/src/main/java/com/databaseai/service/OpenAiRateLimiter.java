@@ -0,0 +1,231 @@
+package com.databaseai.service;
+
+import com.databaseai.util.TokenBucketRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OpenAI Rate Limiter
+ *
+ * Keeps OpenAI calls under the account's requests-per-minute and
+ * tokens-per-minute limits, shared by all threads of this instance:
+ * - Before a call: reserve a request and the estimated tokens in a token
+ *   bucket (TokenBucketRateLimiter); the call is delayed until they are
+ *   available, or rejected if that takes longer than openai.rate-limit.max-wait-ms
+ * - After every response: the x-ratelimit-limit-* / x-ratelimit-remaining-*
+ *   headers correct the bucket, so it follows the real limit of the key
+ * - On 429: the bucket is paused for Retry-After (or x-ratelimit-reset-*),
+ *   so other callers wait too instead of adding to the 429 storm; the call
+ *   is retried after a jittered exponential backoff (never less than
+ *   Retry-After), so retries don't all fire at the same moment
+ *
+ * One bucket per endpoint (chat, embeddings), since OpenAI limits are per model.
+ */
+@Service
+public class OpenAiRateLimiter {
+
+    public static final String CHAT = "openai-chat";
+    public static final String EMBEDDINGS = "openai-embeddings";
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    @Value("${openai.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openai.rate-limit.chat.requests-per-minute:3500}")
+    private long chatRequestsPerMinute;
+
+    @Value("${openai.rate-limit.chat.tokens-per-minute:90000}")
+    private long chatTokensPerMinute;
+
+    @Value("${openai.rate-limit.embeddings.requests-per-minute:3000}")
+    private long embeddingsRequestsPerMinute;
+
+    @Value("${openai.rate-limit.embeddings.tokens-per-minute:1000000}")
+    private long embeddingsTokensPerMinute;
+
+    @Value("${openai.rate-limit.max-wait-ms:30000}")
+    private long maxWaitMs;
+
+    @Value("${openai.rate-limit.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    @Value("${openai.rate-limit.backoff-max-ms:20000}")
+    private long backoffMaxMs;
+
+    private final Map<String, TokenBucketRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public TokenBucketRateLimiter chat() {
+        return limiters.computeIfAbsent(CHAT,
+                name -> new TokenBucketRateLimiter(name, chatRequestsPerMinute, chatTokensPerMinute, maxWaitMs));
+    }
+
+    public TokenBucketRateLimiter embeddings() {
+        return limiters.computeIfAbsent(EMBEDDINGS,
+                name -> new TokenBucketRateLimiter(name, embeddingsRequestsPerMinute, embeddingsTokensPerMinute, maxWaitMs));
+    }
+
+    /**
+     * Wait (without blocking a thread) until the limiter has room for this call
+     *
+     * @param estimatedTokens Prompt tokens + max completion tokens (OpenAI counts both)
+     * @return Completes when the call may be sent; errors if the wait exceeds max-wait-ms
+     */
+    public Mono<Void> acquire(TokenBucketRateLimiter limiter, long estimatedTokens) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            long waitMs = limiter.reserve(estimatedTokens);
+            return waitMs == 0 ? Mono.<Void>empty() : Mono.delay(Duration.ofMillis(waitMs)).then();
+        });
+    }
+
+    /**
+     * Correct the limiter from a response's x-ratelimit-* headers
+     */
+    public void observe(TokenBucketRateLimiter limiter, HttpHeaders headers) {
+        if (!enabled || headers == null) {
+            return;
+        }
+        limiter.syncRequests(longHeader(headers, "x-ratelimit-limit-requests"),
+                longHeader(headers, "x-ratelimit-remaining-requests"));
+        limiter.syncTokens(longHeader(headers, "x-ratelimit-limit-tokens"),
+                longHeader(headers, "x-ratelimit-remaining-tokens"));
+    }
+
+    /**
+     * Retry for rate-limited (429) calls
+     *
+     * - Pauses the limiter for Retry-After (all callers wait, not just this one)
+     * - Waits max(Retry-After, full-jitter backoff) before resubscribing;
+     *   the retry goes through acquire() again
+     *
+     * @param maxAttempts Attempts in total (the first try + retries)
+     */
+    public Retry retrySpec(TokenBucketRateLimiter limiter, int maxAttempts) {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable failure = signal.failure();
+            if (failure instanceof WebClientResponseException) {
+                observe(limiter, ((WebClientResponseException) failure).getHeaders());
+            }
+            if (!isRateLimit(failure) || signal.totalRetries() + 1 >= maxAttempts) {
+                return Mono.error(failure);
+            }
+
+            long retryAfterMs = retryAfterMs(((WebClientResponseException) failure).getHeaders());
+            if (enabled) {
+                limiter.pause(retryAfterMs);
+            }
+            long delayMs = Math.max(retryAfterMs, jitteredBackoffMs(signal.totalRetries()));
+            System.out.println("WARN: " + limiter.getName() + " rate limited (429), retrying in " + delayMs + " ms");
+            return Mono.delay(Duration.ofMillis(delayMs));
+        }));
+    }
+
+    /**
+     * "Full jitter" backoff: random between 0 and base * 2^attempt (capped)
+     */
+    private long jitteredBackoffMs(long attempt) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt + 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public static boolean isRateLimit(Throwable error) {
+        return error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getStatusCode().value() == 429;
+    }
+
+    /**
+     * Rough token count of a text (~4 characters per token for English)
+     */
+    public static long estimateTokens(String text) {
+        return text == null ? 0 : text.length() / 4 + 1;
+    }
+
+    /**
+     * How long the API asked us to wait (retry-after-ms, Retry-After seconds, or
+     * the shorter x-ratelimit-reset-* of an exhausted limit); 0 if not given
+     */
+    static long retryAfterMs(HttpHeaders headers) {
+        if (headers == null) {
+            return 0;
+        }
+        Long retryAfterMs = longHeader(headers, "retry-after-ms");
+        if (retryAfterMs != null) {
+            return retryAfterMs;
+        }
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return (long) (Double.parseDouble(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form: fall through to the reset headers
+            }
+        }
+
+        long resetMs = 0;
+        if (Long.valueOf(0).equals(longHeader(headers, "x-ratelimit-remaining-requests"))) {
+            resetMs = parseDurationMs(headers.getFirst("x-ratelimit-reset-requests"));
+        }
+        if (Long.valueOf(0).equals(longHeader(headers, "x-ratelimit-remaining-tokens"))) {
+            resetMs = Math.max(resetMs, parseDurationMs(headers.getFirst("x-ratelimit-reset-tokens")));
+        }
+        return resetMs;
+    }
+
+    /**
+     * Parse OpenAI reset durations like "20ms", "1.5s", "6m0s", "1h2m3s"
+     */
+    static long parseDurationMs(String value) {
+        if (value == null) {
+            return 0;
+        }
+        double totalMs = 0;
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h" -> totalMs += amount * 3_600_000;
+                case "m" -> totalMs += amount * 60_000;
+                case "s" -> totalMs += amount * 1_000;
+                default -> totalMs += amount;
+            }
+        }
+        return (long) Math.ceil(totalMs);
+    }
+
+    private static Long longHeader(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Statistics for every limiter created so far
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        limiters.values().forEach(limiter -> stats.put(limiter.getName(), limiter.getStats()));
+        return stats;
+    }
+}
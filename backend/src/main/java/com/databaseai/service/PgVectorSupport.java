@@ -0,0 +1,238 @@
+package com.databaseai.service;
+
+import com.databaseai.model.SchemaEmbedding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * pgvector Support
+ *
+ * When the application database is PostgreSQL with the pgvector extension,
+ * schema similarity search is pushed into Postgres:
+ *
+ *   SELECT * FROM schema_embeddings
+ *   WHERE database_info_id = ?
+ *   ORDER BY embedding_vec <=> ?::vector   -- cosine distance
+ *   LIMIT ?
+ *
+ * backed by an HNSW index, so search cost grows sublinearly with the number
+ * of tables instead of scanning every embedding.
+ *
+ * Setup (at startup, after SchemaEmbeddingStorageMigration):
+ * 1. CREATE EXTENSION IF NOT EXISTS vector
+ * 2. Add column embedding_vec vector(N) (N = schema-index.pgvector.dimension)
+ * 3. Backfill it from embedding_bin
+ * 4. Create an HNSW index (vector_cosine_ops) on embedding_vec and a
+ *    btree index on database_info_id
+ *
+ * Filtered searches: the HNSW scan walks the whole table's graph and only
+ * then applies "database_info_id = ?", so with the default ef_search (40)
+ * a database owning a small share of the rows can get fewer than topK rows
+ * back. Each search therefore runs with (SET LOCAL, see configureSearch):
+ * - hnsw.ef_search = max(schema-index.pgvector.ef-search, topK)
+ * - hnsw.iterative_scan = strict_order (pgvector 0.8+): the scan continues
+ *   until LIMIT rows passed the filter
+ * Without iterative scans (older pgvector), short results fall back to the
+ * in-memory index (SchemaEmbeddingService).
+ *
+ * On H2 (or PostgreSQL without pgvector) isAvailable() stays false and
+ * searches use the in-memory SchemaVectorIndex instead.
+ */
+@Component
+public class PgVectorSupport {
+
+    private static final int BACKFILL_BATCH_SIZE = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${schema-index.pgvector.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Embedding dimension of the vector column (HNSW needs a fixed dimension)
+     */
+    @Value("${schema-index.pgvector.dimension:1536}")
+    private int dimension;
+
+    @Value("${schema-index.pgvector.hnsw-m:16}")
+    private int hnswM;
+
+    @Value("${schema-index.pgvector.hnsw-ef-construction:64}")
+    private int hnswEfConstruction;
+
+    /**
+     * Candidate list size of HNSW searches (pgvector's default is 40; raised to topK if smaller)
+     */
+    @Value("${schema-index.pgvector.ef-search:100}")
+    private int efSearch;
+
+    private volatile boolean available = false;
+
+    /**
+     * pgvector 0.8+ (hnsw.iterative_scan)
+     */
+    private volatile boolean iterativeScan = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 10)
+    public void setUp() {
+        if (!enabled) {
+            System.out.println("INFO: pgvector search disabled (schema-index.pgvector.enabled=false)");
+            return;
+        }
+
+        try {
+            String product = jdbcTemplate.execute((Connection connection) ->
+                    connection.getMetaData().getDatabaseProductName());
+            if (product == null || !product.toLowerCase().contains("postgres")) {
+                System.out.println("INFO: Application database is " + product + " - using in-memory vector search");
+                return;
+            }
+
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            jdbcTemplate.execute("ALTER TABLE schema_embeddings ADD COLUMN IF NOT EXISTS embedding_vec vector(" + dimension + ")");
+
+            int backfilled = backfill();
+
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_schema_embeddings_database_info_id "
+                    + "ON schema_embeddings (database_info_id)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_schema_embeddings_embedding_vec_hnsw "
+                    + "ON schema_embeddings USING hnsw (embedding_vec vector_cosine_ops) "
+                    + "WITH (m = " + hnswM + ", ef_construction = " + hnswEfConstruction + ")");
+
+            String version = jdbcTemplate.queryForObject(
+                    "SELECT extversion FROM pg_extension WHERE extname = 'vector'", String.class);
+            iterativeScan = isAtLeast(version, 0, 8);
+
+            available = true;
+            System.out.println("INFO: pgvector " + version + " search enabled (dimension " + dimension
+                    + ", backfilled " + backfilled + " rows, iterative scan "
+                    + (iterativeScan ? "on" : "not supported") + ")");
+        } catch (Exception e) {
+            available = false;
+            System.out.println("INFO: pgvector not available - using in-memory vector search: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether searches can use pgvector
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Whether filtered searches keep scanning until LIMIT rows match (pgvector 0.8+)
+     */
+    public boolean isIterativeScan() {
+        return iterativeScan;
+    }
+
+    /**
+     * Search settings for the current transaction (call inside the transaction
+     * that runs the search; SET LOCAL ends with it)
+     */
+    public void configureSearch(int topK) {
+        // ef_search is limited to 1..1000 by pgvector
+        int ef = Math.min(Math.max(efSearch, topK), 1000);
+        jdbcTemplate.execute("SET LOCAL hnsw.ef_search = " + ef);
+        if (iterativeScan) {
+            jdbcTemplate.execute("SET LOCAL hnsw.iterative_scan = strict_order");
+        }
+    }
+
+    /**
+     * "0.8.0" >= major.minor
+     */
+    static boolean isAtLeast(String version, int major, int minor) {
+        if (version == null) {
+            return false;
+        }
+        String[] parts = version.split("\\.");
+        try {
+            int versionMajor = Integer.parseInt(parts[0]);
+            int versionMinor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return versionMajor > major || (versionMajor == major && versionMinor >= minor);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the vector column for a newly indexed schema
+     *
+     * Not mapped in the JPA entity (Hibernate has no built-in vector type),
+     * so it is written here right after the entity is saved.
+     */
+    public void store(SchemaEmbedding schema) {
+        if (!available) {
+            return;
+        }
+
+        float[] embedding = schema.getEmbeddingAsFloats();
+        if (embedding.length != dimension) {
+            System.err.println("WARNING: Schema embedding " + schema.getId() + " has dimension " + embedding.length
+                    + ", pgvector column expects " + dimension + " - it will only be found by in-memory search");
+            return;
+        }
+
+        jdbcTemplate.update("UPDATE schema_embeddings SET embedding_vec = CAST(? AS vector) WHERE id = ?",
+                toVectorLiteral(embedding), schema.getId());
+    }
+
+    /**
+     * Format a vector as a pgvector literal: "[0.1,0.2,...]"
+     */
+    public static String toVectorLiteral(float[] vector) {
+        StringBuilder literal = new StringBuilder(vector.length * 12);
+        literal.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(vector[i]);
+        }
+        return literal.append(']').toString();
+    }
+
+    /**
+     * Fill embedding_vec for rows that only have the binary embedding
+     */
+    private int backfill() {
+        int backfilled = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, embedding_bin FROM schema_embeddings "
+                            + "WHERE embedding_vec IS NULL AND embedding_bin IS NOT NULL "
+                            + "AND octet_length(embedding_bin) = " + (dimension * Float.BYTES) + " "
+                            + "ORDER BY id LIMIT " + BACKFILL_BATCH_SIZE);
+            if (rows.isEmpty()) {
+                return backfilled;
+            }
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                float[] embedding = SchemaEmbedding.decodeEmbedding((byte[]) row.get("embedding_bin"));
+                updates.add(new Object[]{toVectorLiteral(embedding), row.get("id")});
+            }
+            jdbcTemplate.batchUpdate("UPDATE schema_embeddings SET embedding_vec = CAST(? AS vector) WHERE id = ?", updates);
+            backfilled += updates.size();
+        }
+    }
+}
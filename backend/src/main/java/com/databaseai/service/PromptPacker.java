@@ -0,0 +1,334 @@
+package com.databaseai.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prompt Packer
+ *
+ * Fits the retrieved schema context into a token budget before it goes into
+ * the GPT prompt. Without it, a few wide tables (hundreds of columns) make
+ * the prompt slow and expensive.
+ *
+ * Packing (schemas in relevance order: retrieval rank, then tables added
+ * through foreign keys):
+ * 1. A schema whose block fits in nl-to-sql.prompt.max-schema-tokens and in
+ *    the remaining nl-to-sql.prompt.schema-token-budget is used as is
+ * 2. Otherwise its column list is trimmed to the relevant columns:
+ *    - columns named in the question ("revenue", "created_at")
+ *    - key columns ("primary key", "references ...")
+ *    - columns used in the schema's join conditions
+ *    The description says how many columns were left out.
+ * 3. Descriptions without a column list ("... with a, b, c columns"), or
+ *    still too long, are cut to the tokens that are left
+ * 4. Schemas that still don't fit are left out; smaller, less relevant
+ *    schemas after them may still fit. Join conditions naming a left-out
+ *    schema are removed from the schemas that remain.
+ *
+ * Token counts are exact for the configured tokenizer (PromptTokenizer), and
+ * blocks are rendered with RAGService.formatSchema, so the counted text is
+ * the text that is sent.
+ */
+@Service
+public class PromptPacker {
+
+    private static final Pattern COLUMN_LIST = Pattern.compile("^(.*?\\bwith\\s+)(.+?)(\\s+columns?\\b)(.*)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * Below this, a cut description says too little to be worth including
+     */
+    private static final int MIN_DESCRIPTION_TOKENS = 16;
+
+    @Autowired
+    private PromptTokenizer tokenizer;
+
+    @Value("${nl-to-sql.prompt.packing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${nl-to-sql.prompt.schema-token-budget:2000}")
+    private int schemaTokenBudget;
+
+    @Value("${nl-to-sql.prompt.max-schema-tokens:600}")
+    private int maxSchemaTokens;
+
+    public PromptTokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    /**
+     * Select and trim schemas to fit the schema token budget
+     *
+     * @param question The user's question (decides which columns are relevant)
+     * @param schemas Retrieved schemas, most relevant first
+     */
+    public PackedSchemas pack(String question, List<RAGService.SchemaContext> schemas) {
+        if (schemas.isEmpty()) {
+            return new PackedSchemas(schemas, 0, 0, 0);
+        }
+        if (!enabled) {
+            return new PackedSchemas(schemas, 0, 0, tokenizer.count(RAGService.CONTEXT_HEADER) + countBlocks(schemas));
+        }
+
+        Set<String> questionTerms = new HashSet<>(SchemaLexicalIndex.terms(question));
+        List<RAGService.SchemaContext> packed = new ArrayList<>(schemas.size());
+        int used = tokenizer.count(RAGService.CONTEXT_HEADER);
+        int trimmed = 0;
+        List<String> omitted = new ArrayList<>();
+
+        for (RAGService.SchemaContext schema : schemas) {
+            int number = packed.size() + 1;
+            int available = Math.min(maxSchemaTokens, schemaTokenBudget - used);
+            int tokens = tokenizer.count(RAGService.formatSchema(number, schema));
+            if (tokens <= available) {
+                packed.add(schema);
+                used += tokens;
+                continue;
+            }
+
+            RAGService.SchemaContext smaller = trim(number, schema, questionTerms, available);
+            if (smaller != null) {
+                packed.add(smaller);
+                used += tokenizer.count(RAGService.formatSchema(number, smaller));
+                trimmed++;
+            } else {
+                omitted.add(schema.getSchemaName());
+            }
+        }
+
+        if (!omitted.isEmpty()) {
+            // Joins to tables that aren't in the prompt only mislead; blocks can only get shorter
+            packed = withoutJoinsTo(packed, omitted);
+            used = tokenizer.count(RAGService.CONTEXT_HEADER) + countBlocks(packed);
+        }
+        return new PackedSchemas(packed, trimmed, omitted.size(), used);
+    }
+
+    /**
+     * A version of the schema that fits in maxTokens, or null
+     */
+    private RAGService.SchemaContext trim(int number, RAGService.SchemaContext schema, Set<String> questionTerms,
+                                          int maxTokens) {
+        String description = schema.getDescription() != null ? schema.getDescription() : "";
+
+        Matcher matcher = COLUMN_LIST.matcher(description);
+        if (matcher.matches()) {
+            List<String> columns = splitColumns(matcher.group(2));
+            List<String> relevant = new ArrayList<>();
+            for (String column : columns) {
+                if (isRelevant(column, schema, questionTerms)) {
+                    relevant.add(column);
+                }
+            }
+            if (!relevant.isEmpty() && relevant.size() < columns.size()) {
+                String trimmedDescription = matcher.group(1)
+                        + String.join(", ", relevant)
+                        + matcher.group(3)
+                        + " (" + (columns.size() - relevant.size()) + " more not shown)"
+                        + matcher.group(4);
+                RAGService.SchemaContext candidate = withDescription(schema, trimmedDescription);
+                if (tokenizer.count(RAGService.formatSchema(number, candidate)) <= maxTokens) {
+                    return candidate;
+                }
+                description = trimmedDescription;
+            }
+        }
+
+        // Cut the description to what is left after the rest of the block
+        int overhead = tokenizer.count(RAGService.formatSchema(number, withDescription(schema, "")));
+        int descriptionTokens = maxTokens - overhead - 1;
+        if (descriptionTokens < MIN_DESCRIPTION_TOKENS) {
+            return null;
+        }
+        RAGService.SchemaContext cut = withDescription(schema,
+                tokenizer.truncate(description, descriptionTokens).stripTrailing() + "...");
+        return tokenizer.count(RAGService.formatSchema(number, cut)) <= maxTokens ? cut : null;
+    }
+
+    /**
+     * The schemas without the join conditions that name one of the given tables
+     */
+    private static List<RAGService.SchemaContext> withoutJoinsTo(List<RAGService.SchemaContext> schemas,
+                                                                 List<String> tables) {
+        List<RAGService.SchemaContext> result = new ArrayList<>(schemas.size());
+        for (RAGService.SchemaContext schema : schemas) {
+            List<String> joins = new ArrayList<>();
+            for (String join : schema.getJoins()) {
+                if (!namesAnyTable(join, tables)) {
+                    joins.add(join);
+                }
+            }
+            result.add(joins.size() == schema.getJoins().size()
+                    ? schema
+                    : new RAGService.SchemaContext(schema.getSchemaName(), schema.getDescription(), joins));
+        }
+        return result;
+    }
+
+    /**
+     * Whether a join condition ("sales.orders.customer_id = sales.customers.id AND ...")
+     * uses a column of one of the tables
+     */
+    private static boolean namesAnyTable(String join, List<String> tables) {
+        for (String condition : join.split(" AND ")) {
+            for (String side : condition.split("=")) {
+                String column = side.trim();
+                int dot = column.lastIndexOf('.');
+                if (dot <= 0) {
+                    continue;
+                }
+                String table = column.substring(0, dot);
+                for (String other : tables) {
+                    if (sameTable(table, other)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same table, ignoring case and a schema qualifier on only one of the names
+     * ("sales.orders" and "orders")
+     */
+    private static boolean sameTable(String a, String b) {
+        String keyA = SchemaGraphService.tableKey(a);
+        String keyB = SchemaGraphService.tableKey(b);
+        return keyA.equals(keyB)
+                || (keyB.indexOf('.') < 0 && keyA.endsWith("." + keyB))
+                || (keyA.indexOf('.') < 0 && keyB.endsWith("." + keyA));
+    }
+
+    /**
+     * Key columns, columns used in joins and columns named in the question
+     */
+    private static boolean isRelevant(String column, RAGService.SchemaContext schema, Set<String> questionTerms) {
+        String lower = column.toLowerCase(Locale.ROOT);
+        if (lower.contains("primary key") || lower.contains("references ")) {
+            return true;
+        }
+
+        String name = columnName(column);
+        if (name.isEmpty()) {
+            return false;
+        }
+        String qualifiedName = SchemaGraphService.tableKey(schema.getSchemaName()) + "." + name;
+        for (String join : schema.getJoins()) {
+            if (join.toLowerCase(Locale.ROOT).contains(qualifiedName)) {
+                return true;
+            }
+        }
+        for (String term : SchemaLexicalIndex.terms(name)) {
+            if (questionTerms.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * "customer_id (integer references customers.id)" → "customer_id"
+     */
+    private static String columnName(String column) {
+        String trimmed = column.trim();
+        int end = 0;
+        while (end < trimmed.length()
+                && (Character.isLetterOrDigit(trimmed.charAt(end)) || trimmed.charAt(end) == '_')) {
+            end++;
+        }
+        return trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Split a column list on commas outside parentheses
+     */
+    static List<String> splitColumns(String columnList) {
+        List<String> columns = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < columnList.length(); i++) {
+            char c = columnList.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            } else if (c == ',' && depth == 0) {
+                addColumn(columns, columnList.substring(start, i));
+                start = i + 1;
+            }
+        }
+        addColumn(columns, columnList.substring(start));
+        return columns;
+    }
+
+    private static void addColumn(List<String> columns, String column) {
+        String trimmed = column.trim();
+        if (trimmed.startsWith("and ")) {
+            trimmed = trimmed.substring(4).trim();
+        }
+        if (!trimmed.isEmpty()) {
+            columns.add(trimmed);
+        }
+    }
+
+    private static RAGService.SchemaContext withDescription(RAGService.SchemaContext schema, String description) {
+        return new RAGService.SchemaContext(schema.getSchemaName(), description, schema.getJoins());
+    }
+
+    private int countBlocks(List<RAGService.SchemaContext> schemas) {
+        int tokens = 0;
+        for (int i = 0; i < schemas.size(); i++) {
+            tokens += tokenizer.count(RAGService.formatSchema(i + 1, schemas.get(i)));
+        }
+        return tokens;
+    }
+
+    /**
+     * Result of packing
+     */
+    public static class PackedSchemas {
+        private final List<RAGService.SchemaContext> schemas;
+        private final int trimmedCount;
+        private final int omittedCount;
+        private final int tokens;
+
+        private PackedSchemas(List<RAGService.SchemaContext> schemas, int trimmedCount, int omittedCount, int tokens) {
+            this.schemas = schemas;
+            this.trimmedCount = trimmedCount;
+            this.omittedCount = omittedCount;
+            this.tokens = tokens;
+        }
+
+        /**
+         * Schemas to put in the prompt (trimmed ones with their shorter description)
+         */
+        public List<RAGService.SchemaContext> getSchemas() {
+            return schemas;
+        }
+
+        public int getTrimmedCount() {
+            return trimmedCount;
+        }
+
+        public int getOmittedCount() {
+            return omittedCount;
+        }
+
+        /**
+         * Tokens of the schema context (RAGService.buildContextString of getSchemas())
+         */
+        public int getTokens() {
+            return tokens;
+        }
+    }
+}
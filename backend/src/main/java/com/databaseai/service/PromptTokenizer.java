@@ -0,0 +1,69 @@
+package com.databaseai.service;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prompt Tokenizer
+ *
+ * Counts tokens the way OpenAI does, locally (JTokkit byte pair encoding,
+ * no API call). cl100k_base is the encoding of gpt-3.5-turbo, gpt-4 and the
+ * text-embedding-3 models; ai.tokenizer.encoding selects another one
+ * (e.g. o200k_base for gpt-4o).
+ *
+ * Used for:
+ * - Prompt packing (PromptPacker): schema context up to a token budget
+ * - Token counts in NLToSQLResponse
+ *
+ * Thread-safe (Encoding instances are immutable).
+ */
+@Component
+public class PromptTokenizer {
+
+    @Value("${ai.tokenizer.encoding:cl100k_base}")
+    private String encodingName;
+
+    private Encoding encoding;
+
+    @PostConstruct
+    public void init() {
+        encoding = Encodings.newLazyEncodingRegistry()
+                .getEncoding(encodingName)
+                .orElseThrow(() -> new IllegalStateException("Unknown ai.tokenizer.encoding: " + encodingName));
+        System.out.println("INFO: Prompt tokenizer: " + encoding.getName());
+    }
+
+    public String getEncodingName() {
+        return encoding.getName();
+    }
+
+    /**
+     * Number of tokens of a text (special tokens like <|endoftext|> are counted as plain text)
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * The longest prefix of a text that fits in maxTokens tokens
+     *
+     * @return The text itself if it fits
+     */
+    public String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        if (maxTokens <= 0) {
+            return "";
+        }
+        EncodingResult result = encoding.encodeOrdinary(text, maxTokens);
+        return result.isTruncated() ? encoding.decode(result.getTokens()) : text;
+    }
+}
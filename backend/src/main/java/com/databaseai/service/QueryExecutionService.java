@@ -1,14 +1,23 @@
 package com.databaseai.service;
 
+import com.databaseai.dto.ColumnarResult;
 import com.databaseai.dto.QueryExecutionResponse;
 import com.databaseai.model.DatabaseInfo;
 import com.databaseai.repository.DatabaseInfoRepository;
+import com.databaseai.util.ConcurrencyLimiter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 /**
  * Query Execution Service
@@ -25,7 +34,7 @@ import java.util.*;
  * Process:
  * 1. Validate SQL query (SELECT only, no dangerous keywords)
  * 2. Get database connection info from DatabaseInfo
- * 3. Create JDBC connection (read-only)
+ * 3. Borrow JDBC connection from the database's pool (read-only)
  * 4. Execute SQL with timeout
  * 5. Process ResultSet → JSON
  * 6. Return results
@@ -42,6 +51,31 @@ public class QueryExecutionService {
     @Autowired
     private RealTimeUpdateService realTimeUpdateService;
 
+    @Autowired
+    private TargetConnectionPoolRegistry connectionPoolRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ArrowResultWriter arrowResultWriter;
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+
+    /**
+     * JDBC fetch size used when streaming results
+     * (PostgreSQL only uses a server-side cursor when this is set and autocommit is off)
+     */
+    @Value("${query-execution.stream.fetch-size:1000}")
+    private int streamFetchSize;
+
+    /**
+     * Flush the streamed response every N rows so the client sees data early
+     */
+    @Value("${query-execution.stream.flush-every-rows:500}")
+    private int streamFlushEveryRows;
+
     /**
      * Default query timeout (30 seconds)
      */
@@ -65,6 +99,28 @@ public class QueryExecutionService {
     }
 
     public QueryExecutionResponse executeQuery(Long databaseInfoId, String sqlQuery, Integer timeoutSeconds, String requestId) {
+        return executeQuery(databaseInfoId, sqlQuery, timeoutSeconds, requestId, QueryExecutionResponse.FORMAT_ROWS);
+    }
+
+    /**
+     * Execute SQL query with a chosen result layout
+     * 
+     * @param resultFormat "rows" (list of maps) or "columnar" (primitive arrays per column)
+     */
+    public QueryExecutionResponse executeQuery(Long databaseInfoId, String sqlQuery, Integer timeoutSeconds,
+                                               String requestId, String resultFormat) {
+        return executeQuery(databaseInfoId, sqlQuery, timeoutSeconds, requestId, resultFormat, null);
+    }
+
+    /**
+     * Execute SQL query, reporting the JDBC Statement before it runs
+     * 
+     * @param statementListener Receives the Statement right before execution
+     *                          (used by QueryJobService to call Statement.cancel()); may be null
+     */
+    public QueryExecutionResponse executeQuery(Long databaseInfoId, String sqlQuery, Integer timeoutSeconds,
+                                               String requestId, String resultFormat,
+                                               Consumer<Statement> statementListener) {
         String effectiveRequestId = (requestId != null && !requestId.isBlank())
                 ? requestId
                 : UUID.randomUUID().toString();
@@ -149,13 +205,29 @@ public class QueryExecutionService {
                 connectionData
         );
 
-        // Step 3: Execute query
+        // Step 3: Execute query (limited number of concurrent queries per database)
+        ConcurrencyLimiter.Permit permit;
+        try {
+            permit = concurrencyLimiterRegistry.targetDatabase(databaseInfoId).acquire();
+        } catch (IllegalStateException e) {
+            realTimeUpdateService.publishQueryExecutionError(
+                    effectiveRequestId,
+                    "TOO_MANY_REQUESTS",
+                    e.getMessage(),
+                    connectionData
+            );
+            response.setSuccess(false);
+            response.setErrorMessage(e.getMessage());
+            response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+            return response;
+        }
+
         Connection connection = null;
         Statement statement = null;
         ResultSet resultSet = null;
 
         try {
-            // Step 3a: Create database connection
+            // Step 3a: Borrow database connection from pool
             connection = createConnection(databaseInfo);
 
             // Step 3b: Set read-only mode (security!)
@@ -172,27 +244,36 @@ public class QueryExecutionService {
 
             // Step 3c: Create statement with timeout
             statement = connection.createStatement();
-            int timeout = (timeoutSeconds != null && timeoutSeconds > 0)
-                    ? Math.min(timeoutSeconds, MAX_TIMEOUT_SECONDS)
-                    : DEFAULT_TIMEOUT_SECONDS;
-            statement.setQueryTimeout(timeout);
+            statement.setQueryTimeout(resolveTimeout(timeoutSeconds));
+            if (statementListener != null) {
+                statementListener.accept(statement);
+            }
 
             // Step 3d: Execute query
             resultSet = statement.executeQuery(sqlQuery);
 
             // Step 4: Process results
-            List<Map<String, Object>> rows = processResultSet(resultSet);
             List<String> columns = getColumnNames(resultSet);
+            int rowCount;
+
+            if (QueryExecutionResponse.FORMAT_COLUMNAR.equalsIgnoreCase(resultFormat)) {
+                ColumnarResult columnar = ColumnarResultEncoder.encode(resultSet, this::convertValue);
+                response.setColumnar(columnar);
+                rowCount = columnar.getRowCount();
+            } else {
+                List<Map<String, Object>> rows = processResultSet(resultSet);
+                response.setRows(rows);
+                rowCount = rows.size();
+            }
 
             // Step 5: Build response
             response.setSuccess(true);
-            response.setRows(rows);
             response.setColumns(columns);
-            response.setRowCount(rows.size());
+            response.setRowCount(rowCount);
             response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
 
             Map<String, Object> successData = new HashMap<>();
-            successData.put("rowCount", rows.size());
+            successData.put("rowCount", rowCount);
             successData.put("columns", columns);
             realTimeUpdateService.publishQueryExecutionSuccess(
                     effectiveRequestId,
@@ -218,31 +299,7 @@ public class QueryExecutionService {
             sqlErrorData.put("sqlState", e.getSQLState());
             sqlErrorData.put("errorCode", e.getErrorCode());
             
-            // Provide more user-friendly error messages for common database errors
-            String errorMessage = e.getMessage();
-            String userFriendlyMessage = errorMessage;
-            
-            if (errorMessage != null) {
-                if (errorMessage.contains("role") && errorMessage.contains("does not exist")) {
-                    userFriendlyMessage = "Database connection failed: The database user '" + 
-                        databaseInfo.getUsername() + "' does not exist. Please check your database configuration.";
-                } else if (errorMessage.contains("password authentication failed") || 
-                           errorMessage.contains("password") && errorMessage.contains("authentication")) {
-                    String passwordStatus = (databaseInfo.getPassword() != null && !databaseInfo.getPassword().isEmpty()) 
-                        ? "Password is set (length: " + databaseInfo.getPassword().length() + ")" 
-                        : "NO PASSWORD SET";
-                    userFriendlyMessage = "Database connection failed: Password authentication error. " + passwordStatus + 
-                        ". Please check your database credentials in Settings. For Render databases, get the password from Render → Database → Connect → Internal Database URL.";
-                } else if (errorMessage.contains("Connection refused")) {
-                    userFriendlyMessage = "Database connection failed: Cannot connect to database at " + 
-                        databaseInfo.getHost() + ":" + databaseInfo.getPort() + ". Please check if the database is running.";
-                } else if (errorMessage.contains("database") && errorMessage.contains("does not exist")) {
-                    userFriendlyMessage = "Database connection failed: The database '" + 
-                        databaseInfo.getDatabaseName() + "' does not exist. Please check your database configuration.";
-                } else if (errorMessage.contains("timeout")) {
-                    userFriendlyMessage = "Database connection failed: Connection timeout. Please check if the database is accessible.";
-                }
-            }
+            String userFriendlyMessage = toUserFriendlyMessage(e, databaseInfo);
             
             realTimeUpdateService.publishQueryExecutionError(
                     effectiveRequestId,
@@ -253,6 +310,11 @@ public class QueryExecutionService {
             response.setSuccess(false);
             response.setErrorMessage(userFriendlyMessage);
             response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+        } catch (CancellationException e) {
+            // statementListener stopped the query before it ran (job cancelled)
+            response.setSuccess(false);
+            response.setErrorMessage(e.getMessage());
+            response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
         } catch (Exception e) {
             realTimeUpdateService.publishQueryExecutionError(
                     effectiveRequestId,
@@ -264,71 +326,305 @@ public class QueryExecutionService {
             response.setErrorMessage("Unexpected error: " + e.getMessage());
             response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
         } finally {
-            // Step 6: Close resources (important!)
+            // Step 6: Close resources (important! returns connection to pool)
             closeResources(connection, statement, resultSet);
+            permit.close();
         }
 
         return response;
     }
 
     /**
-     * Create JDBC connection to database
+     * Check a query before streaming starts
      * 
-     * Supports PostgreSQL and MySQL for now.
-     * Can be extended for other databases.
+     * Streaming responses can't change their HTTP status once the body has
+     * started, so callers that need a proper 4xx run this first:
+     * - SQL validation (SELECT only, no dangerous keywords)
+     * - Database exists
      */
-    private Connection createConnection(DatabaseInfo databaseInfo) throws SQLException {
-        String url = buildConnectionUrl(databaseInfo);
-        
-        Properties props = new Properties();
-        props.setProperty("user", databaseInfo.getUsername());
-        
-        // Get password from DatabaseInfo (if provided)
-        // Note: In production, password should be encrypted and stored securely
-        String password = databaseInfo.getPassword();
-        
-        // Password is optional - only set if provided
-        // Some databases (like local PostgreSQL) don't require passwords
-        // Cloud databases (like Render) require passwords
-        if (password != null && !password.isEmpty()) {
-            props.setProperty("password", password);
-            System.out.println("INFO: Using password for database: " + databaseInfo.getName() + " (ID: " + databaseInfo.getId() + ") [Password length: " + password.length() + "]");
-        } else {
-            System.out.println("ERROR: NO PASSWORD PROVIDED for database: " + databaseInfo.getName() + " (ID: " + databaseInfo.getId() + ")");
-            System.out.println("ERROR: This will fail for databases that require authentication (like Render)");
-            System.out.println("ERROR: Please add password in Settings page for database ID: " + databaseInfo.getId());
+    public SQLValidator.ValidationResult preflight(Long databaseInfoId, String sqlQuery) {
+        SQLValidator.ValidationResult validation = sqlValidator.validate(sqlQuery);
+        if (!validation.isValid()) {
+            return new SQLValidator.ValidationResult(false, List.of(
+                    "SQL validation failed: " + String.join(", ", validation.getErrors())));
+        }
+        if (!databaseInfoRepository.existsById(databaseInfoId)) {
+            return new SQLValidator.ValidationResult(false, List.of("Database not found with ID: " + databaseInfoId));
+        }
+        return validation;
+    }
+
+    /**
+     * Execute SQL query and stream the results as NDJSON (one JSON value per line)
+     * 
+     * Unlike executeQuery(), rows are never collected in memory: each row is
+     * written to the output stream as soon as it is read from the ResultSet,
+     * so memory stays flat regardless of result size.
+     * 
+     * Output format:
+     * {"type":"columns","requestId":"...","columns":["id","name"]}
+     * [1,"John"]
+     * [2,"Jane"]
+     * {"type":"complete","rowCount":2,"executionTimeMs":45}
+     * 
+     * If something fails, the last line is:
+     * {"type":"error","message":"...","rowCount":0,"executionTimeMs":12}
+     * 
+     * @param outputStream Where to write NDJSON lines (HTTP response body)
+     */
+    public void streamQuery(Long databaseInfoId, String sqlQuery, Integer timeoutSeconds, String requestId,
+                            OutputStream outputStream) throws IOException {
+        long startTime = System.currentTimeMillis();
+        long[] rowCount = {0};
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        // Every line is a separate JSON value
+        generator.setRootValueSeparator(null);
+
+        try {
+            runStreamingQuery(databaseInfoId, sqlQuery, timeoutSeconds, requestId, resultSet -> {
+                // Column metadata goes first
+                List<String> columns = getColumnNames(resultSet);
+                int columnCount = columns.size();
+
+                generator.writeStartObject();
+                generator.writeStringField("type", "columns");
+                generator.writeStringField("requestId", requestId);
+                generator.writeObjectField("columns", columns);
+                generator.writeEndObject();
+                writeLineBreak(generator);
+                generator.flush();
+
+                // One line per row, written as it is read
+                while (resultSet.next()) {
+                    generator.writeStartArray();
+                    for (int i = 1; i <= columnCount; i++) {
+                        Object value = resultSet.getObject(i);
+                        generator.writeObject(value == null ? null : convertValue(value));
+                    }
+                    generator.writeEndArray();
+                    writeLineBreak(generator);
+
+                    rowCount[0]++;
+                    if (rowCount[0] % streamFlushEveryRows == 0) {
+                        generator.flush();
+                    }
+                }
+
+                // Trailer
+                generator.writeStartObject();
+                generator.writeStringField("type", "complete");
+                generator.writeNumberField("rowCount", rowCount[0]);
+                generator.writeNumberField("executionTimeMs", System.currentTimeMillis() - startTime);
+                generator.writeEndObject();
+                writeLineBreak(generator);
+                generator.flush();
+
+                return rowCount[0];
+            });
+        } catch (StreamingQueryException e) {
+            writeStreamError(generator, e.getMessage(), rowCount[0], startTime);
+        }
+    }
+
+    /**
+     * Execute SQL query and stream the results as Apache Arrow record batches
+     * 
+     * Callers should run preflight() first so validation errors can be
+     * returned with a proper HTTP status. Errors after streaming has started
+     * end the stream early (and are reported over WebSocket).
+     */
+    public void streamQueryAsArrow(Long databaseInfoId, String sqlQuery, Integer timeoutSeconds, String requestId,
+                                   OutputStream outputStream) throws IOException {
+        try {
+            runStreamingQuery(databaseInfoId, sqlQuery, timeoutSeconds, requestId,
+                    resultSet -> arrowResultWriter.write(resultSet, outputStream, this::convertValue));
+        } catch (StreamingQueryException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Shared part of the streaming endpoints
+     * 
+     * Validates, borrows a pooled connection, runs the query with a JDBC fetch
+     * size (server-side cursor) and hands the open ResultSet to the streamer.
+     * Progress and errors are published over WebSocket like executeQuery().
+     * 
+     * @throws StreamingQueryException with a user-friendly message if the query fails
+     */
+    private void runStreamingQuery(Long databaseInfoId, String sqlQuery, Integer timeoutSeconds, String requestId,
+                                   ResultSetStreamer streamer) throws IOException, StreamingQueryException {
+        Map<String, Object> requestMeta = new HashMap<>();
+        requestMeta.put("databaseInfoId", databaseInfoId);
+        requestMeta.put("streaming", true);
+        realTimeUpdateService.publishQueryExecutionProgress(
+                requestId,
+                "REQUEST_RECEIVED",
+                "Received streaming query execution request",
+                requestMeta
+        );
+
+        // Step 1: Validate SQL query
+        SQLValidator.ValidationResult validation = sqlValidator.validate(sqlQuery);
+        if (!validation.isValid()) {
+            Map<String, Object> validationData = new HashMap<>();
+            validationData.put("errors", validation.getErrors());
+            realTimeUpdateService.publishQueryExecutionError(
+                    requestId,
+                    "VALIDATION_FAILED",
+                    "SQL validation failed",
+                    validationData
+            );
+            throw new StreamingQueryException("SQL validation failed: " + String.join(", ", validation.getErrors()));
+        }
+
+        // Step 2: Get database connection info
+        DatabaseInfo databaseInfo = databaseInfoRepository.findById(databaseInfoId).orElse(null);
+        if (databaseInfo == null) {
+            realTimeUpdateService.publishQueryExecutionError(
+                    requestId,
+                    "DATABASE_NOT_FOUND",
+                    "Database not found with ID: " + databaseInfoId,
+                    requestMeta
+            );
+            throw new StreamingQueryException("Database not found with ID: " + databaseInfoId);
+        }
+
+        ConcurrencyLimiter.Permit permit;
+        try {
+            permit = concurrencyLimiterRegistry.targetDatabase(databaseInfoId).acquire();
+        } catch (IllegalStateException e) {
+            realTimeUpdateService.publishQueryExecutionError(requestId, "TOO_MANY_REQUESTS", e.getMessage(), requestMeta);
+            throw new StreamingQueryException(e.getMessage());
+        }
+
+        Connection connection = null;
+        Statement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            // Step 3: Borrow connection and execute with a fetch size (server-side cursor)
+            connection = createConnection(databaseInfo);
+            connection.setReadOnly(true);
+            // PostgreSQL ignores fetch size in autocommit mode; the pool resets this on return
+            connection.setAutoCommit(false);
+
+            statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setQueryTimeout(resolveTimeout(timeoutSeconds));
+            statement.setFetchSize(streamFetchSize);
+
+            realTimeUpdateService.publishQueryExecutionProgress(
+                    requestId,
+                    "EXECUTING",
+                    "Executing SQL query (streaming)",
+                    null
+            );
+
+            resultSet = statement.executeQuery(sqlQuery);
+
+            // Step 4: Stream rows
+            long rowCount = streamer.stream(resultSet);
+
+            Map<String, Object> successData = new HashMap<>();
+            successData.put("rowCount", rowCount);
+            realTimeUpdateService.publishQueryExecutionSuccess(
+                    requestId,
+                    "COMPLETED",
+                    "Query execution completed",
+                    successData
+            );
+
+        } catch (SQLException e) {
+            String userFriendlyMessage = e instanceof SQLTimeoutException
+                    ? "Query timeout: Query took longer than " + resolveTimeout(timeoutSeconds) + " seconds"
+                    : toUserFriendlyMessage(e, databaseInfo);
+
+            Map<String, Object> sqlErrorData = new HashMap<>();
+            sqlErrorData.put("sqlState", e.getSQLState());
+            sqlErrorData.put("errorCode", e.getErrorCode());
+            realTimeUpdateService.publishQueryExecutionError(
+                    requestId,
+                    e instanceof SQLTimeoutException ? "TIMEOUT" : "SQL_ERROR",
+                    "SQL execution error: " + userFriendlyMessage,
+                    sqlErrorData
+            );
+            throw new StreamingQueryException(userFriendlyMessage);
+        } finally {
+            closeResources(connection, statement, resultSet);
+            permit.close();
         }
+    }
 
-        // Additional connection properties for security and performance
-        props.setProperty("readOnly", "true"); // Read-only connection
-        props.setProperty("connectTimeout", "10"); // Connection timeout (10 seconds)
+    /**
+     * Write the error trailer line of a streamed response
+     */
+    private void writeStreamError(JsonGenerator generator, String message,
+                                  long rowCount, long startTime) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "error");
+        generator.writeStringField("message", message);
+        generator.writeNumberField("rowCount", rowCount);
+        generator.writeNumberField("executionTimeMs", System.currentTimeMillis() - startTime);
+        generator.writeEndObject();
+        writeLineBreak(generator);
+        generator.flush();
+    }
 
-        return DriverManager.getConnection(url, props);
+    private void writeLineBreak(JsonGenerator generator) throws IOException {
+        generator.writeRaw('\n');
     }
 
     /**
-     * Build JDBC connection URL based on database type
+     * Clamp requested timeout to (0, MAX_TIMEOUT_SECONDS], default if not set
      */
-    private String buildConnectionUrl(DatabaseInfo databaseInfo) {
-        String databaseType = databaseInfo.getDatabaseType().toLowerCase();
+    private int resolveTimeout(Integer timeoutSeconds) {
+        return (timeoutSeconds != null && timeoutSeconds > 0)
+                ? Math.min(timeoutSeconds, MAX_TIMEOUT_SECONDS)
+                : DEFAULT_TIMEOUT_SECONDS;
+    }
+
+    /**
+     * Provide more user-friendly error messages for common database errors
+     */
+    private String toUserFriendlyMessage(SQLException e, DatabaseInfo databaseInfo) {
+        String errorMessage = e.getMessage();
+        String userFriendlyMessage = errorMessage;
         
-        switch (databaseType) {
-            case "postgresql":
-            case "postgres":
-                return String.format("jdbc:postgresql://%s:%d/%s",
-                        databaseInfo.getHost(),
-                        databaseInfo.getPort(),
-                        databaseInfo.getDatabaseName());
-            
-            case "mysql":
-                return String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC",
-                        databaseInfo.getHost(),
-                        databaseInfo.getPort(),
-                        databaseInfo.getDatabaseName());
-            
-            default:
-                throw new IllegalArgumentException("Unsupported database type: " + databaseType);
+        if (errorMessage != null) {
+            if (errorMessage.contains("role") && errorMessage.contains("does not exist")) {
+                userFriendlyMessage = "Database connection failed: The database user '" + 
+                    databaseInfo.getUsername() + "' does not exist. Please check your database configuration.";
+            } else if (errorMessage.contains("password authentication failed") || 
+                       errorMessage.contains("password") && errorMessage.contains("authentication")) {
+                String passwordStatus = (databaseInfo.getPassword() != null && !databaseInfo.getPassword().isEmpty()) 
+                    ? "Password is set (length: " + databaseInfo.getPassword().length() + ")" 
+                    : "NO PASSWORD SET";
+                userFriendlyMessage = "Database connection failed: Password authentication error. " + passwordStatus + 
+                    ". Please check your database credentials in Settings. For Render databases, get the password from Render → Database → Connect → Internal Database URL.";
+            } else if (errorMessage.contains("Connection refused")) {
+                userFriendlyMessage = "Database connection failed: Cannot connect to database at " + 
+                    databaseInfo.getHost() + ":" + databaseInfo.getPort() + ". Please check if the database is running.";
+            } else if (errorMessage.contains("database") && errorMessage.contains("does not exist")) {
+                userFriendlyMessage = "Database connection failed: The database '" + 
+                    databaseInfo.getDatabaseName() + "' does not exist. Please check your database configuration.";
+            } else if (errorMessage.contains("timeout")) {
+                userFriendlyMessage = "Database connection failed: Connection timeout. Please check if the database is accessible.";
+            }
         }
+
+        return userFriendlyMessage;
+    }
+
+    /**
+     * Borrow a read-only JDBC connection from the database's pool
+     * 
+     * Pools are managed by TargetConnectionPoolRegistry (one per database),
+     * so we don't pay connection setup on every query.
+     * Closing the connection returns it to the pool.
+     */
+    private Connection createConnection(DatabaseInfo databaseInfo) throws SQLException {
+        return connectionPoolRegistry.getConnection(databaseInfo);
     }
 
     /**
@@ -338,14 +634,15 @@ public class QueryExecutionService {
      */
     private List<Map<String, Object>> processResultSet(ResultSet resultSet) throws SQLException {
         List<Map<String, Object>> rows = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        // Look up column names once, not once per row
+        List<String> columnNames = getColumnNames(resultSet);
+        int columnCount = columnNames.size();
 
         while (resultSet.next()) {
-            Map<String, Object> row = new LinkedHashMap<>(); // Preserve column order
+            Map<String, Object> row = new LinkedHashMap<>(columnCount * 2); // Preserve column order
             
             for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnName(i);
+                String columnName = columnNames.get(i - 1);
                 Object value = resultSet.getObject(i);
                 
                 // Handle null values
@@ -433,6 +730,7 @@ public class QueryExecutionService {
 
         Connection connection = null;
         try {
+            // Borrow from the same pool queries use (also warms it up)
             connection = createConnection(databaseInfo);
             return connection.isValid(5); // Test with 5 second timeout
         } catch (SQLException e) {
@@ -447,5 +745,21 @@ public class QueryExecutionService {
             }
         }
     }
-}
 
+    /**
+     * Writes an open ResultSet to the response, returns number of rows written
+     */
+    @FunctionalInterface
+    private interface ResultSetStreamer {
+        long stream(ResultSet resultSet) throws SQLException, IOException;
+    }
+
+    /**
+     * A streaming query failed (message is safe to show to the user)
+     */
+    private static class StreamingQueryException extends Exception {
+        StreamingQueryException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.QueryExecutionResponse;
+import com.databaseai.dto.QueryJobResponse;
+import com.databaseai.util.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Query Job Service
+ *
+ * Runs SQL queries as asynchronous jobs instead of holding a servlet thread
+ * for the whole query (up to 5 minutes).
+ *
+ * Flow:
+ * 1. POST /query-execution/jobs → job is queued, job ID returned right away
+ * 2. Query runs on a bounded executor (query-jobs.max-concurrent threads,
+ *    query-jobs.queue-capacity waiting jobs)
+ * 3. GET /query-execution/jobs/{jobId} → status, and paged rows once done
+ * 4. DELETE /query-execution/jobs/{jobId} → Statement.cancel() on the running query
+ *
+ * Progress flows over WebSocket (/topic/query-execution) with the job ID as requestId.
+ * Finished jobs are kept for query-jobs.retention-minutes, then removed.
+ */
+@Service
+public class QueryJobService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private QueryExecutionService queryExecutionService;
+
+    @Autowired
+    private RealTimeUpdateService realTimeUpdateService;
+
+    @Value("${query-jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, QueryJob> jobs = new ConcurrentHashMap<>();
+
+    public QueryJobService(@Value("${query-jobs.max-concurrent:4}") int maxConcurrent,
+                           @Value("${query-jobs.queue-capacity:50}") int queueCapacity,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executor = new ThreadPoolExecutor(
+                maxConcurrent,
+                maxConcurrent,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                VirtualThreads.threadFactory("query-job-", virtualThreads)
+        );
+    }
+
+    /**
+     * Queue a query job
+     *
+     * @return Job ID (client request ID if provided)
+     * @throws IllegalStateException if the job queue is full
+     * @throws IllegalArgumentException if a job with this ID already exists
+     */
+    public String submit(Long databaseInfoId, String sqlQuery, Integer timeoutSeconds, String clientRequestId) {
+        purgeExpiredJobs();
+
+        String jobId = (clientRequestId != null && !clientRequestId.isBlank())
+                ? clientRequestId
+                : UUID.randomUUID().toString();
+
+        QueryJob job = new QueryJob(jobId, databaseInfoId, sqlQuery, timeoutSeconds);
+        if (jobs.putIfAbsent(jobId, job) != null) {
+            throw new IllegalArgumentException("A job with ID " + jobId + " already exists");
+        }
+
+        try {
+            job.future = executor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            throw new IllegalStateException("Too many queued query jobs. Please try again later.");
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("databaseInfoId", databaseInfoId);
+        data.put("queuedJobs", executor.getQueue().size());
+        realTimeUpdateService.publishQueryExecutionProgress(jobId, "QUEUED", "Query job queued", data);
+
+        return jobId;
+    }
+
+    /**
+     * Get job status and one page of rows
+     */
+    public Optional<QueryJobResponse> getJob(String jobId, Integer page, Integer size) {
+        QueryJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        QueryJobResponse response = toResponse(job);
+
+        QueryExecutionResponse result = job.result;
+        if (STATUS_SUCCEEDED.equals(job.status) && result != null && result.getRows() != null) {
+            int pageSize = (size != null && size > 0) ? Math.min(size, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+            int pageNumber = (page != null && page >= 0) ? page : 0;
+            List<Map<String, Object>> rows = result.getRows();
+
+            int from = Math.min(pageNumber * pageSize, rows.size());
+            int to = Math.min(from + pageSize, rows.size());
+
+            response.setRows(rows.subList(from, to));
+            response.setPage(pageNumber);
+            response.setPageSize(pageSize);
+            response.setTotalPages((rows.size() + pageSize - 1) / pageSize);
+        }
+
+        return Optional.of(response);
+    }
+
+    /**
+     * Cancel a job
+     *
+     * Queued jobs are removed from the queue; running jobs get Statement.cancel()
+     * so the database stops working on the query.
+     *
+     * @return Job status after cancellation, empty if the job doesn't exist
+     */
+    public Optional<QueryJobResponse> cancel(String jobId) {
+        QueryJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        synchronized (job) {
+            if (isFinished(job.status)) {
+                return Optional.of(toResponse(job));
+            }
+
+            job.cancelRequested = true;
+
+            if (STATUS_QUEUED.equals(job.status) && job.future != null && job.future.cancel(false)) {
+                markFinished(job, STATUS_CANCELLED, "Cancelled before it started");
+            } else {
+                // No statement yet, or not executing yet: registerStatement() stops it
+                // before it runs (Statement.cancel() does nothing on an idle statement)
+                cancelStatement(job, job.statement.get());
+            }
+        }
+
+        realTimeUpdateService.publishQueryExecutionError(jobId, "CANCELLED", "Query job cancelled", null);
+        return Optional.of(toResponse(job));
+    }
+
+    /**
+     * Runs on an executor thread
+     */
+    private void run(QueryJob job) {
+        synchronized (job) {
+            if (job.cancelRequested) {
+                // cancel() ran after this task left the queue; never leave the job QUEUED
+                if (!isFinished(job.status)) {
+                    markFinished(job, STATUS_CANCELLED, "Cancelled before it started");
+                }
+                return;
+            }
+            job.status = STATUS_RUNNING;
+            job.startedAt = LocalDateTime.now();
+        }
+
+        QueryExecutionResponse result = queryExecutionService.executeQuery(
+                job.databaseInfoId,
+                job.sqlQuery,
+                job.timeoutSeconds,
+                job.id,
+                QueryExecutionResponse.FORMAT_ROWS,
+                statement -> registerStatement(job, statement)
+        );
+
+        synchronized (job) {
+            job.statement.set(null);
+            job.result = result;
+            if (job.cancelRequested) {
+                markFinished(job, STATUS_CANCELLED,
+                        job.executing ? "Cancelled while running" : "Cancelled before it started");
+            } else if (result.isSuccess()) {
+                markFinished(job, STATUS_SUCCEEDED, null);
+            } else {
+                markFinished(job, STATUS_FAILED, result.getErrorMessage());
+            }
+        }
+    }
+
+    /**
+     * Remember the job's statement right before it executes; if cancel() came
+     * first, throw so the query never starts
+     *
+     * Statement.cancel() only stops a statement that is executing (pgjdbc
+     * ignores it on an idle statement), so a cancel() that runs before this
+     * check must stop the query here. Under the job lock, so a later cancel()
+     * finds the statement and cancels it. (A cancel() in the moment between
+     * this check and the driver sending the query can still be missed; the
+     * query timeout bounds that.)
+     */
+    private void registerStatement(QueryJob job, Statement statement) {
+        synchronized (job) {
+            if (job.cancelRequested) {
+                throw new CancellationException("Query job " + job.id + " was cancelled before it started");
+            }
+            job.statement.set(statement);
+            job.executing = true;
+        }
+    }
+
+    private void cancelStatement(QueryJob job, Statement statement) {
+        if (statement == null) {
+            return;
+        }
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            System.err.println("Error cancelling query job " + job.id + ": " + e.getMessage());
+        }
+    }
+
+    private void markFinished(QueryJob job, String status, String errorMessage) {
+        job.status = status;
+        job.errorMessage = errorMessage;
+        job.finishedAt = LocalDateTime.now();
+    }
+
+    private boolean isFinished(String status) {
+        return STATUS_SUCCEEDED.equals(status) || STATUS_FAILED.equals(status) || STATUS_CANCELLED.equals(status);
+    }
+
+    /**
+     * Remove finished jobs older than the retention period (frees their rows)
+     */
+    private void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private QueryJobResponse toResponse(QueryJob job) {
+        QueryJobResponse response = new QueryJobResponse(job.id, job.status);
+        response.setDatabaseInfoId(job.databaseInfoId);
+        response.setSqlQuery(job.sqlQuery);
+        response.setSubmittedAt(job.submittedAt);
+        response.setStartedAt(job.startedAt);
+        response.setFinishedAt(job.finishedAt);
+        response.setErrorMessage(job.errorMessage);
+
+        QueryExecutionResponse result = job.result;
+        if (result != null) {
+            response.setColumns(result.getColumns());
+            response.setRowCount(result.getRowCount());
+            response.setExecutionTimeMs(result.getExecutionTimeMs());
+        }
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * State of one job
+     */
+    private static class QueryJob {
+        private final String id;
+        private final Long databaseInfoId;
+        private final String sqlQuery;
+        private final Integer timeoutSeconds;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicReference<Statement> statement = new AtomicReference<>();
+
+        private volatile String status = STATUS_QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile boolean executing;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String errorMessage;
+        private volatile QueryExecutionResponse result;
+        private volatile Future<?> future;
+
+        QueryJob(String id, Long databaseInfoId, String sqlQuery, Integer timeoutSeconds) {
+            this.id = id;
+            this.databaseInfoId = databaseInfoId;
+            this.sqlQuery = sqlQuery;
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
+}
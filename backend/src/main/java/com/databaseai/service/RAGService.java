@@ -1,10 +1,16 @@
 package com.databaseai.service;
 
 import com.databaseai.model.SchemaEmbedding;
+import com.databaseai.util.VectorMath;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -19,7 +25,8 @@ import java.util.stream.Collectors;
  * How it works:
  * 1. User asks: "Show me top 5 customers"
  * 2. Generate embedding for the query
- * 3. Search similar schema embeddings (from Chunk 4)
+ * 3. Search similar schema embeddings (from Chunk 4), plus a keyword
+ *    search on table names / descriptions, fused by rank
  * 4. Retrieve relevant schema details (table names, columns)
  * 5. Pass schema context + query to GPT
  * 6. GPT generates accurate SQL using the context
@@ -31,9 +38,54 @@ import java.util.stream.Collectors;
 @Service
 public class RAGService {
 
+    /**
+     * First line of the context string
+     */
+    public static final String CONTEXT_HEADER = "Available database schemas:\n\n";
+
     @Autowired
     private SchemaEmbeddingService schemaEmbeddingService;
 
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private SchemaLexicalIndex schemaLexicalIndex;
+
+    @Autowired
+    private SchemaGraphService schemaGraphService;
+
+    @Autowired
+    private PromptTokenizer promptTokenizer;
+
+    @Value("${rag.hybrid.enabled:true}")
+    private boolean hybridEnabled;
+
+    /**
+     * Results taken from each search (vector, keyword) before fusion
+     */
+    @Value("${rag.hybrid.candidates:20}")
+    private int hybridCandidates;
+
+    /**
+     * Reciprocal rank fusion constant (60 in the original RRF paper);
+     * larger values flatten the difference between top ranks
+     */
+    @Value("${rag.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${rag.fk-expansion.enabled:true}")
+    private boolean fkExpansionEnabled;
+
+    @Value("${rag.fk-expansion.max-tables:5}")
+    private int fkExpansionMaxTables;
+
+    /**
+     * Estimated prompt tokens the added tables may use in total
+     */
+    @Value("${rag.fk-expansion.token-budget:600}")
+    private long fkExpansionTokenBudget;
+
     /**
      * Retrieve relevant schema context for a natural language query
      * 
@@ -45,20 +97,173 @@ public class RAGService {
      * @return List of relevant schema contexts
      */
     public List<SchemaContext> retrieveRelevantSchemas(Long databaseInfoId, String query, int topK) {
-        // Step 1: Find similar schemas using vector similarity search
-        List<SchemaEmbedding> similarSchemas = schemaEmbeddingService.findSimilarSchemas(
-                databaseInfoId, query, topK
-        );
-
-        // Step 2: Convert to SchemaContext objects
-        return similarSchemas.stream()
-                .map(schema -> new SchemaContext(
-                        schema.getSchemaName(),
-                        schema.getSchemaDescription()
-                ))
+        // Step 1: Generate embedding for the query (normalized, so cosine similarity = dot product)
+        float[] queryVector = VectorMath.toNormalizedFloats(embeddingService.generateEmbedding(query));
+
+        // Step 2: Vector (+ keyword) search
+        return retrieveRelevantSchemas(databaseInfoId, query, queryVector, topK);
+    }
+
+    /**
+     * Retrieve relevant schema context for an already computed query embedding
+     * 
+     * Hybrid retrieval (rag.hybrid.enabled=true):
+     * 1. Vector search: schemas whose description means the same as the query
+     * 2. BM25 keyword search (SchemaLexicalIndex): schemas the query names
+     *    literally, e.g. "orders_2023", which embeddings can rank low
+     * 3. Reciprocal rank fusion: each schema scores sum(1 / (rrf-k + rank))
+     *    over both lists. Only ranks are used, so cosine similarities and
+     *    BM25 scores don't need to be on the same scale.
+     * 
+     * Each search returns max(topK, rag.hybrid.candidates) schemas; the
+     * fused list is cut to topK.
+     * 
+     * Then the topK schemas are expanded along foreign keys (see
+     * expandAlongForeignKeys), so joined tables come along.
+     * 
+     * @param query Natural language query (for the keyword search)
+     * @param queryVector Unit-length query embedding (see VectorMath.toNormalizedFloats)
+     */
+    public List<SchemaContext> retrieveRelevantSchemas(Long databaseInfoId, String query, float[] queryVector, int topK) {
+        return expandAlongForeignKeys(databaseInfoId, retrieveByRelevance(databaseInfoId, query, queryVector, topK));
+    }
+
+    private List<SchemaContext> retrieveByRelevance(Long databaseInfoId, String query, float[] queryVector, int topK) {
+        if (!hybridEnabled) {
+            return schemaEmbeddingService.findSimilarSchemasWithScores(databaseInfoId, queryVector, topK).stream()
+                    .map(scored -> new SchemaContext(
+                            scored.getSchema().getSchemaName(),
+                            scored.getSchema().getSchemaDescription()
+                    ))
+                    .collect(Collectors.toList());
+        }
+
+        int candidates = Math.max(topK, hybridCandidates);
+        List<SchemaVectorIndex.ScoredSchema> vectorHits =
+                schemaEmbeddingService.findSimilarSchemasWithScores(databaseInfoId, queryVector, candidates);
+        List<SchemaLexicalIndex.Hit> keywordHits = schemaLexicalIndex.search(databaseInfoId, query, candidates);
+
+        Map<Long, FusedSchema> fused = new LinkedHashMap<>();
+        for (int rank = 0; rank < vectorHits.size(); rank++) {
+            SchemaEmbedding schema = vectorHits.get(rank).getSchema();
+            fused.computeIfAbsent(schema.getId(),
+                            id -> new FusedSchema(schema.getSchemaName(), schema.getSchemaDescription()))
+                    .score += 1.0 / (rrfK + rank + 1);
+        }
+        for (int rank = 0; rank < keywordHits.size(); rank++) {
+            SchemaLexicalIndex.Hit hit = keywordHits.get(rank);
+            fused.computeIfAbsent(hit.getSchemaEmbeddingId(),
+                            id -> new FusedSchema(hit.getSchemaName(), hit.getDescription()))
+                    .score += 1.0 / (rrfK + rank + 1);
+        }
+
+        // Stable sort: on equal scores the vector ranking decides
+        return fused.values().stream()
+                .sorted(Comparator.comparingDouble((FusedSchema schema) -> schema.score).reversed())
+                .limit(topK)
+                .map(schema -> new SchemaContext(schema.schemaName, schema.description))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Add the tables the retrieved ones join to, with their join conditions
+     * 
+     * "Show orders with customer names" may retrieve only "orders"; without
+     * "customers" and "orders.customer_id = customers.id" GPT has to guess
+     * the join (and often needs another attempt).
+     * 
+     * - Foreign keys come from the target database (SchemaGraphService)
+     * - Neighbour tables are ranked by how many retrieved tables they join
+     *   to, then by the rank of the retrieved table; at most
+     *   rag.fk-expansion.max-tables are added, and only while their context
+     *   fits in rag.fk-expansion.token-budget (PromptTokenizer tokens)
+     * - Every schema lists the joins to other schemas in the context
+     * - Failure to read the metadata leaves the retrieved list unchanged
+     */
+    private List<SchemaContext> expandAlongForeignKeys(Long databaseInfoId, List<SchemaContext> retrieved) {
+        if (!fkExpansionEnabled || retrieved.isEmpty()) {
+            return retrieved;
+        }
+
+        Map<String, List<SchemaGraphService.ForeignKey>> foreignKeys = schemaGraphService.getForeignKeys(
+                databaseInfoId,
+                retrieved.stream().map(SchemaContext::getSchemaName).collect(Collectors.toList()));
+        if (foreignKeys.values().stream().allMatch(List::isEmpty)) {
+            return retrieved;
+        }
+        String defaultSchema = schemaGraphService.getDefaultSchema(databaseInfoId);
+
+        // Retrieved tables (in rank order) and the neighbours they join to
+        Map<String, SchemaContext> selected = new LinkedHashMap<>();
+        retrieved.forEach(schema -> selected.put(
+                SchemaGraphService.tableKey(schema.getSchemaName(), defaultSchema), schema));
+
+        Map<String, Neighbour> neighbours = new LinkedHashMap<>();
+        int rank = 0;
+        for (String table : selected.keySet()) {
+            for (SchemaGraphService.ForeignKey foreignKey : foreignKeys.getOrDefault(table, List.of())) {
+                String other = foreignKey.otherTable(table);
+                String otherKey = SchemaGraphService.tableKey(other, defaultSchema);
+                if (selected.containsKey(otherKey)) {
+                    continue;
+                }
+                Neighbour neighbour = neighbours.computeIfAbsent(otherKey, key -> new Neighbour(other));
+                neighbour.connections++;
+                neighbour.bestRank = Math.min(neighbour.bestRank, rank);
+            }
+            rank++;
+        }
+
+        List<Neighbour> ranked = new ArrayList<>(neighbours.values());
+        ranked.sort(Comparator.comparingInt((Neighbour neighbour) -> -neighbour.connections)
+                .thenComparingInt(neighbour -> neighbour.bestRank));
+
+        long tokensUsed = 0;
+        Map<String, SchemaContext> added = new LinkedHashMap<>();
+        for (Neighbour neighbour : ranked) {
+            if (added.size() >= fkExpansionMaxTables) {
+                break;
+            }
+            SchemaContext context = schemaLexicalIndex.findBySchemaName(databaseInfoId, neighbour.tableName, defaultSchema)
+                    .map(hit -> new SchemaContext(hit.getSchemaName(), hit.getDescription()))
+                    .orElseGet(() -> new SchemaContext(neighbour.tableName,
+                            neighbour.tableName + " table (related through foreign keys)"));
+            long tokens = promptTokenizer.count(formatSchema(selected.size() + added.size() + 1, context));
+            if (tokensUsed + tokens > fkExpansionTokenBudget) {
+                continue;
+            }
+            tokensUsed += tokens;
+            added.put(SchemaGraphService.tableKey(neighbour.tableName, defaultSchema), context);
+        }
+
+        Map<String, SchemaContext> all = new LinkedHashMap<>(selected);
+        all.putAll(added);
+
+        // Join conditions between tables in the context, listed once (on the referencing table)
+        List<SchemaContext> expanded = new ArrayList<>(all.size());
+        for (Map.Entry<String, SchemaContext> entry : all.entrySet()) {
+            List<String> joins = new ArrayList<>();
+            for (List<SchemaGraphService.ForeignKey> keys : foreignKeys.values()) {
+                for (SchemaGraphService.ForeignKey foreignKey : keys) {
+                    String condition = foreignKey.joinCondition();
+                    if (SchemaGraphService.tableKey(foreignKey.getFkTable(), defaultSchema).equals(entry.getKey())
+                            && all.containsKey(SchemaGraphService.tableKey(foreignKey.getPkTable(), defaultSchema))
+                            && !joins.contains(condition)) {
+                        joins.add(condition);
+                    }
+                }
+            }
+            SchemaContext schema = entry.getValue();
+            expanded.add(new SchemaContext(schema.getSchemaName(), schema.getDescription(), joins));
+        }
+
+        if (!added.isEmpty()) {
+            System.out.println("INFO: FK expansion added " + added.keySet() + " to RAG context for database ID "
+                    + databaseInfoId + " (~" + tokensUsed + " tokens)");
+        }
+        return expanded;
+    }
+
     /**
      * Build context string from retrieved schemas
      * 
@@ -73,27 +278,76 @@ public class RAGService {
         }
 
         StringBuilder context = new StringBuilder();
-        context.append("Available database schemas:\n\n");
+        context.append(CONTEXT_HEADER);
 
         for (int i = 0; i < schemas.size(); i++) {
-            SchemaContext schema = schemas.get(i);
-            context.append(String.format("%d. Schema: %s\n", i + 1, schema.getSchemaName()));
-            context.append(String.format("   Description: %s\n\n", schema.getDescription()));
+            context.append(formatSchema(i + 1, schemas.get(i)));
         }
 
         return context.toString();
     }
 
+    /**
+     * One schema's block in the context string (also used by PromptPacker to count its tokens)
+     */
+    public static String formatSchema(int number, SchemaContext schema) {
+        StringBuilder block = new StringBuilder();
+        block.append(String.format("%d. Schema: %s\n", number, schema.getSchemaName()));
+        block.append(String.format("   Description: %s\n", schema.getDescription()));
+        if (!schema.getJoins().isEmpty()) {
+            block.append(String.format("   Joins: %s\n", String.join("; ", schema.getJoins())));
+        }
+        block.append("\n");
+        return block.toString();
+    }
+
+    /**
+     * Table joined to the retrieved ones
+     */
+    private static class Neighbour {
+        private final String tableName;
+        private int connections;
+        private int bestRank = Integer.MAX_VALUE;
+
+        private Neighbour(String tableName) {
+            this.tableName = tableName;
+        }
+    }
+
+    /**
+     * Schema with its reciprocal rank fusion score
+     */
+    private static class FusedSchema {
+        private final String schemaName;
+        private final String description;
+        private double score;
+
+        private FusedSchema(String schemaName, String description) {
+            this.schemaName = schemaName;
+            this.description = description;
+        }
+    }
+
     /**
      * Schema context information
      */
     public static class SchemaContext {
         private final String schemaName;
         private final String description;
+        private final List<String> joins;
 
         public SchemaContext(String schemaName, String description) {
+            this(schemaName, description, List.of());
+        }
+
+        /**
+         * @param joins Join conditions to other schemas in the context
+         *              (from foreign keys, e.g. "orders.customer_id = customers.id")
+         */
+        public SchemaContext(String schemaName, String description, List<String> joins) {
             this.schemaName = schemaName;
             this.description = description;
+            this.joins = joins;
         }
 
         public String getSchemaName() {
@@ -103,6 +357,10 @@ public class RAGService {
         public String getDescription() {
             return description;
         }
+
+        public List<String> getJoins() {
+            return joins;
+        }
     }
 }
 
@@ -19,6 +19,7 @@ import java.util.Map;
  * Topics we broadcast to:
  * - /topic/nl-to-sql (for NL to SQL conversion progress)
  * - /topic/query-execution (for SQL execution progress)
+ * - /topic/schema-indexing (for schema introspection / bulk indexing jobs)
  *
  * Example client subscription (frontend):
  *   client.subscribe('/topic/nl-to-sql', (message) => {
@@ -31,6 +32,7 @@ public class RealTimeUpdateService {
 
     public static final String FEATURE_NL_TO_SQL = "NL_TO_SQL";
     public static final String FEATURE_QUERY_EXECUTION = "QUERY_EXECUTION";
+    public static final String FEATURE_SCHEMA_INDEXING = "SCHEMA_INDEXING";
 
     public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
     public static final String STATUS_SUCCESS = "SUCCESS";
@@ -70,6 +72,20 @@ public class RealTimeUpdateService {
         send("/topic/query-execution", FEATURE_QUERY_EXECUTION, requestId, stage, STATUS_ERROR, message, data);
     }
 
+    /* ========================== SCHEMA INDEXING ============================= */
+
+    public void publishSchemaIndexingProgress(String requestId, String stage, String message, Map<String, Object> data) {
+        send("/topic/schema-indexing", FEATURE_SCHEMA_INDEXING, requestId, stage, STATUS_IN_PROGRESS, message, data);
+    }
+
+    public void publishSchemaIndexingSuccess(String requestId, String stage, String message, Map<String, Object> data) {
+        send("/topic/schema-indexing", FEATURE_SCHEMA_INDEXING, requestId, stage, STATUS_SUCCESS, message, data);
+    }
+
+    public void publishSchemaIndexingError(String requestId, String stage, String message, Map<String, Object> data) {
+        send("/topic/schema-indexing", FEATURE_SCHEMA_INDEXING, requestId, stage, STATUS_ERROR, message, data);
+    }
+
     /* ============================== INTERNAL ================================ */
 
     private void send(
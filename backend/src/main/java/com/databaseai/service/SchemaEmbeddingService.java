@@ -2,11 +2,13 @@ package com.databaseai.service;
 
 import com.databaseai.model.SchemaEmbedding;
 import com.databaseai.repository.SchemaEmbeddingRepository;
+import com.databaseai.util.VectorMath;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,7 +18,8 @@ import java.util.stream.Collectors;
  * Handles:
  * - Generating embeddings for schemas
  * - Storing schema embeddings
- * - Searching similar schemas (vector similarity)
+ * - Searching similar schemas (vector similarity, via pgvector or SchemaVectorIndex)
+ * - Keeping the in-memory indexes (vector + lexical) in sync
  */
 @Service
 public class SchemaEmbeddingService {
@@ -27,27 +30,86 @@ public class SchemaEmbeddingService {
     @Autowired
     private EmbeddingService embeddingService;
 
+    @Autowired
+    private SemanticQueryCache semanticQueryCache;
+
+    @Autowired
+    private SchemaVectorIndex schemaVectorIndex;
+
+    @Autowired
+    private SchemaLexicalIndex schemaLexicalIndex;
+
+    @Autowired
+    private PgVectorSupport pgVectorSupport;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Index a schema (generate embedding and store it)
      * 
      * @param databaseInfoId Database ID
      * @param schemaName Schema/table name
      * @param schemaDescription Natural language description
-     * @return Created SchemaEmbedding
+     * @return Created SchemaEmbedding (replaces an existing one with the same name, same ID)
      */
     public SchemaEmbedding indexSchema(Long databaseInfoId, String schemaName, String schemaDescription) {
         // Generate embedding from description
         List<Double> embedding = embeddingService.generateEmbedding(schemaDescription);
 
-        // Create and save
+        // Create and save (one row per table: database_info_id + schema_name is unique)
         SchemaEmbedding schemaEmbedding = new SchemaEmbedding(
                 databaseInfoId,
                 schemaName,
                 schemaDescription,
                 embedding
         );
+        schemaEmbeddingRepository.findByDatabaseInfoIdAndSchemaName(databaseInfoId, schemaName).stream()
+                .findFirst()
+                .ifPresent(existing -> schemaEmbedding.setId(existing.getId()));
+
+        SchemaEmbedding saved = schemaEmbeddingRepository.save(schemaEmbedding);
+        pgVectorSupport.store(saved);
+        schemaVectorIndex.put(saved);
+        schemaLexicalIndex.put(saved);
+        semanticQueryCache.invalidate(databaseInfoId);
+        return saved;
+    }
 
-        return schemaEmbeddingRepository.save(schemaEmbedding);
+    /**
+     * Index many schemas at once (bulk indexing / introspection)
+     * 
+     * - Embeddings: one EmbeddingService.generateEmbeddings() call (one
+     *   OpenAI request for all cache misses)
+     * - Rows: saved with saveAll() in one transaction, so Hibernate flushes
+     *   them together instead of committing row by row
+     * - In-memory indexes are updated, the semantic cache is invalidated once
+     * 
+     * @param schemas Rows to embed (databaseInfoId, schemaName, schemaDescription,
+     *                metadata set; no embedding yet). Rows with an ID replace
+     *                the existing row in place (database and in-memory indexes).
+     * @return Saved rows with IDs
+     */
+    public List<SchemaEmbedding> indexSchemas(Long databaseInfoId, List<SchemaEmbedding> schemas) {
+        if (schemas.isEmpty()) {
+            return List.of();
+        }
+
+        List<List<Double>> embeddings = embeddingService.generateEmbeddings(schemas.stream()
+                .map(SchemaEmbedding::getSchemaDescription)
+                .collect(Collectors.toList()));
+        for (int i = 0; i < schemas.size(); i++) {
+            schemas.get(i).setEmbeddingFromList(embeddings.get(i));
+        }
+
+        List<SchemaEmbedding> saved = transactionTemplate.execute(status -> schemaEmbeddingRepository.saveAll(schemas));
+        for (SchemaEmbedding schema : saved) {
+            pgVectorSupport.store(schema);
+            schemaVectorIndex.put(schema);
+            schemaLexicalIndex.put(schema);
+        }
+        semanticQueryCache.invalidate(databaseInfoId);
+        return saved;
     }
 
     /**
@@ -59,56 +121,63 @@ public class SchemaEmbeddingService {
      * @return List of similar schemas, sorted by similarity (highest first)
      */
     public List<SchemaEmbedding> findSimilarSchemas(Long databaseInfoId, String queryText, int topK) {
-        // Generate embedding for query
-        List<Double> queryEmbedding = embeddingService.generateEmbedding(queryText);
-
-        // Get all embeddings for this database
-        List<SchemaEmbedding> allSchemas = schemaEmbeddingRepository.findAllByDatabaseInfoId(databaseInfoId);
-
-        // Calculate cosine similarity for each
-        List<SchemaWithSimilarity> scored = allSchemas.stream()
-                .map(schema -> {
-                    double similarity = cosineSimilarity(queryEmbedding, schema.getEmbeddingAsList());
-                    return new SchemaWithSimilarity(schema, similarity);
-                })
-                .sorted(Comparator.comparing(SchemaWithSimilarity::getSimilarity).reversed())
-                .limit(topK)
-                .collect(Collectors.toList());
-
-        return scored.stream()
-                .map(SchemaWithSimilarity::getSchema)
+        return findSimilarSchemasWithScores(databaseInfoId, queryText, topK).stream()
+                .map(SchemaVectorIndex.ScoredSchema::getSchema)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Calculate cosine similarity between two vectors
+     * Find similar schemas, with their cosine similarity to the query
      * 
-     * Formula: cos(θ) = (A · B) / (||A|| * ||B||)
+     * - PostgreSQL + pgvector: distance and LIMIT are computed in Postgres (HNSW index);
+     *   a short result without iterative scans (pgvector < 0.8) is redone in memory
+     * - Otherwise (H2, no pgvector, or a pgvector error): in-memory vector index
+     */
+    public List<SchemaVectorIndex.ScoredSchema> findSimilarSchemasWithScores(Long databaseInfoId, String queryText, int topK) {
+        // Generate embedding for query (normalized, so cosine similarity = dot product)
+        float[] queryVector = VectorMath.toNormalizedFloats(embeddingService.generateEmbedding(queryText));
+        return findSimilarSchemasWithScores(databaseInfoId, queryVector, topK);
+    }
+
+    /**
+     * Find similar schemas for an already computed query embedding
      * 
-     * @param vec1 First vector
-     * @param vec2 Second vector
-     * @return Similarity score (0 to 1, higher = more similar)
+     * @param queryVector Unit-length query embedding (see VectorMath.toNormalizedFloats)
      */
-    private double cosineSimilarity(List<Double> vec1, List<Double> vec2) {
-        if (vec1.size() != vec2.size()) {
-            throw new IllegalArgumentException("Vectors must have same dimension");
+    public List<SchemaVectorIndex.ScoredSchema> findSimilarSchemasWithScores(Long databaseInfoId, float[] queryVector, int topK) {
+        if (pgVectorSupport.isAvailable() && queryVector.length == pgVectorSupport.getDimension()) {
+            try {
+                List<SchemaVectorIndex.ScoredSchema> results = findWithPgVector(databaseInfoId, queryVector, topK);
+                // Without iterative scans the filtered HNSW scan may come back short; the in-memory index is exact
+                if (results.size() >= topK || pgVectorSupport.isIterativeScan()) {
+                    return results;
+                }
+            } catch (Exception e) {
+                System.err.println("WARNING: pgvector search failed, falling back to in-memory search: " + e.getMessage());
+            }
         }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int i = 0; i < vec1.size(); i++) {
-            dotProduct += vec1.get(i) * vec2.get(i);
-            norm1 += vec1.get(i) * vec1.get(i);
-            norm2 += vec2.get(i) * vec2.get(i);
-        }
+        return schemaVectorIndex.search(databaseInfoId, queryVector, topK);
+    }
 
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
+    private List<SchemaVectorIndex.ScoredSchema> findWithPgVector(Long databaseInfoId, float[] queryVector, int topK) {
+        List<SchemaEmbedding> nearest = transactionTemplate.execute(status -> {
+            pgVectorSupport.configureSearch(topK);
+            return schemaEmbeddingRepository.findNearestByCosineDistance(
+                    databaseInfoId,
+                    PgVectorSupport.toVectorLiteral(queryVector),
+                    topK
+            );
+        });
+
+        // Similarity for the topK results only (cheap: K dot products)
+        List<SchemaVectorIndex.ScoredSchema> results = new ArrayList<>(nearest.size());
+        for (SchemaEmbedding schema : nearest) {
+            float[] vector = schema.getEmbeddingAsFloats();
+            VectorMath.normalize(vector);
+            results.add(new SchemaVectorIndex.ScoredSchema(schema, VectorMath.dot(vector, 0, queryVector)));
         }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return results;
     }
 
     /**
@@ -119,31 +188,30 @@ public class SchemaEmbeddingService {
     }
 
     /**
-     * Delete schema embedding
-     */
-    public void deleteSchemaEmbedding(Long id) {
-        schemaEmbeddingRepository.deleteById(id);
-    }
-
-    /**
-     * Helper class to store schema with similarity score
+     * Delete several schema embeddings of one database (one statement, one cache invalidation)
      */
-    private static class SchemaWithSimilarity {
-        private final SchemaEmbedding schema;
-        private final double similarity;
-
-        public SchemaWithSimilarity(SchemaEmbedding schema, double similarity) {
-            this.schema = schema;
-            this.similarity = similarity;
+    public void deleteSchemaEmbeddings(Long databaseInfoId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
         }
 
-        public SchemaEmbedding getSchema() {
-            return schema;
+        transactionTemplate.executeWithoutResult(status -> schemaEmbeddingRepository.deleteAllByIdInBatch(ids));
+        for (Long id : ids) {
+            schemaVectorIndex.remove(databaseInfoId, id);
+            schemaLexicalIndex.remove(databaseInfoId, id);
         }
+        semanticQueryCache.invalidate(databaseInfoId);
+    }
 
-        public double getSimilarity() {
-            return similarity;
-        }
+    /**
+     * Delete schema embedding
+     */
+    public void deleteSchemaEmbedding(Long id) {
+        schemaEmbeddingRepository.findById(id).ifPresent(schema -> {
+            schemaEmbeddingRepository.delete(schema);
+            schemaVectorIndex.remove(schema.getDatabaseInfoId(), id);
+            schemaLexicalIndex.remove(schema.getDatabaseInfoId(), id);
+            semanticQueryCache.invalidate(schema.getDatabaseInfoId());
+        });
     }
 }
-
@@ -0,0 +1,122 @@
+package com.databaseai.service;
+
+import com.databaseai.model.SchemaEmbedding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schema Embedding Storage Migration
+ *
+ * One-time conversion of embeddings from the old JSON TEXT column
+ * (schema_embeddings.embedding, "[0.1, 0.2, ...]") to the binary column
+ * (schema_embeddings.embedding_bin, little-endian float32).
+ *
+ * Runs at startup, after Hibernate has added the embedding_bin column:
+ * 1. Drops the NOT NULL constraint on the old column (new rows leave it empty)
+ * 2. Converts rows that have no binary embedding yet, in batches
+ * 3. Clears the old column for converted rows (frees ~30 KB per row)
+ *
+ * A row that can't be parsed is logged and left as it is (the rest are
+ * still converted); it is retried on the next startup.
+ *
+ * Also enforces one row per (database_info_id, schema_name): older versions
+ * could store a table twice (concurrent introspection jobs), and Hibernate's
+ * schema update can't add the unique constraint while duplicates exist.
+ * All but the newest row of each table are deleted, then the unique index
+ * is created.
+ *
+ * Safe to run on every startup - once all rows are converted it does nothing.
+ */
+@Component
+public class SchemaEmbeddingStorageMigration {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrate() {
+        try {
+            jdbcTemplate.execute("ALTER TABLE schema_embeddings ALTER COLUMN embedding DROP NOT NULL");
+        } catch (Exception e) {
+            // Already nullable, or the table doesn't exist yet
+            System.out.println("INFO: Skipped relaxing schema_embeddings.embedding constraint: " + e.getMessage());
+        }
+
+        enforceUniqueSchemaNames();
+
+        int converted = 0;
+        int skipped = 0;
+        long lastId = Long.MIN_VALUE;
+        try {
+            while (true) {
+                // Keyset paging, so skipped rows aren't selected again
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                        "SELECT id, embedding FROM schema_embeddings "
+                                + "WHERE embedding_bin IS NULL AND embedding IS NOT NULL AND id > ? "
+                                + "ORDER BY id LIMIT " + BATCH_SIZE,
+                        lastId);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> updates = new ArrayList<>(rows.size());
+                for (Map<String, Object> row : rows) {
+                    Object id = row.get("id");
+                    lastId = ((Number) id).longValue();
+                    try {
+                        float[] embedding = SchemaEmbedding.parseLegacyEmbedding((String) row.get("embedding"));
+                        updates.add(new Object[]{SchemaEmbedding.encodeEmbedding(embedding), id});
+                    } catch (Exception e) {
+                        skipped++;
+                        System.err.println("WARNING: Skipped converting schema embedding ID " + id
+                                + " to binary storage: " + e.getMessage());
+                    }
+                }
+                if (updates.isEmpty()) {
+                    continue;
+                }
+
+                jdbcTemplate.batchUpdate(
+                        "UPDATE schema_embeddings SET embedding_bin = ?, embedding = NULL WHERE id = ?",
+                        updates);
+                converted += updates.size();
+            }
+        } catch (Exception e) {
+            System.err.println("ERROR: Converting schema embeddings to binary storage failed after "
+                    + converted + " rows: " + e.getMessage());
+            return;
+        }
+
+        if (converted > 0 || skipped > 0) {
+            System.out.println("INFO: Converted " + converted + " schema embeddings to binary storage"
+                    + (skipped > 0 ? " (" + skipped + " skipped)" : ""));
+        }
+    }
+
+    private void enforceUniqueSchemaNames() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM schema_embeddings s WHERE EXISTS ("
+                    + "SELECT 1 FROM schema_embeddings t WHERE t.database_info_id = s.database_info_id "
+                    + "AND t.schema_name = s.schema_name AND t.id > s.id)");
+            if (deleted > 0) {
+                System.out.println("INFO: Deleted " + deleted + " duplicate schema embeddings (kept the newest)");
+            }
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + SchemaEmbedding.UNIQUE_SCHEMA_NAME
+                    + " ON schema_embeddings (database_info_id, schema_name)");
+        } catch (Exception e) {
+            System.err.println("WARNING: Could not enforce unique schema names in schema_embeddings: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.databaseai.service;
+
+import com.databaseai.model.DatabaseInfo;
+import com.databaseai.repository.DatabaseInfoRepository;
+import com.databaseai.util.ConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schema Graph Service
+ *
+ * Foreign-key join graph of a registered user database, read from JDBC
+ * metadata (DatabaseMetaData.getImportedKeys / getExportedKeys).
+ *
+ * Used by RAGService to add the tables a retrieved table joins to
+ * ("orders" → "customers") and the join conditions, so GPT doesn't have
+ * to guess the join.
+ *
+ * Caching (per DatabaseInfo):
+ * - The graph is filled lazily, table by table: the first question that
+ *   retrieves "orders" reads its foreign keys (in both directions) once;
+ *   later questions reuse them. Warehouses with thousands of tables never
+ *   pay for a full metadata scan.
+ * - Entries expire after schema-graph.ttl-minutes (schema changes in the
+ *   target database are picked up) and are dropped when the database
+ *   registration is updated or deleted
+ * - If the database can't be reached, the failure is remembered for
+ *   schema-graph.retry-after-failure-ms so questions don't wait on it every time
+ *
+ * Tables are keyed by schema and name ("sales.customers"), so same-named
+ * tables in different schemas keep their own foreign keys. Unqualified
+ * names ("customers") mean the table in the connection's default schema
+ * (Connection.getSchema(), e.g. "public" on PostgreSQL).
+ */
+@Service
+public class SchemaGraphService {
+
+    @Autowired
+    private DatabaseInfoRepository databaseInfoRepository;
+
+    @Autowired
+    private TargetConnectionPoolRegistry connectionPoolRegistry;
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+
+    @Value("${schema-graph.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${schema-graph.retry-after-failure-ms:60000}")
+    private long retryAfterFailureMs;
+
+    private final Map<Long, DatabaseGraph> graphs = new ConcurrentHashMap<>();
+
+    /**
+     * Foreign keys touching each of the given tables (imported and exported)
+     *
+     * Tables not cached yet are read from the target database in one connection.
+     *
+     * @param tableNames Table names as indexed ("orders", "public.orders")
+     * @return tableKey(tableName, getDefaultSchema(databaseInfoId)) → its foreign keys;
+     *         empty if the metadata can't be read
+     */
+    public Map<String, List<ForeignKey>> getForeignKeys(Long databaseInfoId, Collection<String> tableNames) {
+        DatabaseGraph graph = graphs.compute(databaseInfoId, (id, existing) ->
+                existing == null || existing.isExpired(ttlMinutes) ? new DatabaseGraph() : existing);
+
+        Map<String, List<ForeignKey>> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String tableName : tableNames) {
+            String key = tableKey(tableName, graph.defaultSchema);
+            List<ForeignKey> cached = graph.edgesByTable.get(key);
+            if (cached != null) {
+                result.put(key, cached);
+            } else if (!result.containsKey(key)) {
+                missing.add(tableName);
+            }
+        }
+
+        if (missing.isEmpty() || System.currentTimeMillis() - graph.failedAtMillis < retryAfterFailureMs) {
+            return result;
+        }
+
+        try {
+            result.putAll(load(databaseInfoId, graph, missing));
+        } catch (Exception e) {
+            graph.failedAtMillis = System.currentTimeMillis();
+            System.err.println("WARNING: Could not read foreign keys of database ID " + databaseInfoId
+                    + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Default schema of a database's connections (unqualified table names
+     * are in it), or null if not known yet or the database has no schemas
+     */
+    public String getDefaultSchema(Long databaseInfoId) {
+        DatabaseGraph graph = graphs.get(databaseInfoId);
+        return graph == null ? null : graph.defaultSchema;
+    }
+
+    /**
+     * Drop the cached graph of a database (registration updated or deleted)
+     */
+    public void evict(Long databaseInfoId) {
+        graphs.remove(databaseInfoId);
+    }
+
+    /**
+     * Cached graphs with their size
+     */
+    public Map<Long, Map<String, Object>> getStats() {
+        Map<Long, Map<String, Object>> stats = new LinkedHashMap<>();
+        graphs.forEach((id, graph) -> {
+            Map<String, Object> graphStats = new LinkedHashMap<>();
+            graphStats.put("tables", graph.edgesByTable.size());
+            graphStats.put("foreignKeys", graph.edgesByTable.values().stream().mapToInt(List::size).sum() / 2);
+            graphStats.put("ageSeconds", (System.currentTimeMillis() - graph.createdAtMillis) / 1000);
+            graphStats.put("lastFailureSecondsAgo", graph.failedAtMillis == 0
+                    ? null
+                    : (System.currentTimeMillis() - graph.failedAtMillis) / 1000);
+            stats.put(id, graphStats);
+        });
+        return stats;
+    }
+
+    private Map<String, List<ForeignKey>> load(Long databaseInfoId, DatabaseGraph graph, List<String> tableNames)
+            throws SQLException {
+        DatabaseInfo databaseInfo = databaseInfoRepository.findById(databaseInfoId)
+                .orElseThrow(() -> new IllegalArgumentException("Database not found with ID: " + databaseInfoId));
+
+        Map<String, List<ForeignKey>> loaded = new LinkedHashMap<>();
+        try (ConcurrencyLimiter.Permit permit = concurrencyLimiterRegistry.targetDatabase(databaseInfoId).acquire();
+             Connection connection = connectionPoolRegistry.getConnection(databaseInfo)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String catalog = connection.getCatalog();
+            String defaultSchema = connection.getSchema();
+            graph.defaultSchema = defaultSchema;
+
+            for (String tableName : tableNames) {
+                String schema = defaultSchema;
+                String table = tableName.trim();
+                int dot = table.lastIndexOf('.');
+                if (dot > 0) {
+                    schema = storedIdentifier(metaData, table.substring(0, dot));
+                    table = table.substring(dot + 1);
+                }
+                table = storedIdentifier(metaData, table);
+
+                List<ForeignKey> foreignKeys = new ArrayList<>();
+                try (ResultSet keys = metaData.getImportedKeys(catalog, schema, table)) {
+                    readForeignKeys(keys, foreignKeys);
+                }
+                try (ResultSet keys = metaData.getExportedKeys(catalog, schema, table)) {
+                    readForeignKeys(keys, foreignKeys);
+                }
+
+                String key = tableKey(tableName, defaultSchema);
+                graph.edgesByTable.put(key, foreignKeys);
+                loaded.put(key, foreignKeys);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Group key columns by constraint (composite keys become one ForeignKey)
+     */
+    private static void readForeignKeys(ResultSet keys, List<ForeignKey> foreignKeys) throws SQLException {
+        Map<String, ForeignKey> byConstraint = new LinkedHashMap<>();
+        while (keys.next()) {
+            String fkTable = qualifiedName(keys.getString("FKTABLE_SCHEM"), keys.getString("FKTABLE_NAME"));
+            String pkTable = qualifiedName(keys.getString("PKTABLE_SCHEM"), keys.getString("PKTABLE_NAME"));
+            String constraint = keys.getString("FK_NAME");
+            String groupKey = fkTable + "|" + pkTable + "|" + (constraint != null ? constraint : keys.getString("FKCOLUMN_NAME"));
+
+            ForeignKey foreignKey = byConstraint.computeIfAbsent(groupKey, k -> new ForeignKey(fkTable, pkTable));
+            foreignKey.fkColumns.add(keys.getString("FKCOLUMN_NAME"));
+            foreignKey.pkColumns.add(keys.getString("PKCOLUMN_NAME"));
+        }
+        foreignKeys.addAll(byConstraint.values());
+    }
+
+    private static String qualifiedName(String schema, String table) {
+        return schema == null || schema.isEmpty() ? table : schema + "." + table;
+    }
+
+    /**
+     * Identifier in the case the database stores unquoted names (PostgreSQL: lower, Oracle/H2: upper)
+     */
+    private static String storedIdentifier(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase(Locale.ROOT);
+        }
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ROOT);
+        }
+        return identifier;
+    }
+
+    /**
+     * Lower-case table name, schema prefix kept ("Public.Orders" → "public.orders")
+     */
+    public static String tableKey(String tableName) {
+        return tableName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lower-case table name, unqualified names in the default schema
+     * ("Orders", "public" → "public.orders")
+     *
+     * @param defaultSchema Schema of unqualified names; null leaves them unqualified
+     */
+    public static String tableKey(String tableName, String defaultSchema) {
+        String key = tableKey(tableName);
+        if (defaultSchema == null || defaultSchema.isEmpty() || key.indexOf('.') >= 0) {
+            return key;
+        }
+        return defaultSchema.toLowerCase(Locale.ROOT) + "." + key;
+    }
+
+    /**
+     * A foreign key: fkTable(fkColumns) references pkTable(pkColumns)
+     *
+     * Table names include the schema if the database reports one ("sales.orders").
+     */
+    public static class ForeignKey {
+        private final String fkTable;
+        private final String pkTable;
+        private final List<String> fkColumns = new ArrayList<>();
+        private final List<String> pkColumns = new ArrayList<>();
+
+        private ForeignKey(String fkTable, String pkTable) {
+            this.fkTable = fkTable;
+            this.pkTable = pkTable;
+        }
+
+        public String getFkTable() {
+            return fkTable;
+        }
+
+        public String getPkTable() {
+            return pkTable;
+        }
+
+        /**
+         * The table on the other side of this key
+         *
+         * @param tableKey Schema-qualified tableKey of one side
+         */
+        public String otherTable(String tableKey) {
+            return tableKey(fkTable).equals(tableKey) ? pkTable : fkTable;
+        }
+
+        /**
+         * Join condition, e.g. "sales.orders.customer_id = sales.customers.id"
+         */
+        public String joinCondition() {
+            StringBuilder condition = new StringBuilder();
+            for (int i = 0; i < fkColumns.size(); i++) {
+                if (i > 0) {
+                    condition.append(" AND ");
+                }
+                condition.append(fkTable).append('.').append(fkColumns.get(i))
+                        .append(" = ")
+                        .append(pkTable).append('.').append(pkColumns.get(i));
+            }
+            return condition.toString();
+        }
+    }
+
+    /**
+     * Cached foreign keys of one database
+     */
+    private static class DatabaseGraph {
+        private final Map<String, List<ForeignKey>> edgesByTable = new ConcurrentHashMap<>();
+        private final long createdAtMillis = System.currentTimeMillis();
+        private volatile long failedAtMillis = 0;
+        private volatile String defaultSchema;
+
+        boolean isExpired(long ttlMinutes) {
+            return System.currentTimeMillis() - createdAtMillis > ttlMinutes * 60_000L;
+        }
+    }
+}
@@ -0,0 +1,756 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.SchemaIntrospectionJobResponse;
+import com.databaseai.model.DatabaseInfo;
+import com.databaseai.model.SchemaEmbedding;
+import com.databaseai.repository.DatabaseInfoRepository;
+import com.databaseai.repository.SchemaEmbeddingRepository;
+import com.databaseai.util.ConcurrencyLimiter;
+import com.databaseai.util.VirtualThreads;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schema Introspection Service
+ *
+ * Indexes a whole registered database without hand-written descriptions:
+ * reads tables, columns, types, primary/foreign keys and comments from JDBC
+ * metadata, renders a description per table and stores embeddings for all
+ * of them.
+ *
+ * Pipeline (one job per request, like QueryJobService):
+ * 1. Catalog: tables/views (getTables) and ALL their columns (one bulk
+ *    getColumns call) in one connection
+ * 2. Tables indexed by hand (POST /index, no content hash) are left alone
+ * 3. The other tables are split into batches of
+ *    schema-introspection.batch-size and processed by
+ *    schema-introspection.parallelism workers at a time:
+ *    keys (getPrimaryKeys / getImportedKeys) → render descriptions →
+ *    compare content hashes → EmbeddingService.generateEmbeddings for
+ *    new/changed tables only (one request per batch) →
+ *    SchemaEmbeddingService.indexSchemas (saveAll in one transaction)
+ * 4. Tables that no longer exist are deleted
+ *
+ * Incremental re-indexing:
+ * Every row written here stores a content hash in its metadata: SHA-256 of
+ * the embedding model and the rendered description (table, columns, types,
+ * keys, comments). Running the job again only re-embeds tables whose hash
+ * changed (updated in place, same ID) and new tables, so the cost of a
+ * re-index grows with the number of changed tables, not with the catalog.
+ * The same check makes a failed or cancelled job resumable: run it again
+ * and finished tables are skipped. Switching the embedding model changes
+ * every hash, so all tables are re-embedded once.
+ *
+ * Dropped tables are only deleted when the whole schema was read (no
+ * tablePattern) and the job finished without cancel; only rows created by
+ * introspection in that schema are considered.
+ *
+ * Backpressure: the batch stream is consumed with flatMap(parallelism, prefetch 1),
+ * so the next batch is only started when a worker is free; OpenAI calls
+ * additionally go through the rate limiter and bulkhead. A failed batch is
+ * reported and skipped; the other batches continue.
+ *
+ * One job per database at a time: jobs read the indexed rows once at the
+ * start, so two concurrent jobs would both insert the same new tables.
+ *
+ * Progress flows over WebSocket (/topic/schema-indexing) with the job ID as requestId.
+ * Finished jobs are kept for query-jobs.retention-minutes, then removed.
+ *
+ * Description format (same style as hand-written ones):
+ *   "orders table with id (bigint primary key), customer_id (integer references
+ *    customers.id), total (numeric) columns. Customer orders"
+ */
+@Service
+public class SchemaIntrospectionService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    /**
+     * Marks rows created by introspection (SchemaEmbedding.metadata)
+     */
+    private static final String METADATA_SOURCE = "introspection";
+
+    @Autowired
+    private DatabaseInfoRepository databaseInfoRepository;
+
+    @Autowired
+    private SchemaEmbeddingRepository schemaEmbeddingRepository;
+
+    @Autowired
+    private SchemaEmbeddingService schemaEmbeddingService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TargetConnectionPoolRegistry connectionPoolRegistry;
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+
+    @Autowired
+    private RealTimeUpdateService realTimeUpdateService;
+
+    @Autowired
+    private PromptTokenizer tokenizer;
+
+    /**
+     * Tables per batch (one embeddings request per batch, capped at EmbeddingService.MAX_INPUTS_PER_REQUEST)
+     */
+    @Value("${schema-introspection.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * Descriptions are cut to this many tokens (very wide tables); must stay
+     * below the embedding model's input limit (EmbeddingService.MAX_TOKENS_PER_INPUT)
+     */
+    @Value("${schema-introspection.max-description-tokens:8000}")
+    private int maxDescriptionTokens;
+
+    @Value("${schema-introspection.parallelism:4}")
+    private int parallelism;
+
+    @Value("${query-jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, IntrospectionJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Makes the "no active job for this database" check and the job registration atomic
+     */
+    private final Object submitLock = new Object();
+
+    public SchemaIntrospectionService(@Value("${schema-introspection.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                      @Value("${schema-introspection.queue-capacity:10}") int queueCapacity,
+                                      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executor = new ThreadPoolExecutor(
+                maxConcurrentJobs,
+                maxConcurrentJobs,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                VirtualThreads.threadFactory("schema-introspection-", virtualThreads)
+        );
+    }
+
+    /**
+     * Queue an introspection job
+     *
+     * @param schemaPattern Database schema to read (null = the connection's default schema)
+     * @param tablePattern Table name pattern, SQL LIKE syntax (null = all tables)
+     * @param includeViews Index views too
+     * @return Job ID (client request ID if provided)
+     * @throws IllegalStateException if the job queue is full
+     * @throws IllegalArgumentException if the database doesn't exist, the job ID is taken,
+     *         or a job for this database is already queued or running
+     */
+    public String submit(Long databaseInfoId, String schemaPattern, String tablePattern, boolean includeViews,
+                         String clientRequestId) {
+        purgeExpiredJobs();
+        if (!databaseInfoRepository.existsById(databaseInfoId)) {
+            throw new IllegalArgumentException("Database not found with ID: " + databaseInfoId);
+        }
+
+        String jobId = (clientRequestId != null && !clientRequestId.isBlank())
+                ? clientRequestId
+                : UUID.randomUUID().toString();
+
+        IntrospectionJob job = new IntrospectionJob(jobId, databaseInfoId, schemaPattern, tablePattern, includeViews);
+        synchronized (submitLock) {
+            for (IntrospectionJob other : jobs.values()) {
+                if (other.databaseInfoId.equals(databaseInfoId) && !isFinished(other.status)) {
+                    throw new IllegalArgumentException("Introspection job " + other.id
+                            + " is already " + other.status.toLowerCase(Locale.ROOT) + " for database ID " + databaseInfoId);
+                }
+            }
+            if (jobs.putIfAbsent(jobId, job) != null) {
+                throw new IllegalArgumentException("A job with ID " + jobId + " already exists");
+            }
+        }
+
+        try {
+            job.future = executor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            throw new IllegalStateException("Too many queued introspection jobs. Please try again later.");
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("databaseInfoId", databaseInfoId);
+        data.put("queuedJobs", executor.getQueue().size());
+        realTimeUpdateService.publishSchemaIndexingProgress(jobId, "QUEUED", "Schema introspection job queued", data);
+        return jobId;
+    }
+
+    public Optional<SchemaIntrospectionJobResponse> getJob(String jobId) {
+        IntrospectionJob job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(toResponse(job));
+    }
+
+    /**
+     * Cancel a job
+     *
+     * Queued jobs are removed from the queue; running jobs stop starting new
+     * batches (batches in flight are finished and kept).
+     */
+    public Optional<SchemaIntrospectionJobResponse> cancel(String jobId) {
+        IntrospectionJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        synchronized (job) {
+            if (isFinished(job.status)) {
+                return Optional.of(toResponse(job));
+            }
+            job.cancelRequested = true;
+            if (STATUS_QUEUED.equals(job.status) && job.future != null && job.future.cancel(false)) {
+                markFinished(job, STATUS_CANCELLED, "Cancelled before it started");
+            }
+        }
+
+        realTimeUpdateService.publishSchemaIndexingError(jobId, "CANCELLED", "Schema introspection job cancelled", null);
+        return Optional.of(toResponse(job));
+    }
+
+    /**
+     * Runs on an executor thread
+     */
+    private void run(IntrospectionJob job) {
+        synchronized (job) {
+            if (job.cancelRequested) {
+                // cancel() (or shutdown) ran after this task left the queue; never leave the job QUEUED
+                if (!isFinished(job.status)) {
+                    markFinished(job, STATUS_CANCELLED, "Cancelled before it started");
+                }
+                return;
+            }
+            job.status = STATUS_RUNNING;
+            job.startedAt = LocalDateTime.now();
+        }
+
+        try {
+            DatabaseInfo databaseInfo = databaseInfoRepository.findById(job.databaseInfoId)
+                    .orElseThrow(() -> new IllegalArgumentException("Database not found with ID: " + job.databaseInfoId));
+
+            // Stage 1: catalog
+            realTimeUpdateService.publishSchemaIndexingProgress(job.id, "READING_CATALOG",
+                    "Reading tables and columns from database metadata", progressData(job));
+            Catalog catalog = readCatalog(databaseInfo, job);
+            job.tablesFound = catalog.tables.size();
+
+            // Stage 2: existing rows (content hashes); hand-indexed tables are left alone
+            Map<String, IndexedSchema> existing = readIndexedSchemas(job.databaseInfoId);
+            Set<String> catalogNames = new HashSet<>();
+            List<TableInfo> pending = new ArrayList<>();
+            for (TableInfo table : catalog.tables) {
+                String name = table.schemaName().toLowerCase(Locale.ROOT);
+                catalogNames.add(name);
+                IndexedSchema indexed = existing.get(name);
+                if (indexed != null && !indexed.introspected) {
+                    job.tablesSkipped.incrementAndGet();
+                } else {
+                    pending.add(table);
+                }
+            }
+
+            Map<String, Object> catalogData = progressData(job);
+            catalogData.put("tablesPending", pending.size());
+            realTimeUpdateService.publishSchemaIndexingProgress(job.id, "CATALOG_READ",
+                    "Found " + catalog.tables.size() + " tables (" + pending.size() + " to index)", catalogData);
+
+            // Stage 3: batches → keys → descriptions → embeddings → rows
+            Flux.fromIterable(pending)
+                    .buffer(Math.max(1, Math.min(batchSize, EmbeddingService.MAX_INPUTS_PER_REQUEST)))
+                    .takeWhile(batch -> !job.cancelRequested)
+                    .flatMap(batch -> Mono.fromRunnable(() -> indexBatch(databaseInfo, catalog, batch, existing, job))
+                                    .subscribeOn(Schedulers.boundedElastic()),
+                            Math.max(1, parallelism), 1)
+                    .then()
+                    .block();
+
+            // Stage 4: tables dropped from the database
+            if (!job.cancelRequested && job.tablePattern == null) {
+                deleteDroppedTables(job, catalog, existing, catalogNames);
+            }
+
+            synchronized (job) {
+                if (job.cancelRequested) {
+                    markFinished(job, STATUS_CANCELLED, "Cancelled while running");
+                } else if (job.tablesFailed.get() > 0) {
+                    markFinished(job, STATUS_FAILED, job.errorMessage);
+                } else {
+                    markFinished(job, STATUS_SUCCEEDED, null);
+                }
+            }
+
+            if (STATUS_SUCCEEDED.equals(job.status)) {
+                realTimeUpdateService.publishSchemaIndexingSuccess(job.id, "COMPLETED",
+                        "Indexed " + job.tablesIndexed.get() + " new or changed tables, "
+                                + job.tablesUnchanged.get() + " unchanged, " + job.tablesDeleted.get() + " deleted",
+                        progressData(job));
+            } else if (STATUS_FAILED.equals(job.status)) {
+                realTimeUpdateService.publishSchemaIndexingError(job.id, "COMPLETED_WITH_ERRORS",
+                        job.tablesFailed.get() + " tables could not be indexed (run the job again to retry them): "
+                                + job.errorMessage, progressData(job));
+            }
+        } catch (Exception e) {
+            synchronized (job) {
+                markFinished(job, STATUS_FAILED, e.getMessage());
+            }
+            System.err.println("ERROR: Schema introspection job " + job.id + " failed: " + e.getMessage());
+            realTimeUpdateService.publishSchemaIndexingError(job.id, "FAILED",
+                    "Schema introspection failed: " + e.getMessage(), progressData(job));
+        }
+    }
+
+    /**
+     * One batch: read keys, render descriptions, embed and save the changed tables
+     */
+    private void indexBatch(DatabaseInfo databaseInfo, Catalog catalog, List<TableInfo> batch,
+                            Map<String, IndexedSchema> existing, IntrospectionJob job) {
+        if (job.cancelRequested) {
+            return;
+        }
+        int changed = 0;
+        try {
+            readKeys(databaseInfo, catalog, batch);
+
+            String model = embeddingService.getModel();
+            List<SchemaEmbedding> schemas = new ArrayList<>(batch.size());
+            for (TableInfo table : batch) {
+                String description = truncate(describe(table));
+                String contentHash = contentHash(model, description);
+                IndexedSchema indexed = existing.get(table.schemaName().toLowerCase(Locale.ROOT));
+                if (indexed != null && contentHash.equals(indexed.contentHash)) {
+                    job.tablesUnchanged.incrementAndGet();
+                    continue;
+                }
+
+                SchemaEmbedding schema = new SchemaEmbedding();
+                schema.setId(indexed != null ? indexed.id : null);
+                schema.setDatabaseInfoId(job.databaseInfoId);
+                schema.setSchemaName(table.schemaName());
+                schema.setSchemaDescription(description);
+                schema.setMetadata(metadata(table, catalog, contentHash));
+                schemas.add(schema);
+            }
+            changed = schemas.size();
+
+            schemaEmbeddingService.indexSchemas(job.databaseInfoId, schemas);
+            job.tablesIndexed.addAndGet(changed);
+        } catch (Exception e) {
+            int failed = changed > 0 ? changed : batch.size();
+            job.tablesFailed.addAndGet(failed);
+            job.errorMessage = e.getMessage();
+            System.err.println("WARNING: Schema introspection job " + job.id + ": batch of " + failed
+                    + " tables failed: " + e.getMessage());
+        }
+
+        job.batchesCompleted.incrementAndGet();
+        realTimeUpdateService.publishSchemaIndexingProgress(job.id, "BATCH_COMPLETED",
+                "Checked " + (job.tablesIndexed.get() + job.tablesUnchanged.get() + job.tablesFailed.get())
+                        + " of " + (job.tablesFound - job.tablesSkipped.get()) + " tables ("
+                        + job.tablesIndexed.get() + " re-indexed)",
+                progressData(job));
+    }
+
+    /**
+     * Delete rows created by introspection whose table is no longer in the (fully read) schema
+     */
+    private void deleteDroppedTables(IntrospectionJob job, Catalog catalog, Map<String, IndexedSchema> existing,
+                                     Set<String> catalogNames) {
+        List<Long> dropped = new ArrayList<>();
+        existing.forEach((name, indexed) -> {
+            if (indexed.introspected
+                    && !catalogNames.contains(name)
+                    && sameSchema(indexed.schema, catalog.effectiveSchema)
+                    && (job.includeViews || !"VIEW".equals(indexed.type))) {
+                dropped.add(indexed.id);
+            }
+        });
+        if (dropped.isEmpty()) {
+            return;
+        }
+
+        schemaEmbeddingService.deleteSchemaEmbeddings(job.databaseInfoId, dropped);
+        job.tablesDeleted.addAndGet(dropped.size());
+        System.out.println("INFO: Schema introspection job " + job.id + ": deleted " + dropped.size()
+                + " dropped tables of database ID " + job.databaseInfoId);
+    }
+
+    /**
+     * Indexed rows of a database by lower-case schema name (no embeddings loaded)
+     */
+    private Map<String, IndexedSchema> readIndexedSchemas(Long databaseInfoId) {
+        Map<String, IndexedSchema> existing = new HashMap<>();
+        for (Object[] row : schemaEmbeddingRepository.findMetadataByDatabaseInfoId(databaseInfoId)) {
+            IndexedSchema indexed = new IndexedSchema((Long) row[0]);
+            String metadata = (String) row[2];
+            if (metadata != null && !metadata.isBlank()) {
+                try {
+                    JsonNode node = objectMapper.readTree(metadata);
+                    indexed.introspected = METADATA_SOURCE.equals(node.path("source").asText(null));
+                    indexed.contentHash = node.path("contentHash").asText(null);
+                    indexed.schema = node.path("schema").asText(null);
+                    indexed.type = node.path("type").asText(null);
+                } catch (Exception e) {
+                    // Free-text metadata of a hand-indexed schema
+                }
+            }
+            existing.put(((String) row[1]).toLowerCase(Locale.ROOT), indexed);
+        }
+        return existing;
+    }
+
+    private String metadata(TableInfo table, Catalog catalog, String contentHash) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("source", METADATA_SOURCE);
+        metadata.put("schema", table.schema != null ? table.schema : catalog.effectiveSchema);
+        metadata.put("type", table.type);
+        metadata.put("columns", table.columns.size());
+        metadata.put("contentHash", contentHash);
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write schema metadata", e);
+        }
+    }
+
+    /**
+     * Fingerprint of what gets embedded: model + rendered description (hex SHA-256)
+     */
+    static String contentHash(String model, String description) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(description.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean sameSchema(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+
+    /**
+     * Tables/views and all their columns (2 metadata calls in total)
+     */
+    private Catalog readCatalog(DatabaseInfo databaseInfo, IntrospectionJob job) throws SQLException {
+        Catalog catalog = new Catalog();
+        try (ConcurrencyLimiter.Permit permit = concurrencyLimiterRegistry.targetDatabase(job.databaseInfoId).acquire();
+             Connection connection = connectionPoolRegistry.getConnection(databaseInfo)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            catalog.catalog = connection.getCatalog();
+            catalog.defaultSchema = connection.getSchema();
+            String schemaPattern = job.schemaPattern != null ? job.schemaPattern : catalog.defaultSchema;
+            catalog.effectiveSchema = schemaPattern;
+            String tablePattern = job.tablePattern != null ? job.tablePattern : "%";
+            String[] types = job.includeViews ? new String[]{"TABLE", "VIEW"} : new String[]{"TABLE"};
+
+            Map<String, TableInfo> byKey = new LinkedHashMap<>();
+            try (ResultSet tables = metaData.getTables(catalog.catalog, schemaPattern, tablePattern, types)) {
+                while (tables.next()) {
+                    TableInfo table = new TableInfo(tables.getString("TABLE_SCHEM"), tables.getString("TABLE_NAME"),
+                            tables.getString("TABLE_TYPE"), tables.getString("REMARKS"), catalog.defaultSchema);
+                    byKey.put(table.key(), table);
+                }
+            }
+
+            try (ResultSet columns = metaData.getColumns(catalog.catalog, schemaPattern, tablePattern, "%")) {
+                while (columns.next()) {
+                    TableInfo table = byKey.get(TableInfo.key(columns.getString("TABLE_SCHEM"), columns.getString("TABLE_NAME")));
+                    if (table != null) {
+                        table.columns.add(new ColumnInfo(columns.getString("COLUMN_NAME"), columns.getString("TYPE_NAME"),
+                                columns.getString("REMARKS")));
+                    }
+                }
+            }
+            catalog.tables.addAll(byKey.values());
+        }
+        return catalog;
+    }
+
+    /**
+     * Primary and foreign keys of a batch of tables (one connection per batch)
+     */
+    private void readKeys(DatabaseInfo databaseInfo, Catalog catalog, List<TableInfo> batch) throws SQLException {
+        try (ConcurrencyLimiter.Permit permit = concurrencyLimiterRegistry.targetDatabase(databaseInfo.getId()).acquire();
+             Connection connection = connectionPoolRegistry.getConnection(databaseInfo)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (TableInfo table : batch) {
+                if (!"TABLE".equals(table.type)) {
+                    continue;
+                }
+                try (ResultSet keys = metaData.getPrimaryKeys(catalog.catalog, table.schema, table.name)) {
+                    while (keys.next()) {
+                        table.primaryKey.add(keys.getString("COLUMN_NAME"));
+                    }
+                }
+                try (ResultSet keys = metaData.getImportedKeys(catalog.catalog, table.schema, table.name)) {
+                    while (keys.next()) {
+                        table.references.put(keys.getString("FKCOLUMN_NAME"),
+                                keys.getString("PKTABLE_NAME") + "." + keys.getString("PKCOLUMN_NAME"));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Cut a description to schema-introspection.max-description-tokens
+     */
+    private String truncate(String description) {
+        int maxTokens = Math.min(maxDescriptionTokens, EmbeddingService.MAX_TOKENS_PER_INPUT);
+        if (tokenizer.count(description) <= maxTokens) {
+            return description;
+        }
+        return tokenizer.truncate(description, maxTokens - 1).stripTrailing() + "...";
+    }
+
+    /**
+     * Natural language description of a table (see class comment)
+     */
+    static String describe(TableInfo table) {
+        StringBuilder description = new StringBuilder();
+        description.append(table.schemaName()).append(' ')
+                .append("VIEW".equals(table.type) ? "view" : "table");
+        if (!table.columns.isEmpty()) {
+            description.append(" with ");
+        }
+
+        for (int i = 0; i < table.columns.size(); i++) {
+            ColumnInfo column = table.columns.get(i);
+            if (i > 0) {
+                description.append(", ");
+            }
+            description.append(column.name).append(" (").append(column.typeName.toLowerCase(Locale.ROOT));
+            if (table.primaryKey.contains(column.name)) {
+                description.append(" primary key");
+            }
+            String reference = table.references.get(column.name);
+            if (reference != null) {
+                description.append(" references ").append(reference);
+            }
+            if (column.remarks != null && !column.remarks.isBlank()) {
+                description.append(" - ").append(column.remarks.replace(',', ';').replace(')', ']').trim());
+            }
+            description.append(')');
+        }
+        if (!table.columns.isEmpty()) {
+            description.append(" columns");
+        }
+
+        if (table.remarks != null && !table.remarks.isBlank()) {
+            description.append(". ").append(table.remarks.trim());
+        }
+        return description.toString();
+    }
+
+    private Map<String, Object> progressData(IntrospectionJob job) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("databaseInfoId", job.databaseInfoId);
+        data.put("tablesFound", job.tablesFound);
+        data.put("tablesSkipped", job.tablesSkipped.get());
+        data.put("tablesIndexed", job.tablesIndexed.get());
+        data.put("tablesUnchanged", job.tablesUnchanged.get());
+        data.put("tablesDeleted", job.tablesDeleted.get());
+        data.put("tablesFailed", job.tablesFailed.get());
+        data.put("batchesCompleted", job.batchesCompleted.get());
+        return data;
+    }
+
+    private void markFinished(IntrospectionJob job, String status, String errorMessage) {
+        job.status = status;
+        job.errorMessage = errorMessage;
+        job.finishedAt = LocalDateTime.now();
+    }
+
+    private boolean isFinished(String status) {
+        return STATUS_SUCCEEDED.equals(status) || STATUS_FAILED.equals(status) || STATUS_CANCELLED.equals(status);
+    }
+
+    private void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private SchemaIntrospectionJobResponse toResponse(IntrospectionJob job) {
+        SchemaIntrospectionJobResponse response = new SchemaIntrospectionJobResponse(job.id, job.status);
+        response.setDatabaseInfoId(job.databaseInfoId);
+        response.setTablesFound(job.tablesFound);
+        response.setTablesSkipped(job.tablesSkipped.get());
+        response.setTablesIndexed(job.tablesIndexed.get());
+        response.setTablesUnchanged(job.tablesUnchanged.get());
+        response.setTablesDeleted(job.tablesDeleted.get());
+        response.setTablesFailed(job.tablesFailed.get());
+        response.setBatchesCompleted(job.batchesCompleted.get());
+        response.setSubmittedAt(job.submittedAt);
+        response.setStartedAt(job.startedAt);
+        response.setFinishedAt(job.finishedAt);
+        response.setErrorMessage(job.errorMessage);
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.cancelRequested = true);
+        executor.shutdownNow();
+    }
+
+    /**
+     * State of one job
+     */
+    private static class IntrospectionJob {
+        private final String id;
+        private final Long databaseInfoId;
+        private final String schemaPattern;
+        private final String tablePattern;
+        private final boolean includeViews;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+
+        private final AtomicInteger tablesSkipped = new AtomicInteger();
+        private final AtomicInteger tablesIndexed = new AtomicInteger();
+        private final AtomicInteger tablesUnchanged = new AtomicInteger();
+        private final AtomicInteger tablesDeleted = new AtomicInteger();
+        private final AtomicInteger tablesFailed = new AtomicInteger();
+        private final AtomicInteger batchesCompleted = new AtomicInteger();
+
+        private volatile String status = STATUS_QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile Integer tablesFound;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String errorMessage;
+        private volatile Future<?> future;
+
+        IntrospectionJob(String id, Long databaseInfoId, String schemaPattern, String tablePattern, boolean includeViews) {
+            this.id = id;
+            this.databaseInfoId = databaseInfoId;
+            this.schemaPattern = schemaPattern;
+            this.tablePattern = tablePattern;
+            this.includeViews = includeViews;
+        }
+    }
+
+    private static class Catalog {
+        private String catalog;
+        private String defaultSchema;
+
+        /**
+         * Schema that was read (job schemaPattern or the default schema)
+         */
+        private String effectiveSchema;
+        private final List<TableInfo> tables = new ArrayList<>();
+    }
+
+    /**
+     * An indexed row as far as re-indexing needs it (parsed from its metadata)
+     */
+    private static class IndexedSchema {
+        private final Long id;
+        private boolean introspected;
+        private String contentHash;
+        private String schema;
+        private String type;
+
+        IndexedSchema(Long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * A table or view read from the metadata
+     */
+    static class TableInfo {
+        private final String schema;
+        private final String name;
+        private final String type;
+        private final String remarks;
+        private final boolean inDefaultSchema;
+        private final List<ColumnInfo> columns = new ArrayList<>();
+        private final Set<String> primaryKey = new HashSet<>();
+        private final Map<String, String> references = new HashMap<>();
+
+        TableInfo(String schema, String name, String type, String remarks, String defaultSchema) {
+            this.schema = schema;
+            this.name = name;
+            this.type = type;
+            this.remarks = remarks;
+            this.inDefaultSchema = schema == null || schema.equalsIgnoreCase(defaultSchema);
+        }
+
+        /**
+         * Name stored as SchemaEmbedding.schemaName ("orders", or "sales.orders" outside the default schema)
+         */
+        String schemaName() {
+            return inDefaultSchema ? name : schema + "." + name;
+        }
+
+        String key() {
+            return key(schema, name);
+        }
+
+        static String key(String schema, String name) {
+            return schema + "|" + name;
+        }
+    }
+
+    static class ColumnInfo {
+        private final String name;
+        private final String typeName;
+        private final String remarks;
+
+        ColumnInfo(String name, String typeName, String remarks) {
+            this.name = name;
+            this.typeName = typeName == null ? "unknown" : typeName;
+            this.remarks = remarks;
+        }
+    }
+}
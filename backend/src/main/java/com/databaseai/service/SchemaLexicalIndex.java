@@ -0,0 +1,309 @@
+package com.databaseai.service;
+
+import com.databaseai.model.SchemaEmbedding;
+import com.databaseai.repository.SchemaEmbeddingRepository;
+import com.databaseai.util.Bm25Index;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schema Lexical Index
+ *
+ * In-memory BM25 keyword index over schemaName + schemaDescription, one per
+ * database (databaseInfoId). Runs next to SchemaVectorIndex: embeddings find
+ * schemas that mean the same as the question, this index finds schemas the
+ * question names literally ("orders_2023", "customer_id").
+ *
+ * Terms:
+ * - Lower-cased identifiers as written ("orders_2023"), plus their parts
+ *   ("orders", "2023") with a plural "s" removed ("order")
+ * - Schema name terms count SCHEMA_NAME_WEIGHT times (a hit on the table
+ *   name matters more than a hit somewhere in the description)
+ * - Stopwords are dropped: English function words ("the", "of", "with"),
+ *   question phrasing ("show", "list") and the boilerplate of generated
+ *   descriptions ("table", "columns", "primary key", "references").
+ *   Otherwise they match nearly every schema, and reciprocal rank fusion
+ *   would rank those hits like real vector hits
+ * - Terms found in most schemas of a database are ignored at search time
+ *   (Bm25Index.MAX_DOCUMENT_FRACTION), e.g. a column type on every table
+ *
+ * Lifecycle (same as SchemaVectorIndex):
+ * - Loaded lazily on the first search for a database (names and
+ *   descriptions only, no embeddings)
+ * - Kept up to date by SchemaEmbeddingService when schemas are indexed or deleted
+ */
+@Component
+public class SchemaLexicalIndex {
+
+    private static final int SCHEMA_NAME_WEIGHT = 3;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            // English function words
+            "a", "an", "the", "of", "in", "on", "at", "to", "for", "from", "by", "with", "without",
+            "and", "or", "not", "no", "is", "are", "was", "were", "be", "been", "has", "have", "had",
+            "do", "does", "did", "it", "its", "this", "that", "these", "those", "there", "their",
+            "me", "my", "our", "we", "you", "your", "i", "as", "per", "each", "every", "all", "any",
+            "what", "which", "who", "whom", "where", "when", "how", "than", "then", "into", "over",
+            // Question phrasing
+            "show", "list", "give", "get", "find", "display", "return", "please",
+            // Boilerplate of generated schema descriptions (SchemaIntrospectionService.describe)
+            "table", "view", "column", "field", "row", "record", "contain", "store",
+            "primary", "key", "reference"
+    );
+
+    @Autowired
+    private SchemaEmbeddingRepository schemaEmbeddingRepository;
+
+    private final Map<Long, DatabaseIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Find the topK schemas with the best BM25 score for the query
+     *
+     * @return Best matches first (only schemas sharing at least one term with the query)
+     */
+    public List<Hit> search(Long databaseInfoId, String query, int topK) {
+        DatabaseIndex index = getOrLoad(databaseInfoId);
+        List<String> terms = terms(query);
+        // Never allocate more result slots than there are documents
+        int k = Math.min(topK, index.bm25.size());
+        if (terms.isEmpty() || k <= 0) {
+            return List.of();
+        }
+
+        long[] ids = new long[k];
+        float[] scores = new float[k];
+        int found = index.bm25.search(terms, k, ids, scores);
+
+        List<Hit> hits = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            Document document = index.documents.get(ids[i]);
+            if (document != null) {
+                hits.add(new Hit(ids[i], document.schemaName, document.description, scores[i]));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Description of an indexed schema, looked up by name (case-insensitive)
+     *
+     * A table in the default schema matches with or without the schema prefix
+     * ("customers" and "sales.customers" if the default schema is "sales");
+     * tables in other schemas only match their qualified name.
+     *
+     * @param defaultSchema Default schema of the database (SchemaGraphService), or null
+     */
+    public Optional<Hit> findBySchemaName(Long databaseInfoId, String schemaName, String defaultSchema) {
+        DatabaseIndex index = getOrLoad(databaseInfoId);
+        String key = SchemaGraphService.tableKey(schemaName);
+        Long id = index.idsByName.get(key);
+        if (id == null && defaultSchema != null) {
+            String qualified = SchemaGraphService.tableKey(schemaName, defaultSchema);
+            String prefix = SchemaGraphService.tableKey(defaultSchema) + ".";
+            if (!qualified.equals(key)) {
+                // "customers" indexed as "sales.customers"
+                id = index.idsByName.get(qualified);
+            } else if (key.startsWith(prefix)) {
+                // "sales.customers" indexed as "customers"
+                id = index.idsByName.get(key.substring(prefix.length()));
+            }
+        }
+        Document document = id == null ? null : index.documents.get(id);
+        return document == null
+                ? Optional.empty()
+                : Optional.of(new Hit(id, document.schemaName, document.description, 0f));
+    }
+
+    /**
+     * Add (or replace) a schema in its database's index
+     *
+     * If the index for that database hasn't been loaded yet, nothing happens -
+     * the next search loads it from the database, including this schema.
+     */
+    public void put(SchemaEmbedding schema) {
+        indexes.computeIfPresent(schema.getDatabaseInfoId(), (id, index) -> {
+            index.add(schema.getId(), schema.getSchemaName(), schema.getSchemaDescription());
+            return index;
+        });
+    }
+
+    /**
+     * Remove a schema from its database's index
+     */
+    public void remove(Long databaseInfoId, Long schemaEmbeddingId) {
+        indexes.computeIfPresent(databaseInfoId, (id, index) -> {
+            index.remove(schemaEmbeddingId);
+            return index;
+        });
+    }
+
+    /**
+     * Drop a database's whole index
+     */
+    public void evict(Long databaseInfoId) {
+        indexes.remove(databaseInfoId);
+    }
+
+    /**
+     * Loaded indexes with their size
+     */
+    public Map<Long, Map<String, Object>> getStats() {
+        Map<Long, Map<String, Object>> stats = new LinkedHashMap<>();
+        indexes.forEach((id, index) -> {
+            Map<String, Object> indexStats = new LinkedHashMap<>();
+            indexStats.put("documents", index.bm25.size());
+            indexStats.put("terms", index.bm25.termCount());
+            stats.put(id, indexStats);
+        });
+        return stats;
+    }
+
+    private DatabaseIndex getOrLoad(Long databaseInfoId) {
+        return indexes.computeIfAbsent(databaseInfoId, this::load);
+    }
+
+    private DatabaseIndex load(Long databaseInfoId) {
+        long start = System.currentTimeMillis();
+        DatabaseIndex index = new DatabaseIndex();
+        for (Object[] row : schemaEmbeddingRepository.findTextByDatabaseInfoId(databaseInfoId)) {
+            index.add((Long) row[0], (String) row[1], (String) row[2]);
+        }
+        System.out.println("INFO: Loaded schema lexical index for database ID " + databaseInfoId
+                + " (" + index.bm25.size() + " schemas, " + index.bm25.termCount() + " terms, "
+                + (System.currentTimeMillis() - start) + " ms)");
+        return index;
+    }
+
+    /**
+     * Search terms of a text (see class comment)
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+
+        for (String identifier : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}_]+")) {
+            String trimmed = identifier.replaceAll("^_+|_+$", "");
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.indexOf('_') < 0) {
+                addTerm(terms, trimmed);
+                continue;
+            }
+            terms.add(trimmed);
+            for (String part : trimmed.split("_+")) {
+                addTerm(terms, part);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Add a word's stem unless the word or its stem is a stopword
+     */
+    private static void addTerm(List<String> terms, String word) {
+        if (word.isEmpty() || STOPWORDS.contains(word)) {
+            return;
+        }
+        String stemmed = stem(word);
+        if (!STOPWORDS.contains(stemmed)) {
+            terms.add(stemmed);
+        }
+    }
+
+    private static String stem(String word) {
+        return word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")
+                ? word.substring(0, word.length() - 1)
+                : word;
+    }
+
+    /**
+     * A keyword match
+     */
+    public static class Hit {
+        private final Long schemaEmbeddingId;
+        private final String schemaName;
+        private final String description;
+        private final float score;
+
+        private Hit(Long schemaEmbeddingId, String schemaName, String description, float score) {
+            this.schemaEmbeddingId = schemaEmbeddingId;
+            this.schemaName = schemaName;
+            this.description = description;
+            this.score = score;
+        }
+
+        public Long getSchemaEmbeddingId() {
+            return schemaEmbeddingId;
+        }
+
+        public String getSchemaName() {
+            return schemaName;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    private static class Document {
+        private final String schemaName;
+        private final String description;
+
+        private Document(String schemaName, String description) {
+            this.schemaName = schemaName;
+            this.description = description;
+        }
+    }
+
+    /**
+     * Index of one database: BM25 postings plus the texts they point to
+     */
+    private static class DatabaseIndex {
+        private final Bm25Index bm25 = new Bm25Index();
+        private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+        /**
+         * Table name as indexed (SchemaGraphService.tableKey: lower case, schema prefix kept) → schema ID
+         */
+        private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+
+        void add(Long id, String schemaName, String description) {
+            List<String> terms = new ArrayList<>();
+            List<String> nameTerms = terms(schemaName);
+            for (int i = 0; i < SCHEMA_NAME_WEIGHT; i++) {
+                terms.addAll(nameTerms);
+            }
+            terms.addAll(terms(description));
+
+            documents.put(id, new Document(schemaName, description));
+            if (schemaName != null) {
+                idsByName.put(SchemaGraphService.tableKey(schemaName), id);
+            }
+            bm25.add(id, terms);
+        }
+
+        void remove(Long id) {
+            bm25.remove(id);
+            Document document = documents.remove(id);
+            if (document != null && document.schemaName != null) {
+                idsByName.remove(SchemaGraphService.tableKey(document.schemaName), id);
+            }
+        }
+    }
+}
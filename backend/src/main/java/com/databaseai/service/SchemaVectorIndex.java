@@ -0,0 +1,550 @@
+package com.databaseai.service;
+
+import com.databaseai.model.SchemaEmbedding;
+import com.databaseai.repository.SchemaEmbeddingRepository;
+import com.databaseai.util.HnswIndex;
+import com.databaseai.util.QuantizedVectorStore;
+import com.databaseai.util.TopKHeap;
+import com.databaseai.util.VectorMath;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schema Vector Index
+ *
+ * In-memory vector index of schema embeddings, one per database (databaseInfoId).
+ *
+ * Why?
+ * - Without it every RAG query loads all SchemaEmbedding rows from the
+ *   database and parses every embedding from its stored form
+ * - Here each database's vectors are kept in ONE contiguous float[],
+ *   already normalized to unit length, with no database round trip per search
+ *
+ * Search strategy (per database):
+ * - Fewer than schema-index.hnsw.exact-below vectors: exact scan
+ *   (tight dot-product loop + bounded top-K heap)
+ * - Otherwise: HNSW approximate nearest-neighbour graph
+ *   (warehouses with 20k+ tables/views), tuned by schema-index.hnsw.m,
+ *   ef-construction and ef-search
+ * - schema-index.quantization.mode=int8 / int8-binary: only quantized codes
+ *   are kept in memory (~4x / ~3.5x smaller); candidates are re-ranked with
+ *   the full vectors read from the database
+ *
+ * Lifecycle:
+ * - Loaded lazily on the first search for a database
+ *   (or at startup when schema-index.preload-on-startup=true)
+ * - Kept up to date by SchemaEmbeddingService when schemas are indexed or deleted
+ * - With schema-index.hnsw.snapshot-dir set, graphs are saved to disk on
+ *   shutdown / after a build and reloaded on restart (only rows added,
+ *   re-embedded or deleted in the meantime are applied, no full rebuild).
+ *   The snapshot stores a fingerprint of each node's vector, so a row that
+ *   was re-embedded in place (same ID) is detected and re-added.
+ */
+@Component
+public class SchemaVectorIndex {
+
+    @Autowired
+    private SchemaEmbeddingRepository schemaEmbeddingRepository;
+
+    @Value("${schema-index.preload-on-startup:false}")
+    private boolean preloadOnStartup;
+
+    @Value("${schema-index.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${schema-index.hnsw.ef-construction:100}")
+    private int hnswEfConstruction;
+
+    @Value("${schema-index.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    /**
+     * Below this many vectors an exact scan is used (cheap, and always exact)
+     */
+    @Value("${schema-index.hnsw.exact-below:1000}")
+    private int exactBelow;
+
+    /**
+     * Rebuild a graph once this fraction of its nodes is soft-deleted
+     * (re-indexed or deleted schemas; 1 = never)
+     */
+    @Value("${schema-index.hnsw.max-deleted-fraction:0.2}")
+    private double hnswMaxDeletedFraction;
+
+    /**
+     * Directory for graph snapshots (empty = don't persist)
+     */
+    @Value("${schema-index.hnsw.snapshot-dir:}")
+    private String snapshotDir;
+
+    /**
+     * none: float vectors in memory (exact scan / HNSW)
+     * int8: int8 codes in memory, candidates re-ranked with full vectors loaded from the database
+     * int8-binary: like int8, plus a 1-bit Hamming prefilter before the int8 pass
+     */
+    @Value("${schema-index.quantization.mode:none}")
+    private String quantizationMode;
+
+    /**
+     * The int8 pass keeps topK * oversample candidates for re-ranking
+     */
+    @Value("${schema-index.quantization.oversample:4}")
+    private int quantizationOversample;
+
+    /**
+     * The Hamming pass keeps (int8 candidates) * binary-oversample vectors
+     */
+    @Value("${schema-index.quantization.binary-oversample:4}")
+    private int binaryOversample;
+
+    private final Map<Long, DatabaseIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Load the indexes of all databases at startup (if enabled)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void preload() {
+        if (!preloadOnStartup) {
+            return;
+        }
+
+        List<Long> databaseInfoIds = schemaEmbeddingRepository.findDistinctDatabaseInfoIds();
+        for (Long databaseInfoId : databaseInfoIds) {
+            getOrLoad(databaseInfoId);
+        }
+        System.out.println("INFO: Preloaded schema vector indexes for " + databaseInfoIds.size() + " database(s)");
+    }
+
+    /**
+     * Find the topK schemas most similar to the query
+     *
+     * @param databaseInfoId Database to search in
+     * @param queryVector Query embedding, normalized to unit length
+     * @param topK Number of results
+     * @return Best matches first (without their embedding in the in-memory modes)
+     */
+    public List<ScoredSchema> search(Long databaseInfoId, float[] queryVector, int topK) {
+        DatabaseIndex index = getOrLoad(databaseInfoId);
+        if (index.quantized != null) {
+            return searchQuantized(index.quantized, queryVector, topK);
+        }
+
+        HnswIndex graph = index.graph;
+        if (graph == null || graph.size() == 0 || topK <= 0) {
+            return List.of();
+        }
+
+        int k = Math.min(topK, graph.size());
+        long[] ids = new long[k];
+        float[] scores = new float[k];
+        int found = graph.size() < exactBelow
+                ? graph.exactSearch(queryVector, k, ids, scores)
+                : graph.search(queryVector, k, hnswEfSearch, ids, scores);
+
+        List<ScoredSchema> results = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            SchemaEmbedding schema = index.schemas.get(ids[i]);
+            if (schema != null) {
+                results.add(new ScoredSchema(schema, scores[i]));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Quantized search: int8 (and optionally 1-bit) candidates, then exact re-ranking
+     *
+     * Full-precision vectors aren't kept in memory in this mode; the
+     * candidates' embeddings are loaded from the database (one query for
+     * topK * oversample rows) and scored exactly.
+     */
+    private List<ScoredSchema> searchQuantized(QuantizedVectorStore store, float[] queryVector, int topK) {
+        if (store.size() == 0 || topK <= 0) {
+            return List.of();
+        }
+
+        int candidateCount = Math.min(topK * Math.max(1, quantizationOversample), store.size());
+        long[] candidateIds = new long[candidateCount];
+        int found = store.candidates(queryVector, candidateCount, candidateIds, new float[candidateCount]);
+
+        List<Long> ids = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            ids.add(candidateIds[i]);
+        }
+        List<SchemaEmbedding> candidates = schemaEmbeddingRepository.findAllById(ids);
+
+        // Exact re-ranking with the full-precision vectors
+        TopKHeap heap = new TopKHeap(Math.min(topK, candidates.size()));
+        for (int i = 0; i < candidates.size(); i++) {
+            float[] vector = normalizedVector(candidates.get(i));
+            if (vector.length == queryVector.length) {
+                heap.offer(i, VectorMath.dot(vector, 0, queryVector));
+            }
+        }
+
+        int[] rows = new int[heap.size()];
+        float[] scores = new float[heap.size()];
+        heap.sortDescending(rows, scores);
+
+        List<ScoredSchema> results = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            results.add(new ScoredSchema(candidates.get(rows[i]), scores[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Add (or replace) a schema in its database's index
+     *
+     * If the index for that database hasn't been loaded yet, nothing happens -
+     * the next search loads it from the database, including this schema.
+     */
+    public void put(SchemaEmbedding schema) {
+        float[] vector = normalizedVector(schema);
+        indexes.computeIfPresent(schema.getDatabaseInfoId(), (id, index) -> {
+            index.add(schema, vector);
+            return index;
+        });
+    }
+
+    /**
+     * Remove a schema from its database's index
+     */
+    public void remove(Long databaseInfoId, Long schemaEmbeddingId) {
+        indexes.computeIfPresent(databaseInfoId, (id, index) -> {
+            index.remove(schemaEmbeddingId);
+            return index;
+        });
+    }
+
+    /**
+     * Drop a database's whole index (and its snapshot)
+     */
+    public void evict(Long databaseInfoId) {
+        indexes.remove(databaseInfoId);
+        Path snapshot = snapshotPath(databaseInfoId);
+        if (snapshot != null) {
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException e) {
+                System.err.println("WARNING: Could not delete vector index snapshot " + snapshot + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Loaded indexes with their size
+     *
+     * Example:
+     * {
+     *   "1": {"vectors": 42, "graphNodes": 43, "dimension": 1536, "memoryBytes": 270000, "mode": "exact"}
+     * }
+     */
+    public Map<Long, Map<String, Object>> getStats() {
+        Map<Long, Map<String, Object>> stats = new LinkedHashMap<>();
+        indexes.forEach((id, index) -> {
+            Map<String, Object> indexStats = new LinkedHashMap<>();
+            QuantizedVectorStore quantized = index.quantized;
+            if (quantized != null) {
+                indexStats.put("vectors", quantized.size());
+                indexStats.put("dimension", quantized.getDimension());
+                indexStats.put("memoryBytes", quantized.memoryBytes());
+                indexStats.put("mode", quantized.isBinaryEnabled() ? "int8+binary" : "int8");
+                stats.put(id, indexStats);
+                return;
+            }
+
+            HnswIndex graph = index.graph;
+            indexStats.put("vectors", graph == null ? 0 : graph.size());
+            indexStats.put("graphNodes", graph == null ? 0 : graph.nodeCount());
+            indexStats.put("dimension", graph == null ? 0 : graph.getDimension());
+            indexStats.put("memoryBytes", graph == null ? 0 : graph.memoryBytes());
+            indexStats.put("mode", graph != null && graph.size() >= exactBelow ? "hnsw" : "exact");
+            stats.put(id, indexStats);
+        });
+        return stats;
+    }
+
+    /**
+     * Save snapshots of all changed indexes on shutdown
+     */
+    @PreDestroy
+    public void saveSnapshots() {
+        indexes.forEach((id, index) -> {
+            if (index.dirty) {
+                saveSnapshot(id, index);
+            }
+        });
+    }
+
+    /**
+     * Decode a schema's binary embedding and normalize it to unit length
+     */
+    private static float[] normalizedVector(SchemaEmbedding schema) {
+        float[] vector = schema.getEmbeddingAsFloats();
+        VectorMath.normalize(vector);
+        return vector;
+    }
+
+    /**
+     * Copy of a schema row without its embedding
+     *
+     * The vector is already in the graph; keeping the entity's embedding bytes
+     * too (~6 KB per 1536-dimension row) would hold every vector in memory twice.
+     * Search results only need the name, description and metadata.
+     */
+    private static SchemaEmbedding withoutEmbedding(SchemaEmbedding schema) {
+        SchemaEmbedding copy = new SchemaEmbedding();
+        copy.setId(schema.getId());
+        copy.setDatabaseInfoId(schema.getDatabaseInfoId());
+        copy.setSchemaName(schema.getSchemaName());
+        copy.setSchemaDescription(schema.getSchemaDescription());
+        copy.setMetadata(schema.getMetadata());
+        copy.setCreatedAt(schema.getCreatedAt());
+        copy.setUpdatedAt(schema.getUpdatedAt());
+        return copy;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a vector (detects rows re-embedded since a snapshot was written)
+     */
+    static long fingerprint(float[] vector) {
+        long hash = 0xcbf29ce484222325L;
+        for (float value : vector) {
+            hash ^= Float.floatToIntBits(value);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private boolean isQuantized() {
+        return quantizationMode != null && quantizationMode.startsWith("int8");
+    }
+
+    private boolean isBinaryQuantized() {
+        return "int8-binary".equals(quantizationMode);
+    }
+
+    private DatabaseIndex getOrLoad(Long databaseInfoId) {
+        return indexes.computeIfAbsent(databaseInfoId, this::load);
+    }
+
+    /**
+     * Build a database's index from its rows (reusing the snapshot on disk if there is one)
+     */
+    private DatabaseIndex load(Long databaseInfoId) {
+        long start = System.currentTimeMillis();
+        List<SchemaEmbedding> rows = schemaEmbeddingRepository.findAllByDatabaseInfoId(databaseInfoId);
+
+        DatabaseIndex index = new DatabaseIndex();
+        boolean fromSnapshot = !isQuantized() && readSnapshot(databaseInfoId, index);
+        if (fromSnapshot) {
+            index.graph.setMaxDeletedFraction(hnswMaxDeletedFraction);
+        }
+
+        // Apply rows added, re-embedded or deleted since the snapshot was written
+        Set<Long> rowIds = new HashSet<>();
+        for (SchemaEmbedding schema : rows) {
+            rowIds.add(schema.getId());
+            float[] vector = normalizedVector(schema);
+            Long fingerprint = index.fingerprints.get(schema.getId());
+            if (index.graph != null && index.graph.contains(schema.getId())
+                    && fingerprint != null && fingerprint == fingerprint(vector)) {
+                index.schemas.put(schema.getId(), withoutEmbedding(schema));
+            } else {
+                index.add(schema, vector);
+            }
+        }
+        if (index.graph != null && fromSnapshot) {
+            for (long graphId : index.graph.externalIds()) {
+                if (!rowIds.contains(graphId)) {
+                    index.remove(graphId);
+                }
+            }
+        }
+
+        System.out.println("INFO: Loaded schema vector index for database ID " + databaseInfoId
+                + " (" + index.size() + " vectors, " + (fromSnapshot ? "from snapshot" : "built")
+                + ", " + (System.currentTimeMillis() - start) + " ms)");
+
+        if (index.dirty) {
+            saveSnapshot(databaseInfoId, index);
+        }
+        return index;
+    }
+
+    private Path snapshotPath(Long databaseInfoId) {
+        if (snapshotDir == null || snapshotDir.isBlank()) {
+            return null;
+        }
+        return Paths.get(snapshotDir, "schema-index-" + databaseInfoId + ".hnsw");
+    }
+
+    /**
+     * Read a snapshot (graph, then one vector fingerprint per node) into the index
+     *
+     * @return false if there is no usable snapshot (the index is then built from the rows)
+     */
+    private boolean readSnapshot(Long databaseInfoId, DatabaseIndex index) {
+        Path path = snapshotPath(databaseInfoId);
+        if (path == null || !Files.exists(path)) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            HnswIndex graph = HnswIndex.readFrom(in);
+            int count = in.readInt();
+            Map<Long, Long> fingerprints = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                fingerprints.put(in.readLong(), in.readLong());
+            }
+            index.graph = graph;
+            index.fingerprints.putAll(fingerprints);
+            return true;
+        } catch (IOException e) {
+            // Includes snapshots written before fingerprints were stored (EOF)
+            System.err.println("WARNING: Ignoring unreadable vector index snapshot " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write the graph and the vector fingerprints to a temp file, then move it
+     * into place (never leaves a half-written snapshot)
+     */
+    private void saveSnapshot(Long databaseInfoId, DatabaseIndex index) {
+        Path path = snapshotPath(databaseInfoId);
+        HnswIndex graph = index.graph;
+        if (path == null || graph == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                graph.writeTo(out);
+                Map<Long, Long> fingerprints = new HashMap<>(index.fingerprints);
+                out.writeInt(fingerprints.size());
+                for (Map.Entry<Long, Long> entry : fingerprints.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.dirty = false;
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not save vector index snapshot " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Schema with its similarity to the query
+     */
+    public static class ScoredSchema {
+        private final SchemaEmbedding schema;
+        private final double similarity;
+
+        public ScoredSchema(SchemaEmbedding schema, double similarity) {
+            this.schema = schema;
+            this.similarity = similarity;
+        }
+
+        public SchemaEmbedding getSchema() {
+            return schema;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    /**
+     * Index of one database: the vector graph plus the schema rows it points to
+     * (without their embeddings, see withoutEmbedding)
+     */
+    private class DatabaseIndex {
+        private final Map<Long, SchemaEmbedding> schemas = new ConcurrentHashMap<>();
+        /** Vector fingerprint per graph node, saved with the snapshot */
+        private final Map<Long, Long> fingerprints = new ConcurrentHashMap<>();
+        private volatile HnswIndex graph;
+        private volatile QuantizedVectorStore quantized;
+        private volatile boolean dirty = false;
+
+        void add(SchemaEmbedding schema, float[] vector) {
+            if (vector.length == 0) {
+                return;
+            }
+
+            if (isQuantized()) {
+                if (quantized == null) {
+                    quantized = new QuantizedVectorStore(vector.length, isBinaryQuantized(), binaryOversample);
+                } else if (vector.length != quantized.getDimension()) {
+                    System.err.println("WARNING: Skipping schema embedding " + schema.getId()
+                            + " - dimension " + vector.length + " doesn't match index dimension " + quantized.getDimension());
+                    return;
+                }
+                // Rows are re-read from the database when re-ranking, so only the codes are kept
+                quantized.add(schema.getId(), vector);
+                return;
+            }
+
+            if (graph == null) {
+                graph = new HnswIndex(vector.length, hnswM, hnswEfConstruction);
+                graph.setMaxDeletedFraction(hnswMaxDeletedFraction);
+            } else if (vector.length != graph.getDimension()) {
+                System.err.println("WARNING: Skipping schema embedding " + schema.getId()
+                        + " - dimension " + vector.length + " doesn't match index dimension " + graph.getDimension());
+                return;
+            }
+
+            graph.add(schema.getId(), vector);
+            fingerprints.put(schema.getId(), fingerprint(vector));
+            schemas.put(schema.getId(), withoutEmbedding(schema));
+            dirty = true;
+        }
+
+        int size() {
+            if (quantized != null) {
+                return quantized.size();
+            }
+            return graph == null ? 0 : graph.size();
+        }
+
+        void remove(Long schemaEmbeddingId) {
+            schemas.remove(schemaEmbeddingId);
+            fingerprints.remove(schemaEmbeddingId);
+            if (quantized != null) {
+                quantized.remove(schemaEmbeddingId);
+            }
+            if (graph != null && graph.remove(schemaEmbeddingId)) {
+                dirty = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.databaseai.service;
+
+import com.databaseai.util.VectorMath;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Semantic Query Cache
+ *
+ * Remembers validated NL → SQL conversions per database, so a question that
+ * means the same as an earlier one ("top 5 customers" / "show the top 5
+ * customers") gets the earlier SQL back without a GPT call.
+ *
+ * Matching:
+ * - Cosine similarity of the question embeddings (unit vectors → dot product)
+ *   must be at least nl-to-sql.semantic-cache.similarity-threshold
+ * - The numbers in both questions must be the same. Embeddings of
+ *   "top 5 customers" and "top 10 customers" are almost identical, but the
+ *   SQL isn't.
+ *
+ * Entries are dropped when:
+ * - The database's schema embeddings change (the SQL may reference tables
+ *   or columns that no longer exist) or the database is deleted
+ * - They are older than nl-to-sql.semantic-cache.ttl-minutes
+ * - The database has more than max-entries-per-database entries (oldest first)
+ *
+ * Only valid SQL is cached. Lookups scan the database's entries (a few
+ * hundred dot products, well under a millisecond).
+ *
+ * A conversion that was running while its database was invalidated must not
+ * be cached afterwards (its SQL was generated from the old schema). Callers
+ * read generation() before retrieval and pass it to put(), which skips the
+ * entry if the database was invalidated in between.
+ */
+@Component
+public class SemanticQueryCache {
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+
+    @Value("${nl-to-sql.semantic-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${nl-to-sql.semantic-cache.similarity-threshold:0.97}")
+    private double similarityThreshold;
+
+    @Value("${nl-to-sql.semantic-cache.max-entries-per-database:500}")
+    private int maxEntriesPerDatabase;
+
+    @Value("${nl-to-sql.semantic-cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    private final Map<Long, Deque<CachedQuery>> entriesByDatabase = new ConcurrentHashMap<>();
+
+    /**
+     * Number of invalidations per database (never removed, so a late put() still sees them)
+     */
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Current generation of a database's entries (read before retrieval, passed to put())
+     */
+    public long generation(Long databaseInfoId) {
+        return generations.computeIfAbsent(databaseInfoId, id -> new AtomicLong()).get();
+    }
+
+    /**
+     * Find a cached conversion for an equivalent question
+     *
+     * @param questionVector Unit-length embedding of the question
+     * @return The most similar cached conversion above the threshold, if any
+     */
+    public Optional<Match> find(Long databaseInfoId, String question, float[] questionVector) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Deque<CachedQuery> entries = entriesByDatabase.get(databaseInfoId);
+        if (entries == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        List<String> numbers = numbers(question);
+        long expiredBefore = System.currentTimeMillis() - ttlMinutes * 60_000L;
+
+        CachedQuery best = null;
+        float bestSimilarity = (float) similarityThreshold;
+        synchronized (entries) {
+            Iterator<CachedQuery> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                CachedQuery entry = iterator.next();
+                if (entry.createdAtMillis < expiredBefore) {
+                    iterator.remove();
+                    continue;
+                }
+                if (entry.vector.length != questionVector.length || !entry.numbers.equals(numbers)) {
+                    continue;
+                }
+
+                float similarity = VectorMath.dot(entry.vector, 0, questionVector);
+                if (similarity >= bestSimilarity) {
+                    best = entry;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+
+        if (best == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(new Match(best, bestSimilarity));
+    }
+
+    /**
+     * Remember a validated conversion
+     *
+     * @param questionVector Unit-length embedding of the question
+     * @param schemas Schema context the SQL was generated from
+     * @param generation generation() read before the schemas were retrieved;
+     *                   the entry is skipped if the database was invalidated since
+     * @return false if the entry was not cached
+     */
+    public boolean put(Long databaseInfoId, String question, float[] questionVector, String sql,
+                       List<RAGService.SchemaContext> schemas, long generation) {
+        if (!enabled || sql == null || sql.isBlank()) {
+            return false;
+        }
+
+        Deque<CachedQuery> entries = entriesByDatabase.computeIfAbsent(databaseInfoId, id -> new ArrayDeque<>());
+        synchronized (entries) {
+            // invalidate() bumps the generation before dropping the entries, so
+            // a stale put either fails here or lands in a deque that is dropped
+            if (generation(databaseInfoId) != generation) {
+                return false;
+            }
+            entries.addLast(new CachedQuery(question, numbers(question), questionVector, sql, new ArrayList<>(schemas)));
+            while (entries.size() > maxEntriesPerDatabase) {
+                entries.removeFirst();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drop all cached conversions of a database (its schema changed or it was deleted)
+     */
+    public void invalidate(Long databaseInfoId) {
+        if (databaseInfoId == null) {
+            return;
+        }
+        generations.computeIfAbsent(databaseInfoId, id -> new AtomicLong()).incrementAndGet();
+        if (entriesByDatabase.remove(databaseInfoId) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cache statistics
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        int entryCount = 0;
+        for (Deque<CachedQuery> entries : entriesByDatabase.values()) {
+            synchronized (entries) {
+                entryCount += entries.size();
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("similarityThreshold", similarityThreshold);
+        stats.put("ttlMinutes", ttlMinutes);
+        stats.put("databases", entriesByDatabase.size());
+        stats.put("entries", entryCount);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        return stats;
+    }
+
+    private static List<String> numbers(String question) {
+        List<String> numbers = new ArrayList<>();
+        Matcher matcher = NUMBER.matcher(question == null ? "" : question);
+        while (matcher.find()) {
+            numbers.add(matcher.group());
+        }
+        return numbers;
+    }
+
+    /**
+     * A cached conversion
+     */
+    private static class CachedQuery {
+        private final String question;
+        private final List<String> numbers;
+        private final float[] vector;
+        private final String sql;
+        private final List<RAGService.SchemaContext> schemas;
+        private final long createdAtMillis = System.currentTimeMillis();
+
+        private CachedQuery(String question, List<String> numbers, float[] vector, String sql,
+                            List<RAGService.SchemaContext> schemas) {
+            this.question = question;
+            this.numbers = numbers;
+            this.vector = vector;
+            this.sql = sql;
+            this.schemas = schemas;
+        }
+    }
+
+    /**
+     * A cache hit: the cached conversion and how similar its question is
+     */
+    public static class Match {
+        private final CachedQuery entry;
+        private final float similarity;
+
+        private Match(CachedQuery entry, float similarity) {
+            this.entry = entry;
+            this.similarity = similarity;
+        }
+
+        /**
+         * The earlier question this SQL was generated for
+         */
+        public String getCachedQuestion() {
+            return entry.question;
+        }
+
+        public String getSql() {
+            return entry.sql;
+        }
+
+        public List<RAGService.SchemaContext> getSchemas() {
+            return entry.schemas;
+        }
+
+        public float getSimilarity() {
+            return similarity;
+        }
+    }
+}
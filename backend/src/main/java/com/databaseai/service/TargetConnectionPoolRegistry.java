@@ -0,0 +1,226 @@
+package com.databaseai.service;
+
+import com.databaseai.model.DatabaseInfo;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Target Connection Pool Registry
+ *
+ * Keeps one HikariCP pool per registered user database (keyed by DatabaseInfo id).
+ *
+ * Why?
+ * - DriverManager.getConnection() pays TCP + TLS + auth handshakes on every query
+ * - Against a remote database this costs hundreds of milliseconds per request
+ * - A pool keeps a few warm connections around and hands them out instantly
+ *
+ * Behaviour:
+ * - Pools are created lazily on the first query for a database
+ * - Pool size is bounded (query-execution.pool.max-size)
+ * - Idle connections are evicted (minimumIdle = 0 + idleTimeout), so unused
+ *   databases don't keep connections open
+ * - Pools are rebuilt when connection settings change and closed when the
+ *   database registration is deleted
+ */
+@Service
+public class TargetConnectionPoolRegistry {
+
+    @Value("${query-execution.pool.max-size:5}")
+    private int maxPoolSize;
+
+    @Value("${query-execution.pool.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    @Value("${query-execution.pool.max-lifetime-ms:1800000}")
+    private long maxLifetimeMs;
+
+    @Value("${query-execution.pool.connection-timeout-ms:10000}")
+    private long connectionTimeoutMs;
+
+    /**
+     * One pool per DatabaseInfo id
+     */
+    private final Map<Long, PoolEntry> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Borrow a read-only connection from the pool for this database
+     *
+     * The caller MUST close the connection (this returns it to the pool).
+     */
+    public Connection getConnection(DatabaseInfo databaseInfo) throws SQLException {
+        return getDataSource(databaseInfo).getConnection();
+    }
+
+    /**
+     * Get (or lazily create) the pool for a database
+     *
+     * If the connection settings stored in DatabaseInfo no longer match the
+     * ones the pool was built with, the old pool is closed and a new one is created.
+     */
+    public HikariDataSource getDataSource(DatabaseInfo databaseInfo) {
+        String fingerprint = fingerprint(databaseInfo);
+
+        PoolEntry entry = pools.compute(databaseInfo.getId(), (id, existing) -> {
+            if (existing != null && existing.fingerprint.equals(fingerprint) && !existing.dataSource.isClosed()) {
+                return existing;
+            }
+            if (existing != null) {
+                System.out.println("INFO: Connection settings changed for database ID " + id + " - rebuilding pool");
+                existing.dataSource.close();
+            }
+            return new PoolEntry(fingerprint, createDataSource(databaseInfo));
+        });
+
+        return entry.dataSource;
+    }
+
+    /**
+     * Close and remove the pool for a database
+     *
+     * Called when a database registration is updated or deleted.
+     */
+    public void evict(Long databaseInfoId) {
+        PoolEntry entry = pools.remove(databaseInfoId);
+        if (entry != null) {
+            entry.dataSource.close();
+            System.out.println("INFO: Closed connection pool for database ID " + databaseInfoId);
+        }
+    }
+
+    /**
+     * Pool statistics for all open pools
+     *
+     * Example:
+     * {
+     *   "1": {"active": 1, "idle": 2, "total": 3, "waiting": 0, "maxPoolSize": 5}
+     * }
+     */
+    public Map<Long, Map<String, Object>> getPoolStats() {
+        Map<Long, Map<String, Object>> stats = new LinkedHashMap<>();
+
+        pools.forEach((id, entry) -> {
+            Map<String, Object> poolStats = new LinkedHashMap<>();
+            poolStats.put("poolName", entry.dataSource.getPoolName());
+            poolStats.put("maxPoolSize", entry.dataSource.getMaximumPoolSize());
+
+            HikariPoolMXBean mxBean = entry.dataSource.getHikariPoolMXBean();
+            if (mxBean != null) {
+                poolStats.put("active", mxBean.getActiveConnections());
+                poolStats.put("idle", mxBean.getIdleConnections());
+                poolStats.put("total", mxBean.getTotalConnections());
+                poolStats.put("waiting", mxBean.getThreadsAwaitingConnection());
+            }
+
+            stats.put(id, poolStats);
+        });
+
+        return stats;
+    }
+
+    /**
+     * Build a new pool for a database
+     */
+    private HikariDataSource createDataSource(DatabaseInfo databaseInfo) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("target-db-" + databaseInfo.getId());
+        config.setJdbcUrl(buildConnectionUrl(databaseInfo));
+        config.setUsername(databaseInfo.getUsername());
+
+        // Password is optional - some databases (like local PostgreSQL) don't require one
+        String password = databaseInfo.getPassword();
+        if (password != null && !password.isEmpty()) {
+            config.setPassword(password);
+        } else {
+            System.out.println("ERROR: NO PASSWORD PROVIDED for database: " + databaseInfo.getName() + " (ID: " + databaseInfo.getId() + ")");
+            System.out.println("ERROR: This will fail for databases that require authentication (like Render)");
+        }
+
+        // Read-only connections (security!)
+        config.setReadOnly(true);
+
+        // Bounded size + idle eviction
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setMinimumIdle(0);
+        config.setIdleTimeout(idleTimeoutMs);
+        config.setMaxLifetime(maxLifetimeMs);
+        config.setConnectionTimeout(connectionTimeoutMs);
+
+        // Don't try to connect while building the pool - the first query does that,
+        // so a wrong password surfaces as a normal SQLException for that query
+        config.setInitializationFailTimeout(-1);
+
+        String databaseType = databaseInfo.getDatabaseType().toLowerCase();
+        if (databaseType.equals("postgresql") || databaseType.equals("postgres")) {
+            config.addDataSourceProperty("connectTimeout", "10"); // seconds
+        }
+
+        System.out.println("INFO: Creating connection pool for database: " + databaseInfo.getName() + " (ID: " + databaseInfo.getId() + ")");
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Build JDBC connection URL based on database type
+     */
+    private String buildConnectionUrl(DatabaseInfo databaseInfo) {
+        String databaseType = databaseInfo.getDatabaseType().toLowerCase();
+
+        switch (databaseType) {
+            case "postgresql":
+            case "postgres":
+                return String.format("jdbc:postgresql://%s:%d/%s",
+                        databaseInfo.getHost(),
+                        databaseInfo.getPort(),
+                        databaseInfo.getDatabaseName());
+
+            case "mysql":
+                return String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC",
+                        databaseInfo.getHost(),
+                        databaseInfo.getPort(),
+                        databaseInfo.getDatabaseName());
+
+            default:
+                throw new IllegalArgumentException("Unsupported database type: " + databaseType);
+        }
+    }
+
+    /**
+     * Everything that affects how a connection is opened
+     *
+     * The password is hashed so it isn't kept around as plain text in the key.
+     */
+    private String fingerprint(DatabaseInfo databaseInfo) {
+        return buildConnectionUrl(databaseInfo)
+                + "|" + databaseInfo.getUsername()
+                + "|" + Objects.hashCode(databaseInfo.getPassword());
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        pools.values().forEach(entry -> entry.dataSource.close());
+        pools.clear();
+    }
+
+    /**
+     * Pool plus the connection settings it was built with
+     */
+    private static class PoolEntry {
+        private final String fingerprint;
+        private final HikariDataSource dataSource;
+
+        PoolEntry(String fingerprint, HikariDataSource dataSource) {
+            this.fingerprint = fingerprint;
+            this.dataSource = dataSource;
+        }
+    }
+}
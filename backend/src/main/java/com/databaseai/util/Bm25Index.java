@@ -0,0 +1,194 @@
+package com.databaseai.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BM25 Inverted Index
+ *
+ * Keyword search over short documents identified by a long ID
+ * (e.g. schema name + description per SchemaEmbedding row).
+ *
+ * Score of a document for a query (Okapi BM25):
+ *   sum over query terms t of
+ *     idf(t) * tf * (k1 + 1) / (tf + k1 * (1 - b + b * docLength / avgDocLength))
+ *   idf(t) = ln(1 + (N - df + 0.5) / (df + 0.5))
+ *
+ * - Rare terms (an exact table name like "orders_2023") weigh much more
+ *   than common ones ("table", "id")
+ * - Repeating a term helps less and less (k1 saturation)
+ * - Long documents are penalized a bit (b length normalization)
+ *
+ * Terms found in more than MAX_DOCUMENT_FRACTION of the documents are
+ * ignored (once there are MIN_DOCUMENTS_FOR_CUTOFF documents): they match
+ * almost everything, so they only add noise to the ranking.
+ *
+ * Only documents containing at least one query term are scored (posting
+ * lists), so a search costs O(matching postings), not O(documents).
+ *
+ * Thread-safe: searches run concurrently, add/remove take a write lock.
+ *
+ * Usage:
+ *   Bm25Index index = new Bm25Index();
+ *   index.add(42L, List.of("orders", "2023", "orders_2023"));
+ *   int found = index.search(List.of("orders_2023"), 5, ids, scores);
+ */
+public class Bm25Index {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    /**
+     * Query terms in more than this fraction of the documents are skipped
+     */
+    static final double MAX_DOCUMENT_FRACTION = 0.5;
+
+    /**
+     * Below this many documents every term counts (in a tiny index a term
+     * in half of the documents still tells them apart)
+     */
+    static final int MIN_DOCUMENTS_FOR_CUTOFF = 10;
+
+    /**
+     * term → (document ID → term frequency)
+     */
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    /**
+     * document ID → its term frequencies (to remove or replace it)
+     */
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private long totalLength = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add (or replace) a document
+     *
+     * @param terms The document's terms, repeated as often as they occur
+     */
+    public void add(long id, List<String> terms) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            documents.put(id, frequencies);
+            lengths.put(id, terms.size());
+            totalLength += terms.size();
+            frequencies.forEach((term, count) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, count));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long id) {
+        Map<String, Integer> frequencies = documents.remove(id);
+        if (frequencies == null) {
+            return;
+        }
+        totalLength -= lengths.remove(id);
+        for (String term : frequencies.keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the k best-scoring documents for the query terms
+     *
+     * @param outIds Receives the document IDs, best first (length >= k)
+     * @param outScores Receives the BM25 scores (length >= k)
+     * @return Number of results (documents matching at least one term, at most k)
+     */
+    public int search(List<String> queryTerms, int k, long[] outIds, float[] outScores) {
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0 || k <= 0) {
+                return 0;
+            }
+            float averageLength = Math.max(1f, (float) totalLength / documentCount);
+
+            Map<Long, Float> scores = new HashMap<>();
+            for (String term : new LinkedHashSet<>(queryTerms)) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null || isTooCommon(posting.size(), documentCount)) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((id, tf) -> {
+                    float norm = K1 * (1 - B + B * lengths.get(id) / averageLength);
+                    float termScore = (float) (idf * tf * (K1 + 1) / (tf + norm));
+                    scores.merge(id, termScore, Float::sum);
+                });
+            }
+
+            List<Long> ids = new ArrayList<>(scores.keySet());
+            TopKHeap heap = new TopKHeap(Math.min(k, ids.size()));
+            for (int i = 0; i < ids.size(); i++) {
+                heap.offer(i, scores.get(ids.get(i)));
+            }
+
+            int found = heap.size();
+            int[] best = new int[found];
+            heap.sortDescending(best, outScores);
+            for (int i = 0; i < found; i++) {
+                outIds[i] = ids.get(best[i]);
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isTooCommon(int documentFrequency, int documentCount) {
+        return documentCount >= MIN_DOCUMENTS_FOR_CUTOFF
+                && documentFrequency > documentCount * MAX_DOCUMENT_FRACTION;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of distinct terms
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
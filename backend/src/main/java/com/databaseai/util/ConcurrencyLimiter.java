@@ -0,0 +1,94 @@
+package com.databaseai.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency Limiter (bulkhead)
+ * 
+ * Caps how many calls to one external dependency (OpenAI, a user database)
+ * can be in flight at the same time.
+ * 
+ * Why?
+ * - With many request threads (or virtual threads) nothing else stops us from
+ *   opening hundreds of concurrent calls to the same database or API
+ * - Callers beyond the limit wait (up to a timeout) instead of overwhelming
+ *   the dependency
+ * 
+ * Usage:
+ *   try (ConcurrencyLimiter.Permit permit = limiter.acquire()) {
+ *       // call the dependency
+ *   }
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMs;
+    private final Semaphore semaphore;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConcurrencyLimiter(String name, int maxConcurrent, long acquireTimeoutMs) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.semaphore = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Wait for a free slot (up to the acquire timeout)
+     * 
+     * @throws IllegalStateException if no slot became free in time
+     */
+    public Permit acquire() {
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new IllegalStateException("Too many concurrent requests to " + name
+                        + " (limit " + maxConcurrent + "). Please try again later.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        }
+        acquired.incrementAndGet();
+        return new Permit();
+    }
+
+    /**
+     * Limiter statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inFlight", maxConcurrent - semaphore.availablePermits());
+        stats.put("waiting", semaphore.getQueueLength());
+        stats.put("acquired", acquired.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Released when closed (use with try-with-resources)
+     */
+    public class Permit implements AutoCloseable {
+        private boolean released;
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                semaphore.release();
+            }
+        }
+    }
+}
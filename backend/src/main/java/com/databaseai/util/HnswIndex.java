@@ -0,0 +1,772 @@
+package com.databaseai.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HNSW Index (Hierarchical Navigable Small World graph)
+ *
+ * Approximate nearest-neighbour search over unit-length float vectors
+ * (similarity = dot product = cosine similarity).
+ *
+ * How it works (Malkov & Yashunin):
+ * - Every vector is a node in a layered graph; layer 0 has all nodes,
+ *   each higher layer has exponentially fewer
+ * - Each node links to its M closest neighbours on every layer it is on
+ *   (2 * M on layer 0)
+ * - A search greedily walks down from the top layer, then explores the
+ *   efSearch best candidates on layer 0
+ *
+ * So a search visits roughly O(log n) nodes instead of all n.
+ *
+ * Parameters:
+ * - m: links per node (more = better recall, more memory)
+ * - efConstruction: candidate list size while inserting (more = better graph, slower inserts)
+ * - efSearch: candidate list size while searching (more = better recall, slower searches)
+ *
+ * Vectors are kept in one contiguous float[] (node i at i * dimension).
+ * Deletes are "soft": the node stays in the graph as a connector but is never returned.
+ * Once soft-deleted nodes make up more than maxDeletedFraction of the graph
+ * (re-indexed schemas, dropped tables), the graph is rebuilt from the live
+ * vectors so dead nodes don't pile up in memory and slow down searches.
+ *
+ * Thread safety: searches run in parallel (read lock), inserts/deletes are exclusive (write lock).
+ */
+public class HnswIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357; // "HNSW"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int dimension;
+    private final int m;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    /**
+     * Rebuild the graph once this fraction of its nodes is soft-deleted (1 = never)
+     */
+    private volatile double maxDeletedFraction = 0.2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private float[] vectors;
+    private long[] externalIds;
+    private int[] levels;
+
+    /**
+     * links[node][layer] = neighbour node ids; links[node][layer][0] is the count
+     */
+    private int[][][] links;
+
+    private final BitSet deleted = new BitSet();
+    private final Map<Long, Integer> nodeByExternalId = new HashMap<>();
+
+    private int nodeCount = 0;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimension, int m, int efConstruction) {
+        this(dimension, m, efConstruction, 16);
+    }
+
+    private HnswIndex(int dimension, int m, int efConstruction, int initialCapacity) {
+        this.dimension = dimension;
+        this.m = Math.max(2, m);
+        this.maxLinksLayer0 = this.m * 2;
+        this.efConstruction = Math.max(efConstruction, this.m);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+
+        this.vectors = new float[initialCapacity * dimension];
+        this.externalIds = new long[initialCapacity];
+        this.levels = new int[initialCapacity];
+        this.links = new int[initialCapacity][][];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Number of searchable (not deleted) vectors
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByExternalId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of graph nodes, including soft-deleted ones
+     */
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getMaxDeletedFraction() {
+        return maxDeletedFraction;
+    }
+
+    public void setMaxDeletedFraction(double maxDeletedFraction) {
+        this.maxDeletedFraction = maxDeletedFraction;
+    }
+
+    public boolean contains(long externalId) {
+        lock.readLock().lock();
+        try {
+            return nodeByExternalId.containsKey(externalId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * External IDs of all searchable vectors
+     */
+    public long[] externalIds() {
+        lock.readLock().lock();
+        try {
+            return nodeByExternalId.keySet().stream().mapToLong(Long::longValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memory used by vectors and links (approximate)
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) vectors.length * Float.BYTES + (long) externalIds.length * Long.BYTES;
+            for (int node = 0; node < nodeCount; node++) {
+                for (int[] layer : links[node]) {
+                    bytes += (long) layer.length * Integer.BYTES;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Insert a vector (replaces the existing vector with the same external ID)
+     *
+     * @param vector Unit-length vector (length = dimension)
+     */
+    public void add(long externalId, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vectors must have same dimension");
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeByExternalId.remove(externalId);
+            if (existing != null) {
+                deleted.set(existing);
+            }
+
+            int node = allocateNode(externalId, vector, randomLevel());
+            nodeByExternalId.put(externalId, node);
+            connect(node);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a vector (soft delete - it stays in the graph but is never returned)
+     */
+    public boolean remove(long externalId) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByExternalId.remove(externalId);
+            if (node == null) {
+                return false;
+            }
+            deleted.set(node);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate top-K search
+     *
+     * @param query Unit-length query vector
+     * @param k Number of results
+     * @param efSearch Candidate list size (raised to k if smaller)
+     * @param outIds External IDs of the results, best first
+     * @param outScores Similarities of the results, best first
+     * @return Number of results written
+     */
+    public int search(float[] query, int k, int efSearch, long[] outIds, float[] outScores) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Vectors must have same dimension");
+        }
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return 0;
+            }
+
+            int current = entryPoint;
+            float currentScore = score(query, current);
+            for (int layer = maxLevel; layer > 0; layer--) {
+                int[] greedy = greedyClosest(query, current, currentScore, layer);
+                current = greedy[0];
+                currentScore = Float.intBitsToFloat(greedy[1]);
+            }
+
+            TopKHeap results = searchLayer(query, current, Math.max(efSearch, k), 0, true);
+            return copyTopK(results, k, outIds, outScores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exact top-K search (scans every vector)
+     *
+     * Used for small indexes (where a scan is cheap and exact) and as the
+     * ground truth when measuring recall.
+     */
+    public int exactSearch(float[] query, int k, long[] outIds, float[] outScores) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Vectors must have same dimension");
+        }
+
+        lock.readLock().lock();
+        try {
+            TopKHeap heap = new TopKHeap(Math.min(k, nodeByExternalId.size()));
+            for (int node = 0, offset = 0; node < nodeCount; node++, offset += dimension) {
+                if (!deleted.get(node)) {
+                    heap.offer(node, VectorMath.dot(vectors, offset, query));
+                }
+            }
+            return copyTopK(heap, k, outIds, outScores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy of a stored vector (null if the ID isn't indexed)
+     */
+    public float[] getVector(long externalId) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeByExternalId.get(externalId);
+            if (node == null) {
+                return null;
+            }
+            return Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Snapshot (save / load)
+    // ------------------------------------------------------------------
+
+    /**
+     * Write the whole index (vectors + graph) so it can be loaded without rebuilding
+     *
+     * Soft-deleted nodes are written too, so the graph stays intact.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(dimension);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(nodeCount);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+
+            for (int node = 0; node < nodeCount; node++) {
+                out.writeLong(externalIds[node]);
+                out.writeBoolean(deleted.get(node));
+                out.writeInt(levels[node]);
+
+                int offset = node * dimension;
+                for (int i = 0; i < dimension; i++) {
+                    out.writeFloat(vectors[offset + i]);
+                }
+
+                for (int layer = 0; layer <= levels[node]; layer++) {
+                    int[] layerLinks = links[node][layer];
+                    int count = layerLinks[0];
+                    out.writeInt(count);
+                    for (int i = 1; i <= count; i++) {
+                        out.writeInt(layerLinks[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read an index written by writeTo()
+     *
+     * @throws IOException if the data isn't a valid snapshot
+     */
+    public static HnswIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not an HNSW snapshot");
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported HNSW snapshot version: " + version);
+        }
+
+        int dimension = in.readInt();
+        int m = in.readInt();
+        int efConstruction = in.readInt();
+        int nodeCount = in.readInt();
+
+        HnswIndex index = new HnswIndex(dimension, m, efConstruction, Math.max(nodeCount, 16));
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        index.nodeCount = nodeCount;
+
+        for (int node = 0; node < nodeCount; node++) {
+            long externalId = in.readLong();
+            boolean isDeleted = in.readBoolean();
+            int level = in.readInt();
+
+            index.externalIds[node] = externalId;
+            index.levels[node] = level;
+            if (isDeleted) {
+                index.deleted.set(node);
+            } else {
+                index.nodeByExternalId.put(externalId, node);
+            }
+
+            int offset = node * dimension;
+            for (int i = 0; i < dimension; i++) {
+                index.vectors[offset + i] = in.readFloat();
+            }
+
+            index.links[node] = new int[level + 1][];
+            for (int layer = 0; layer <= level; layer++) {
+                int count = in.readInt();
+                int[] layerLinks = new int[index.maxLinks(layer) + 1];
+                if (count > layerLinks.length - 1) {
+                    throw new IOException("Corrupt HNSW snapshot (too many links)");
+                }
+                layerLinks[0] = count;
+                for (int i = 1; i <= count; i++) {
+                    layerLinks[i] = in.readInt();
+                }
+                index.links[node][layer] = layerLinks;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Rebuild the graph from the live vectors, dropping soft-deleted nodes
+     *
+     * Runs under the write lock, so searches wait for it (O(n log n) inserts).
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            rebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Graph construction
+    // ------------------------------------------------------------------
+
+    private void compactIfNeeded() {
+        int deletedCount = deleted.cardinality();
+        if (deletedCount > 0 && maxDeletedFraction < 1.0 && deletedCount > nodeCount * maxDeletedFraction) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Re-insert every live node into an empty graph (caller holds the write lock)
+     */
+    private void rebuild() {
+        float[] oldVectors = vectors;
+        long[] oldExternalIds = externalIds;
+        BitSet oldDeleted = (BitSet) deleted.clone();
+        int oldNodeCount = nodeCount;
+
+        int capacity = Math.max(nodeByExternalId.size(), 16);
+        vectors = new float[capacity * dimension];
+        externalIds = new long[capacity];
+        levels = new int[capacity];
+        links = new int[capacity][][];
+        deleted.clear();
+        nodeByExternalId.clear();
+        nodeCount = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+
+        float[] vector = new float[dimension];
+        for (int oldNode = 0; oldNode < oldNodeCount; oldNode++) {
+            if (oldDeleted.get(oldNode)) {
+                continue;
+            }
+            System.arraycopy(oldVectors, oldNode * dimension, vector, 0, dimension);
+            int node = allocateNode(oldExternalIds[oldNode], vector, randomLevel());
+            nodeByExternalId.put(oldExternalIds[oldNode], node);
+            connect(node);
+        }
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int maxLinks(int layer) {
+        return layer == 0 ? maxLinksLayer0 : m;
+    }
+
+    private int allocateNode(long externalId, float[] vector, int level) {
+        if (nodeCount == externalIds.length) {
+            int capacity = externalIds.length * 2;
+            vectors = Arrays.copyOf(vectors, capacity * dimension);
+            externalIds = Arrays.copyOf(externalIds, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+
+        int node = nodeCount++;
+        System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+        externalIds[node] = externalId;
+        levels[node] = level;
+
+        links[node] = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            links[node][layer] = new int[maxLinks(layer) + 1];
+        }
+        return node;
+    }
+
+    /**
+     * Link a freshly allocated node into the graph
+     */
+    private void connect(int node) {
+        int level = levels[node];
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+
+        // Greedy descent through the layers above the new node's level
+        int current = entryPoint;
+        float currentScore = score(query, current);
+        for (int layer = maxLevel; layer > level; layer--) {
+            int[] greedy = greedyClosest(query, current, currentScore, layer);
+            current = greedy[0];
+            currentScore = Float.intBitsToFloat(greedy[1]);
+        }
+
+        // On every layer the node lives on: find candidates, pick neighbours, link both ways
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            TopKHeap candidates = searchLayer(query, current, efConstruction, layer, false);
+
+            int[] candidateNodes = new int[candidates.size()];
+            float[] candidateScores = new float[candidates.size()];
+            candidates.sortDescending(candidateNodes, candidateScores);
+
+            int[] neighbours = selectNeighbours(candidateNodes, candidateScores, m);
+            int[] nodeLinks = links[node][layer];
+            for (int neighbour : neighbours) {
+                nodeLinks[++nodeLinks[0]] = neighbour;
+                addLink(neighbour, node, layer);
+            }
+
+            if (candidateNodes.length > 0) {
+                current = candidateNodes[0];
+            }
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Neighbour selection heuristic
+     *
+     * Keep a candidate only if it is closer to the new node than to every
+     * neighbour already picked - this spreads links in different directions
+     * and keeps the graph navigable.
+     *
+     * @param candidates Candidate nodes, most similar first
+     */
+    private int[] selectNeighbours(int[] candidates, float[] scores, int maxCount) {
+        int[] selected = new int[Math.min(maxCount, candidates.length)];
+        int count = 0;
+
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            int candidate = candidates[i];
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (similarity(candidate, selected[j]) > scores[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate;
+            }
+        }
+
+        // Fill remaining slots with the closest skipped candidates
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            if (!containsNode(selected, count, candidates[i])) {
+                selected[count++] = candidates[i];
+            }
+        }
+
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Add a link from -> to; if "from" is full, keep only its most similar links
+     */
+    private void addLink(int from, int to, int layer) {
+        int[] fromLinks = links[from][layer];
+        int count = fromLinks[0];
+
+        if (count < fromLinks.length - 1) {
+            fromLinks[count + 1] = to;
+            fromLinks[0] = count + 1;
+            return;
+        }
+
+        // Full: rank existing links + the new one by similarity to "from", keep the best
+        TopKHeap best = new TopKHeap(fromLinks.length - 1);
+        for (int i = 1; i <= count; i++) {
+            best.offer(fromLinks[i], similarity(from, fromLinks[i]));
+        }
+        best.offer(to, similarity(from, to));
+
+        int[] keptNodes = new int[best.size()];
+        best.sortDescending(keptNodes, new float[best.size()]);
+        fromLinks[0] = keptNodes.length;
+        System.arraycopy(keptNodes, 0, fromLinks, 1, keptNodes.length);
+    }
+
+    // ------------------------------------------------------------------
+    // Search helpers
+    // ------------------------------------------------------------------
+
+    /**
+     * Walk to the most similar neighbour until no neighbour is better (ef = 1 search)
+     *
+     * @return {node, Float.floatToIntBits(score)}
+     */
+    private int[] greedyClosest(float[] query, int start, float startScore, int layer) {
+        int current = start;
+        float currentScore = startScore;
+
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] currentLinks = links[current][layer];
+            for (int i = 1; i <= currentLinks[0]; i++) {
+                int neighbour = currentLinks[i];
+                float neighbourScore = score(query, neighbour);
+                if (neighbourScore > currentScore) {
+                    current = neighbour;
+                    currentScore = neighbourScore;
+                    improved = true;
+                }
+            }
+        }
+        return new int[]{current, Float.floatToIntBits(currentScore)};
+    }
+
+    /**
+     * Best-first search on one layer
+     *
+     * @param skipDeleted Leave soft-deleted nodes out of the results (they are still traversed)
+     * @return Up to ef best nodes
+     */
+    private TopKHeap searchLayer(float[] query, int start, int ef, int layer, boolean skipDeleted) {
+        BitSet visited = new BitSet(nodeCount);
+        CandidateQueue candidates = new CandidateQueue(ef * 2);
+        TopKHeap results = new TopKHeap(ef);
+
+        float startScore = score(query, start);
+        visited.set(start);
+        candidates.push(start, startScore);
+        if (!skipDeleted || !deleted.get(start)) {
+            results.offer(start, startScore);
+        }
+
+        while (!candidates.isEmpty()) {
+            float candidateScore = candidates.peekScore();
+            if (results.isFull() && candidateScore < results.minScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+
+            int[] candidateLinks = links[candidate][layer];
+            for (int i = 1; i <= candidateLinks[0]; i++) {
+                int neighbour = candidateLinks[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float neighbourScore = score(query, neighbour);
+                if (!results.isFull() || neighbourScore > results.minScore()) {
+                    candidates.push(neighbour, neighbourScore);
+                    if (!skipDeleted || !deleted.get(neighbour)) {
+                        results.offer(neighbour, neighbourScore);
+                    }
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private int copyTopK(TopKHeap heap, int k, long[] outIds, float[] outScores) {
+        int[] nodes = new int[heap.size()];
+        float[] scores = new float[heap.size()];
+        heap.sortDescending(nodes, scores);
+
+        int count = Math.min(Math.min(k, nodes.length), Math.min(outIds.length, outScores.length));
+        for (int i = 0; i < count; i++) {
+            outIds[i] = externalIds[nodes[i]];
+            outScores[i] = scores[i];
+        }
+        return count;
+    }
+
+    private float score(float[] query, int node) {
+        return VectorMath.dot(vectors, node * dimension, query);
+    }
+
+    private float similarity(int nodeA, int nodeB) {
+        return VectorMath.dot(vectors, nodeA * dimension, vectors, nodeB * dimension, dimension);
+    }
+
+    private static boolean containsNode(int[] nodes, int count, int node) {
+        for (int i = 0; i < count; i++) {
+            if (nodes[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Max-heap of (node, score) on primitive arrays - best candidate first
+     */
+    private static class CandidateQueue {
+        private int[] nodes;
+        private float[] scores;
+        private int size = 0;
+
+        CandidateQueue(int initialCapacity) {
+            this.nodes = new int[Math.max(initialCapacity, 16)];
+            this.scores = new float[nodes.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        void push(int node, float score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int position = size++;
+            nodes[position] = node;
+            scores[position] = score;
+
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (scores[parent] >= scores[position]) {
+                    break;
+                }
+                swap(position, parent);
+                position = parent;
+            }
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            nodes[0] = nodes[size];
+            scores[0] = scores[size];
+
+            int position = 0;
+            while (true) {
+                int left = 2 * position + 1;
+                if (left >= size) {
+                    break;
+                }
+                int right = left + 1;
+                int largest = (right < size && scores[right] > scores[left]) ? right : left;
+                if (scores[position] >= scores[largest]) {
+                    break;
+                }
+                swap(position, largest);
+                position = largest;
+            }
+            return top;
+        }
+
+        private void swap(int a, int b) {
+            int node = nodes[a];
+            nodes[a] = nodes[b];
+            nodes[b] = node;
+
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.databaseai.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Micro-Batcher
+ *
+ * Collects single items submitted by concurrent callers and processes them
+ * together in one batch call, e.g. many single-text embedding requests
+ * → one OpenAI request with an array of texts.
+ *
+ * A batch is sent when either:
+ * - maxBatchSize items are waiting, or
+ * - the waiting items weigh maxBatchWeight (e.g. tokens; an item that would
+ *   go over it starts the next batch), or
+ * - maxWaitMs has passed since the first waiting item arrived
+ *
+ * Each caller gets a future for its own result (result i of the batch
+ * belongs to item i). If the batch call fails, every caller in that batch
+ * gets the same exception - unless retryItemsSeparately accepts the error
+ * (e.g. one invalid input rejected the whole request): then each item is
+ * sent on its own, so only the bad item fails.
+ *
+ * The batch function is asynchronous (returns a CompletionStage), so a
+ * non-blocking call (e.g. WebClient → Mono.toFuture()) doesn't hold a
+ * thread while the batch is in flight.
+ *
+ * Usage:
+ *   MicroBatcher<String, Vector> batcher = new MicroBatcher<>("embeddings", 64, 10, texts -> embedAll(texts).toFuture(), threadFactory);
+ *   Vector v = batcher.submit("text").join();
+ */
+public class MicroBatcher<T, R> {
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxWaitMs;
+    private final Function<List<T>, CompletionStage<List<R>>> batchFunction;
+    private final ToLongFunction<T> weigher;
+    private final long maxBatchWeight;
+    private final Predicate<Throwable> retryItemsSeparately;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private Batch<T, R> pending = new Batch<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong flushedBySize = new AtomicLong();
+    private final AtomicLong flushedByWeight = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong batchesRetriedSeparately = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    /**
+     * @param maxBatchSize Send as soon as this many items are waiting
+     * @param maxWaitMs Send at the latest this long after the first item arrived
+     * @param batchFunction Starts processing a batch; must complete with one result per item, in order
+     * @param threadFactory Threads that start the batch calls
+     */
+    public MicroBatcher(String name, int maxBatchSize, long maxWaitMs,
+                        Function<List<T>, CompletionStage<List<R>>> batchFunction,
+                        ThreadFactory threadFactory) {
+        this(name, maxBatchSize, maxWaitMs, item -> 0, Long.MAX_VALUE, batchFunction, error -> false, threadFactory);
+    }
+
+    /**
+     * @param weigher Weight of an item (e.g. its token count)
+     * @param maxBatchWeight Most weight per batch (a heavier single item is sent alone)
+     * @param retryItemsSeparately Errors after which the batch's items are retried one by one
+     *                             (errors caused by one item, not by the service)
+     */
+    public MicroBatcher(String name, int maxBatchSize, long maxWaitMs,
+                        ToLongFunction<T> weigher, long maxBatchWeight,
+                        Function<List<T>, CompletionStage<List<R>>> batchFunction,
+                        Predicate<Throwable> retryItemsSeparately,
+                        ThreadFactory threadFactory) {
+        this.name = name;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.weigher = weigher;
+        this.maxBatchWeight = Math.max(1, maxBatchWeight);
+        this.batchFunction = batchFunction;
+        this.retryItemsSeparately = retryItemsSeparately;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Add an item to the next batch
+     *
+     * @return Future completed with this item's result (or the batch's exception)
+     */
+    public CompletableFuture<R> submit(T item) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        submitted.incrementAndGet();
+        long weight = weigher.applyAsLong(item);
+
+        List<Batch<T, R>> ready = new ArrayList<>(2);
+
+        synchronized (lock) {
+            if (!pending.items.isEmpty() && pending.weight + weight > maxBatchWeight) {
+                // This item would make the waiting batch too heavy: send that one first
+                ready.add(takePending());
+                flushedByWeight.incrementAndGet();
+            }
+
+            pending.items.add(item);
+            pending.futures.add(future);
+            pending.weight += weight;
+
+            if (pending.items.size() >= maxBatchSize) {
+                ready.add(takePending());
+                flushedBySize.incrementAndGet();
+            } else if (pending.weight >= maxBatchWeight) {
+                ready.add(takePending());
+                flushedByWeight.incrementAndGet();
+            } else if (pending.items.size() == 1) {
+                scheduledFlush = timer.schedule(this::flush, maxWaitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        ready.forEach(this::dispatch);
+        return future;
+    }
+
+    /**
+     * Send whatever is waiting (called by the timer)
+     */
+    private void flush() {
+        Batch<T, R> ready;
+
+        synchronized (lock) {
+            if (pending.items.isEmpty()) {
+                scheduledFlush = null;
+                return;
+            }
+            ready = takePending();
+        }
+
+        dispatch(ready);
+    }
+
+    /**
+     * The waiting batch (caller holds the lock); a new one starts empty
+     */
+    private Batch<T, R> takePending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        Batch<T, R> batch = pending;
+        pending = new Batch<>();
+        return batch;
+    }
+
+    private void dispatch(Batch<T, R> batch) {
+        batches.incrementAndGet();
+        largestBatch.accumulateAndGet(batch.items.size(), Math::max);
+
+        try {
+            dispatcher.execute(() -> runBatch(batch.items, batch.futures, true));
+        } catch (RuntimeException e) {
+            // Dispatcher shut down
+            batch.futures.forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void runBatch(List<T> items, List<CompletableFuture<R>> futures, boolean mayRetrySeparately) {
+        try {
+            batchFunction.apply(items).whenComplete((results, error) -> {
+                if (error == null && (results == null || results.size() != items.size())) {
+                    error = new IllegalStateException(name + " batch returned "
+                            + (results == null ? 0 : results.size()) + " results for " + items.size() + " items");
+                }
+                if (error != null) {
+                    failOrRetry(items, futures, error, mayRetrySeparately);
+                    return;
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    futures.get(i).complete(results.get(i));
+                }
+            });
+        } catch (Throwable e) {
+            failOrRetry(items, futures, e, mayRetrySeparately);
+        }
+    }
+
+    private void failOrRetry(List<T> items, List<CompletableFuture<R>> futures, Throwable error,
+                             boolean mayRetrySeparately) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        failedBatches.incrementAndGet();
+
+        if (mayRetrySeparately && items.size() > 1 && retryItemsSeparately.test(cause)) {
+            // One item may have failed the whole batch: the others shouldn't fail with it
+            batchesRetriedSeparately.incrementAndGet();
+            for (int i = 0; i < items.size(); i++) {
+                runBatch(List.of(items.get(i)), List.of(futures.get(i)), false);
+            }
+            return;
+        }
+        futures.forEach(future -> future.completeExceptionally(cause));
+    }
+
+    /**
+     * Batcher statistics
+     */
+    public Map<String, Object> getStats() {
+        long batchCount = batches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("maxWaitMs", maxWaitMs);
+        stats.put("submitted", submitted.get());
+        stats.put("batches", batchCount);
+        stats.put("flushedBySize", flushedBySize.get());
+        stats.put("flushedByWeight", flushedByWeight.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("batchesRetriedSeparately", batchesRetriedSeparately.get());
+        stats.put("largestBatch", largestBatch.get());
+        stats.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) submitted.get() / batchCount);
+        synchronized (lock) {
+            stats.put("waiting", pending.items.size());
+        }
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Send what is still waiting, then stop the timer and dispatcher threads
+     */
+    public void shutdown() {
+        flush();
+        timer.shutdownNow();
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Items waiting to be sent together
+     */
+    private static class Batch<T, R> {
+        private final List<T> items = new ArrayList<>();
+        private final List<CompletableFuture<R>> futures = new ArrayList<>();
+        private long weight;
+    }
+}
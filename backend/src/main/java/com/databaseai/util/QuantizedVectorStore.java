@@ -0,0 +1,267 @@
+package com.databaseai.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Quantized Vector Store
+ *
+ * Compact in-memory copies of unit-length embeddings, used to pick search
+ * candidates cheaply. Final scores come from the full-precision vectors
+ * (re-ranking), which don't have to stay in memory.
+ *
+ * Representations (1536 dimensions):
+ * - float32: 6144 bytes per vector
+ * - int8 (scalar quantization): 1536 bytes + one float scale per vector
+ *   value ≈ code * scale, code in [-127, 127], scale = max|value| / 127
+ * - 1-bit (sign quantization, optional): 192 bytes per vector
+ *   bit i = 1 if value i >= 0; similarity ≈ fewer differing bits (Hamming distance)
+ *
+ * Candidate search:
+ * 1. (optional) Hamming distance on sign bits → best (count * binaryOversample) vectors
+ * 2. int8 dot product on those → best count vectors
+ *
+ * Thread safety: searches run in parallel (read lock), adds/removes are exclusive (write lock).
+ */
+public class QuantizedVectorStore {
+
+    private final int dimension;
+    private final int words;
+    private final boolean binaryEnabled;
+    private final int binaryOversample;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[16];
+    private byte[] codes;
+    private float[] scales = new float[16];
+    private long[] signBits;
+    private int size = 0;
+
+    private final Map<Long, Integer> positionById = new HashMap<>();
+
+    /**
+     * @param binaryEnabled Also keep 1-bit codes and prefilter by Hamming distance
+     * @param binaryOversample How many more vectors the Hamming pass keeps than the int8 pass
+     */
+    public QuantizedVectorStore(int dimension, boolean binaryEnabled, int binaryOversample) {
+        this.dimension = dimension;
+        this.words = (dimension + 63) / 64;
+        this.binaryEnabled = binaryEnabled;
+        this.binaryOversample = Math.max(1, binaryOversample);
+        this.codes = new byte[16 * dimension];
+        this.signBits = binaryEnabled ? new long[16 * words] : new long[0];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public boolean isBinaryEnabled() {
+        return binaryEnabled;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memory used by codes, scales, sign bits and ids
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return codes.length + (long) scales.length * Float.BYTES
+                    + (long) signBits.length * Long.BYTES + (long) ids.length * Long.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add (or replace) a vector
+     *
+     * @param vector Unit-length vector (length = dimension)
+     */
+    public void add(long id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vectors must have same dimension");
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer position = positionById.get(id);
+            if (position == null) {
+                ensureCapacity(size + 1);
+                position = size++;
+                positionById.put(id, position);
+            }
+
+            ids[position] = id;
+            scales[position] = quantize(vector, codes, position * dimension);
+            if (binaryEnabled) {
+                signBits(vector, signBits, position * words);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a vector (the last vector is moved into its slot)
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer position = positionById.remove(id);
+            if (position == null) {
+                return false;
+            }
+
+            int last = --size;
+            if (position != last) {
+                ids[position] = ids[last];
+                scales[position] = scales[last];
+                System.arraycopy(codes, last * dimension, codes, position * dimension, dimension);
+                if (binaryEnabled) {
+                    System.arraycopy(signBits, last * words, signBits, position * words, words);
+                }
+                positionById.put(ids[position], position);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pick the best candidates by quantized similarity
+     *
+     * @param query Unit-length query vector
+     * @param count Number of candidates to return
+     * @param outIds Candidate IDs, best (approximate) first
+     * @param outScores Approximate similarities (int8 dot product)
+     * @return Number of candidates written
+     */
+    public int candidates(float[] query, int count, long[] outIds, float[] outScores) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Vectors must have same dimension");
+        }
+
+        byte[] queryCodes = new byte[dimension];
+        float queryScale = quantize(query, queryCodes, 0);
+
+        lock.readLock().lock();
+        try {
+            TopKHeap best = new TopKHeap(Math.min(count, size));
+
+            if (binaryEnabled && (long) count * binaryOversample < size) {
+                // Pass 1: Hamming distance on sign bits (XOR + popcount, 64 dimensions per instruction)
+                long[] queryBits = new long[words];
+                signBits(query, queryBits, 0);
+
+                TopKHeap prefiltered = new TopKHeap(count * binaryOversample);
+                for (int position = 0; position < size; position++) {
+                    prefiltered.offer(position, -hamming(queryBits, position * words));
+                }
+
+                int[] positions = new int[prefiltered.size()];
+                prefiltered.sortDescending(positions, new float[positions.length]);
+
+                // Pass 2: int8 dot product on the survivors
+                for (int position : positions) {
+                    best.offer(position, int8Dot(queryCodes, position) * queryScale * scales[position]);
+                }
+            } else {
+                for (int position = 0; position < size; position++) {
+                    best.offer(position, int8Dot(queryCodes, position) * queryScale * scales[position]);
+                }
+            }
+
+            int[] positions = new int[best.size()];
+            float[] scores = new float[best.size()];
+            best.sortDescending(positions, scores);
+
+            int written = Math.min(positions.length, Math.min(outIds.length, outScores.length));
+            for (int i = 0; i < written; i++) {
+                outIds[i] = ids[positions[i]];
+                outScores[i] = scores[i];
+            }
+            return written;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int int8Dot(byte[] queryCodes, int position) {
+        int offset = position * dimension;
+        int sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += queryCodes[i] * codes[offset + i];
+        }
+        return sum;
+    }
+
+    private int hamming(long[] queryBits, int offset) {
+        int distance = 0;
+        for (int w = 0; w < words; w++) {
+            distance += Long.bitCount(queryBits[w] ^ signBits[offset + w]);
+        }
+        return distance;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        scales = Arrays.copyOf(scales, newCapacity);
+        codes = Arrays.copyOf(codes, newCapacity * dimension);
+        if (binaryEnabled) {
+            signBits = Arrays.copyOf(signBits, newCapacity * words);
+        }
+    }
+
+    /**
+     * int8 scalar quantization: code = round(value / scale), scale = max|value| / 127
+     *
+     * @return scale
+     */
+    private static float quantize(float[] vector, byte[] out, int offset) {
+        float maxAbs = 0f;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        if (maxAbs == 0f) {
+            Arrays.fill(out, offset, offset + vector.length, (byte) 0);
+            return 0f;
+        }
+
+        float scale = maxAbs / 127f;
+        for (int i = 0; i < vector.length; i++) {
+            out[offset + i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    /**
+     * 1-bit sign quantization: bit i = 1 if value i >= 0
+     */
+    private static void signBits(float[] vector, long[] out, int offset) {
+        int wordCount = (vector.length + 63) / 64;
+        Arrays.fill(out, offset, offset + wordCount, 0L);
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] >= 0f) {
+                out[offset + (i >>> 6)] |= 1L << (i & 63);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.databaseai.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token Bucket Rate Limiter (requests per minute + tokens per minute)
+ *
+ * Client-side copy of an API's rate limits (e.g. OpenAI's RPM and TPM), so
+ * we spread calls over the minute instead of sending them until the API
+ * answers 429.
+ *
+ * How it works:
+ * - Two buckets refill continuously: limit / 60s requests and tokens
+ * - reserve(tokens) takes 1 request + the estimated tokens and returns how
+ *   long the caller must wait before sending. Buckets may go negative, so
+ *   callers queue up in arrival order, each one a bit later than the
+ *   previous one (no thundering herd when the bucket refills)
+ * - If the wait would exceed maxWaitMs the call is rejected right away,
+ *   without taking anything (a queue with a deadline)
+ * - sync() corrects a bucket from what the API reports (limit, remaining,
+ *   time until reset), so the client view follows the real account limit
+ * - pause() stops all reservations until a time (Retry-After of a 429)
+ *
+ * Usage:
+ *   long waitMs = limiter.reserve(estimatedTokens);
+ *   Thread.sleep(waitMs); // or Mono.delay(...)
+ *   // call the API
+ */
+public class TokenBucketRateLimiter {
+
+    private final String name;
+    private final long maxWaitMs;
+
+    private final Bucket requests;
+    private final Bucket tokens;
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+
+    /**
+     * @param requestsPerMinute Initial request limit (until the API reports its own)
+     * @param tokensPerMinute Initial token limit (until the API reports its own)
+     * @param maxWaitMs Longest a caller may be queued before it is rejected
+     */
+    public TokenBucketRateLimiter(String name, long requestsPerMinute, long tokensPerMinute, long maxWaitMs) {
+        this.name = name;
+        this.maxWaitMs = maxWaitMs;
+        this.requests = new Bucket(requestsPerMinute);
+        this.tokens = new Bucket(tokensPerMinute);
+    }
+
+    /**
+     * Reserve one request and the given number of tokens
+     *
+     * @return Milliseconds to wait before sending the request (0 = send now)
+     * @throws IllegalStateException if the wait would be longer than maxWaitMs
+     */
+    public synchronized long reserve(long tokenCount) {
+        long now = System.currentTimeMillis();
+        requests.refill(now);
+        tokens.refill(now);
+
+        long waitMs = Math.max(requests.waitFor(1, now), tokens.waitFor(tokenCount, now));
+        if (waitMs > maxWaitMs) {
+            rejected.incrementAndGet();
+            throw new IllegalStateException("Rate limit for " + name + " reached (next slot in "
+                    + waitMs + " ms). Please try again later.");
+        }
+
+        requests.take(1);
+        tokens.take(tokenCount);
+        reserved.incrementAndGet();
+        if (waitMs > 0) {
+            delayed.incrementAndGet();
+        }
+        return waitMs;
+    }
+
+    /**
+     * Correct the request bucket from the API's rate limit headers
+     *
+     * @param limit Requests per minute (null = unchanged)
+     * @param remaining Requests left in the current window (null = unknown)
+     */
+    public synchronized void syncRequests(Long limit, Long remaining) {
+        requests.sync(limit, remaining, System.currentTimeMillis());
+    }
+
+    /**
+     * Correct the token bucket from the API's rate limit headers
+     *
+     * @param limit Tokens per minute (null = unchanged)
+     * @param remaining Tokens left in the current window (null = unknown)
+     */
+    public synchronized void syncTokens(Long limit, Long remaining) {
+        tokens.sync(limit, remaining, System.currentTimeMillis());
+    }
+
+    /**
+     * Stop handing out capacity for the given time (the API said "retry after")
+     */
+    public synchronized void pause(long durationMs) {
+        if (durationMs <= 0) {
+            return;
+        }
+        long until = System.currentTimeMillis() + durationMs;
+        requests.pauseUntil(until);
+        tokens.pauseUntil(until);
+        pauses.incrementAndGet();
+    }
+
+    /**
+     * Limiter statistics
+     */
+    public synchronized Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        requests.refill(now);
+        tokens.refill(now);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requestsPerMinute", requests.limitPerMinute);
+        stats.put("tokensPerMinute", tokens.limitPerMinute);
+        stats.put("availableRequests", (long) requests.available);
+        stats.put("availableTokens", (long) tokens.available);
+        stats.put("pausedForMs", Math.max(0, requests.refilledAt - now));
+        stats.put("maxWaitMs", maxWaitMs);
+        stats.put("reserved", reserved.get());
+        stats.put("delayed", delayed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("pauses", pauses.get());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * One continuously refilling bucket (capacity = one minute of the limit)
+     */
+    private static class Bucket {
+        private long limitPerMinute;
+        private double available;
+        private long refilledAt;
+
+        private Bucket(long limitPerMinute) {
+            this.limitPerMinute = Math.max(1, limitPerMinute);
+            this.available = this.limitPerMinute;
+            this.refilledAt = System.currentTimeMillis();
+        }
+
+        private double perMs() {
+            return limitPerMinute / 60_000.0;
+        }
+
+        private void refill(long now) {
+            // refilledAt lies in the future while paused
+            if (now > refilledAt) {
+                available = Math.min(limitPerMinute, available + (now - refilledAt) * perMs());
+                refilledAt = now;
+            }
+        }
+
+        /**
+         * Wait until `amount` is available (requests larger than the bucket wait for a full bucket)
+         */
+        private long waitFor(long amount, long now) {
+            double needed = Math.min(amount, limitPerMinute);
+            long pausedMs = Math.max(0, refilledAt - now);
+            if (available >= needed) {
+                return pausedMs;
+            }
+            return pausedMs + (long) Math.ceil((needed - available) / perMs());
+        }
+
+        private void take(long amount) {
+            available -= Math.min(amount, limitPerMinute);
+        }
+
+        private void sync(Long limit, Long remaining, long now) {
+            refill(now);
+            if (limit != null && limit > 0) {
+                limitPerMinute = limit;
+                available = Math.min(available, limitPerMinute);
+            }
+            // Never more than the API says is left (our reservations may not have reached it yet)
+            if (remaining != null && remaining >= 0) {
+                available = Math.min(available, remaining);
+            }
+        }
+
+        private void pauseUntil(long until) {
+            available = Math.min(available, 0);
+            refilledAt = Math.max(refilledAt, until);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.databaseai.util;
+
+import java.util.Arrays;
+
+/**
+ * Bounded Top-K Heap
+ *
+ * Keeps the K highest-scoring items seen so far, using a min-heap on
+ * primitive arrays (no boxing, no per-item objects).
+ *
+ * Cost is O(n log K) for n offers instead of sorting all n items.
+ *
+ * Usage:
+ *   TopKHeap heap = new TopKHeap(5);
+ *   for (int i = 0; i < n; i++) heap.offer(i, score(i));
+ *   int[] best = new int[heap.size()];
+ *   heap.sortDescending(best, new float[heap.size()]);
+ */
+public class TopKHeap {
+
+    private final int[] indices;
+    private final float[] scores;
+    private int size = 0;
+
+    public TopKHeap(int k) {
+        this.indices = new int[Math.max(k, 0)];
+        this.scores = new float[Math.max(k, 0)];
+    }
+
+    /**
+     * Offer an item; kept only if it beats the current K-th best score
+     */
+    public void offer(int index, float score) {
+        if (indices.length == 0) {
+            return;
+        }
+
+        if (size < indices.length) {
+            indices[size] = index;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            indices[0] = index;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lowest score currently kept (the score an item has to beat once the heap is full)
+     */
+    public float minScore() {
+        return size == 0 ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    public boolean isFull() {
+        return size == indices.length;
+    }
+
+    /**
+     * Fill both arrays with the kept items, best score first
+     *
+     * The heap itself is left unchanged.
+     */
+    public void sortDescending(int[] outIndices, float[] outScores) {
+        int[] heapIndices = Arrays.copyOf(indices, size);
+        float[] heapScores = Arrays.copyOf(scores, size);
+
+        // Heap sort: repeatedly pop the minimum and write it from the back
+        for (int end = size - 1; end >= 0; end--) {
+            outIndices[end] = heapIndices[0];
+            outScores[end] = heapScores[0];
+
+            heapIndices[0] = heapIndices[end];
+            heapScores[0] = heapScores[end];
+            siftDown(heapIndices, heapScores, 0, end);
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (scores[parent] <= scores[position]) {
+                return;
+            }
+            swap(indices, scores, position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        siftDown(indices, scores, position, size);
+    }
+
+    private static void siftDown(int[] heapIndices, float[] heapScores, int position, int heapSize) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int right = left + 1;
+            int smallest = (right < heapSize && heapScores[right] < heapScores[left]) ? right : left;
+            if (heapScores[position] <= heapScores[smallest]) {
+                return;
+            }
+            swap(heapIndices, heapScores, position, smallest);
+            position = smallest;
+        }
+    }
+
+    private static void swap(int[] heapIndices, float[] heapScores, int a, int b) {
+        int index = heapIndices[a];
+        heapIndices[a] = heapIndices[b];
+        heapIndices[b] = index;
+
+        float score = heapScores[a];
+        heapScores[a] = heapScores[b];
+        heapScores[b] = score;
+    }
+}
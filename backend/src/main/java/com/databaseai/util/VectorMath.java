@@ -0,0 +1,181 @@
+package com.databaseai.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Vector Math Helpers
+ *
+ * Small, allocation-free helpers for embedding vectors stored as float[].
+ *
+ * Vectors are normalized to unit length once (when they are indexed), so
+ * cosine similarity becomes a plain dot product at query time:
+ * cos(θ) = (A · B) / (||A|| * ||B||) = A · B   when ||A|| = ||B|| = 1
+ *
+ * Dot products use a SIMD kernel (Java Vector API, jdk.incubator.vector)
+ * when it is available, and a scalar loop otherwise. The kernel is opt-in,
+ * because the incubator module prints a warning on every compile and start:
+ * - build with the "simd" Maven profile (compiles SimdDotKernel)
+ * - run with --add-modules jdk.incubator.vector
+ * It is looked up reflectively, so the default build doesn't contain it.
+ */
+public final class VectorMath {
+
+    private static final String SIMD_KERNEL_CLASS = "com.databaseai.util.SimdDotKernel";
+
+    /**
+     * SIMD float lanes of this CPU (0 when the SIMD kernel isn't available)
+     */
+    private static final int SIMD_LANES = detectSimdLanes();
+
+    /**
+     * SimdDotKernel.dot, or null when the SIMD kernel isn't used
+     */
+    private static final MethodHandle SIMD_DOT = SIMD_LANES > 1 ? findSimdDot() : null;
+
+    private static final boolean SIMD_ENABLED = SIMD_DOT != null;
+
+    private VectorMath() {
+    }
+
+    /**
+     * Convert an embedding to a unit-length float[]
+     *
+     * A zero vector stays all zeros (its similarity to anything is 0).
+     */
+    public static float[] toNormalizedFloats(List<Double> embedding) {
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        normalize(vector);
+        return vector;
+    }
+
+    /**
+     * Scale a vector to unit length in place
+     */
+    public static void normalize(float[] vector) {
+        double norm = 0.0;
+        for (float value : vector) {
+            norm += (double) value * value;
+        }
+        if (norm == 0.0) {
+            return;
+        }
+
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+    /**
+     * Dot product of the query with one vector stored inside a contiguous array
+     *
+     * @param vectors All vectors back to back (row i starts at i * dimension)
+     * @param offset Start of the vector to compare with
+     * @param query Query vector (length = dimension)
+     */
+    public static float dot(float[] vectors, int offset, float[] query) {
+        return dot(vectors, offset, query, 0, query.length);
+    }
+
+    /**
+     * Dot product of two vectors stored inside (possibly the same) contiguous arrays
+     *
+     * Uses the SIMD kernel when the Vector API is available, the scalar loop otherwise.
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        if (SIMD_ENABLED) {
+            return simdDot(a, aOffset, b, bOffset, length);
+        }
+        return scalarDot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Scalar dot product (fallback when the Vector API isn't available)
+     *
+     * Four independent accumulators let the CPU overlap the multiply-adds
+     * instead of waiting on a single running sum.
+     */
+    public static float scalarDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum0 = 0f;
+        float sum1 = 0f;
+        float sum2 = 0f;
+        float sum3 = 0f;
+
+        int i = 0;
+        int upperBound = length & ~3;
+        for (; i < upperBound; i += 4) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+            sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * SIMD dot product (only call when isSimdEnabled())
+     */
+    public static float simdDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        try {
+            return (float) SIMD_DOT.invokeExact(a, aOffset, b, bOffset, length);
+        } catch (Throwable e) {
+            throw new IllegalStateException("SIMD dot product failed", e);
+        }
+    }
+
+    /**
+     * Whether dot products run on the Vector API (SIMD) kernel
+     */
+    public static boolean isSimdEnabled() {
+        return SIMD_ENABLED;
+    }
+
+    /**
+     * Human-readable name of the active kernel, e.g. "simd (8 lanes)" or "scalar"
+     */
+    public static String kernelName() {
+        return SIMD_ENABLED ? "simd (" + SIMD_LANES + " lanes)" : "scalar";
+    }
+
+    /**
+     * Use the SIMD kernel if:
+     * - it was compiled in (Maven profile "simd")
+     * - the JVM was started with --add-modules jdk.incubator.vector
+     * - it wasn't switched off with -Ddatabaseai.vector.simd=false
+     * - the CPU has more than one float lane
+     */
+    private static int detectSimdLanes() {
+        if ("false".equalsIgnoreCase(System.getProperty("databaseai.vector.simd"))) {
+            return 0;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return 0;
+        }
+        try {
+            MethodHandle laneCount = MethodHandles.lookup().findStatic(Class.forName(SIMD_KERNEL_CLASS),
+                    "laneCount", MethodType.methodType(int.class));
+            return (int) laneCount.invokeExact();
+        } catch (Throwable e) {
+            // Not compiled in, or the module can't be linked
+            return 0;
+        }
+    }
+
+    private static MethodHandle findSimdDot() {
+        try {
+            return MethodHandles.lookup().findStatic(Class.forName(SIMD_KERNEL_CLASS), "dot",
+                    MethodType.methodType(float.class, float[].class, int.class, float[].class, int.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.databaseai.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Virtual Thread Support
+ * 
+ * The project is compiled for Java 17, but virtual threads (Java 21+) let
+ * blocking code (JDBC, WebClient.block(), retry sleeps) wait without holding
+ * a platform thread. When the app runs on Java 21+ and virtual threads are
+ * enabled (spring.threads.virtual.enabled=true), our own executors use them
+ * too; otherwise they fall back to normal daemon threads.
+ * 
+ * Virtual threads are looked up via reflection so the code still compiles
+ * and runs on Java 17.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = findOfVirtual();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Whether the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Thread factory for our executors
+     * 
+     * @param prefix Thread name prefix (e.g. "query-job-")
+     * @param preferVirtual Use virtual threads if the JVM supports them
+     */
+    public static ThreadFactory threadFactory(String prefix, boolean preferVirtual) {
+        if (preferVirtual && OF_VIRTUAL != null) {
+            try {
+                // Thread.ofVirtual().name(prefix, 1).factory()
+                // (methods are looked up on the public Thread.Builder interface,
+                // the implementation class isn't accessible)
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                Object builder = OF_VIRTUAL.invoke(null);
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                System.err.println("WARNING: Could not create virtual thread factory, using platform threads: " + e.getMessage());
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Method findOfVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.databaseai.service;
+
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.TimeStampMicroTZVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class ArrowResultWriterTest {
+
+    private Connection connection;
+    private ArrowResultWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:arrow");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE events (amount DECIMAL(12, 2), happened_at TIMESTAMP, "
+                    + "logged_at TIMESTAMP WITH TIME ZONE)");
+            statement.execute("INSERT INTO events VALUES (1234.50, TIMESTAMP '2024-03-01 12:30:00.123456', "
+                    + "TIMESTAMP WITH TIME ZONE '2024-03-01 12:30:00+02:00')");
+        }
+
+        writer = new ArrowResultWriter();
+        ReflectionTestUtils.setField(writer, "batchSize", 16);
+        ReflectionTestUtils.setField(writer, "maxMemoryBytes", 16L * 1024 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.close();
+        connection.close();
+    }
+
+    @Test
+    void decimalsAndTimestampsKeepTheirTypes() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT amount, happened_at, logged_at FROM events")) {
+            assertRoundTrip(write(resultSet));
+        }
+    }
+
+    @Test
+    void timestamptzReportedAsTimestampIsWrittenInUtc() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet h2ResultSet = statement.executeQuery("SELECT amount, happened_at, logged_at FROM events")) {
+            // Like pgjdbc: timestamptz is Types.TIMESTAMP, only the type name tells them apart
+            ResultSetMetaData metaData = mock(ResultSetMetaData.class, delegatesTo(h2ResultSet.getMetaData()));
+            doReturn(Types.TIMESTAMP).when(metaData).getColumnType(3);
+            doReturn("timestamptz").when(metaData).getColumnTypeName(3);
+            ResultSet resultSet = mock(ResultSet.class, delegatesTo(h2ResultSet));
+            doReturn(metaData).when(resultSet).getMetaData();
+
+            assertRoundTrip(write(resultSet));
+        }
+    }
+
+    private byte[] write(ResultSet resultSet) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, writer.write(resultSet, out, Function.identity()));
+        return out.toByteArray();
+    }
+
+    private static void assertRoundTrip(byte[] stream) throws Exception {
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream), allocator)) {
+            assertTrue(reader.loadNextBatch());
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+
+            assertEquals(new ArrowType.Decimal(12, 2, 128), root.getVector(0).getField().getType());
+            assertEquals(new BigDecimal("1234.50"), ((DecimalVector) root.getVector(0)).getObject(0));
+
+            assertEquals(LocalDateTime.parse("2024-03-01T12:30:00.123456"),
+                    ((TimeStampMicroVector) root.getVector(1)).getObject(0));
+
+            TimeStampMicroTZVector loggedAt = (TimeStampMicroTZVector) root.getVector(2);
+            assertEquals("UTC", loggedAt.getTimeZone());
+            assertEquals(Instant.parse("2024-03-01T10:30:00Z").toEpochMilli() * 1000, loggedAt.get(0));
+        }
+    }
+}
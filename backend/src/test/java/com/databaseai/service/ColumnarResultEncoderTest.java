@@ -0,0 +1,37 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.ColumnarResult;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnarResultEncoderTest {
+
+    @Test
+    void decimalsAreEncodedExactly() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:columnar");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE amounts (amount DECIMAL(20, 2))");
+            statement.execute("INSERT INTO amounts VALUES (12345678901234567.89), (0.10), (NULL), (0.10)");
+
+            try (ResultSet resultSet = statement.executeQuery("SELECT amount FROM amounts")) {
+                ColumnarResult result = ColumnarResultEncoder.encode(resultSet, Function.identity());
+                ColumnarResult.Column column = result.getColumns().get(0);
+
+                assertEquals(ColumnarResult.ENCODING_DECIMAL, column.getEncoding());
+                assertEquals(2, column.getScale());
+                assertEquals(2, column.getDictionary().size());
+                assertEquals("12345678901234567.89", column.getDictionary().get(column.getCodes()[0]));
+                assertEquals("0.10", column.getDictionary().get(column.getCodes()[3]));
+                assertArrayEquals(new int[]{2}, column.getNullRows());
+            }
+        }
+    }
+}
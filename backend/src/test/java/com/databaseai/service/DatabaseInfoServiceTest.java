@@ -0,0 +1,64 @@
+package com.databaseai.service;
+
+import com.databaseai.model.DatabaseInfo;
+import com.databaseai.repository.DatabaseInfoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatabaseInfoServiceTest {
+
+    private final DatabaseInfoRepository repository = mock(DatabaseInfoRepository.class);
+    private final TargetConnectionPoolRegistry pools = mock(TargetConnectionPoolRegistry.class);
+    private DatabaseInfoService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DatabaseInfoService();
+        ReflectionTestUtils.setField(service, "databaseInfoRepository", repository);
+        ReflectionTestUtils.setField(service, "connectionPoolRegistry", pools);
+        ReflectionTestUtils.setField(service, "schemaGraphService", mock(SchemaGraphService.class));
+
+        when(repository.findById(1L)).thenReturn(Optional.of(database("Sales", "db.internal")));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void renameKeepsTheConnectionPool() {
+        // No password in the request: the stored one is kept
+        DatabaseInfo update = database("Sales (prod)", "db.internal");
+        update.setPassword(null);
+
+        service.updateDatabase(1L, update);
+
+        verify(pools, never()).evict(1L);
+    }
+
+    @Test
+    void newHostClosesTheConnectionPool() {
+        service.updateDatabase(1L, database("Sales", "db2.internal"));
+
+        verify(pools).evict(1L);
+    }
+
+    private static DatabaseInfo database(String name, String host) {
+        DatabaseInfo databaseInfo = new DatabaseInfo();
+        databaseInfo.setId(1L);
+        databaseInfo.setName(name);
+        databaseInfo.setDatabaseType("postgresql");
+        databaseInfo.setHost(host);
+        databaseInfo.setPort(5432);
+        databaseInfo.setDatabaseName("sales");
+        databaseInfo.setUsername("reader");
+        databaseInfo.setPassword("secret");
+        return databaseInfo;
+    }
+}
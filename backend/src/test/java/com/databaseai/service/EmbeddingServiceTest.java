@@ -0,0 +1,109 @@
+package com.databaseai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmbeddingServiceTest {
+
+    private final List<Integer> requestSizes = new ArrayList<>();
+    private EmbeddingService service;
+    private PromptTokenizer tokenizer;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddingProvider provider = new EmbeddingProvider() {
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public String getModel() {
+                return "test-model";
+            }
+
+            @Override
+            public boolean isConfigured() {
+                return true;
+            }
+
+            @Override
+            public Mono<List<List<Double>>> embed(List<String> texts) {
+                requestSizes.add(texts.size());
+                List<List<Double>> embeddings = new ArrayList<>();
+                for (String text : texts) {
+                    embeddings.add(List.of((double) text.length()));
+                }
+                return Mono.just(embeddings);
+            }
+        };
+
+        EmbeddingCache cache = mock(EmbeddingCache.class);
+        when(cache.get(anyString(), anyString())).thenReturn(Optional.empty());
+
+        tokenizer = new PromptTokenizer();
+        ReflectionTestUtils.setField(tokenizer, "encodingName", "cl100k_base");
+        tokenizer.init();
+
+        service = new EmbeddingService();
+        ReflectionTestUtils.setField(service, "providers", List.of(provider));
+        ReflectionTestUtils.setField(service, "providerName", "test");
+        ReflectionTestUtils.setField(service, "embeddingCache", cache);
+        ReflectionTestUtils.setField(service, "tokenizer", tokenizer);
+        service.initBatcher();
+    }
+
+    @Test
+    void missesAreSplitByInputCount() {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            texts.add("table_" + i);
+        }
+
+        List<List<Double>> embeddings = service.generateEmbeddings(texts);
+
+        assertEquals(List.of(2048, 2048, 904), requestSizes);
+        assertEquals(5000, embeddings.size());
+        assertEquals((double) "table_4999".length(), embeddings.get(4999).get(0));
+    }
+
+    @Test
+    void missesAreSplitByTokenCount() {
+        // Thousands of tokens each: only a few dozen fit in one request
+        String wide = "column_a integer, ".repeat(1000);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            texts.add(wide + "x");
+        }
+        int perRequest = EmbeddingService.MAX_TOKENS_PER_REQUEST / tokenizer.count(texts.get(0));
+
+        service.generateEmbeddings(texts);
+
+        assertEquals(List.of(perRequest, perRequest, 200 - 2 * perRequest), requestSizes);
+    }
+
+    @Test
+    void onlyInputErrorsAreRetriedTextByText() {
+        assertTrue(EmbeddingService.isInputError(new RuntimeException("Failed to generate embedding",
+                WebClientResponseException.create(400, "Bad Request", null, null, null))));
+        assertFalse(EmbeddingService.isInputError(new RuntimeException("Rate limit exceeded",
+                WebClientResponseException.create(429, "Too Many Requests", null, null, null))));
+        assertFalse(EmbeddingService.isInputError(
+                WebClientResponseException.create(503, "Service Unavailable", null, null, null)));
+        assertFalse(EmbeddingService.isInputError(new RuntimeException("Empty response")));
+    }
+}
@@ -0,0 +1,144 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.NLToSQLResponse;
+import com.databaseai.model.DatabaseInfo;
+import com.databaseai.model.SchemaEmbedding;
+import com.databaseai.repository.DatabaseInfoRepository;
+import com.databaseai.repository.EmbeddingCacheRepository;
+import com.databaseai.repository.SchemaEmbeddingRepository;
+import com.databaseai.util.VirtualThreads;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * NL → SQL pipeline with the offline providers
+ *
+ * Real embedding, retrieval (vector + BM25), prompt packing, generation and
+ * validation; only the repositories and the target database are mocked.
+ * Also used as a network-free load test (no OpenAI latency or rate limits).
+ */
+@SpringJUnitConfig(classes = {
+        NLToSQLService.class, RAGService.class, LLMService.class, LocalChatProvider.class,
+        EmbeddingService.class, LocalEmbeddingProvider.class, EmbeddingCache.class, PromptTokenizer.class,
+        PromptPacker.class, SemanticQueryCache.class, SQLValidator.class, SchemaEmbeddingService.class,
+        SchemaVectorIndex.class, SchemaLexicalIndex.class
+})
+@TestPropertySource(properties = {
+        "ai.chat-provider=local",
+        "ai.embedding-provider=local",
+        "embedding-cache.persistent.enabled=false"
+})
+class LocalProviderPipelineTest {
+
+    private static final Long DATABASE_ID = 1L;
+    private static final int REQUESTS = 1000;
+
+    @Autowired
+    private NLToSQLService nlToSQLService;
+
+    @Autowired
+    private LocalEmbeddingProvider embeddingProvider;
+
+    @MockBean
+    private DatabaseInfoRepository databaseInfoRepository;
+
+    @MockBean
+    private SchemaEmbeddingRepository schemaEmbeddingRepository;
+
+    @MockBean
+    private EmbeddingCacheRepository embeddingCacheRepository;
+
+    @MockBean
+    private RealTimeUpdateService realTimeUpdateService;
+
+    @MockBean
+    private SchemaGraphService schemaGraphService;
+
+    @MockBean
+    private PgVectorSupport pgVectorSupport;
+
+    @MockBean
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseInfo databaseInfo = new DatabaseInfo();
+        databaseInfo.setId(DATABASE_ID);
+        databaseInfo.setName("Shop");
+        databaseInfo.setDatabaseType("postgresql");
+        when(databaseInfoRepository.findById(DATABASE_ID)).thenReturn(Optional.of(databaseInfo));
+
+        List<SchemaEmbedding> schemas = List.of(
+                schema(1L, "sales.orders", "orders table with id, customer_id, total, created_at columns"),
+                schema(2L, "sales.customers", "customers table with id, name, email, revenue columns"));
+        List<Object[]> texts = new ArrayList<>();
+        schemas.forEach(schema -> texts.add(new Object[]{schema.getId(), schema.getSchemaName(), schema.getSchemaDescription()}));
+        when(schemaEmbeddingRepository.findAllByDatabaseInfoId(DATABASE_ID)).thenReturn(schemas);
+        when(schemaEmbeddingRepository.findTextByDatabaseInfoId(DATABASE_ID)).thenReturn(texts);
+    }
+
+    @Test
+    void schemaQualifiedTablesAreQueriedByTheirFullName() {
+        NLToSQLResponse response = nlToSQLService.convertToSQL(DATABASE_ID, "How many orders are there?", 2);
+
+        assertEquals("SELECT COUNT(*) FROM sales.orders", response.getSqlQuery());
+        assertTrue(response.isValid(), () -> "validation errors: " + response.getValidationErrors());
+    }
+
+    @Test
+    void questionIsAnsweredFromTheMatchingTable() {
+        NLToSQLResponse response = nlToSQLService.convertToSQL(DATABASE_ID, "top 5 customers by revenue", 2);
+
+        assertEquals("SELECT * FROM sales.customers ORDER BY revenue DESC LIMIT 5", response.getSqlQuery());
+    }
+
+    /**
+     * 1k concurrent conversions, one virtual thread each (as with spring.threads.virtual.enabled=true)
+     *
+     * Skipped on Java 17 (no virtual threads); run on Java 21+.
+     */
+    @Test
+    void thousandConcurrentRequestsOnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads need Java 21+");
+
+        ExecutorService executor = Executors.newCachedThreadPool(VirtualThreads.threadFactory("load-", true));
+        try {
+            List<Future<NLToSQLResponse>> futures = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                String question = "top " + (i % 50 + 1) + " customers by revenue";
+                futures.add(executor.submit(() -> nlToSQLService.convertToSQL(DATABASE_ID, question, 2)));
+            }
+
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals("SELECT * FROM sales.customers ORDER BY revenue DESC LIMIT " + (i % 50 + 1),
+                        futures.get(i).get(60, TimeUnit.SECONDS).getSqlQuery());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SchemaEmbedding schema(Long id, String name, String description) {
+        SchemaEmbedding schema = new SchemaEmbedding(DATABASE_ID, name, description, embeddingProvider.embed(description));
+        schema.setId(id);
+        return schema;
+    }
+}
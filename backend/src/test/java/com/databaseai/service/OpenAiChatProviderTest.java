@@ -0,0 +1,137 @@
+package com.databaseai.service;
+
+import com.databaseai.config.OpenAIConfig;
+import com.databaseai.dto.ChatRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * OpenAiChatProvider.stream() against an embedded server-sent events stub
+ */
+class OpenAiChatProviderTest {
+
+    private static final String STREAM = ""
+            + "data: {\"id\":\"c1\",\"object\":\"chat.completion.chunk\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\"}}]}\n\n"
+            + "data: {\"id\":\"c1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"SELECT \"}}]}\n\n"
+            + ": keep-alive comment\n\n"
+            + "data: {\"id\":\"c1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"* FROM \"}}]}\n\n"
+            + "data: {\"id\":\"c1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"orders\"}}]}\n\n"
+            + "data: {\"id\":\"c1\",\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n"
+            + "data: [DONE]\n\n"
+            + "data: {\"id\":\"c1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\" after done\"}}]}\n\n";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private OpenAiChatProvider provider;
+
+    /**
+     * Number of requests answered with 429 before the stream is sent
+     */
+    private volatile int rateLimitedRequests;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat/completions", this::handle);
+        server.start();
+
+        OpenAiRateLimiter rateLimiter = new OpenAiRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "chatRequestsPerMinute", 3500L);
+        ReflectionTestUtils.setField(rateLimiter, "chatTokensPerMinute", 90000L);
+        ReflectionTestUtils.setField(rateLimiter, "maxWaitMs", 30000L);
+        ReflectionTestUtils.setField(rateLimiter, "backoffBaseMs", 10L);
+        ReflectionTestUtils.setField(rateLimiter, "backoffMaxMs", 50L);
+
+        ConcurrencyLimiterRegistry limiters = new ConcurrencyLimiterRegistry();
+        ReflectionTestUtils.setField(limiters, "openAiChatMaxConcurrent", 4);
+        ReflectionTestUtils.setField(limiters, "acquireTimeoutMs", 1000L);
+
+        provider = new OpenAiChatProvider();
+        ReflectionTestUtils.setField(provider, "openAiWebClient",
+                WebClient.create("http://127.0.0.1:" + server.getAddress().getPort()));
+        ReflectionTestUtils.setField(provider, "openAIConfig", mock(OpenAIConfig.class));
+        ReflectionTestUtils.setField(provider, "concurrencyLimiterRegistry", limiters);
+        ReflectionTestUtils.setField(provider, "openAiRateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(provider, "objectMapper", new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void deltasAreJoinedUntilDone() {
+        List<String> tokens = stream();
+
+        assertEquals(List.of("SELECT ", "* FROM ", "orders"), tokens);
+        assertEquals("SELECT * FROM orders", String.join("", tokens));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void rateLimitBeforeFirstTokenIsRetried() {
+        rateLimitedRequests = 1;
+
+        assertEquals(List.of("SELECT ", "* FROM ", "orders"), stream());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void rateLimitOnEveryAttemptFails() {
+        rateLimitedRequests = Integer.MAX_VALUE;
+
+        RuntimeException error = assertThrows(RuntimeException.class, this::stream);
+        assertEquals("Rate limit exceeded. Please wait a minute and try again.", error.getMessage());
+        assertEquals(3, requests.get());
+    }
+
+    private List<String> stream() {
+        return provider.stream(List.of(new ChatRequest.Message("user", "all orders")))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        if (requests.incrementAndGet() <= rateLimitedRequests) {
+            byte[] body = "{\"error\":{\"message\":\"Rate limit reached\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("retry-after-ms", "10");
+            exchange.sendResponseHeaders(429, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            // One write per event, like a real stream
+            for (String event : STREAM.split("(?<=\n\n)")) {
+                out.write(event.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        }
+    }
+}
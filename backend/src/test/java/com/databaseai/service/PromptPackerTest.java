@@ -0,0 +1,98 @@
+package com.databaseai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PromptPackerTest {
+
+    private final RAGService ragService = new RAGService();
+    private PromptTokenizer tokenizer;
+    private PromptPacker packer;
+
+    @BeforeEach
+    void setUp() {
+        tokenizer = new PromptTokenizer();
+        ReflectionTestUtils.setField(tokenizer, "encodingName", "cl100k_base");
+        tokenizer.init();
+
+        packer = new PromptPacker();
+        ReflectionTestUtils.setField(packer, "tokenizer", tokenizer);
+        ReflectionTestUtils.setField(packer, "enabled", true);
+        ReflectionTestUtils.setField(packer, "schemaTokenBudget", 2000);
+        ReflectionTestUtils.setField(packer, "maxSchemaTokens", 100);
+    }
+
+    @Test
+    void wideTableIsTrimmedToRelevantColumns() {
+        List<String> columns = new ArrayList<>(List.of(
+                "id (bigint primary key)", "customer_id (bigint references customers.id)", "total", "created_at"));
+        for (int i = 1; i <= 100; i++) {
+            columns.add("attribute_" + i);
+        }
+        RAGService.SchemaContext orders = new RAGService.SchemaContext("orders",
+                "orders table with " + String.join(", ", columns) + " columns");
+
+        PromptPacker.PackedSchemas packed = packer.pack("total of all orders", List.of(orders));
+
+        // Key columns and the column named in the question
+        assertEquals("orders table with id (bigint primary key), customer_id (bigint references customers.id), "
+                + "total columns (101 more not shown)", packed.getSchemas().get(0).getDescription());
+        assertEquals(1, packed.getTrimmedCount());
+        assertTokensMatchContext(packed);
+    }
+
+    @Test
+    void schemasAreLeftOutInOrderOnceTheBudgetIsUsed() {
+        RAGService.SchemaContext first = new RAGService.SchemaContext("orders", "orders table with id, total columns");
+        RAGService.SchemaContext second = new RAGService.SchemaContext("customers", "customers table with id, name columns");
+        RAGService.SchemaContext third = new RAGService.SchemaContext("products", "products table with id, price columns");
+        budget(first, second);
+
+        PromptPacker.PackedSchemas packed = packer.pack("orders by customer", List.of(first, second, third));
+
+        assertEquals(List.of("orders", "customers"), names(packed));
+        assertEquals(1, packed.getOmittedCount());
+        assertTokensMatchContext(packed);
+    }
+
+    @Test
+    void joinsToLeftOutSchemasAreDropped() {
+        RAGService.SchemaContext orders = new RAGService.SchemaContext("sales.orders",
+                "orders table with id, customer_id, total columns",
+                List.of("sales.orders.customer_id = sales.customers.id"));
+        RAGService.SchemaContext customers = new RAGService.SchemaContext("customers",
+                "customers table with id, name, email, phone, address, city, country columns");
+        budget(orders);
+
+        PromptPacker.PackedSchemas packed = packer.pack("orders by customer", List.of(orders, customers));
+
+        assertEquals(List.of("sales.orders"), names(packed));
+        assertEquals(List.of(), packed.getSchemas().get(0).getJoins());
+        assertTokensMatchContext(packed);
+    }
+
+    /**
+     * A schema budget that fits these schemas and leaves too little for another one
+     */
+    private void budget(RAGService.SchemaContext... schemas) {
+        int tokens = tokenizer.count(RAGService.CONTEXT_HEADER);
+        for (int i = 0; i < schemas.length; i++) {
+            tokens += tokenizer.count(RAGService.formatSchema(i + 1, schemas[i]));
+        }
+        ReflectionTestUtils.setField(packer, "schemaTokenBudget", tokens + 5);
+    }
+
+    private void assertTokensMatchContext(PromptPacker.PackedSchemas packed) {
+        assertEquals(tokenizer.count(ragService.buildContextString(packed.getSchemas())), packed.getTokens());
+    }
+
+    private static List<String> names(PromptPacker.PackedSchemas packed) {
+        return packed.getSchemas().stream().map(RAGService.SchemaContext::getSchemaName).toList();
+    }
+}
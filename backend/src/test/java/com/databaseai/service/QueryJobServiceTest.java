@@ -0,0 +1,157 @@
+package com.databaseai.service;
+
+import com.databaseai.dto.QueryExecutionResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueryJobServiceTest {
+
+    private final QueryExecutionService queryExecutionService = mock(QueryExecutionService.class);
+    private QueryJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new QueryJobService(1, 10, false);
+        ReflectionTestUtils.setField(service, "queryExecutionService", queryExecutionService);
+        ReflectionTestUtils.setField(service, "realTimeUpdateService", mock(RealTimeUpdateService.class));
+        ReflectionTestUtils.setField(service, "retentionMinutes", 30L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void queryCancelledBeforeItExecutesNeverRuns() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicBoolean executed = new AtomicBoolean();
+        // Like pgjdbc: cancel() on a statement that isn't executing yet does nothing
+        Statement statement = mock(Statement.class);
+
+        when(queryExecutionService.executeQuery(anyLong(), anyString(), any(), anyString(), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    cancelled.await(5, TimeUnit.SECONDS);
+                    // Same order as QueryExecutionService: listener, then execute
+                    try {
+                        ((Consumer<Statement>) invocation.getArgument(5)).accept(statement);
+                    } catch (CancellationException e) {
+                        return new QueryExecutionResponse(false);
+                    }
+                    executed.set(true);
+                    return new QueryExecutionResponse(true);
+                });
+
+        String jobId = service.submit(1L, "SELECT 1", null, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(QueryJobService.STATUS_RUNNING, service.cancel(jobId).orElseThrow().getStatus());
+        cancelled.countDown();
+
+        assertEquals(QueryJobService.STATUS_CANCELLED, awaitFinished(jobId));
+        assertFalse(executed.get());
+        assertEquals("Cancelled before it started", service.getJob(jobId, null, null).orElseThrow().getErrorMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void executingStatementIsCancelled() throws Exception {
+        CountDownLatch executing = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Statement statement = mock(Statement.class);
+        doAnswer(invocation -> {
+            cancelled.countDown();
+            return null;
+        }).when(statement).cancel();
+
+        when(queryExecutionService.executeQuery(anyLong(), anyString(), any(), anyString(), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    ((Consumer<Statement>) invocation.getArgument(5)).accept(statement);
+                    executing.countDown();
+                    // Runs until the database gets the cancel
+                    cancelled.await(5, TimeUnit.SECONDS);
+                    return new QueryExecutionResponse(false);
+                });
+
+        String jobId = service.submit(1L, "SELECT 1", null, null);
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+
+        service.cancel(jobId);
+
+        verify(statement, timeout(5000)).cancel();
+        assertEquals(QueryJobService.STATUS_CANCELLED, awaitFinished(jobId));
+        assertEquals("Cancelled while running", service.getJob(jobId, null, null).orElseThrow().getErrorMessage());
+    }
+
+    @Test
+    void jobCancelledWhileItsTaskWaitsForTheLockIsNotLeftQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(queryExecutionService.executeQuery(anyLong(), anyString(), any(), anyString(), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return new QueryExecutionResponse(true);
+                });
+
+        String blockingJobId = service.submit(1L, "SELECT 1", null, null);
+        String jobId = service.submit(1L, "SELECT 2", null, null);
+        Object job = ((Map<?, ?>) ReflectionTestUtils.getField(service, "jobs")).get(jobId);
+
+        synchronized (job) {
+            // The only executor thread takes the queued job and blocks on its lock
+            release.countDown();
+            awaitBlockedJobThread();
+            service.cancel(jobId);
+        }
+
+        assertEquals(QueryJobService.STATUS_SUCCEEDED, awaitFinished(blockingJobId));
+        assertEquals(QueryJobService.STATUS_CANCELLED, awaitFinished(jobId));
+    }
+
+    private static void awaitBlockedJobThread() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("query-job-") && thread.getState() == Thread.State.BLOCKED) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job thread never blocked on the job lock");
+    }
+
+    private String awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            String status = service.getJob(jobId, null, null).orElseThrow().getStatus();
+            if (!QueryJobService.STATUS_QUEUED.equals(status) && !QueryJobService.STATUS_RUNNING.equals(status)) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return service.getJob(jobId, null, null).orElseThrow().getStatus();
+    }
+}
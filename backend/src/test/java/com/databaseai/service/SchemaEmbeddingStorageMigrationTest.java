@@ -0,0 +1,76 @@
+package com.databaseai.service;
+
+import com.databaseai.model.SchemaEmbedding;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SchemaEmbeddingStorageMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SchemaEmbeddingStorageMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:embedding-migration;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE schema_embeddings (id BIGINT PRIMARY KEY, database_info_id BIGINT, "
+                + "schema_name VARCHAR(255), embedding VARCHAR(1000) NOT NULL, embedding_bin VARBINARY(1000))");
+
+        migration = new SchemaEmbeddingStorageMigration();
+        ReflectionTestUtils.setField(migration, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void badRowIsSkippedAndTheRestAreConverted() {
+        jdbcTemplate.update("INSERT INTO schema_embeddings (id, database_info_id, schema_name, embedding) VALUES (1, 1, 'a', '[0.5, -1.0]')");
+        jdbcTemplate.update("INSERT INTO schema_embeddings (id, database_info_id, schema_name, embedding) VALUES (2, 1, 'b', '[0.5, oops]')");
+        jdbcTemplate.update("INSERT INTO schema_embeddings (id, database_info_id, schema_name, embedding) VALUES (3, 1, 'c', '[0.25]')");
+
+        migration.migrate();
+
+        assertArrayEquals(new float[]{0.5f, -1.0f}, embedding(1));
+        assertArrayEquals(new float[]{0.25f}, embedding(3));
+
+        // Left as it was, so nothing is lost
+        assertEquals("[0.5, oops]",
+                jdbcTemplate.queryForObject("SELECT embedding FROM schema_embeddings WHERE id = 2", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT embedding_bin FROM schema_embeddings WHERE id = 2", byte[].class));
+    }
+
+    @Test
+    void duplicateTablesAreRemovedAndPrevented() {
+        jdbcTemplate.update("INSERT INTO schema_embeddings (id, database_info_id, schema_name, embedding) VALUES (1, 1, 'orders', '[1.0]')");
+        jdbcTemplate.update("INSERT INTO schema_embeddings (id, database_info_id, schema_name, embedding) VALUES (2, 1, 'orders', '[2.0]')");
+        jdbcTemplate.update("INSERT INTO schema_embeddings (id, database_info_id, schema_name, embedding) VALUES (3, 2, 'orders', '[3.0]')");
+
+        migration.migrate();
+
+        // Newest row of each table is kept
+        assertEquals(List.of(2L, 3L),
+                jdbcTemplate.queryForList("SELECT id FROM schema_embeddings ORDER BY id", Long.class));
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                "INSERT INTO schema_embeddings (id, database_info_id, schema_name, embedding) VALUES (4, 1, 'orders', '[4.0]')"));
+    }
+
+    private float[] embedding(long id) {
+        assertNull(jdbcTemplate.queryForObject("SELECT embedding FROM schema_embeddings WHERE id = ?", String.class, id));
+        return SchemaEmbedding.decodeEmbedding(jdbcTemplate.queryForObject(
+                "SELECT embedding_bin FROM schema_embeddings WHERE id = ?", byte[].class, id));
+    }
+}
@@ -0,0 +1,94 @@
+package com.databaseai.service;
+
+import com.databaseai.model.DatabaseInfo;
+import com.databaseai.repository.DatabaseInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SchemaGraphServiceTest {
+
+    private static final String URL = "jdbc:h2:mem:schema-graph;DB_CLOSE_DELAY=-1";
+
+    private Connection setup;
+    private SchemaGraphService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Same table names in two schemas, each with its own foreign key
+        setup = DriverManager.getConnection(URL);
+        try (Statement statement = setup.createStatement()) {
+            for (String schema : List.of("sales", "archive")) {
+                statement.execute("CREATE SCHEMA " + schema);
+                statement.execute("CREATE TABLE " + schema + ".customers (id INT PRIMARY KEY)");
+                statement.execute("CREATE TABLE " + schema + ".orders (id INT PRIMARY KEY, "
+                        + "customer_id INT REFERENCES " + schema + ".customers(id))");
+            }
+        }
+
+        DatabaseInfoRepository repository = mock(DatabaseInfoRepository.class);
+        when(repository.findById(1L)).thenReturn(Optional.of(new DatabaseInfo()));
+
+        TargetConnectionPoolRegistry pools = mock(TargetConnectionPoolRegistry.class);
+        when(pools.getConnection(any())).thenAnswer(invocation -> {
+            Connection connection = DriverManager.getConnection(URL);
+            connection.setSchema("SALES");
+            return connection;
+        });
+
+        ConcurrencyLimiterRegistry limiters = new ConcurrencyLimiterRegistry();
+        ReflectionTestUtils.setField(limiters, "targetDbMaxConcurrent", 1);
+        ReflectionTestUtils.setField(limiters, "acquireTimeoutMs", 1000L);
+
+        service = new SchemaGraphService();
+        ReflectionTestUtils.setField(service, "databaseInfoRepository", repository);
+        ReflectionTestUtils.setField(service, "connectionPoolRegistry", pools);
+        ReflectionTestUtils.setField(service, "concurrencyLimiterRegistry", limiters);
+        ReflectionTestUtils.setField(service, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(service, "retryAfterFailureMs", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement statement = setup.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        setup.close();
+    }
+
+    @Test
+    void tablesWithTheSameNameInDifferentSchemasKeepTheirOwnKeys() {
+        Map<String, List<SchemaGraphService.ForeignKey>> foreignKeys =
+                service.getForeignKeys(1L, List.of("customers", "archive.customers"));
+
+        assertEquals("SALES", service.getDefaultSchema(1L));
+        assertEquals(List.of("SALES.ORDERS.CUSTOMER_ID = SALES.CUSTOMERS.ID"),
+                foreignKeys.get("sales.customers").stream().map(SchemaGraphService.ForeignKey::joinCondition).toList());
+        assertEquals(List.of("ARCHIVE.ORDERS.CUSTOMER_ID = ARCHIVE.CUSTOMERS.ID"),
+                foreignKeys.get("archive.customers").stream().map(SchemaGraphService.ForeignKey::joinCondition).toList());
+
+        // Cached under the qualified key
+        assertEquals(foreignKeys.get("sales.customers"),
+                service.getForeignKeys(1L, List.of("sales.customers")).get("sales.customers"));
+    }
+
+    @Test
+    void unqualifiedNamesAreInTheDefaultSchema() {
+        assertEquals("sales.orders", SchemaGraphService.tableKey("Orders", "SALES"));
+        assertEquals("archive.orders", SchemaGraphService.tableKey("ARCHIVE.Orders", "SALES"));
+        assertEquals("orders", SchemaGraphService.tableKey("Orders", null));
+    }
+}
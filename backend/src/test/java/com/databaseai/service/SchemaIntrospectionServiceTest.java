@@ -0,0 +1,70 @@
+package com.databaseai.service;
+
+import com.databaseai.repository.DatabaseInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SchemaIntrospectionServiceTest {
+
+    private final DatabaseInfoRepository databaseInfoRepository = mock(DatabaseInfoRepository.class);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SchemaIntrospectionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SchemaIntrospectionService(2, 10, false);
+        ReflectionTestUtils.setField(service, "databaseInfoRepository", databaseInfoRepository);
+        ReflectionTestUtils.setField(service, "realTimeUpdateService", mock(RealTimeUpdateService.class));
+        ReflectionTestUtils.setField(service, "retentionMinutes", 30L);
+
+        when(databaseInfoRepository.existsById(anyLong())).thenReturn(true);
+        // Jobs stay RUNNING until released (then fail: no such database)
+        when(databaseInfoRepository.findById(anyLong())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void secondJobForTheSameDatabaseIsRejected() throws Exception {
+        String first = service.submit(1L, null, null, false, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(IllegalArgumentException.class, () -> service.submit(1L, null, null, false, null));
+
+        // Other databases still get their own job
+        assertNotEquals(first, service.submit(2L, null, null, false, null));
+    }
+
+    @Test
+    void databaseCanBeIntrospectedAgainOnceTheJobFinished() throws Exception {
+        String first = service.submit(1L, null, null, false, null);
+        release.countDown();
+        for (int i = 0; i < 500 && service.getJob(first).orElseThrow().getFinishedAt() == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertNotEquals(first, service.submit(1L, null, null, false, null));
+    }
+}
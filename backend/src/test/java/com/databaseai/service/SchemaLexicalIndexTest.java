@@ -0,0 +1,25 @@
+package com.databaseai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchemaLexicalIndexTest {
+
+    @Test
+    void termsKeepIdentifiersAndDropStopwords() {
+        assertEquals(List.of("order", "customer_id", "customer", "id", "2023"),
+                SchemaLexicalIndex.terms("Show the orders with their customer_id columns for 2023"));
+    }
+
+    @Test
+    void generatedDescriptionBoilerplateIsNotIndexed() {
+        List<String> terms = SchemaLexicalIndex.terms("sales.orders table with id (integer primary key), "
+                + "customer_id (integer references customers.id) columns");
+
+        assertEquals(List.of("sale", "order", "id", "integer", "customer_id", "customer", "id", "integer",
+                "customer", "id"), terms);
+    }
+}
@@ -0,0 +1,73 @@
+package com.databaseai.service;
+
+import com.databaseai.model.SchemaEmbedding;
+import com.databaseai.repository.SchemaEmbeddingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SchemaVectorIndexTest {
+
+    @TempDir
+    Path snapshotDir;
+
+    private final SchemaEmbeddingRepository repository = mock(SchemaEmbeddingRepository.class);
+
+    @Test
+    void rowReEmbeddedSinceTheSnapshotIsReAdded() {
+        when(repository.findAllByDatabaseInfoId(1L)).thenReturn(List.of(schema(1L, "orders", 1f, 0f)));
+        SchemaVectorIndex before = index();
+        assertEquals(1.0, before.search(1L, new float[]{1f, 0f}, 1).get(0).getSimilarity(), 1e-6);
+
+        // Same ID, new vector (re-embedded in place while the application was down)
+        when(repository.findAllByDatabaseInfoId(1L)).thenReturn(List.of(schema(1L, "orders", 0f, 1f)));
+        SchemaVectorIndex after = index();
+
+        assertEquals(1.0, after.search(1L, new float[]{0f, 1f}, 1).get(0).getSimilarity(), 1e-6);
+    }
+
+    @Test
+    void indexDoesNotKeepTheEmbeddingBytes() {
+        SchemaEmbedding row = schema(1L, "orders", 1f, 0f);
+        when(repository.findAllByDatabaseInfoId(1L)).thenReturn(List.of(row));
+
+        SchemaEmbedding found = index().search(1L, new float[]{1f, 0f}, 1).get(0).getSchema();
+
+        assertEquals("orders", found.getSchemaName());
+        assertNull(found.getEmbeddingBin());
+        // The caller's entity is left as it was
+        assertNotNull(row.getEmbeddingBin());
+    }
+
+    private SchemaVectorIndex index() {
+        SchemaVectorIndex index = new SchemaVectorIndex();
+        ReflectionTestUtils.setField(index, "schemaEmbeddingRepository", repository);
+        ReflectionTestUtils.setField(index, "snapshotDir", snapshotDir.toString());
+        ReflectionTestUtils.setField(index, "hnswM", 16);
+        ReflectionTestUtils.setField(index, "hnswEfConstruction", 100);
+        ReflectionTestUtils.setField(index, "hnswEfSearch", 64);
+        ReflectionTestUtils.setField(index, "exactBelow", 1000);
+        ReflectionTestUtils.setField(index, "hnswMaxDeletedFraction", 0.2);
+        ReflectionTestUtils.setField(index, "quantizationMode", "none");
+        return index;
+    }
+
+    private static SchemaEmbedding schema(Long id, String name, float... vector) {
+        SchemaEmbedding schema = new SchemaEmbedding();
+        schema.setId(id);
+        schema.setDatabaseInfoId(1L);
+        schema.setSchemaName(name);
+        schema.setSchemaDescription(name + " table");
+        schema.setEmbeddingFromFloats(vector);
+        return schema;
+    }
+}
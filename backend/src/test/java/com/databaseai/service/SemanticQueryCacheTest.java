@@ -0,0 +1,47 @@
+package com.databaseai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticQueryCacheTest {
+
+    private static final float[] VECTOR = {0.6f, 0.8f};
+
+    private SemanticQueryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SemanticQueryCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "similarityThreshold", 0.97);
+        ReflectionTestUtils.setField(cache, "maxEntriesPerDatabase", 500);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 1440L);
+    }
+
+    @Test
+    void putWithCurrentGenerationIsCached() {
+        long generation = cache.generation(1L);
+
+        assertTrue(cache.put(1L, "top 5 customers", VECTOR, "SELECT 1", List.of(), generation));
+        assertTrue(cache.find(1L, "show the top 5 customers", VECTOR).isPresent());
+    }
+
+    @Test
+    void putAfterInvalidateIsSkipped() {
+        // Conversion started, then the schema changed before it finished
+        long generation = cache.generation(1L);
+        cache.invalidate(1L);
+
+        assertFalse(cache.put(1L, "top 5 customers", VECTOR, "SELECT 1", List.of(), generation));
+        assertFalse(cache.find(1L, "top 5 customers", VECTOR).isPresent());
+
+        // Other databases are not affected
+        assertTrue(cache.put(2L, "top 5 customers", VECTOR, "SELECT 1", List.of(), cache.generation(2L)));
+    }
+}
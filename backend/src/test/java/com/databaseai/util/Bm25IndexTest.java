@@ -0,0 +1,38 @@
+package com.databaseai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Bm25IndexTest {
+
+    @Test
+    void termsInMostDocumentsAreIgnored() {
+        Bm25Index index = new Bm25Index();
+        for (long id = 1; id <= 20; id++) {
+            index.add(id, List.of("table" + id, "integer", "id"));
+        }
+        index.add(21L, List.of("orders_2023", "order", "2023"));
+
+        long[] ids = new long[5];
+        float[] scores = new float[5];
+        assertEquals(0, index.search(List.of("integer", "id"), 5, ids, scores));
+
+        int found = index.search(List.of("integer", "orders_2023"), 5, ids, scores);
+        assertEquals(1, found);
+        assertEquals(21L, ids[0]);
+    }
+
+    @Test
+    void everyTermCountsInSmallIndexes() {
+        Bm25Index index = new Bm25Index();
+        index.add(1L, List.of("order", "id"));
+        index.add(2L, List.of("customer", "id"));
+
+        long[] ids = new long[2];
+        float[] scores = new float[2];
+        assertEquals(2, index.search(List.of("id"), 2, ids, scores));
+    }
+}
@@ -0,0 +1,144 @@
+package com.databaseai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HNSW index: recall@k against the exact scan
+ *
+ * Queries are stored vectors with a little noise added (so a query isn't
+ * trivially its own nearest neighbour). Latency per efSearch is measured by
+ * HnswIndexBenchmark (mvn -Pbenchmark test-compile exec:exec).
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSION = 64;
+    private static final int VECTORS = 3000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+
+    @Test
+    void recallAgainstExactScan() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 200);
+        for (int i = 0; i < VECTORS; i++) {
+            index.add(i, randomUnitVector(random));
+        }
+
+        float[][] queries = new float[QUERIES][];
+        long[][] exactIds = new long[QUERIES][K];
+        float[] scores = new float[K];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = noisyCopy(index.getVector(random.nextInt(VECTORS)), random);
+            index.exactSearch(queries[q], K, exactIds[q], scores);
+        }
+
+        long[] ids = new long[K];
+        long hits = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int found = index.search(queries[q], K, 128, ids, scores);
+            hits += countHits(ids, found, exactIds[q]);
+        }
+        double recall = (double) hits / ((long) QUERIES * K);
+
+        assertTrue(recall >= 0.9, "recall@10 with efSearch=128 was " + recall);
+    }
+
+    @Test
+    void removedAndReplacedVectorsAreNotReturned() {
+        Random random = new Random(8);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 100);
+        float[] first = randomUnitVector(random);
+        index.add(1, first);
+        for (int i = 2; i <= 100; i++) {
+            index.add(i, randomUnitVector(random));
+        }
+
+        index.remove(1);
+        long[] ids = new long[K];
+        float[] scores = new float[K];
+        int found = index.search(first, K, 64, ids, scores);
+        for (int i = 0; i < found; i++) {
+            assertTrue(ids[i] != 1, "removed vector returned");
+        }
+
+        index.add(1, first);
+        index.search(first, 1, 64, ids, scores);
+        assertEquals(1, ids[0]);
+        assertEquals(100, index.size());
+    }
+
+    @Test
+    void deletedNodesAreCompactedAway() {
+        Random random = new Random(10);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 100);
+        float[][] vectors = new float[500][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnitVector(random);
+            index.add(i, vectors[i]);
+        }
+
+        // Re-index the same vectors over and over (what incremental re-indexing does)
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < vectors.length; i++) {
+                index.add(i, vectors[i]);
+            }
+        }
+        for (int i = 0; i < 250; i++) {
+            index.remove(i);
+        }
+
+        assertEquals(250, index.size());
+        assertTrue(index.nodeCount() <= 250 / (1 - index.getMaxDeletedFraction()) + 1,
+                "graph kept " + index.nodeCount() + " nodes for 250 vectors");
+
+        long[] ids = new long[K];
+        float[] scores = new float[K];
+        for (int i = 250; i < vectors.length; i++) {
+            index.search(vectors[i], 1, 64, ids, scores);
+            assertEquals(i, ids[0]);
+        }
+
+        index.compact();
+        assertEquals(250, index.nodeCount());
+        assertEquals(250, index.size());
+    }
+
+    static long countHits(long[] ids, int found, long[] truth) {
+        Set<Long> expected = new HashSet<>();
+        for (long id : truth) {
+            expected.add(id);
+        }
+        long hits = 0;
+        for (int i = 0; i < found; i++) {
+            if (expected.contains(ids[i])) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        VectorMath.normalize(vector);
+        return vector;
+    }
+
+    private static float[] noisyCopy(float[] vector, Random random) {
+        float[] query = vector.clone();
+        for (int i = 0; i < query.length; i++) {
+            query[i] += (float) (random.nextGaussian() * 0.02);
+        }
+        VectorMath.normalize(query);
+        return query;
+    }
+}
@@ -0,0 +1,85 @@
+package com.databaseai.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MicroBatcherTest {
+
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+    private MicroBatcher<String, String> batcher;
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    /**
+     * Upper-cases the batch; any batch containing "bad" is rejected as a whole
+     */
+    private CompletionStage<List<String>> upperCase(List<String> items) {
+        calls.add(List.copyOf(items));
+        if (items.contains("bad")) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("invalid input: bad"));
+        }
+        return CompletableFuture.completedFuture(items.stream().map(String::toUpperCase).collect(Collectors.toList()));
+    }
+
+    @Test
+    void onlyTheBadItemFailsWhenItemsAreRetriedSeparately() {
+        batcher = new MicroBatcher<>("test", 3, 1000, item -> 0, Long.MAX_VALUE, this::upperCase,
+                error -> error instanceof IllegalArgumentException, Executors.defaultThreadFactory());
+
+        CompletableFuture<String> first = batcher.submit("a");
+        CompletableFuture<String> bad = batcher.submit("bad");
+        CompletableFuture<String> last = batcher.submit("c");
+
+        assertEquals("A", first.join());
+        assertEquals("C", last.join());
+        CompletionException error = assertThrows(CompletionException.class, bad::join);
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertEquals(List.of(List.of("a", "bad", "c"), List.of("a"), List.of("bad"), List.of("c")), calls);
+    }
+
+    @Test
+    void otherErrorsFailTheWholeBatch() {
+        batcher = new MicroBatcher<>("test", 2, 1000, item -> 0, Long.MAX_VALUE, this::upperCase,
+                error -> false, Executors.defaultThreadFactory());
+
+        CompletableFuture<String> good = batcher.submit("a");
+        CompletableFuture<String> bad = batcher.submit("bad");
+
+        assertThrows(CompletionException.class, good::join);
+        assertThrows(CompletionException.class, bad::join);
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    void batchesStayUnderTheWeightLimit() {
+        // Weight = length; at most 5 per batch, a heavier item goes alone
+        batcher = new MicroBatcher<>("test", 10, 50, String::length, 5, this::upperCase,
+                error -> false, Executors.defaultThreadFactory());
+
+        List<CompletableFuture<String>> futures = List.of("aa", "bb", "cc", "dddddddd", "e").stream()
+                .map(batcher::submit)
+                .collect(Collectors.toList());
+        futures.forEach(CompletableFuture::join);
+
+        // Batches run concurrently, so only their contents are deterministic
+        assertEquals(4, calls.size());
+        assertEquals(Set.of(List.of("aa", "bb"), List.of("cc"), List.of("dddddddd"), List.of("e")), Set.copyOf(calls));
+    }
+}
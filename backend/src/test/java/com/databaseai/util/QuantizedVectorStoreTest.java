@@ -0,0 +1,131 @@
+package com.databaseai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Quantized candidate search: memory and recall@k against the exact float scan
+ * (candidate search speed: QuantizedVectorStoreBenchmark, mvn -Pbenchmark test-compile exec:exec)
+ *
+ * Variants (as used by SchemaVectorIndex):
+ * - int8: int8 candidates only, no re-ranking
+ * - int8+rerank: k * oversample int8 candidates, re-ranked exactly
+ * - binary+int8+rerank: Hamming prefilter, then int8, then exact re-ranking
+ */
+class QuantizedVectorStoreTest {
+
+    private static final int DIMENSION = 256;
+    private static final int VECTORS = 2000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+    private static final int OVERSAMPLE = 4;
+
+    @Test
+    void recallAgainstExactScan() {
+        Random random = new Random(7);
+        float[][] vectors = new float[VECTORS][];
+        QuantizedVectorStore int8 = new QuantizedVectorStore(DIMENSION, false, 4);
+        QuantizedVectorStore binary = new QuantizedVectorStore(DIMENSION, true, 4);
+        for (int i = 0; i < VECTORS; i++) {
+            vectors[i] = randomUnitVector(random);
+            int8.add(i, vectors[i]);
+            binary.add(i, vectors[i]);
+        }
+
+        int candidateCount = K * OVERSAMPLE;
+        long[] candidateIds = new long[candidateCount];
+        float[] candidateScores = new float[candidateCount];
+        long[] exactIds = new long[K];
+        long hitsInt8 = 0;
+        long hitsInt8Rerank = 0;
+        long hitsBinaryRerank = 0;
+
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = vectors[random.nextInt(VECTORS)].clone();
+            for (int i = 0; i < query.length; i++) {
+                query[i] += (float) (random.nextGaussian() * 0.02);
+            }
+            VectorMath.normalize(query);
+            topK(vectors, query, null, VECTORS, exactIds);
+
+            int found = int8.candidates(query, candidateCount, candidateIds, candidateScores);
+            hitsInt8 += HnswIndexTest.countHits(candidateIds, Math.min(found, K), exactIds);
+            hitsInt8Rerank += HnswIndexTest.countHits(rerank(vectors, query, candidateIds, found), K, exactIds);
+
+            found = binary.candidates(query, candidateCount, candidateIds, candidateScores);
+            hitsBinaryRerank += HnswIndexTest.countHits(rerank(vectors, query, candidateIds, found), K, exactIds);
+        }
+
+        long total = (long) QUERIES * K;
+        double recallInt8 = (double) hitsInt8 / total;
+        double recallInt8Rerank = (double) hitsInt8Rerank / total;
+        double recallBinaryRerank = (double) hitsBinaryRerank / total;
+        assertTrue(recallInt8Rerank >= recallInt8, "re-ranking lowered recall@10 from " + recallInt8);
+        assertTrue(recallInt8Rerank >= 0.95, "int8+rerank recall@10 was " + recallInt8Rerank);
+        // Random vectors are the worst case for sign bits; real embeddings do better
+        assertTrue(recallBinaryRerank >= 0.7, "binary+int8+rerank recall@10 was " + recallBinaryRerank);
+        assertTrue(int8.memoryBytes() < (long) VECTORS * DIMENSION * Float.BYTES / 3);
+    }
+
+    @Test
+    void removedVectorsAreNotCandidates() {
+        Random random = new Random(9);
+        QuantizedVectorStore store = new QuantizedVectorStore(DIMENSION, true, 4);
+        float[] first = randomUnitVector(random);
+        store.add(1, first);
+        for (int i = 2; i <= 50; i++) {
+            store.add(i, randomUnitVector(random));
+        }
+
+        assertTrue(store.remove(1));
+        assertFalse(store.remove(1));
+        assertEquals(49, store.size());
+
+        long[] ids = new long[50];
+        int found = store.candidates(first, 50, ids, new float[50]);
+        for (int i = 0; i < found; i++) {
+            assertTrue(ids[i] != 1, "removed vector returned");
+        }
+    }
+
+    /**
+     * Exact re-ranking of quantized candidates
+     */
+    private static long[] rerank(float[][] vectors, float[] query, long[] candidateIds, int count) {
+        long[] best = new long[K];
+        int found = topK(vectors, query, candidateIds, count, best);
+        return found == K ? best : Arrays.copyOf(best, found);
+    }
+
+    /**
+     * Exact top K among the given IDs (all vectors when ids is null)
+     */
+    private static int topK(float[][] vectors, float[] query, long[] ids, int count, long[] outIds) {
+        TopKHeap heap = new TopKHeap(Math.min(K, count));
+        for (int i = 0; i < count; i++) {
+            int id = ids == null ? i : (int) ids[i];
+            heap.offer(i, VectorMath.dot(vectors[id], 0, query));
+        }
+        int[] best = new int[heap.size()];
+        heap.sortDescending(best, new float[best.length]);
+        for (int i = 0; i < best.length; i++) {
+            outIds[i] = ids == null ? best[i] : ids[best[i]];
+        }
+        return best.length;
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        VectorMath.normalize(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,83 @@
+package com.databaseai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Dot-product kernels: correctness
+ *
+ * The SIMD kernel is only checked with the "simd" profile (mvn -Psimd test).
+ * Their speed is compared by VectorMathBenchmark (mvn -Pbenchmark test-compile exec:exec).
+ */
+class VectorMathTest {
+
+    private static final int DIMENSION = 1536;
+
+    @Test
+    void scalarDotMatchesReferenceForLengthsNotMultipleOfFour() {
+        Random random = new Random(1);
+        for (int length : new int[]{1, 3, 4, 7, 1535, 1536}) {
+            float[] a = randomVector(random, length + 2);
+            float[] b = randomVector(random, length);
+
+            double expected = 0;
+            for (int i = 0; i < length; i++) {
+                expected += (double) a[i + 2] * b[i];
+            }
+            assertEquals(expected, VectorMath.scalarDot(a, 2, b, 0, length), 1e-4);
+        }
+    }
+
+    @Test
+    void normalizedVectorsHaveUnitSelfSimilarity() {
+        float[] vector = randomVector(new Random(2), DIMENSION);
+        VectorMath.normalize(vector);
+        assertEquals(1.0f, VectorMath.dot(vector, 0, vector), 1e-4f);
+    }
+
+    @Test
+    void activeKernelMatchesScalarDot() {
+        Random random = new Random(3);
+        for (int length : new int[]{1, 5, 8, 17, 1536}) {
+            float[] a = randomVector(random, length);
+            float[] b = randomVector(random, length);
+            float expected = VectorMath.scalarDot(a, 0, b, 0, length);
+            assertEquals(expected, VectorMath.dot(a, 0, b, 0, length), 1e-3f);
+            if (VectorMath.isSimdEnabled()) {
+                assertEquals(expected, VectorMath.simdDot(a, 0, b, 0, length), 1e-3f);
+            }
+        }
+    }
+
+    @Test
+    void dotOfNormalizedVectorsEqualsCosine() {
+        Random random = new Random(11);
+        float[] a = randomVector(random, DIMENSION);
+        float[] b = randomVector(random, DIMENSION);
+
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < DIMENSION; i++) {
+            dot += (double) a[i] * b[i];
+            normA += (double) a[i] * a[i];
+            normB += (double) b[i] * b[i];
+        }
+        double cosine = dot / (Math.sqrt(normA) * Math.sqrt(normB));
+
+        VectorMath.normalize(a);
+        VectorMath.normalize(b);
+        assertEquals(cosine, VectorMath.dot(a, 0, b), 1e-4);
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -46,12 +46,33 @@ export interface QueryExecutionRequest {
   sqlQuery: string;
   timeoutSeconds?: number;
   clientRequestId?: string;
+  resultFormat?: 'rows' | 'columnar';
+}
+
+// Columnar query result (resultFormat = 'columnar')
+export interface ColumnarColumn {
+  name: string;
+  sqlType: string;
+  encoding: 'LONG' | 'DOUBLE' | 'DECIMAL' | 'BOOLEAN' | 'DICTIONARY';
+  scale?: number;
+  longValues?: number[];
+  doubleValues?: number[];
+  booleanValues?: boolean[];
+  dictionary?: string[];
+  codes?: number[];
+  nullRows?: number[];
+}
+
+export interface ColumnarResult {
+  rowCount: number;
+  columns: ColumnarColumn[];
 }
 
 // Query Execution Response
 export interface QueryExecutionResponse {
   success: boolean;
   rows: Record<string, any>[];
+  columnar?: ColumnarResult;
   columns: string[];
   rowCount: number;
   executionTimeMs: number;